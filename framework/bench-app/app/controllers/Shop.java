@@ -0,0 +1,33 @@
+package controllers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import models.Order;
+import models.Product;
+import play.mvc.Controller;
+
+public class Shop extends Controller {
+
+    public static final List<Product> catalog = new ArrayList<>();
+
+    static {
+        for (long i = 1; i <= 50; i++) {
+            catalog.add(new Product(i, i % 2 == 0 ? "books" : "music", "Product " + i, BigDecimal.valueOf(i * 250, 2)));
+        }
+    }
+
+    public static void index() {
+        List<Product> products = catalog;
+        render(products);
+    }
+
+    public static void product(String category, Long id) {
+        renderText(category + "/" + id);
+    }
+
+    public static void order(Order order) {
+        renderText(order.customer.name + " " + order.lines.size());
+    }
+}
@@ -0,0 +1,29 @@
+package models;
+
+import java.util.Date;
+import java.util.List;
+
+public class Order {
+
+    public Customer customer;
+    public List<Line> lines;
+    public Date deliveryDate;
+    public String notes;
+
+    public static class Customer {
+        public String name;
+        public String email;
+        public Address address;
+    }
+
+    public static class Address {
+        public String street;
+        public String zip;
+        public String city;
+    }
+
+    public static class Line {
+        public Long product;
+        public int quantity;
+    }
+}
@@ -0,0 +1,18 @@
+package models;
+
+import java.math.BigDecimal;
+
+public class Product {
+
+    public Long id;
+    public String category;
+    public String name;
+    public BigDecimal price;
+
+    public Product(Long id, String category, String name, BigDecimal price) {
+        this.id = id;
+        this.category = category;
+        this.name = name;
+        this.price = price;
+    }
+}
@@ -0,0 +1,101 @@
+package play.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.Invoker;
+import play.Invoker.InvocationContext;
+import play.mvc.ActionInvoker;
+import play.mvc.Http;
+import play.mvc.Router;
+
+/**
+ * A whole invocation, as run by the server on its invoker thread: routing,
+ * scopes, binding, the action and its result
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionInvokerBenchmark {
+
+    static final byte[] ORDER_FORM = BenchApplication.orderForm(20).getBytes(StandardCharsets.UTF_8);
+
+    static class ActionInvocation extends Invoker.Invocation {
+
+        final Http.Request request;
+        final Http.Response response;
+
+        ActionInvocation(Http.Request request) {
+            this.request = request;
+            this.response = Http.Response.current();
+        }
+
+        @Override
+        public boolean init() {
+            Router.routeOnlyStatic(request);
+            return super.init();
+        }
+
+        @Override
+        public InvocationContext getInvocationContext() {
+            ActionInvoker.resolve(request);
+            return new InvocationContext(Http.invocationType, request.invokedMethod.getAnnotations(),
+                    request.invokedMethod.getDeclaringClass().getAnnotations());
+        }
+
+        @Override
+        public void execute() throws Exception {
+            ActionInvoker.invoke(request, response);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        BenchApplication.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    private static ByteArrayOutputStream invoke(Http.Request request) {
+        ActionInvocation invocation = new ActionInvocation(request);
+        invocation.run();
+        if (invocation.response.status != 200) {
+            throw new IllegalStateException(request.method + " " + request.url + " returned " + invocation.response.status);
+        }
+        return (ByteArrayOutputStream) invocation.response.out;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream renderText() {
+        return invoke(BenchApplication.request("GET", "/products/books/42", null, null));
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream renderTemplate() {
+        return invoke(BenchApplication.request("GET", "/", null, null));
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream bindForm() {
+        return invoke(BenchApplication.request("POST", "/orders", "application/x-www-form-urlencoded", ORDER_FORM));
+    }
+}
@@ -0,0 +1,166 @@
+package play.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Stream;
+
+import play.Invoker;
+import play.Play;
+import play.mvc.Http;
+import play.mvc.Scope;
+import play.utils.PThreadFactory;
+
+/**
+ * The fixture application shared by the benchmarks.
+ *
+ * The application in bench-app (or -Dbench.app) is copied to a temporary
+ * directory, a large routes file is generated in front of its own routes, and
+ * it is started in-process in PROD mode, the same way the server does.
+ */
+public class BenchApplication {
+
+    /**
+     * Number of generated routes placed before the application routes
+     */
+    public static final int GENERATED_ROUTES = 300;
+
+    private static Path root;
+
+    public static synchronized void start() {
+        if (Play.started) {
+            return;
+        }
+        try {
+            if (root == null) {
+                root = copy(new File(System.getProperty("bench.app", "bench-app")).toPath());
+                generateRoutes(root.resolve("conf/routes"));
+                Runtime.getRuntime().addShutdownHook(new Thread(BenchApplication::delete));
+            }
+            if (Invoker.executor == null || Invoker.executor.isShutdown()) {
+                Invoker.executor = new ScheduledThreadPoolExecutor(Runtime.getRuntime().availableProcessors() + 1,
+                        new PThreadFactory("play"), new ThreadPoolExecutor.AbortPolicy());
+            }
+            Play.init(root.toFile(), System.getProperty("play.id", ""));
+            if (!Play.started) {
+                throw new IllegalStateException("The benchmark application did not start, see the logs");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stop the application and its thread pools, so that the forked JVM can
+     * exit
+     */
+    public static synchronized void stop() {
+        Play.stop();
+        Invoker.executor.shutdownNow();
+    }
+
+    /**
+     * A request as the server would create it, bound to the current thread with
+     * its response and scopes
+     */
+    public static Http.Request request(String method, String url, String contentType, byte[] body) {
+        String path = url;
+        String querystring = "";
+        int question = url.indexOf('?');
+        if (question >= 0) {
+            path = url.substring(0, question);
+            querystring = url.substring(question + 1);
+        }
+        Map<String, Http.Header> headers = new HashMap<>();
+        headers.put("host", new Http.Header("host", "localhost:9000"));
+        if (contentType != null) {
+            headers.put("content-type", new Http.Header("content-type", contentType));
+        }
+        Http.Request request = Http.Request.createRequest("127.0.0.1", method, path, querystring, contentType,
+                new ByteArrayInputStream(body == null ? new byte[0] : body), url, "localhost", false, 9000, "localhost", false,
+                headers, new HashMap<String, Http.Cookie>());
+        Http.Request.current.set(request);
+        Http.Response response = new Http.Response();
+        response.out = new ByteArrayOutputStream();
+        Http.Response.current.set(response);
+        Scope.RenderArgs.current.set(new Scope.RenderArgs());
+        Scope.Params.current.set(request.params);
+        return request;
+    }
+
+    /**
+     * A nested order form, as posted by a browser
+     */
+    public static String orderForm(int lines) {
+        StringBuilder form = new StringBuilder();
+        form.append("order.customer.name=Jane+Doe&order.customer.email=jane%40example.com");
+        form.append("&order.customer.address.street=12+rue+de+la+Paix&order.customer.address.zip=75002");
+        form.append("&order.customer.address.city=Paris&order.deliveryDate=2017-06-01&order.notes=Leave+at+the+door");
+        for (int i = 0; i < lines; i++) {
+            form.append("&order.lines[").append(i).append("].product=").append(1000 + i);
+            form.append("&order.lines[").append(i).append("].quantity=").append(i % 5 + 1);
+        }
+        return form.toString();
+    }
+
+    /**
+     * The same order as {@link #orderForm(int)}, as a JSON body
+     */
+    public static String orderJson(int lines) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"order\": {\"customer\": {\"name\": \"Jane Doe\", \"email\": \"jane@example.com\", ");
+        json.append("\"address\": {\"street\": \"12 rue de la Paix\", \"zip\": \"75002\", \"city\": \"Paris\"}}, ");
+        json.append("\"deliveryDate\": \"2017-06-01\", \"notes\": \"Leave at the door\", \"lines\": [");
+        for (int i = 0; i < lines; i++) {
+            json.append(i == 0 ? "" : ", ").append("{\"product\": ").append(1000 + i).append(", \"quantity\": ").append(i % 5 + 1)
+                    .append("}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    private static void generateRoutes(Path routes) throws IOException {
+        StringBuilder generated = new StringBuilder("# Generated by BenchApplication\n");
+        String[] methods = { "GET", "POST", "PUT", "DELETE" };
+        for (int i = 0; i < GENERATED_ROUTES; i++) {
+            generated.append(methods[i % methods.length]).append("    /api/v").append(i % 3 + 1).append("/section").append(i)
+                    .append("/{id}/items/{<[a-z0-9-]+>slug}    Admin.section").append(i).append('\n');
+        }
+        generated.append('\n').append(new String(Files.readAllBytes(routes), StandardCharsets.UTF_8));
+        Files.write(routes, generated.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Path copy(Path source) throws IOException {
+        if (!Files.isDirectory(source)) {
+            throw new IOException("Benchmark application not found: " + source.toAbsolutePath());
+        }
+        Path target = Files.createTempDirectory("play-bench");
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path copy = target.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(file, copy);
+                }
+            }
+        }
+        return target;
+    }
+
+    private static void delete() {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            // Left in the temporary directory
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package play.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.Play;
+import play.data.binding.Binder;
+import play.data.binding.ParamNode;
+import play.data.binding.RootParamNode;
+import play.data.parsing.UrlEncodedParser;
+
+/**
+ * Binding a nested form (an order with its customer, address and 20 lines) to
+ * an application class
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinderBenchmark {
+
+    private Class<?> orderClass;
+    private Map<String, String[]> params;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchApplication.start();
+        BenchApplication.request("POST", "/orders", "application/x-www-form-urlencoded", null);
+        orderClass = Play.classloader.loadClass("models.Order");
+        params = UrlEncodedParser.parse(BenchApplication.orderForm(20));
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    @Benchmark
+    public RootParamNode convert() {
+        return ParamNode.convert(params);
+    }
+
+    @Benchmark
+    public Object bind() {
+        RootParamNode root = ParamNode.convert(params);
+        return Binder.bind(root, "order", orderClass, orderClass, null);
+    }
+}
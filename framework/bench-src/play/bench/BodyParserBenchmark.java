@@ -0,0 +1,92 @@
+package play.bench;
+
+import java.io.ByteArrayInputStream;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.Play;
+import play.data.binding.JsonBinder;
+import play.data.parsing.JsonParser;
+import play.data.parsing.TextParser;
+import play.data.parsing.UrlEncodedParser;
+
+/**
+ * Parsing the same order posted as a form and as JSON. The JSON order is also
+ * bound, by JsonParser and the JsonBinder, and by the TextParser and Gson as
+ * actions did before JSON bodies were bound.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BodyParserBenchmark {
+
+    private byte[] form;
+    private byte[] json;
+    private Class<?> orderClass;
+    private String[] names;
+    private Class<?>[] types;
+    private Annotation[][] annotations;
+    private Gson gson;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchApplication.start();
+        BenchApplication.request("POST", "/orders", "application/x-www-form-urlencoded", null);
+        form = BenchApplication.orderForm(20).getBytes(StandardCharsets.UTF_8);
+        json = BenchApplication.orderJson(20).getBytes(StandardCharsets.UTF_8);
+        orderClass = Play.classloader.loadClass("models.Order");
+        names = new String[] { "order" };
+        types = new Class<?>[] { orderClass };
+        annotations = new Annotation[1][0];
+        gson = new GsonBuilder().setDateFormat("yyyy-MM-dd").create();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    @Benchmark
+    public Map<String, String[]> urlEncoded() {
+        return new UrlEncodedParser().parse(new ByteArrayInputStream(form));
+    }
+
+    @Benchmark
+    public Map<String, String[]> json() {
+        return new JsonParser().parse(new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    public Object jsonBound() {
+        String body = new JsonParser().parse(new ByteArrayInputStream(json)).get("body")[0];
+        return JsonBinder.bind(body, names, types, types, annotations)[0];
+    }
+
+    @Benchmark
+    public Object textParserAndGson() {
+        String body = new TextParser().parse(new ByteArrayInputStream(json)).get("body")[0];
+        JsonObject request = gson.fromJson(body, JsonObject.class);
+        return gson.fromJson(request.get("order"), orderClass);
+    }
+}
@@ -0,0 +1,92 @@
+package play.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.Play;
+import play.server.HttpCompression;
+import play.templates.TemplateLoader;
+
+/**
+ * The CPU spent compressing the page of TemplateBenchmark, at each compression
+ * level, against the bytes it saves (printed at setup)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({ "1", "6", "9" })
+    public int level;
+
+    private byte[] page;
+    private HttpCompression compression;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchApplication.start();
+        BenchApplication.request("GET", "/", null, null);
+        Map<String, Object> args = new HashMap<>();
+        args.put("products", (List<?>) Play.classloader.loadClass("controllers.Shop").getField("catalog").get(null));
+        page = TemplateLoader.load("Shop/index.html").render(args).getBytes(StandardCharsets.UTF_8);
+
+        Properties configuration = new Properties();
+        configuration.setProperty("play.netty.compression", "true");
+        configuration.setProperty("play.netty.compression.level", String.valueOf(level));
+        compression = new HttpCompression(configuration);
+
+        int gzip = compression.compress(page, HttpCompression.GZIP).length;
+        System.out.printf("%nLevel %d: %d bytes gzipped to %d (%d%% saved)%n", level, page.length, gzip, 100 - gzip * 100 / page.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    @Benchmark
+    public byte[] gzip() {
+        return compression.compress(page, HttpCompression.GZIP);
+    }
+
+    @Benchmark
+    public byte[] deflate() {
+        return compression.compress(page, HttpCompression.DEFLATE);
+    }
+
+    /**
+     * The page written in 10 chunks, each one flushed to the client
+     */
+    @Benchmark
+    public int gzipChunked() {
+        HttpCompression.Compressor compressor = compression.compressor(HttpCompression.GZIP);
+        int length = 0;
+        int chunk = page.length / 10 + 1;
+        for (int offset = 0; offset < page.length; offset += chunk) {
+            byte[] bytes = new byte[Math.min(chunk, page.length - offset)];
+            System.arraycopy(page, offset, bytes, 0, bytes.length);
+            length += compressor.compress(bytes, true).length;
+        }
+        return length + compressor.finish().length;
+    }
+}
@@ -0,0 +1,87 @@
+package play.bench;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.Play;
+import play.mvc.Before;
+import play.utils.Java;
+
+/**
+ * What every invocation goes through before its action, from many threads at
+ * once: the change detection, the started check and the interceptor lookup.
+ * None of it should serialize the invoker threads in PROD.
+ *
+ * The *WithGlobalLock variants are the baseline: they take the monitors the
+ * invocations used to go through (the Play class monitor of the synchronized
+ * detectChanges, and the lock of the annotated method cache), so both show
+ * in the same report.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+public class InvocationInitBenchmark {
+
+    /**
+     * Stands for the lock the annotated method cache of play.utils.Java used
+     * to take on every lookup
+     */
+    private static final Object annotatedMethodsLock = new Object();
+
+    Class<?> controller;
+
+    @Setup
+    public void setUp() throws ClassNotFoundException {
+        BenchApplication.start();
+        controller = Play.classloader.loadClass("controllers.Shop");
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    @Benchmark
+    public boolean init() {
+        Play.detectChanges();
+        return Play.started;
+    }
+
+    @Benchmark
+    public boolean initWithGlobalLock() {
+        synchronized (Play.class) {
+            Play.detectChanges();
+        }
+        return Play.started;
+    }
+
+    @Benchmark
+    public List<Method> interceptors() {
+        return Java.findAllAnnotatedMethods(controller, Before.class);
+    }
+
+    @Benchmark
+    public List<Method> interceptorsWithGlobalLock() {
+        synchronized (annotatedMethodsLock) {
+            return Java.findAllAnnotatedMethods(controller, Before.class);
+        }
+    }
+}
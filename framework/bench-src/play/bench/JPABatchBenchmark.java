@@ -0,0 +1,100 @@
+package play.bench;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.Play;
+import play.db.jpa.GenericModel;
+import play.db.jpa.JPA;
+import play.db.jpa.JPABase;
+
+/**
+ * The rows inserted per second in an in-memory H2 database, saved one by one
+ * (each save flushed on its own) against Model.saveAll (flushed every
+ * db.batchSize saves, the inserts sent as JDBC batches)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JPABatchBenchmark {
+
+    static final int ROWS = 500;
+
+    private Class<?> stock;
+    private Field sku;
+    private Field quantity;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchApplication.start();
+        stock = Play.classloader.loadClass("models.Stock");
+        sku = stock.getField("sku");
+        quantity = stock.getField("quantity");
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    @Setup(Level.Invocation)
+    public void begin() {
+        JPA.startTx(JPA.DEFAULT, false);
+    }
+
+    /**
+     * Rolled back, so that each invocation inserts in the same empty table
+     */
+    @TearDown(Level.Invocation)
+    public void end() {
+        JPA.rollbackTx(JPA.DEFAULT);
+    }
+
+    private List<JPABase> rows() throws Exception {
+        List<JPABase> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            JPABase row = (JPABase) stock.newInstance();
+            sku.set(row, "SKU-" + i);
+            quantity.set(row, i);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<JPABase> saveEach() throws Exception {
+        List<JPABase> rows = rows();
+        for (JPABase row : rows) {
+            row._save();
+        }
+        return rows;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<JPABase> saveAll() throws Exception {
+        List<JPABase> rows = rows();
+        GenericModel.saveAll(rows);
+        return rows;
+    }
+}
@@ -0,0 +1,59 @@
+package play.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.i18n.Lang;
+import play.i18n.Messages;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessagesBenchmark {
+
+    @Setup
+    public void setUp() {
+        BenchApplication.start();
+        BenchApplication.request("GET", "/", null, null);
+        Lang.set("fr");
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    @Benchmark
+    public String get() {
+        return Messages.get("shop.title");
+    }
+
+    @Benchmark
+    public String getWithArguments() {
+        return Messages.get("shop.order.confirmed", "Jane Doe", 20);
+    }
+
+    @Benchmark
+    public String getOtherLocale() {
+        return Messages.getMessage("en", "shop.footer", 50);
+    }
+
+    @Benchmark
+    public String getMissing() {
+        return Messages.get("shop.unknown");
+    }
+}
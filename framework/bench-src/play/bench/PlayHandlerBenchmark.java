@@ -0,0 +1,155 @@
+package play.bench;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.AbstractChannel;
+import org.jboss.netty.channel.AbstractChannelSink;
+import org.jboss.netty.channel.ChannelConfig;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelSink;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.DefaultChannelConfig;
+import org.jboss.netty.channel.MessageEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.server.HttpServerPipelineFactory;
+
+/**
+ * End to end requests: raw HTTP bytes go through the server pipeline (decoder,
+ * PlayHandler, invoker thread pool, encoder) of an in-memory channel, and the
+ * benchmark waits for the encoded response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayHandlerBenchmark {
+
+    static final InetSocketAddress CLIENT = new InetSocketAddress(InetAddress.getLoopbackAddress(), 54321);
+    static final InetSocketAddress SERVER = new InetSocketAddress(InetAddress.getLoopbackAddress(), 9000);
+
+    static final String HEADERS = "Host: localhost:9000\r\n" + "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:54.0) Gecko/20100101 Firefox/54.0\r\n"
+            + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n" + "Accept-Language: fr-FR,fr;q=0.8,en;q=0.5\r\n"
+            + "Accept-Encoding: gzip, deflate\r\n" + "Connection: keep-alive\r\n";
+
+    /**
+     * A connected channel that keeps what is written to it
+     */
+    static class BenchChannel extends AbstractChannel {
+
+        private final ChannelConfig config = new DefaultChannelConfig();
+
+        BenchChannel(ChannelPipeline pipeline, ChannelSink sink) {
+            super(null, null, pipeline, sink);
+        }
+
+        @Override
+        public ChannelConfig getConfig() {
+            return config;
+        }
+
+        @Override
+        public boolean isBound() {
+            return true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() {
+            return SERVER;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return CLIENT;
+        }
+    }
+
+    private final BlockingQueue<ChannelBuffer> responses = new LinkedBlockingQueue<>();
+    private BenchChannel channel;
+    private byte[] text;
+    private byte[] template;
+    private byte[] form;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchApplication.start();
+        ChannelSink sink = new AbstractChannelSink() {
+            @Override
+            public void eventSunk(ChannelPipeline pipeline, ChannelEvent e) {
+                if (e instanceof MessageEvent && ((MessageEvent) e).getMessage() instanceof ChannelBuffer) {
+                    responses.offer((ChannelBuffer) ((MessageEvent) e).getMessage());
+                }
+                e.getFuture().setSuccess();
+            }
+        };
+        channel = new BenchChannel(new HttpServerPipelineFactory().getPipeline(), sink);
+
+        text = ("GET /products/books/42 HTTP/1.1\r\n" + HEADERS + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        template = ("GET / HTTP/1.1\r\n" + HEADERS + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        String body = BenchApplication.orderForm(20);
+        form = ("POST /orders HTTP/1.1\r\n" + HEADERS + "Content-Type: application/x-www-form-urlencoded\r\n" + "Content-Length: "
+                + body.length() + "\r\n\r\n" + body).getBytes(StandardCharsets.ISO_8859_1);
+
+        for (byte[] request : new byte[][] { text, template, form }) {
+            String response = exchange(request).toString(StandardCharsets.ISO_8859_1);
+            if (!response.startsWith("HTTP/1.1 200")) {
+                throw new IllegalStateException("Unexpected response:\n" + response);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    private ChannelBuffer exchange(byte[] request) throws InterruptedException {
+        Channels.fireMessageReceived(channel, ChannelBuffers.wrappedBuffer(request), CLIENT);
+        ChannelBuffer response = responses.poll(10, TimeUnit.SECONDS);
+        if (response == null) {
+            throw new IllegalStateException("No response after 10s");
+        }
+        return response;
+    }
+
+    @Benchmark
+    public ChannelBuffer renderText() throws InterruptedException {
+        return exchange(text);
+    }
+
+    @Benchmark
+    public ChannelBuffer renderTemplate() throws InterruptedException {
+        return exchange(template);
+    }
+
+    @Benchmark
+    public ChannelBuffer bindForm() throws InterruptedException {
+        return exchange(form);
+    }
+}
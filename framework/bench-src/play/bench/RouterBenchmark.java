@@ -0,0 +1,72 @@
+package play.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.mvc.Http;
+import play.mvc.Router;
+import play.mvc.results.NotFound;
+
+/**
+ * Route matching and reverse routing, with the application routes placed
+ * after {@link BenchApplication#GENERATED_ROUTES} other routes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterBenchmark {
+
+    private Http.Request product;
+    private Http.Request missing;
+    private Map<String, Object> reverseArgs;
+
+    @Setup
+    public void setUp() {
+        BenchApplication.start();
+        product = BenchApplication.request("GET", "/products/books/42", null, null);
+        missing = BenchApplication.request("GET", "/missing/page/here", null, null);
+        reverseArgs = new HashMap<>();
+        reverseArgs.put("category", "books");
+        reverseArgs.put("id", 42L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    @Benchmark
+    public Router.Route route() {
+        return Router.route(product);
+    }
+
+    @Benchmark
+    public Object routeNotFound() {
+        try {
+            return Router.route(missing);
+        } catch (NotFound e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Router.ActionDefinition reverse() {
+        return Router.reverse("Shop.product", new HashMap<>(reverseArgs));
+    }
+}
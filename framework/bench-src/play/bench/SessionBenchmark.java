@@ -0,0 +1,81 @@
+package play.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.Play;
+import play.libs.Crypto;
+import play.mvc.CookieSessionStore;
+import play.mvc.Http;
+import play.mvc.Scope.Session;
+
+/**
+ * Signing, saving and restoring a session cookie holding a few keys
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionBenchmark {
+
+    private final CookieSessionStore store = new CookieSessionStore();
+    private final String cookieName = play.mvc.Scope.COOKIE_PREFIX + "_SESSION";
+    private Session session;
+    private Http.Cookie cookie;
+    private String data;
+
+    @Setup
+    public void setUp() {
+        BenchApplication.start();
+        session = new Session();
+        session.put("username", "jane.doe@example.com");
+        session.put("userId", 1234567);
+        session.put("roles", "customer,reviewer");
+        session.put("locale", "fr_FR");
+        session.put("cart", "c0a80101-5c2b-4e8f-9f1a-7d3e2b1c0a99");
+        session.put("lastVisit", 1496275200000L);
+        session.put("theme", "dark");
+        session.put("returnTo", "/products/books/42?page=3");
+
+        Http.Request request = BenchApplication.request("GET", "/", null, null);
+        store.save(session);
+        cookie = Http.Response.current().cookies.get(cookieName);
+        request.cookies.put(cookieName, cookie);
+        data = cookie.value.substring(cookie.value.indexOf('-') + 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    @Benchmark
+    public Http.Cookie save() {
+        Http.Response.current().cookies.clear();
+        store.save(session);
+        return Http.Response.current().cookies.get(cookieName);
+    }
+
+    @Benchmark
+    public Session restore() {
+        return store.restore();
+    }
+
+    @Benchmark
+    public String sign() {
+        return Crypto.sign(data, Play.secretKey.getBytes());
+    }
+}
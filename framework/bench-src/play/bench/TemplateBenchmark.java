@@ -0,0 +1,58 @@
+package play.bench;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import play.Play;
+import play.templates.Template;
+import play.templates.TemplateLoader;
+
+/**
+ * Rendering a page that extends a layout and calls a tag for each of its 50
+ * products, with messages and reverse routes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+    private Template template;
+    private List<?> products;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchApplication.start();
+        BenchApplication.request("GET", "/", null, null);
+        template = TemplateLoader.load("Shop/index.html");
+        products = (List<?>) Play.classloader.loadClass("controllers.Shop").getField("catalog").get(null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchApplication.stop();
+    }
+
+    @Benchmark
+    public String render() {
+        Map<String, Object> args = new HashMap<>();
+        args.put("products", products);
+        return template.render(args);
+    }
+}
@@ -0,0 +1,195 @@
+package play;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Hashtable;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.MDC;
+import org.apache.log4j.NDC;
+import org.apache.log4j.spi.LocationInfo;
+import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.ThrowableInformation;
+
+import play.utils.BackgroundWriter;
+import play.utils.RingBuffer;
+
+/**
+ * The asynchronous mode of {@link Logger} (<code>application.log.async=true</code>).
+ *
+ * The request threads only check the level and enqueue the message template
+ * with its arguments in a bounded ring buffer, or the formatted message when an
+ * argument may change before it is formatted. The message of an exception is
+ * built, and its stack trace cleaned, before it is enqueued. A
+ * {@link BackgroundWriter} formats the messages and calls the log4j appenders,
+ * in batches. When the buffer is full,
+ * the logging thread waits for room, or the event is dropped and counted
+ * (<code>application.log.async.overflow=drop</code>).
+ */
+public class AsyncLogger {
+
+    /**
+     * The running async logger, null when logging synchronously
+     */
+    static volatile AsyncLogger current;
+
+    static class Event {
+        org.apache.log4j.Logger logger;
+        Level level;
+        long timestamp;
+        String threadName;
+        String message;
+        Object[] args;
+        Throwable throwable;
+        Logger.CallInfo caller;
+        String ndc;
+        Hashtable<?, ?> mdc;
+    }
+
+    final int capacity;
+    final boolean drop;
+    private final BackgroundWriter<Event> writer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+
+    /**
+     * Start, stop or replace the async logger as configured
+     */
+    public static synchronized void configure(Properties configuration) {
+        boolean async = Boolean.parseBoolean(configuration.getProperty("application.log.async", "false"));
+        int capacity = Integer.parseInt(configuration.getProperty("application.log.async.bufferSize", "8192").trim());
+        boolean drop = "drop".equals(configuration.getProperty("application.log.async.overflow", "block").trim());
+        AsyncLogger running = current;
+        if (running != null && (!async || running.drop != drop || running.capacity != RingBuffer.ceilingPowerOfTwo(capacity))) {
+            current = null;
+            running.stop();
+        }
+        if (async && current == null) {
+            current = new AsyncLogger(capacity, drop);
+        }
+    }
+
+    AsyncLogger(int capacity, boolean drop) {
+        this.writer = new BackgroundWriter<>("play-logger", capacity, 10, AsyncLogger::write);
+        this.capacity = writer.capacity();
+        this.drop = drop;
+        writer.start();
+    }
+
+    /**
+     * Enqueue an event, logged with log4j by the background thread
+     */
+    void log(org.apache.log4j.Logger logger, Level level, Throwable throwable, Logger.CallInfo caller, String message, Object[] args) {
+        Event event = new Event();
+        event.logger = logger;
+        event.level = level;
+        event.timestamp = System.currentTimeMillis();
+        event.threadName = Thread.currentThread().getName();
+        // Cleans the stack trace of the exception, while it is only used by this thread
+        String niceMessage = throwable == null ? null : Logger.niceMessage(throwable, message, args);
+        if (niceMessage != null) {
+            event.message = niceMessage;
+        } else if (immutable(args)) {
+            event.message = message;
+            event.args = args == null || args.length == 0 ? args : args.clone();
+        } else {
+            // Formatted now, with the arguments as they are (dates, Formattable...)
+            event.message = Logger.format(message, args);
+        }
+        event.throwable = throwable;
+        event.caller = caller;
+        event.ndc = NDC.get();
+        Hashtable<?, ?> mdc = MDC.getContext();
+        event.mdc = mdc == null || mdc.isEmpty() ? null : (Hashtable<?, ?>) mdc.clone();
+        // The appenders may log too
+        if (writer.isStopped() || writer.isWriterThread()) {
+            write(event);
+            return;
+        }
+        while (!writer.offer(event)) {
+            if (writer.isStopped()) {
+                write(event);
+                return;
+            }
+            if (drop) {
+                dropped.incrementAndGet();
+                return;
+            }
+            blocked.incrementAndGet();
+            writer.wakeUp();
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    /**
+     * @return true if the arguments cannot change before they are formatted by
+     *         the background thread
+     */
+    static boolean immutable(Object[] args) {
+        if (args == null) {
+            return true;
+        }
+        for (Object arg : args) {
+            if (!(arg == null || arg instanceof String || arg instanceof Integer || arg instanceof Long || arg instanceof Double
+                    || arg instanceof Float || arg instanceof Short || arg instanceof Byte || arg instanceof Boolean || arg instanceof Character
+                    || arg instanceof BigDecimal || arg instanceof BigInteger || arg instanceof Enum || arg instanceof Class
+                    || arg.getClass().getName().startsWith("java.time."))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void write(Event event) {
+        try {
+            String message = Logger.format(event.message, event.args);
+            LocationInfo location = event.caller == null ? null
+                    : new LocationInfo(event.caller.fileName, event.caller.className, event.caller.methodName, String.valueOf(event.caller.lineNumber));
+            event.logger.callAppenders(new LoggingEvent(org.apache.log4j.Logger.class.getName(), event.logger, event.timestamp, event.level, message,
+                    event.threadName, event.throwable == null ? null : new ThrowableInformation(event.throwable), event.ndc, location, event.mdc));
+        } catch (Throwable ex) {
+            Logger.log4j.error("Oops. Error in Logger !", ex);
+        }
+    }
+
+    /**
+     * Stop the background thread, after writing the events left
+     */
+    void stop() {
+        writer.stop();
+    }
+
+    public int size() {
+        return writer.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long written() {
+        return writer.written();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of times a thread waited for room in the buffer
+     */
+    public long blocked() {
+        return blocked.get();
+    }
+
+    /**
+     * @return The running async logger, or null when logging synchronously
+     */
+    public static AsyncLogger get() {
+        return current;
+    }
+}
@@ -1,5 +1,6 @@
 package play;
 
+import play.vfs.FileWatcher;
 import play.vfs.VirtualFile;
 
 /**
@@ -8,9 +9,18 @@ import play.vfs.VirtualFile;
 public class ConfigurationChangeWatcherPlugin extends PlayPlugin {
     protected static long configLastModified = System.currentTimeMillis();
 
+    /**
+     * The changes of the configuration files, or null if they are polled
+     */
+    private static volatile FileWatcher.Changes confChanges;
+
     @Override
     public void onApplicationStart() {
         configLastModified = System.currentTimeMillis();
+        confChanges = FileWatcher.changes("conf", Play.confs);
+        if (confChanges != null) {
+            confChanges.takeModified();
+        }
     }
 
     @Override
@@ -22,6 +32,13 @@ public class ConfigurationChangeWatcherPlugin extends PlayPlugin {
 
     @Override
     public void detectChange() {
+        FileWatcher.Changes changes = confChanges;
+        if (changes != null) {
+            if (!changes.hasChanges()) {
+                return;
+            }
+            changes.takeModified();
+        }
         for (VirtualFile conf : Play.confs) {
             if (conf.lastModified() > configLastModified) {
                 configLastModified = conf.lastModified();
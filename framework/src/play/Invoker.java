@@ -109,6 +109,10 @@ public class Invoker {
         public static final ThreadLocal<InvocationContext> current = new ThreadLocal<>();
         private final List<Annotation> annotations;
         private final String invocationType;
+        /**
+         * The spans of the invocation, when tracing is enabled
+         */
+        Trace trace;
 
         public static InvocationContext current() {
             return current.get();
@@ -160,6 +164,13 @@ public class Invoker {
             return false;
         }
 
+        /**
+         * @return The trace of this invocation, or null if it is not traced
+         */
+        public Trace getTrace() {
+            return trace;
+        }
+
         /**
          * Returns the InvocationType for this invocation - Ie: A plugin can use this to find out if it runs in the
          * context of a background Job
@@ -224,7 +235,9 @@ public class Invoker {
                 }
                 Play.start();
             }
-            InvocationContext.current.set(getInvocationContext());
+            InvocationContext context = getInvocationContext();
+            InvocationContext.current.set(context);
+            Tracer.begin(context, getClass().getName());
             return true;
         }
 
@@ -289,6 +302,7 @@ public class Invoker {
          */
         public void _finally() {
             Play.pluginCollection.invocationFinally();
+            Tracer.end(InvocationContext.current());
             InvocationContext.current.remove();
         }
 
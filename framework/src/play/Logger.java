@@ -2,6 +2,7 @@ package play;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.reflect.Method;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.FileSystemNotFoundException;
@@ -10,6 +11,8 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -217,11 +220,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (recordCaller) {
-                        org.apache.log4j.Logger.getLogger(getCallerClassName()).trace(format(message, args));
-                    } else {
-                        log4j.trace(format(message, args));
-                    }
+                    log4j(org.apache.log4j.Level.TRACE, null, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -244,11 +243,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (recordCaller) {
-                        org.apache.log4j.Logger.getLogger(getCallerClassName()).debug(format(message, args));
-                    } else {
-                        log4j.debug(format(message, args));
-                    }
+                    log4j(org.apache.log4j.Level.DEBUG, null, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -274,13 +269,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (!niceThrowable(org.apache.log4j.Level.DEBUG, e, message, args)) {
-                        if (recordCaller) {
-                            org.apache.log4j.Logger.getLogger(getCallerClassName()).debug(format(message, args), e);
-                        } else {
-                            log4j.debug(format(message, args), e);
-                        }
-                    }
+                    log4j(org.apache.log4j.Level.DEBUG, e, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -303,14 +292,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (recordCaller) {
-                        // TODO: It is expensive to extract caller-info
-                        // we should only do it if we know the message is being
-                        // logged (level)
-                        org.apache.log4j.Logger.getLogger(getCallerClassName()).info(format(message, args));
-                    } else {
-                        log4j.info(format(message, args));
-                    }
+                    log4j(org.apache.log4j.Level.INFO, null, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -336,13 +318,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (!niceThrowable(org.apache.log4j.Level.INFO, e, message, args)) {
-                        if (recordCaller) {
-                            org.apache.log4j.Logger.getLogger(getCallerClassName()).info(format(message, args), e);
-                        } else {
-                            log4j.info(format(message, args), e);
-                        }
-                    }
+                    log4j(org.apache.log4j.Level.INFO, e, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -365,11 +341,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (recordCaller) {
-                        org.apache.log4j.Logger.getLogger(getCallerClassName()).warn(format(message, args));
-                    } else {
-                        log4j.warn(format(message, args));
-                    }
+                    log4j(org.apache.log4j.Level.WARN, null, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -395,13 +367,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (!niceThrowable(org.apache.log4j.Level.WARN, e, message, args)) {
-                        if (recordCaller) {
-                            org.apache.log4j.Logger.getLogger(getCallerClassName()).warn(format(message, args), e);
-                        } else {
-                            log4j.warn(format(message, args), e);
-                        }
-                    }
+                    log4j(org.apache.log4j.Level.WARN, e, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -424,11 +390,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (recordCaller) {
-                        org.apache.log4j.Logger.getLogger(getCallerClassName()).error(format(message, args));
-                    } else {
-                        log4j.error(format(message, args));
-                    }
+                    log4j(org.apache.log4j.Level.ERROR, null, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -454,13 +416,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (!niceThrowable(org.apache.log4j.Level.ERROR, e, message, args)) {
-                        if (recordCaller) {
-                            org.apache.log4j.Logger.getLogger(getCallerClassName()).error(format(message, args), e);
-                        } else {
-                            log4j.error(format(message, args), e);
-                        }
-                    }
+                    log4j(org.apache.log4j.Level.ERROR, e, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -483,11 +439,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (recordCaller) {
-                        org.apache.log4j.Logger.getLogger(getCallerClassName()).fatal(format(message, args));
-                    } else {
-                        log4j.fatal(format(message, args));
-                    }
+                    log4j(org.apache.log4j.Level.FATAL, null, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -513,13 +465,7 @@ public class Logger {
                 }
             } else {
                 try {
-                    if (!niceThrowable(org.apache.log4j.Level.FATAL, e, message, args)) {
-                        if (recordCaller) {
-                            org.apache.log4j.Logger.getLogger(getCallerClassName()).fatal(format(message, args), e);
-                        } else {
-                            log4j.fatal(format(message, args), e);
-                        }
-                    }
+                    log4j(org.apache.log4j.Level.FATAL, e, message, args);
                 } catch (Throwable ex) {
                     log4j.error("Oops. Error in Logger !", ex);
                 }
@@ -531,6 +477,30 @@ public class Logger {
      * If e is a PlayException -> a very clean report
      */
     static boolean niceThrowable(org.apache.log4j.Level level, Throwable e, String message, Object... args) {
+        String niceMessage = niceMessage(e, message, args);
+        if (niceMessage == null) {
+            return false;
+        }
+        try {
+            if (forceJuli || log4j == null) {
+                juli.log(toJuliLevel(level.toString()), niceMessage, e);
+            } else if (recordCaller) {
+                org.apache.log4j.Logger.getLogger(getCallerClassName()).log(level, niceMessage, e);
+            } else {
+                log4j.log(level, niceMessage, e);
+            }
+        } catch (Exception e1) {
+            log4j.error("Oops. Error in Logger !", e1);
+        }
+        return true;
+    }
+
+    /**
+     * Clean the stack trace of an exception, and build its message
+     *
+     * @return The message, or null if e is not an Exception
+     */
+    static String niceMessage(Throwable e, String message, Object... args) {
         if (e instanceof Exception) {
 
             Throwable toClean = e;
@@ -598,21 +568,25 @@ public class Logger {
             } else {
                 sw.append(format(message, args));
             }
-
-            try {
-                if (forceJuli || log4j == null) {
-                    juli.log(toJuliLevel(level.toString()), sw.toString(), e);
-                } else if (recordCaller) {
-                    org.apache.log4j.Logger.getLogger(getCallerClassName(5)).log(level, sw.toString(), e);
-                } else {
-                    log4j.log(level, sw.toString(), e);
-                }
-            } catch (Exception e1) {
-                log4j.error("Oops. Error in Logger !", e1);
-            }
-            return true;
+            return sw.toString();
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * Log with log4j, to the logger of the caller when recordCaller is set, or
+     * through the {@link AsyncLogger} when it runs
+     */
+    private static void log4j(org.apache.log4j.Level level, Throwable e, String message, Object... args) {
+        CallInfo caller = recordCaller ? getCallerInformation() : null;
+        org.apache.log4j.Logger logger = caller == null ? log4j : org.apache.log4j.Logger.getLogger(caller.className);
+        AsyncLogger async = AsyncLogger.current;
+        if (async != null) {
+            async.log(logger, level, e, caller, message, args);
+            return;
+        }
+        String niceMessage = e == null ? null : niceMessage(e, message, args);
+        logger.log(level, niceMessage != null ? niceMessage : format(message, args), e);
     }
 
     /**
@@ -637,6 +611,8 @@ public class Logger {
 
         public String className;
         public String methodName;
+        public String fileName;
+        public int lineNumber = -1;
 
         public CallInfo() {
         }
@@ -645,33 +621,85 @@ public class Logger {
             this.className = className;
             this.methodName = methodName;
         }
+
+        CallInfo(StackTraceElement element) {
+            this(element.getClassName(), element.getMethodName());
+            this.fileName = element.getFileName();
+            this.lineNumber = element.getLineNumber();
+        }
     }
 
     /**
-     * @return the className of the class actually logging the message
+     * The StackWalker of Java 9+ (called by reflection while Play is built for
+     * Java 8), which stops at the caller instead of capturing the whole stack
      */
-    static String getCallerClassName() {
-        int level = 5;
-        return getCallerClassName(level);
+    private static final Object stackWalker;
+    private static final Method walk;
+    private static final Method getClassName;
+    private static final Method toStackTraceElement;
+
+    static {
+        Object walker = null;
+        Method walkMethod = null;
+        Method className = null;
+        Method toElement = null;
+        try {
+            Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+            walker = walkerClass.getMethod("getInstance").invoke(null);
+            walkMethod = walkerClass.getMethod("walk", Function.class);
+            Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+            className = frameClass.getMethod("getClassName");
+            toElement = frameClass.getMethod("toStackTraceElement");
+        } catch (ReflectiveOperationException e) {
+            // Java 8: the stack trace of a Throwable
+        }
+        stackWalker = walker;
+        walk = walkMethod;
+        getClassName = className;
+        toStackTraceElement = toElement;
     }
 
     /**
      * @return the className of the class actually logging the message
      */
-    static String getCallerClassName(int level) {
-        CallInfo ci = getCallerInformation(level);
-        return ci.className;
+    static String getCallerClassName() {
+        return getCallerInformation().className;
+    }
+
+    private static Object invoke(Method method, Object target) {
+        try {
+            return method.invoke(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isLoggerFrame(String className) {
+        return className.equals(Logger.class.getName()) || className.equals(AsyncLogger.class.getName());
     }
 
     /**
-     * Examine stack trace to get caller
-     * @param level method stack depth
-     * @return who called the logger
+     * @return who called the logger: the first frame out of this class
      */
-    static CallInfo getCallerInformation(int level) {
-        StackTraceElement[] callStack = Thread.currentThread().getStackTrace();
-        StackTraceElement caller = callStack[level];
-        return new CallInfo(caller.getClassName(), caller.getMethodName());
+    static CallInfo getCallerInformation() {
+        if (stackWalker != null) {
+            try {
+                Function<Stream<?>, Object> firstCaller = frames -> frames.filter(frame -> !isLoggerFrame((String) invoke(getClassName, frame)))
+                        .findFirst().orElse(null);
+                Object caller = walk.invoke(stackWalker, firstCaller);
+                if (caller != null) {
+                    return new CallInfo((StackTraceElement) toStackTraceElement.invoke(caller));
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Fall back to the stack trace
+            }
+        }
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            if (!isLoggerFrame(element.getClassName())) {
+                return new CallInfo(element);
+            }
+        }
+        return new CallInfo("play", "");
     }
 
     /**
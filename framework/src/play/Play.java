@@ -19,12 +19,14 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import play.cache.Cache;
 import play.classloading.ApplicationClasses;
 import play.classloading.ApplicationClassloader;
+import play.classloading.BytecodeCache;
 import play.deps.DependenciesManager;
 import play.exceptions.PlayException;
 import play.exceptions.RestartNeededException;
@@ -35,6 +37,7 @@ import play.mvc.Router;
 import play.plugins.PluginCollection;
 import play.templates.TemplateLoader;
 import play.utils.OrderSafeProperties;
+import play.vfs.FileWatcher;
 import play.vfs.VirtualFile;
 
 /**
@@ -71,9 +74,9 @@ public class Play {
     public static boolean initialized = false;
 
     /**
-     * Is the application started
+     * Is the application started. It is read by every invocation.
      */
-    public static boolean started = false;
+    public static volatile boolean started = false;
     /**
      * True when the one and only shutdown hook is enabled
      */
@@ -223,6 +226,8 @@ public class Play {
             Logger.setUp(logLevel);
         }
         Logger.recordCaller = Boolean.parseBoolean(configuration.getProperty("application.log.recordCaller", "false"));
+        AsyncLogger.configure(configuration);
+        Tracer.configure(configuration);
 
         Logger.info("Starting %s", root.getAbsolutePath());
 
@@ -506,6 +511,8 @@ public class Play {
                 Logger.setUp(logLevel);
             }
             Logger.recordCaller = Boolean.parseBoolean(configuration.getProperty("application.log.recordCaller", "false"));
+            AsyncLogger.configure(configuration);
+            Tracer.configure(configuration);
 
             // Locales
             langs = new ArrayList<>(Arrays.asList(configuration.getProperty("application.langs", "").split(",")));
@@ -535,6 +542,9 @@ public class Play {
                 }
             }
 
+            // Watch the sources from now on, in DEV mode
+            FileWatcher.changes("java", javaPath);
+
             // Try to load all classes
             Play.classloader.getAllClasses();
 
@@ -598,6 +608,8 @@ public class Play {
             Router.lastLoading = 0L;
             Invoker.resetClassloaders();
         }
+        FileWatcher.shutdown();
+        detectedVersion = -1;
     }
 
     /**
@@ -628,7 +640,12 @@ public class Play {
 
             if (!lazyLoadTemplates) {
                 start = System.currentTimeMillis();
-                TemplateLoader.getAllTemplate();
+                BytecodeCache.startBatch();
+                try {
+                    TemplateLoader.getAllTemplate();
+                } finally {
+                    BytecodeCache.endBatch();
+                }
 
                 if (Logger.isTraceEnabled()) {
                     Logger.trace("%sms to precompile the templates", System.currentTimeMillis() - start);
@@ -642,19 +659,71 @@ public class Play {
         }
     }
 
+    /**
+     * Serializes the change detections in DEV mode
+     */
+    private static final ReentrantLock changesLock = new ReentrantLock();
+    /**
+     * Number of change detections started, and the number of the last one
+     * that completed
+     */
+    private static volatile long detectionsStarted;
+    private static volatile long detectionCompleted;
+    /**
+     * Version of the file watcher at the last complete detection
+     */
+    private static volatile long detectedVersion = -1;
+
     /**
      * Detect sources modifications
+     * 
+     * In PROD mode it returns right away, without taking any lock. In DEV
+     * mode, invocations wait while another one detects changes, and reuse
+     * its result if it started after they arrived. When the application files
+     * are watched (see FileWatcher), nothing is checked until one of them
+     * changes, except by the plugins that detect changes on their own.
      */
-    public static synchronized void detectChanges() {
+    public static void detectChanges() {
         if (mode == Mode.PROD) {
             return;
         }
+        FileWatcher watcher = FileWatcher.get();
+        long version = watcher == null ? -1 : watcher.version();
+        boolean unchanged = version >= 0 && version == detectedVersion && started;
+        if (unchanged && !pluginCollection.hasUnwatchedChangeDetectors()) {
+            return;
+        }
+        long arrival = detectionsStarted;
+        changesLock.lock();
+        try {
+            if (detectionCompleted > arrival) {
+                // Already checked (and reloaded) while this invocation was waiting
+                return;
+            }
+            long detection = ++detectionsStarted;
+            detectChangesNow(unchanged);
+            detectionCompleted = detection;
+            detectedVersion = version;
+        } finally {
+            changesLock.unlock();
+        }
+    }
+
+    /**
+     * @param unchanged
+     *            true if no watched file has changed since the last detection:
+     *            only the plugins are asked
+     */
+    private static void detectChangesNow(boolean unchanged) {
         try {
             pluginCollection.beforeDetectingChanges();
-            if (!pluginCollection.detectClassesChange()) {
+            if (!pluginCollection.detectClassesChange() && !unchanged) {
                 classloader.detectChanges();
             }
-            Router.detectChanges(ctxPath);
+            if (!unchanged) {
+                Router.detectChanges(ctxPath);
+                TemplateLoader.detectChanges();
+            }
             pluginCollection.detectChange();
             if (!Play.started) {
                 throw new RestartNeededException("Not started");
@@ -247,6 +247,10 @@ public abstract class PlayPlugin implements Comparable<PlayPlugin> {
 
     /**
      * It's time for the plugin to detect changes. Throw an exception is the application must be reloaded.
+     * 
+     * When the application files are watched (see play.vfs.FileWatcher), the framework only looks at its own files
+     * after one of them changed, but this hook is still called on each detection. A plugin can watch its files with
+     * FileWatcher.changes().
      */
     public void detectChange() {
     }
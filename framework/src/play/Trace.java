@@ -0,0 +1,189 @@
+package play;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The spans of an invocation, when tracing is enabled (<code>play.trace=true</code>).
+ *
+ * The framework opens a span around the interceptors and the action, the
+ * templates, the JPA statements, the WS calls, the cache reads and the mails.
+ * The application can add its own:
+ *
+ * <pre>
+ * try (Trace.Span span = Trace.start("pricing", product.code)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * When tracing is disabled, or outside of an invocation, {@link #start} returns
+ * a span that records nothing.
+ */
+public class Trace {
+
+    final long id;
+    final long timestamp = System.currentTimeMillis();
+    final String threadName = Thread.currentThread().getName();
+    final Span root;
+    private final int maxSpans;
+    private Span current;
+    private int spans;
+    private int dropped;
+
+    Trace(String name, String detail, int maxSpans) {
+        this.id = ThreadLocalRandom.current().nextLong();
+        this.maxSpans = maxSpans;
+        this.root = new Span(this, null, name, detail);
+        this.current = root;
+    }
+
+    /**
+     * Open a span in the trace of the current invocation. Close it, with
+     * try-with-resources, when the work it measures is done.
+     *
+     * @param name
+     *            What is measured: template, jpa.query, ws, cache.get...
+     * @param detail
+     *            The template name, the SQL, the URL, the key... may be null
+     * @return The span, that records nothing if the invocation is not traced
+     */
+    public static Span start(String name, String detail) {
+        if (Tracer.current == null) {
+            return Span.NOOP;
+        }
+        Trace trace = current();
+        return trace == null ? Span.NOOP : trace.push(name, detail);
+    }
+
+    /**
+     * @return The trace of the current invocation, or null if it is not traced
+     */
+    public static Trace current() {
+        if (Tracer.current == null) {
+            return null;
+        }
+        Invoker.InvocationContext context = Invoker.InvocationContext.current();
+        return context == null ? null : context.trace;
+    }
+
+    private Span push(String name, String detail) {
+        if (root.end != 0) {
+            return Span.NOOP;
+        }
+        if (spans >= maxSpans) {
+            dropped++;
+            return Span.NOOP;
+        }
+        spans++;
+        Span span = new Span(this, current, name, detail);
+        current.add(span);
+        current = span;
+        return span;
+    }
+
+    private void pop(Span span) {
+        span.end = System.nanoTime();
+        if (span.parent != null) {
+            current = span.parent;
+        }
+    }
+
+    public String id() {
+        return String.format("%016x", id);
+    }
+
+    /**
+     * @return The span of the whole invocation
+     */
+    public Span root() {
+        return root;
+    }
+
+    /**
+     * @return The number of spans not recorded, beyond <code>play.trace.maxSpans</code>
+     */
+    public int dropped() {
+        return dropped;
+    }
+
+    /**
+     * @return The duration of the invocation, in nanoseconds, or until now
+     *         if it is running
+     */
+    public long duration() {
+        return root.duration();
+    }
+
+    public static class Span implements AutoCloseable {
+
+        static final Span NOOP = new Span(null, null, null, null);
+
+        final Trace trace;
+        final Span parent;
+        final String name;
+        String detail;
+        final long start = System.nanoTime();
+        volatile long end;
+        private List<Span> children;
+
+        Span(Trace trace, Span parent, String name, String detail) {
+            this.trace = trace;
+            this.parent = parent;
+            this.name = name;
+            this.detail = detail;
+        }
+
+        private void add(Span child) {
+            if (children == null) {
+                children = new ArrayList<>(4);
+            }
+            children.add(child);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String detail() {
+            return detail;
+        }
+
+        /**
+         * Replace the detail of the span, when it is known once it has
+         * started
+         */
+        public void detail(String detail) {
+            if (trace != null) {
+                this.detail = detail;
+            }
+        }
+
+        /**
+         * @return The duration of the span, in nanoseconds, or until now if
+         *         it is not closed
+         */
+        public long duration() {
+            return (end == 0 ? System.nanoTime() : end) - start;
+        }
+
+        public List<Span> children() {
+            return children == null ? Collections.<Span> emptyList() : children;
+        }
+
+        /**
+         * @return false if this span records nothing
+         */
+        public boolean isRecording() {
+            return trace != null;
+        }
+
+        @Override
+        public void close() {
+            if (trace != null && end == 0) {
+                trace.pop(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package play;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import play.utils.BackgroundWriter;
+
+/**
+ * The tracing of the invocations (<code>play.trace=true</code>).
+ *
+ * Each invocation gets a {@link Trace}, in its {@link Invoker.InvocationContext}.
+ * The traces of the invocations slower than <code>play.trace.threshold</code>
+ * are kept in memory, the last <code>play.trace.size</code> ones, and shown by
+ * <code>/@traces</code>. They are also appended to <code>play.trace.file</code>
+ * if it is set, one line per trace in the Zipkin v2 JSON format, by a
+ * {@link BackgroundWriter}: the traces are dropped (and counted) rather than slowing
+ * the invocations down when it cannot keep up.
+ */
+public class Tracer {
+
+    /**
+     * The running tracer, null when tracing is disabled
+     */
+    static volatile Tracer current;
+
+    private static final int EXPORT_BUFFER = 1024;
+
+    final long threshold;
+    final int size;
+    final int maxSpans;
+    final File file;
+    final String serviceName;
+    private final Trace[] traces;
+    private int next;
+    private long slow;
+    private final BackgroundWriter<Trace> exports;
+    private final AtomicLong dropped = new AtomicLong();
+    private OutputStream out;
+
+    /**
+     * Start, stop or replace the tracer as configured
+     */
+    public static synchronized void configure(Properties configuration) {
+        if (!Boolean.parseBoolean(configuration.getProperty("play.trace", "false"))) {
+            stopCurrent();
+            current = null;
+            return;
+        }
+        long threshold = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(configuration.getProperty("play.trace.threshold", "500").trim()));
+        int size = Integer.parseInt(configuration.getProperty("play.trace.size", "100").trim());
+        int maxSpans = Integer.parseInt(configuration.getProperty("play.trace.maxSpans", "1000").trim());
+        String path = configuration.getProperty("play.trace.file");
+        File file = null;
+        if (path != null && !path.trim().isEmpty()) {
+            file = new File(path.trim());
+            if (!file.isAbsolute() && Play.applicationPath != null) {
+                file = new File(Play.applicationPath, path.trim());
+            }
+        }
+        String serviceName = configuration.getProperty("application.name", "play");
+        Tracer running = current;
+        if (running == null || running.threshold != threshold || running.size != size || running.maxSpans != maxSpans
+                || !String.valueOf(running.file).equals(String.valueOf(file)) || !running.serviceName.equals(serviceName)) {
+            stopCurrent();
+            Tracer tracer = new Tracer(threshold, size, maxSpans, file, serviceName);
+            if (file != null) {
+                tracer.start();
+            }
+            current = tracer;
+        }
+    }
+
+    /**
+     * Stop the running tracer, after writing the traces left
+     */
+    private static void stopCurrent() {
+        Tracer running = current;
+        if (running != null) {
+            running.stop();
+        }
+    }
+
+    Tracer(long threshold, int size, int maxSpans, File file, String serviceName) {
+        this.threshold = threshold;
+        this.size = size;
+        this.maxSpans = maxSpans;
+        this.file = file;
+        this.serviceName = serviceName;
+        this.traces = new Trace[Math.max(size, 1)];
+        this.exports = file == null ? null : new BackgroundWriter<>("play-tracer", EXPORT_BUFFER, 50, new BackgroundWriter.Sink<Trace>() {
+            @Override
+            public void write(Trace trace) {
+                export(trace);
+            }
+
+            @Override
+            public void flush() {
+                Tracer.this.flush();
+            }
+
+            @Override
+            public void close() {
+                Tracer.this.close();
+            }
+        });
+    }
+
+    void start() {
+        exports.start();
+    }
+
+    /**
+     * @return The running tracer, or null when tracing is disabled
+     */
+    public static Tracer get() {
+        return current;
+    }
+
+    /**
+     * Start the trace of an invocation
+     */
+    static void begin(Invoker.InvocationContext context, String detail) {
+        Tracer tracer = current;
+        if (tracer != null && context != null) {
+            context.trace = new Trace(context.getInvocationType(), detail, tracer.maxSpans);
+        }
+    }
+
+    /**
+     * End the trace of an invocation, and keep it if it is slow
+     */
+    static void end(Invoker.InvocationContext context) {
+        Trace trace = context == null ? null : context.trace;
+        if (trace == null) {
+            return;
+        }
+        context.trace = null;
+        trace.root.end = System.nanoTime();
+        Tracer tracer = current;
+        if (tracer != null && trace.duration() >= tracer.threshold) {
+            tracer.keep(trace);
+        }
+    }
+
+    void keep(Trace trace) {
+        synchronized (traces) {
+            traces[next] = trace;
+            next = (next + 1) % traces.length;
+            slow++;
+        }
+        if (exports != null && !exports.offer(trace)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Append a trace to the file, on the background thread
+     */
+    private void export(Trace trace) {
+        try {
+            if (out == null) {
+                if (file.getParentFile() != null) {
+                    file.getParentFile().mkdirs();
+                }
+                out = new BufferedOutputStream(new FileOutputStream(file, true), 65536);
+            }
+            out.write((toZipkin(Collections.singletonList(trace)).toString() + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Logger.error(e, "Cannot write the traces to %s", file);
+            close();
+        }
+    }
+
+    private void flush() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                Logger.error(e, "Cannot write the traces to %s", file);
+                close();
+            }
+        }
+    }
+
+    private void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                Logger.warn("Cannot close the traces file %s (%s)", file, e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Stop the background thread, after writing the traces left
+     */
+    void stop() {
+        if (exports != null) {
+            exports.stop();
+        }
+    }
+
+    /**
+     * @return The number of slow traces not exported because the writer could
+     *         not keep up
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The slow traces kept, the last one first
+     */
+    public List<Trace> traces() {
+        List<Trace> list = new ArrayList<>(traces.length);
+        synchronized (traces) {
+            for (int i = 1; i <= traces.length; i++) {
+                Trace trace = traces[(next - i + traces.length) % traces.length];
+                if (trace != null) {
+                    list.add(trace);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return The duration over which an invocation is slow, in nanoseconds
+     */
+    public long threshold() {
+        return threshold;
+    }
+
+    /**
+     * @return The number of slow invocations since the start
+     */
+    public long slow() {
+        synchronized (traces) {
+            return slow;
+        }
+    }
+
+    /**
+     * The traces as a tree of spans with their durations
+     */
+    public String toText(List<Trace> traces) {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        for (Trace trace : traces) {
+            out.println(String.format("Trace %s, %s on %s", trace.id(), format.format(new Date(trace.timestamp)), trace.threadName));
+            print(out, trace.root, "");
+            if (trace.dropped() > 0) {
+                out.println(String.format("  (%d spans not recorded)", trace.dropped()));
+            }
+            out.println();
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    private static void print(PrintWriter out, Trace.Span span, String indent) {
+        out.println(String.format("%s%10.3f ms  %s%s", indent, span.duration() / 1000000.0, span.name,
+                span.detail == null ? "" : " " + span.detail));
+        for (Trace.Span child : span.children()) {
+            print(out, child, indent + "  ");
+        }
+    }
+
+    /**
+     * The spans of the traces in the Zipkin v2 JSON format
+     */
+    public JsonArray toZipkin(List<Trace> traces) {
+        JsonArray spans = new JsonArray();
+        for (Trace trace : traces) {
+            long epoch = TimeUnit.MILLISECONDS.toMicros(trace.timestamp);
+            long[] ids = { trace.id };
+            zipkin(spans, trace, trace.root, null, epoch, ids);
+        }
+        return spans;
+    }
+
+    private void zipkin(JsonArray spans, Trace trace, Trace.Span span, String parentId, long epoch, long[] ids) {
+        String id = String.format("%016x", ids[0]++);
+        JsonObject json = new JsonObject();
+        json.addProperty("traceId", trace.id());
+        json.addProperty("id", id);
+        if (parentId != null) {
+            json.addProperty("parentId", parentId);
+        }
+        json.addProperty("name", span.name);
+        json.addProperty("timestamp", epoch + TimeUnit.NANOSECONDS.toMicros(span.start - trace.root.start));
+        json.addProperty("duration", Math.max(1, TimeUnit.NANOSECONDS.toMicros(span.duration())));
+        JsonObject endpoint = new JsonObject();
+        endpoint.addProperty("serviceName", serviceName);
+        json.add("localEndpoint", endpoint);
+        JsonObject tags = new JsonObject();
+        if (span.detail != null) {
+            tags.addProperty("detail", span.detail);
+        }
+        if (parentId == null) {
+            tags.addProperty("thread", trace.threadName);
+            if (trace.dropped() > 0) {
+                tags.addProperty("dropped", String.valueOf(trace.dropped()));
+            }
+        }
+        json.add("tags", tags);
+        spans.add(json);
+        for (Trace.Span child : span.children()) {
+            zipkin(spans, trace, child, id, epoch, ids);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Map;
 
 import play.Logger;
 import play.Play;
+import play.Trace;
 import play.exceptions.CacheException;
 import play.libs.Time;
 
@@ -171,7 +172,9 @@ public abstract class Cache {
      * @return The element value or null
      */
     public static Object get(String key) {
-        return cacheImpl.get(key);
+        try (Trace.Span span = Trace.start("cache.get", key)) {
+            return cacheImpl.get(key);
+        }
     }
 
     /**
@@ -180,7 +183,9 @@ public abstract class Cache {
      * @return Map of keys &amp; values
      */
     public static Map<String, Object> get(String... key) {
-        return cacheImpl.get(key);
+        try (Trace.Span span = Trace.start("cache.get", key.length + " keys")) {
+            return cacheImpl.get(key);
+        }
     }
 
     /**
@@ -219,7 +224,7 @@ public abstract class Cache {
      */
     @SuppressWarnings("unchecked")
     public static <T> T get(String key, Class<T> clazz) {
-        return (T) cacheImpl.get(key);
+        return (T) get(key);
     }
 
     /**
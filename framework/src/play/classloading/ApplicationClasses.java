@@ -4,10 +4,15 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javassist.ClassPool;
 import javassist.CtClass;
@@ -30,13 +35,21 @@ public class ApplicationClasses {
     /**
      * Cache of all compiled classes
      */
-    Map<String, ApplicationClass> classes = new HashMap<>();
+    Map<String, ApplicationClass> classes = new ConcurrentHashMap<>();
+    /**
+     * Supertypes and annotations of the classes, read from their bytecode
+     */
+    ClassIndex index = new ClassIndex();
+    /**
+     * Play version and plugins the classes were enhanced with
+     */
+    String enhancedWith;
 
     /**
      * Clear the classes cache
      */
     public void clear() {
-        classes = new HashMap<>();
+        classes = new ConcurrentHashMap<>();
     }
 
     /**
@@ -47,17 +60,22 @@ public class ApplicationClasses {
      * @return The ApplicationClass or null
      */
     public ApplicationClass getApplicationClass(String name) {
-        if (!classes.containsKey(name)) {
+        ApplicationClass applicationClass = classes.get(name);
+        if (applicationClass == null) {
             VirtualFile javaFile = getJava(name);
             if (javaFile != null) {
-                classes.put(name, new ApplicationClass(name, javaFile));
+                // Classes are looked up by the enhancers, possibly on several threads
+                ApplicationClass found = classes.putIfAbsent(name, new ApplicationClass(name, javaFile));
+                applicationClass = found != null ? found : classes.get(name);
             }
         }
-        return classes.get(name);
+        return applicationClass;
     }
 
     /**
-     * Retrieve all application classes assignable to this class.
+     * Retrieve all application classes assignable to this class. Only the
+     * matching classes are loaded, the others are looked up in the class
+     * index.
      * 
      * @param clazz
      *            The superclass, or the interface.
@@ -66,21 +84,16 @@ public class ApplicationClasses {
     public List<ApplicationClass> getAssignableClasses(Class<?> clazz) {
         List<ApplicationClass> results = new ArrayList<>();
         if (clazz != null) {
+            Map<String, Boolean> assignables = new HashMap<>();
             for (ApplicationClass applicationClass : new ArrayList<>(classes.values())) {
-                if (!applicationClass.isClass()) {
+                if (!applicationClass.isClass() || applicationClass.name.equals(clazz.getName())) {
                     continue;
                 }
-                try {
-                    Play.classloader.loadClass(applicationClass.name);
-                } catch (ClassNotFoundException ex) {
-                    throw new UnexpectedException(ex);
-                }
-                try {
-                    if (clazz.isAssignableFrom(applicationClass.javaClass)
-                            && !applicationClass.javaClass.getName().equals(clazz.getName())) {
+                if (isAssignable(applicationClass.name, clazz, assignables)) {
+                    load(applicationClass);
+                    if (applicationClass.javaClass != null) {
                         results.add(applicationClass);
                     }
-                } catch (Exception e) {
                 }
             }
         }
@@ -88,7 +101,9 @@ public class ApplicationClasses {
     }
 
     /**
-     * Retrieve all application classes with a specific annotation.
+     * Retrieve all application classes with a specific annotation. Only the
+     * matching classes are loaded, the others are looked up in the class
+     * index.
      * 
      * @param clazz
      *            The annotation class.
@@ -96,22 +111,135 @@ public class ApplicationClasses {
      */
     public List<ApplicationClass> getAnnotatedClasses(Class<? extends Annotation> clazz) {
         List<ApplicationClass> results = new ArrayList<>();
-        for (ApplicationClass applicationClass : classes.values()) {
+        boolean inherited = clazz.isAnnotationPresent(Inherited.class);
+        for (ApplicationClass applicationClass : new ArrayList<>(classes.values())) {
             if (!applicationClass.isClass()) {
                 continue;
             }
-            try {
-                Play.classloader.loadClass(applicationClass.name);
-            } catch (ClassNotFoundException ex) {
-                throw new UnexpectedException(ex);
-            }
-            if (applicationClass.javaClass != null && applicationClass.javaClass.isAnnotationPresent(clazz)) {
-                results.add(applicationClass);
+            if (isAnnotated(applicationClass, clazz, inherited)) {
+                load(applicationClass);
+                if (applicationClass.javaClass != null) {
+                    results.add(applicationClass);
+                }
             }
         }
         return results;
     }
 
+    /**
+     * Retrieve the application classes whose source refers to one of these
+     * classes, as recorded by the compiler. Classes referring to another type
+     * with the same simple name are included too.
+     * 
+     * @param changed
+     *            The changed classes
+     * @return The classes to recompile with them
+     */
+    public List<ApplicationClass> getDependents(Collection<ApplicationClass> changed) {
+        Set<String> names = new HashSet<>();
+        Set<String> changedNames = new HashSet<>();
+        for (ApplicationClass applicationClass : changed) {
+            changedNames.add(applicationClass.name);
+            names.addAll(ClassDependencies.simpleNames(applicationClass.name));
+        }
+        List<ApplicationClass> dependents = new ArrayList<>();
+        if (names.isEmpty()) {
+            return dependents;
+        }
+        for (ApplicationClass applicationClass : classes.values()) {
+            if (applicationClass.references == null || changedNames.contains(applicationClass.name)) {
+                continue;
+            }
+            for (String name : names) {
+                if (applicationClass.references.contains(name)) {
+                    dependents.add(applicationClass);
+                    break;
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private boolean isAssignable(String name, Class<?> clazz, Map<String, Boolean> assignables) {
+        if (name == null) {
+            return false;
+        }
+        if (name.equals(clazz.getName())) {
+            return true;
+        }
+        Boolean assignable = assignables.get(name);
+        if (assignable != null) {
+            return assignable;
+        }
+        assignables.put(name, false);
+        ApplicationClass applicationClass = classes.get(name);
+        if (applicationClass != null) {
+            ClassIndex.Entry entry = indexEntry(applicationClass);
+            if (entry == null) {
+                assignable = applicationClass.javaClass != null && clazz.isAssignableFrom(applicationClass.javaClass);
+            } else {
+                assignable = isAssignable(entry.superName, clazz, assignables);
+                for (int i = 0; !assignable && i < entry.interfaces.length; i++) {
+                    assignable = isAssignable(entry.interfaces[i], clazz, assignables);
+                }
+            }
+        } else {
+            // A library class, or a class of the application not compiled yet
+            Class<?> type = loadType(name);
+            assignable = type != null && clazz.isAssignableFrom(type);
+        }
+        assignables.put(name, assignable);
+        return assignable;
+    }
+
+    private boolean isAnnotated(ApplicationClass applicationClass, Class<? extends Annotation> clazz, boolean inherited) {
+        ClassIndex.Entry entry = indexEntry(applicationClass);
+        if (entry == null) {
+            return applicationClass.javaClass != null && applicationClass.javaClass.isAnnotationPresent(clazz);
+        }
+        if (entry.hasAnnotation(clazz.getName())) {
+            return true;
+        }
+        if (!inherited || entry.isInterface() || entry.superName == null) {
+            return false;
+        }
+        ApplicationClass superClass = classes.get(entry.superName);
+        if (superClass != null) {
+            return isAnnotated(superClass, clazz, true);
+        }
+        Class<?> type = loadType(entry.superName);
+        return type != null && type.isAnnotationPresent(clazz);
+    }
+
+    /**
+     * The index entry of this class, enhancing it first if it is not indexed
+     * yet
+     */
+    private ClassIndex.Entry indexEntry(ApplicationClass applicationClass) {
+        ClassIndex.Entry entry = index.get(applicationClass.name, applicationClass.sourceHash);
+        if (entry == null) {
+            load(applicationClass);
+            entry = index.get(applicationClass.name, applicationClass.sourceHash);
+        }
+        return entry;
+    }
+
+    private static void load(ApplicationClass applicationClass) {
+        try {
+            Play.classloader.loadClass(applicationClass.name);
+        } catch (ClassNotFoundException ex) {
+            throw new UnexpectedException(ex);
+        }
+    }
+
+    private static Class<?> loadType(String name) {
+        try {
+            return Class.forName(name, false, Play.classloader != null ? Play.classloader : ApplicationClasses.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
     /**
      * All loaded classes.
      * 
@@ -139,6 +267,7 @@ public class ApplicationClasses {
      */
     public void remove(ApplicationClass applicationClass) {
         classes.remove(applicationClass.name);
+        index.remove(applicationClass.name);
     }
 
     /**
@@ -149,6 +278,7 @@ public class ApplicationClasses {
      */
     public void remove(String applicationClass) {
         classes.remove(applicationClass);
+        index.remove(applicationClass);
     }
 
     /**
@@ -207,6 +337,23 @@ public class ApplicationClasses {
          * Signatures checksum
          */
         public int sigChecksum;
+        /**
+         * Is enhancedByteCode ready to be defined (enhanced, or read from
+         * the bytecode cache)
+         */
+        boolean enhanced;
+        /**
+         * Hash of the Java source, for the class index
+         */
+        long sourceHash;
+        /**
+         * Simple names of the types its source refers to
+         */
+        Set<String> references;
+        /**
+         * Hash of its non private members, see ClassDependencies.apiHash
+         */
+        long apiHash;
 
         public ApplicationClass() {
         }
@@ -228,8 +375,10 @@ public class ApplicationClasses {
             if (this.javaFile != null) {
                 this.javaSource = this.javaFile.contentAsString();
             }
+            this.sourceHash = ClassIndex.hash(this.javaSource);
             this.javaByteCode = null;
             this.enhancedByteCode = null;
+            this.enhanced = false;
             this.compiled = false;
             this.timestamp = 0L;
         }
@@ -254,13 +403,15 @@ public class ApplicationClasses {
                 // classloader
                 // as the other (soon to be) enhanced play-app-classes.
                 boolean shouldEnhance = true;
-                try {
-                    CtClass ctClass = enhanceChecker_classPool.makeClass(new ByteArrayInputStream(this.enhancedByteCode));
-                    if (ctClass.subclassOf(ctPlayPluginClass)) {
-                        shouldEnhance = false;
+                synchronized (enhanceChecker_classPool) {
+                    try {
+                        CtClass ctClass = enhanceChecker_classPool.makeClass(new ByteArrayInputStream(this.enhancedByteCode));
+                        if (ctClass.subclassOf(ctPlayPluginClass)) {
+                            shouldEnhance = false;
+                        }
+                    } catch (Exception e) {
+                        // nop
                     }
-                } catch (Exception e) {
-                    // nop
                 }
 
                 if (shouldEnhance) {
@@ -279,10 +430,21 @@ public class ApplicationClasses {
                     Logger.error(e, "Failed to write precompiled class %s to disk", name);
                 }
             }
+            this.enhanced = true;
+            index();
             return this.enhancedByteCode;
 
         }
 
+        /**
+         * Add the enhanced bytecode to the class index
+         */
+        void index() {
+            if (isClass() && enhancedByteCode != null) {
+                Play.classes.index.index(name, sourceHash, enhancedByteCode);
+            }
+        }
+
         /**
          * Is this class already compiled but not defined ?
          * 
@@ -335,8 +497,10 @@ public class ApplicationClasses {
          *            The bytecode.
          */
         public void compiled(byte[] code) {
+            apiHash = ClassDependencies.apiHash(code);
             javaByteCode = code;
             enhancedByteCode = code;
+            enhanced = false;
             compiled = true;
             this.timestamp = this.javaFile.lastModified();
         }
@@ -11,21 +11,28 @@ import java.lang.annotation.Annotation;
 import java.lang.instrument.ClassDefinition;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.security.AllPermission;
 import java.security.CodeSource;
 import java.security.Permissions;
 import java.security.ProtectionDomain;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -34,10 +41,13 @@ import play.Logger;
 import play.Play;
 import play.cache.Cache;
 import play.classloading.ApplicationClasses.ApplicationClass;
+import play.classloading.enhancers.Enhancer;
 import play.classloading.hash.ClassStateHashCreator;
 import play.exceptions.RestartNeededException;
 import play.exceptions.UnexpectedException;
 import play.libs.IO;
+import play.utils.PThreadFactory;
+import play.vfs.FileWatcher;
 import play.vfs.VirtualFile;
 
 /**
@@ -123,6 +133,9 @@ public class ApplicationClassloader extends ClassLoader {
                         loadPackage(name);
                     }
                     clazz = defineClass(name, code, 0, code.length, protectionDomain);
+                    if (ApplicationClass.isClass(name)) {
+                        Play.classes.index.index(name, 0L, code);
+                    }
                 }
                 ApplicationClass applicationClass = Play.classes.getApplicationClass(name);
                 if (applicationClass != null) {
@@ -143,7 +156,7 @@ public class ApplicationClassloader extends ClassLoader {
             if (applicationClass.isDefinable()) {
                 return applicationClass.javaClass;
             }
-            byte[] bc = BytecodeCache.getBytecode(name, applicationClass.javaSource);
+            byte[] bc = applicationClass.enhanced ? null : BytecodeCache.getBytecode(name, applicationClass.javaSource);
 
             if (Logger.isTraceEnabled()) {
                 Logger.trace("Compiling code for %s", name);
@@ -156,6 +169,8 @@ public class ApplicationClassloader extends ClassLoader {
             }
             if (bc != null) {
                 applicationClass.enhancedByteCode = bc;
+                applicationClass.enhanced = true;
+                applicationClass.index();
                 applicationClass.javaClass = defineClass(applicationClass.name, applicationClass.enhancedByteCode, 0,
                         applicationClass.enhancedByteCode.length, protectionDomain);
                 resolveClass(applicationClass.javaClass);
@@ -169,6 +184,16 @@ public class ApplicationClassloader extends ClassLoader {
 
                 return applicationClass.javaClass;
             }
+            if (applicationClass.enhanced) {
+                // Already enhanced by enhanceAll, and cached there
+                applicationClass.javaClass = defineClass(applicationClass.name, applicationClass.enhancedByteCode, 0,
+                        applicationClass.enhancedByteCode.length, protectionDomain);
+                resolveClass(applicationClass.javaClass);
+                if (!applicationClass.isClass()) {
+                    applicationClass.javaPackage = applicationClass.javaClass.getPackage();
+                }
+                return applicationClass.javaClass;
+            }
             if (applicationClass.javaByteCode != null || applicationClass.compile() != null) {
                 applicationClass.enhance();
                 applicationClass.javaClass = defineClass(applicationClass.name, applicationClass.enhancedByteCode, 0,
@@ -306,39 +331,133 @@ public class ApplicationClassloader extends ClassLoader {
     /**
      * Detect Java changes
      * 
+     * Only the changed sources are recompiled, in one go, with the classes
+     * referring to a class whose visible members changed (see
+     * ClassDependencies). If no signature changed, the new bytecode is
+     * hot-swapped when possible. A signature change still restarts the
+     * application, since the JVM only redefines method bodies: the classes
+     * depending on it are recompiled first, and the new classloader reuses
+     * the bytecode of all the classes instead of compiling them again.
+     * 
      * @throws play.exceptions.RestartNeededException
      *             Thrown if the application need to be restarted
      */
     public void detectChanges() throws RestartNeededException {
-        // Now check for file modification
+        // Now check for file modification, of the files that were notified
+        // as changed when the sources are watched
+        if (javaChanges == null) {
+            javaChanges = FileWatcher.changes("java", Play.javaPath);
+        }
+        Set<Path> changedFiles = javaChanges == null ? null : javaChanges.takeModified();
         List<ApplicationClass> modifieds = new ArrayList<>();
-        for (ApplicationClass applicationClass : Play.classes.all()) {
-            if (applicationClass.timestamp < applicationClass.javaFile.lastModified()) {
-                applicationClass.refresh();
-                modifieds.add(applicationClass);
+        if (changedFiles == null || !changedFiles.isEmpty()) {
+            for (ApplicationClass applicationClass : Play.classes.all()) {
+                if ((changedFiles == null || changedFiles.contains(applicationClass.javaFile.getRealFile().toPath().toAbsolutePath().normalize()))
+                        && applicationClass.timestamp < applicationClass.javaFile.lastModified()) {
+                    applicationClass.refresh();
+                    modifieds.add(applicationClass);
+                }
             }
         }
-        Set<ApplicationClass> modifiedWithDependencies = new HashSet<>();
+        Set<ApplicationClass> modifiedWithDependencies = new LinkedHashSet<>();
         modifiedWithDependencies.addAll(modifieds);
         if (!modifieds.isEmpty()) {
             modifiedWithDependencies.addAll(Play.pluginCollection.onClassesChange(modifieds));
         }
+
+        // Now check if there is new classes or removed classes
+        boolean pathChanged = false;
+        if (javaChanges == null || javaChanges.takeStructureChanged()) {
+            pathChanged = computePathHash() != this.pathHash;
+        }
+        List<ApplicationClass> removed = new ArrayList<>();
+        if (pathChanged) {
+            // Remove class for deleted files !!
+            for (ApplicationClass applicationClass : Play.classes.all()) {
+                if (!applicationClass.javaFile.exists()) {
+                    Play.classes.remove(applicationClass);
+                    removed.add(applicationClass);
+                }
+            }
+            // And compile the new ones now, the restart will only define them
+            for (VirtualFile virtualFile : Play.javaPath) {
+                for (ApplicationClass applicationClass : getAllClasses(virtualFile)) {
+                    if (applicationClass != null && !applicationClass.compiled && applicationClass.isClass()) {
+                        modifiedWithDependencies.add(applicationClass);
+                    }
+                }
+            }
+            modifiedWithDependencies.addAll(Play.classes.getDependents(removed));
+        }
+
         List<ClassDefinition> newDefinitions = new ArrayList<>();
         boolean dirtySig = false;
-        for (ApplicationClass applicationClass : modifiedWithDependencies) {
-            if (applicationClass.compile() == null) {
-                Play.classes.classes.remove(applicationClass.name);
-                currentState = new ApplicationClassloaderState();// show others that we have changed..
-            } else {
+        boolean apiChanged = false;
+        if (!modifiedWithDependencies.isEmpty() || !removed.isEmpty()) {
+            currentState = new ApplicationClassloaderState();// show others that we have changed..
+        }
+        long start = System.currentTimeMillis();
+        Set<ApplicationClass> recompiled = new LinkedHashSet<>();
+        BytecodeCache.startBatch();
+        try {
+            Collection<ApplicationClass> toCompile = modifiedWithDependencies;
+            while (!toCompile.isEmpty()) {
+                List<ApplicationClass> changed = recompile(toCompile);
+                recompiled.addAll(toCompile);
+                for (ApplicationClass applicationClass : toCompile) {
+                    if (applicationClass.javaByteCode == null) {
+                        // Not there anymore, like an inner class that was removed
+                        Play.classes.remove(applicationClass);
+                        changed.add(applicationClass);
+                    }
+                }
+                apiChanged |= !changed.isEmpty();
+                toCompile = new LinkedHashSet<>(Play.classes.getDependents(changed));
+                toCompile.removeAll(recompiled);
+            }
+            for (ApplicationClass applicationClass : recompiled) {
+                if (applicationClass.javaByteCode == null) {
+                    continue;
+                }
                 int sigChecksum = applicationClass.sigChecksum;
                 applicationClass.enhance();
                 if (sigChecksum != applicationClass.sigChecksum) {
                     dirtySig = true;
                 }
                 BytecodeCache.cacheBytecode(applicationClass.enhancedByteCode, applicationClass.name, applicationClass.javaSource);
-                newDefinitions.add(new ClassDefinition(applicationClass.javaClass, applicationClass.enhancedByteCode));
-                currentState = new ApplicationClassloaderState();// show others that we have changed..
+                if (applicationClass.javaClass != null) {
+                    newDefinitions.add(new ClassDefinition(applicationClass.javaClass, applicationClass.enhancedByteCode));
+                }
             }
+        } catch (RuntimeException e) {
+            // Some classes may have been compiled already, they will need a restart
+            reloadPending = true;
+            throw e;
+        } finally {
+            BytecodeCache.endBatch();
+        }
+        if (!recompiled.isEmpty()) {
+            Logger.debug("%sms to recompile %s classes for %s changed sources", System.currentTimeMillis() - start, recompiled.size(),
+                    modifieds.size());
+        }
+
+        if (!recompiled.isEmpty() || !removed.isEmpty()) {
+            Play.classes.index.save(ClassIndex.file(), Play.classes.classes.keySet());
+        }
+
+        if (reloadPending) {
+            Cache.clear();
+            throw new RestartNeededException("Classes changed while the application had compilation errors");
+        }
+        if (pathChanged) {
+            Cache.clear();
+            throw new RestartNeededException("Path has changed");
+        }
+        // Check signature (variable name & annotations aware !): the
+        // dependents are recompiled, but the JVM cannot redefine the classes
+        if (dirtySig || apiChanged) {
+            Cache.clear();
+            throw new RestartNeededException("Signature change !");
         }
 
         if (!newDefinitions.isEmpty()) {
@@ -353,34 +472,41 @@ public class ApplicationClassloader extends ClassLoader {
                 throw new RestartNeededException(newDefinitions.size() + " classes changed (and HotSwap is not enabled)");
             }
         }
-        // Check signature (variable name & annotations aware !)
-        if (dirtySig) {
-            throw new RestartNeededException("Signature change !");
-        }
+    }
 
-        // Now check if there is new classes or removed classes
-        int hash = computePathHash();
-        if (hash != this.pathHash) {
-            // Remove class for deleted files !!
-            for (ApplicationClass applicationClass : Play.classes.all()) {
-                if (!applicationClass.javaFile.exists()) {
-                    Play.classes.classes.remove(applicationClass.name);
-                    currentState = new ApplicationClassloaderState();// show others that we have changed..
-                }
-                if (applicationClass.name.contains("$")) {
-                    Play.classes.classes.remove(applicationClass.name);
-                    currentState = new ApplicationClassloaderState();// show others that we have changed..
-                    // Ok we have to remove all classes from the same file ...
-                    VirtualFile vf = applicationClass.javaFile;
-                    for (ApplicationClass ac : Play.classes.all()) {
-                        if (ac.javaFile.equals(vf)) {
-                            Play.classes.classes.remove(ac.name);
-                        }
-                    }
-                }
+    /**
+     * Set when classes were recompiled but the application could not be
+     * reloaded, because of a compilation error
+     */
+    private boolean reloadPending;
+
+    /**
+     * Compile these classes from their current source, in one go
+     * 
+     * @return The classes whose visible members changed
+     */
+    private List<ApplicationClass> recompile(Collection<ApplicationClass> classes) {
+        Map<ApplicationClass, Long> apiHashes = new HashMap<>();
+        Set<String> sources = new LinkedHashSet<>();
+        for (ApplicationClass applicationClass : classes) {
+            // 0 when it was never compiled
+            apiHashes.put(applicationClass, applicationClass.apiHash);
+            applicationClass.refresh();
+            // Inner classes are compiled with their file
+            int dollar = applicationClass.name.indexOf('$');
+            sources.add(dollar > -1 ? applicationClass.name.substring(0, dollar) : applicationClass.name);
+        }
+        if (!sources.isEmpty()) {
+            Play.classes.compiler.compile(sources.toArray(new String[sources.size()]));
+        }
+        List<ApplicationClass> changed = new ArrayList<>();
+        for (ApplicationClass applicationClass : classes) {
+            long apiHash = apiHashes.get(applicationClass);
+            if (applicationClass.javaByteCode != null && apiHash != 0L && apiHash != applicationClass.apiHash) {
+                changed.add(applicationClass);
             }
-            throw new RestartNeededException("Path has changed");
         }
+        return changed;
     }
 
     /**
@@ -388,6 +514,11 @@ public class ApplicationClassloader extends ClassLoader {
      */
     private int pathHash = 0;
 
+    /**
+     * The changes of the Java sources, or null if they are polled
+     */
+    private FileWatcher.Changes javaChanges;
+
     private int computePathHash() {
         return classStateHashCreator.computePathHash(Play.javaPath);
     }
@@ -400,6 +531,7 @@ public class ApplicationClassloader extends ClassLoader {
     public List<Class> getAllClasses() {
         if (allClasses == null) {
             List<Class> result = new ArrayList<>();
+            Play.classes.index.load(ClassIndex.file());
 
             if (Play.usePrecompiled) {
 
@@ -430,17 +562,39 @@ public class ApplicationClassloader extends ClassLoader {
                         }
                     }
 
+                    long start = System.currentTimeMillis();
                     Play.classes.compiler.compile(classNames.toArray(new String[classNames.size()]));
+                    Logger.debug("%sms to compile %s classes", System.currentTimeMillis() - start, classNames.size());
 
                 }
 
-                for (ApplicationClass applicationClass : Play.classes.all()) {
-                    Class clazz = loadApplicationClass(applicationClass.name);
-                    if (clazz != null) {
-                        result.add(clazz);
+                // Classes compiled before a restart are kept, but enhanced again if the plugins changed
+                String plugins = ClassIndex.signature();
+                if (!plugins.equals(Play.classes.enhancedWith)) {
+                    for (ApplicationClass applicationClass : Play.classes.all()) {
+                        applicationClass.enhanced = false;
                     }
+                    Play.classes.enhancedWith = plugins;
                 }
 
+                long start;
+                BytecodeCache.startBatch();
+                try {
+                    enhanceAll(Play.classes.all());
+
+                    start = System.currentTimeMillis();
+                    for (ApplicationClass applicationClass : Play.classes.all()) {
+                        Class clazz = loadApplicationClass(applicationClass.name);
+                        if (clazz != null) {
+                            result.add(clazz);
+                        }
+                    }
+                } finally {
+                    BytecodeCache.endBatch();
+                }
+
+                Logger.debug("%sms to define %s classes", System.currentTimeMillis() - start, result.size());
+
                 Collections.sort(result, new Comparator<Class>() {
 
                     @Override
@@ -460,6 +614,7 @@ public class ApplicationClassloader extends ClassLoader {
 
             allClassesByNormalizedName = unmodifiableMap(byNormalizedName);
             allClasses = unmodifiableList(result);
+            Play.classes.index.save(ClassIndex.file(), Play.classes.classes.keySet());
         }
         return allClasses;
     }
@@ -467,6 +622,89 @@ public class ApplicationClassloader extends ClassLoader {
     private List<Class> allClasses;
     private Map<String, ApplicationClass> allClassesByNormalizedName;
 
+    /**
+     * Enhance the compiled classes before they are defined. Each class is
+     * enhanced independently (the enhancers create their own javassist
+     * ClassPool), so this runs on play.enhancer.threads threads. By default,
+     * that is one per core when only the framework plugins enhance classes,
+     * and one when a module or application plugin does too. In parallel, the
+     * enhancers read the other classes as compiled, not as enhanced. Classes
+     * are then defined one by one, in order, by loadApplicationClass.
+     *
+     * @param classes
+     *            The application classes
+     */
+    void enhanceAll(List<ApplicationClass> classes) {
+        List<ApplicationClass> toEnhance = new ArrayList<>();
+        for (ApplicationClass applicationClass : classes) {
+            if (applicationClass.javaByteCode != null && applicationClass.javaClass == null && !applicationClass.enhanced) {
+                toEnhance.add(applicationClass);
+            }
+        }
+        if (toEnhance.isEmpty()) {
+            return;
+        }
+        // Other plugins may not expect to enhance several classes at once
+        int defaultThreads = Play.pluginCollection.hasOnlyThreadSafeEnhancers() ? Runtime.getRuntime().availableProcessors() : 1;
+        int threads = Integer.parseInt(Play.configuration.getProperty("play.enhancer.threads", String.valueOf(defaultThreads)));
+        threads = Math.max(1, Math.min(threads, toEnhance.size()));
+        long start = System.currentTimeMillis();
+        if (threads == 1) {
+            for (ApplicationClass applicationClass : toEnhance) {
+                enhanceAhead(applicationClass);
+            }
+        } else {
+            final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+            ExecutorService executor = Executors.newFixedThreadPool(threads, new PThreadFactory("enhancer"));
+            try {
+                List<Future<?>> futures = new ArrayList<>(toEnhance.size());
+                for (final ApplicationClass applicationClass : toEnhance) {
+                    futures.add(executor.submit(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            // javassist reads the system classes from the context classloader
+                            Thread.currentThread().setContextClassLoader(contextClassLoader);
+                            Enhancer.readCompiledClasses(true);
+                            try {
+                                enhanceAhead(applicationClass);
+                            } finally {
+                                Enhancer.readCompiledClasses(false);
+                            }
+                        }
+                    }));
+                }
+                // Report the first failure in class order, like the sequential loading would
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new UnexpectedException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnexpectedException(e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        Logger.debug("%sms to enhance %s classes on %s threads", System.currentTimeMillis() - start, toEnhance.size(), threads);
+    }
+
+    private static void enhanceAhead(ApplicationClass applicationClass) {
+        byte[] bc = BytecodeCache.getBytecode(applicationClass.name, applicationClass.javaSource);
+        if (bc != null) {
+            applicationClass.enhancedByteCode = bc;
+            applicationClass.enhanced = true;
+            applicationClass.index();
+        } else {
+            applicationClass.enhance();
+            BytecodeCache.cacheBytecode(applicationClass.enhancedByteCode, applicationClass.name, applicationClass.javaSource);
+        }
+    }
+
     /**
      * Retrieve all application classes assignable to this class.
      * 
@@ -525,13 +763,22 @@ public class ApplicationClassloader extends ClassLoader {
      */
     public List<Class> getAnnotatedClasses(Class<? extends Annotation> clazz) {
         getAllClasses();
-        List<Class> results = new ArrayList<>();
-        for (ApplicationClass c : Play.classes.getAnnotatedClasses(clazz)) {
-            results.add(c.javaClass);
+        List<Class> results = annotatedClassesByName.get(clazz.getName());
+        if (results == null) {
+            results = new ArrayList<>();
+            for (ApplicationClass c : Play.classes.getAnnotatedClasses(clazz)) {
+                results.add(c.javaClass);
+            }
+            // cache annotated classes
+            results = unmodifiableList(results);
+            annotatedClassesByName.put(clazz.getName(), results);
         }
-        return results;
+        return new ArrayList<>(results);
     }
 
+    // annotated classes cache
+    private final Map<String, List<Class>> annotatedClassesByName = new ConcurrentHashMap<>();
+
     public List<Class> getAnnotatedClasses(Class[] clazz) {
         List<Class> results = new ArrayList<>();
         for (Class<? extends Annotation> cl : clazz) {
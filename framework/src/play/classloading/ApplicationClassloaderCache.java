@@ -0,0 +1,62 @@
+package play.classloading;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import play.Play;
+
+/**
+ * Values computed from the application classes (per class or per method
+ * plans, serializers...), shared by all threads and dropped as soon as the
+ * classes are reloaded, when the {@link ApplicationClassloaderState} changes.
+ *
+ * Reads take no lock: a value may be computed twice the first time, and the
+ * last one put is kept.
+ */
+public class ApplicationClassloaderCache<K, V> {
+
+    private volatile Generation<K, V> generation;
+
+    private static class Generation<K, V> {
+
+        final ApplicationClassloaderState state;
+        final ConcurrentMap<K, V> values = new ConcurrentHashMap<>();
+
+        Generation(ApplicationClassloaderState state) {
+            this.state = state;
+        }
+    }
+
+    /**
+     * The values of the current classes, a new map once they are reloaded
+     */
+    private ConcurrentMap<K, V> values() {
+        Generation<K, V> current = generation;
+        ApplicationClassloaderState state = Play.classloader == null ? null : Play.classloader.currentState;
+        if (current == null || (state != null && !state.equals(current.state))) {
+            current = new Generation<>(state);
+            generation = current;
+        }
+        return current.values;
+    }
+
+    /**
+     * @return The value of this key, or null if it is not computed yet for the
+     *         current classes
+     */
+    public V get(K key) {
+        return values().get(key);
+    }
+
+    public void put(K key, V value) {
+        values().put(key, value);
+    }
+
+    public int size() {
+        return values().size();
+    }
+
+    public void clear() {
+        generation = null;
+    }
+}
@@ -3,6 +3,7 @@ package play.classloading;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 
 import org.eclipse.jdt.core.compiler.IProblem;
@@ -270,6 +271,7 @@ public class ApplicationCompiler {
                     }
                 }
                 // Something has been compiled
+                Set<String> references = ClassDependencies.references(result);
                 ClassFile[] clazzFiles = result.getClassFiles();
                 for (int i = 0; i < clazzFiles.length; i++) {
                     ClassFile clazzFile = clazzFiles[i];
@@ -286,7 +288,9 @@ public class ApplicationCompiler {
                         Logger.trace("Compiled %s", clazzName);
                     }
 
-                    applicationClasses.getApplicationClass(clazzName.toString()).compiled(clazzFile.getBytes());
+                    ApplicationClass applicationClass = applicationClasses.getApplicationClass(clazzName.toString());
+                    applicationClass.compiled(clazzFile.getBytes());
+                    applicationClass.references = references;
                 }
             }
         };
@@ -301,6 +305,9 @@ public class ApplicationCompiler {
             }
         };
 
+        // Record the types each unit refers to, to find what to recompile
+        jdtCompiler.options.produceReferenceInfo = true;
+
         // Go !
         jdtCompiler.compile(compilationUnits);
 
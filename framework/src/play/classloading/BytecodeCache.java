@@ -3,26 +3,113 @@ package play.classloading;
 import play.Logger;
 import play.Play;
 import play.PlayPlugin;
+import play.exceptions.UnexpectedException;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.security.MessageDigest;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.commons.io.FileUtils.writeByteArrayToFile;
 
 /**
  * Used to speed up compilation time
+ *
+ * The bytecode is kept in a single memory-mapped file, tmp/bytecode/MODE/.store,
+ * unless play.bytecodeCache.store=files which keeps one file per class (and a
+ * copy of the classes under tmp/classes).
  */
 public class BytecodeCache {
 
+    private static BytecodeStore store;
+    private static File failedStore;
+    private static final AtomicInteger batches = new AtomicInteger();
+
+    private static boolean enabled() {
+        return Play.initialized && Play.tmpDir != null && Play.configuration.getProperty("play.bytecodeCache", "true").equals("true");
+    }
+
+    /**
+     * The store for the current tmp directory and mode, or null to use one
+     * file per class
+     */
+    private static synchronized BytecodeStore store() {
+        if (!"mmap".equals(Play.configuration.getProperty("play.bytecodeCache.store", "mmap"))) {
+            return null;
+        }
+        File file = cacheFile(".store");
+        if (store != null && store.file.equals(file)) {
+            return store;
+        }
+        if (file.equals(failedStore)) {
+            return null;
+        }
+        close();
+        try {
+            store = BytecodeStore.open(file, Play.readOnlyTmp);
+            Logger.trace("Opened the bytecode cache %s (%s entries)", file, store.count());
+            return store;
+        } catch (IOException e) {
+            Logger.warn(e, "Cannot open the bytecode cache %s, falling back to one file per class", file);
+            failedStore = file;
+            return null;
+        }
+    }
+
+    /**
+     * Close the store, writing pending records
+     */
+    static synchronized void close() {
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                Logger.warn(e, "Cannot close the bytecode cache %s", store.file);
+            }
+            store = null;
+        }
+    }
+
+    /**
+     * Buffer the cached bytecode until the matching {@link #endBatch()}, to
+     * write it at once when many classes are compiled
+     */
+    public static void startBatch() {
+        batches.incrementAndGet();
+    }
+
+    /**
+     * Write the bytecode cached since the first {@link #startBatch()}
+     */
+    public static void endBatch() {
+        if (batches.decrementAndGet() == 0) {
+            BytecodeStore current;
+            synchronized (BytecodeCache.class) {
+                current = store;
+            }
+            if (current != null) {
+                try {
+                    current.flush();
+                } catch (IOException e) {
+                    throw new UnexpectedException(e);
+                }
+            }
+        }
+    }
+
     /**
      * Delete the bytecode
      * @param name Cache name
      */
     public static void deleteBytecode(String name) {
         try {
-            if (!Play.initialized || Play.tmpDir == null || Play.readOnlyTmp || !Play.configuration.getProperty("play.bytecodeCache", "true").equals("true")) {
+            if (!enabled() || Play.readOnlyTmp) {
+                return;
+            }
+            BytecodeStore current = store();
+            if (current != null) {
+                current.remove(name);
                 return;
             }
             File f = cacheFile(name.replace("/", "_").replace("{", "_").replace("}", "_").replace(":", "_"));
@@ -42,9 +129,17 @@ public class BytecodeCache {
      */
     public static byte[] getBytecode(String name, String source) {
         try {
-            if (!Play.initialized || Play.tmpDir == null || !Play.configuration.getProperty("play.bytecodeCache", "true").equals("true")) {
+            if (!enabled()) {
                 return null;
             }
+            BytecodeStore current = store();
+            if (current != null) {
+                byte[] byteCode = current.get(name, hash(source));
+                if (byteCode == null && Logger.isTraceEnabled()) {
+                    Logger.trace("Cache MISS for %s", name);
+                }
+                return byteCode;
+            }
             File f = cacheFile(name.replace("/", "_").replace("{", "_").replace("}", "_").replace(":", "_"));
             if (f.exists()) {
                 FileInputStream fis = new FileInputStream(f);
@@ -57,9 +152,9 @@ public class BytecodeCache {
                     hash.append((char) read);
                     offset++;
                 }
-                if (!hash(source).equals(hash.toString())) {
+                if (!Long.toHexString(hash(source)).equals(hash.toString())) {
                     if (Logger.isTraceEnabled()) {
-                        Logger.trace("Bytecode too old (%s != %s)", hash, hash(source));
+                        Logger.trace("Bytecode too old (%s != %s)", hash, Long.toHexString(hash(source)));
                     }
                     fis.close();
                     return null;
@@ -87,12 +182,20 @@ public class BytecodeCache {
      */
     public static void cacheBytecode(byte[] byteCode, String name, String source) {
         try {
-            if (!Play.initialized || Play.tmpDir == null || Play.readOnlyTmp || !Play.configuration.getProperty("play.bytecodeCache", "true").equals("true")) {
+            if (!enabled() || Play.readOnlyTmp) {
+                return;
+            }
+            BytecodeStore current = store();
+            if (current != null) {
+                current.put(name, hash(source), byteCode, batches.get() > 0);
+                if (Logger.isTraceEnabled()) {
+                    Logger.trace("%s cached", name);
+                }
                 return;
             }
             File f = cacheFile(name.replace("/", "_").replace("{", "_").replace("}", "_").replace(":", "_"));
             try (FileOutputStream fos = new FileOutputStream(f)) {
-                fos.write(hash(source).getBytes("utf-8"));
+                fos.write(Long.toHexString(hash(source)).getBytes("utf-8"));
                 fos.write(0);
                 fos.write(byteCode);
             }
@@ -115,29 +218,24 @@ public class BytecodeCache {
     /**
      * Build a hash of the source code.
      * To efficiently track source code modifications.
+     *
+     * It is a 64 bits FNV-1a hash of the Play version, the enabled plugins and
+     * the source: collisions are not a concern here, only speed.
      */
-    static String hash(String text) {
-        try {
-            StringBuilder plugins = new StringBuilder();
-            for(PlayPlugin plugin : Play.pluginCollection.getEnabledPlugins()) {
-                plugins.append(plugin.getClass().getName());
-            }
-            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
-            messageDigest.reset();
-            messageDigest.update((Play.version + plugins + text).getBytes("utf-8"));
-            byte[] digest = messageDigest.digest();
-            StringBuilder builder = new StringBuilder();
-            for (int i = 0; i < digest.length; ++i) {
-                int value = digest[i];
-                if (value < 0) {
-                    value += 256;
-                }
-                builder.append(Integer.toHexString(value));
-            }
-            return builder.toString();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    static long hash(String text) {
+        StringBuilder plugins = new StringBuilder();
+        for (PlayPlugin plugin : Play.pluginCollection.getEnabledPlugins()) {
+            plugins.append(plugin.getClass().getName());
+        }
+        return fnv(fnv(0xcbf29ce484222325L, Play.version + plugins), String.valueOf(text));
+    }
+
+    private static long fnv(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
         }
+        return hash;
     }
 
     /**
@@ -0,0 +1,382 @@
+package play.classloading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import play.Logger;
+
+/**
+ * A single append-only file holding the cached bytecode, read through a memory
+ * mapping. Each record is
+ *
+ * <pre>
+ * [name length][name][source hash][bytecode length][bytecode]
+ * </pre>
+ *
+ * and the last record of a name wins; a length of -1 removes it. The file is
+ * scanned once when opened to build the index, and rewritten without the dead
+ * records when they take more than half of it.
+ *
+ * The process that opens the file for writing holds an exclusive lock on it.
+ * Other processes sharing the same tmp directory only read it.
+ */
+class BytecodeStore {
+
+    private static final int MAGIC = 0x504c4243;
+    private static final int VERSION = 1;
+    private static final int HEADER = 8;
+    /**
+     * Files smaller than this are never compacted
+     */
+    static final long COMPACT_THRESHOLD = 1024 * 1024;
+    /**
+     * Writes are buffered up to this size during a batch
+     */
+    private static final int MAX_PENDING = 1024 * 1024;
+
+    static class Record {
+
+        final long hash;
+        /**
+         * Position of the record in the file
+         */
+        final long position;
+        /**
+         * Position of the bytecode
+         */
+        final long offset;
+        final int length;
+
+        Record(long hash, long position, long offset, int length) {
+            this.hash = hash;
+            this.position = position;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        long size() {
+            return offset + length - position;
+        }
+    }
+
+    final File file;
+    private boolean readOnly;
+    private final Map<String, Record> records = new HashMap<>();
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private FileLock lock;
+    private MappedByteBuffer map;
+    private long size;
+    private long dead;
+    /**
+     * Set when the file could not be replaced, it is then compacted at the
+     * next open
+     */
+    private boolean compactionFailed;
+    private byte[] pending = new byte[0];
+    private int pendingSize;
+
+    private BytecodeStore(File file, boolean readOnly) {
+        this.file = file;
+        this.readOnly = readOnly;
+    }
+
+    static BytecodeStore open(File file, boolean readOnly) throws IOException {
+        BytecodeStore store = new BytecodeStore(file, readOnly);
+        store.load();
+        if (store.shouldCompact()) {
+            store.compact();
+        }
+        return store;
+    }
+
+    private void load() throws IOException {
+        if (readOnly && !file.exists()) {
+            return;
+        }
+        openFile();
+        size = channel.size();
+        if (size < HEADER || readInt(0) != MAGIC || readInt(4) != VERSION) {
+            if (readOnly) {
+                size = 0;
+                return;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            size = HEADER;
+        }
+        // Scanned without mapping the file, so that it can still be replaced
+        // by compact() on systems that cannot replace a mapped file
+        long position = HEADER;
+        while (position + 4 <= size) {
+            int nameLength = readInt(position);
+            long offset = position + 4 + nameLength + 12;
+            if (nameLength <= 0 || offset > size) {
+                break;
+            }
+            ByteBuffer view = ByteBuffer.allocate(nameLength + 12);
+            while (view.hasRemaining() && channel.read(view, position + 4 + view.position()) > 0) {
+                // Read the whole record header
+            }
+            view.flip();
+            byte[] name = new byte[nameLength];
+            view.get(name);
+            long hash = view.getLong();
+            int length = view.getInt();
+            if (length > 0 && offset + length > size) {
+                break;
+            }
+            String key = new String(name, StandardCharsets.UTF_8);
+            Record previous;
+            if (length < 0) {
+                previous = records.remove(key);
+                dead += offset - position;
+            } else {
+                previous = records.put(key, new Record(hash, position, offset, length));
+            }
+            if (previous != null) {
+                dead += previous.size();
+            }
+            position = offset + Math.max(length, 0);
+        }
+        if (position < size) {
+            // Truncated by a crash while writing, or being written by the
+            // process that owns the file
+            Logger.debug("Truncating the bytecode cache %s from %s to %s bytes", file, size, position);
+            size = position;
+            if (!readOnly) {
+                channel.truncate(size);
+            }
+        }
+    }
+
+    /**
+     * Open the file, for writing if this process can lock it
+     */
+    private void openFile() throws IOException {
+        raf = new RandomAccessFile(file, readOnly ? "r" : "rw");
+        channel = raf.getChannel();
+        map = null;
+        if (readOnly) {
+            return;
+        }
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Locked by another store of this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            Logger.info("The bytecode cache %s is used by another process, it is only read", file);
+            readOnly = true;
+            raf.close();
+            raf = new RandomAccessFile(file, "r");
+            channel = raf.getChannel();
+        }
+    }
+
+    private boolean shouldCompact() {
+        return !readOnly && !compactionFailed && dead > size / 2 && size > COMPACT_THRESHOLD;
+    }
+
+    private int readInt(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        channel.read(buffer, position);
+        buffer.flip();
+        return buffer.remaining() == 4 ? buffer.getInt() : 0;
+    }
+
+    /**
+     * @return The bytecode, or null if it is not cached for this hash
+     */
+    synchronized byte[] get(String name, long hash) throws IOException {
+        Record record = records.get(name);
+        if (record == null || record.hash != hash) {
+            return null;
+        }
+        byte[] bytecode = new byte[record.length];
+        if (record.offset >= size) {
+            System.arraycopy(pending, (int) (record.offset - size), bytecode, 0, record.length);
+            return bytecode;
+        }
+        if (map == null || record.offset + record.length > map.capacity()) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer view = map.duplicate();
+        view.position((int) record.offset);
+        view.get(bytecode);
+        return bytecode;
+    }
+
+    /**
+     * Append the bytecode. It is written right away, or buffered until
+     * {@link #flush()} when batch is true.
+     */
+    synchronized void put(String name, long hash, byte[] bytecode, boolean batch) throws IOException {
+        if (readOnly) {
+            return;
+        }
+        long position = size + pendingSize;
+        long offset = append(name, hash, bytecode);
+        Record previous = records.put(name, new Record(hash, position, offset, bytecode.length));
+        if (previous != null) {
+            dead += previous.size();
+        }
+        if (!batch || pendingSize >= MAX_PENDING) {
+            flush();
+        }
+    }
+
+    synchronized void remove(String name) throws IOException {
+        Record previous = records.remove(name);
+        if (readOnly || previous == null) {
+            return;
+        }
+        long position = size + pendingSize;
+        append(name, 0, null);
+        dead += previous.size() + size + pendingSize - position;
+        flush();
+    }
+
+    /**
+     * Write the record to the pending buffer
+     *
+     * @return The position of the bytecode in the file
+     */
+    private long append(String name, long hash, byte[] bytecode) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int length = 4 + key.length + 12 + (bytecode == null ? 0 : bytecode.length);
+        if (pendingSize + length > pending.length) {
+            byte[] grown = new byte[Math.max(pendingSize + length, pending.length * 2)];
+            System.arraycopy(pending, 0, grown, 0, pendingSize);
+            pending = grown;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending, pendingSize, length);
+        buffer.putInt(key.length).put(key).putLong(hash).putInt(bytecode == null ? -1 : bytecode.length);
+        long offset = size + pendingSize + 4 + key.length + 12;
+        if (bytecode != null) {
+            buffer.put(bytecode);
+        }
+        pendingSize += length;
+        return offset;
+    }
+
+    /**
+     * Write the pending records at the end of the file, then compact it if
+     * the dead records take more than half of it
+     */
+    synchronized void flush() throws IOException {
+        if (pendingSize == 0) {
+            return;
+        }
+        write();
+        if (shouldCompact()) {
+            compact();
+        }
+    }
+
+    private void write() throws IOException {
+        if (pendingSize == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending, 0, pendingSize);
+        long position = size;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        size = position;
+        pendingSize = 0;
+        if (pending.length > MAX_PENDING) {
+            pending = new byte[0];
+        }
+    }
+
+    /**
+     * Rewrite the file with the live records only
+     */
+    synchronized void compact() throws IOException {
+        write();
+        long before = size;
+        List<Map.Entry<String, Record>> live = new ArrayList<>(records.entrySet());
+        live.sort(Comparator.comparingLong(e -> e.getValue().position));
+        File compacted = new File(file.getPath() + ".compact");
+        Map<String, Record> moved = new HashMap<>();
+        try (RandomAccessFile out = new RandomAccessFile(compacted, "rw")) {
+            out.setLength(0);
+            FileChannel target = out.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            target.write(header, 0);
+            long position = HEADER;
+            target.position(position);
+            for (Map.Entry<String, Record> entry : live) {
+                Record record = entry.getValue();
+                long recordSize = record.size();
+                long transferred = 0;
+                while (transferred < recordSize) {
+                    transferred += channel.transferTo(record.position + transferred, recordSize - transferred, target);
+                }
+                moved.put(entry.getKey(), new Record(record.hash, position, position + (record.offset - record.position), record.length));
+                position += recordSize;
+            }
+            target.force(false);
+        }
+        close();
+        try {
+            Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // A file still mapped here or by another process cannot be
+            // replaced on Windows
+            Logger.debug(e, "Cannot replace the bytecode cache %s, it will be compacted when it is opened again", file);
+            Files.deleteIfExists(compacted.toPath());
+            compactionFailed = true;
+            openFile();
+            size = channel.size();
+            return;
+        }
+        records.clear();
+        records.putAll(moved);
+        dead = 0;
+        openFile();
+        size = channel.size();
+        Logger.debug("Compacted the bytecode cache %s from %s to %s bytes", file, before, size);
+    }
+
+    synchronized int count() {
+        return records.size();
+    }
+
+    synchronized long size() {
+        return size + pendingSize;
+    }
+
+    synchronized void close() throws IOException {
+        if (!readOnly) {
+            write();
+        }
+        map = null;
+        if (raf != null) {
+            // Also releases the lock
+            raf.close();
+            raf = null;
+            channel = null;
+            lock = null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package play.classloading;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * What an application class refers to and what it exposes, to recompile only
+ * the classes affected by a change.
+ */
+final class ClassDependencies {
+
+    private ClassDependencies() {
+    }
+
+    /**
+     * The simple names of the types referred to by a compilation unit, as
+     * recorded by JDT when produceReferenceInfo is set
+     *
+     * @param result
+     *            The compilation result
+     * @return The simple names
+     */
+    static Set<String> references(CompilationResult result) {
+        Set<String> references = new HashSet<>();
+        if (result.simpleNameReferences != null) {
+            for (char[] name : result.simpleNameReferences) {
+                references.add(new String(name));
+            }
+        }
+        if (result.qualifiedReferences != null) {
+            for (char[][] name : result.qualifiedReferences) {
+                if (name.length > 0) {
+                    references.add(new String(name[name.length - 1]));
+                }
+            }
+        }
+        return references;
+    }
+
+    /**
+     * The simple names a class can be referred to by: models.Order$Line is
+     * referred to as Order or Line
+     *
+     * @param name
+     *            The fully qualified class name
+     * @return The simple names
+     */
+    static Set<String> simpleNames(String name) {
+        Set<String> names = new HashSet<>();
+        String simpleName = name.substring(name.lastIndexOf('.') + 1);
+        names.addAll(Arrays.asList(simpleName.split("\\$")));
+        names.remove("");
+        return names;
+    }
+
+    /**
+     * Hash of what other classes can see of a class: its supertypes, and its
+     * non private fields (with their constant value, which is inlined by the
+     * compiler), methods and inner classes. Other classes only need to be
+     * recompiled when it changes.
+     *
+     * @param bytecode
+     *            The compiled bytecode
+     * @return The hash
+     */
+    static long apiHash(byte[] bytecode) {
+        final StringBuilder members = new StringBuilder();
+        new ClassReader(bytecode).accept(new ClassVisitor(Opcodes.ASM5) {
+
+            String className;
+
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                className = name;
+                members.append(access).append(name).append(signature).append(superName).append(Arrays.toString(interfaces)).append('\n');
+            }
+
+            @Override
+            public void visitInnerClass(String name, String outerName, String innerName, int access) {
+                // Only its own inner classes, not the ones it merely uses
+                if (className.equals(outerName)) {
+                    members.append("inner ").append(access).append(name).append('\n');
+                }
+            }
+
+            @Override
+            public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+                if ((access & Opcodes.ACC_PRIVATE) == 0) {
+                    members.append("field ").append(access).append(name).append(desc).append(signature).append('=').append(value).append('\n');
+                }
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+                if ((access & Opcodes.ACC_PRIVATE) == 0) {
+                    members.append("method ").append(access).append(name).append(desc).append(signature).append(Arrays.toString(exceptions))
+                            .append('\n');
+                }
+                return null;
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return ClassIndex.hash(members.toString());
+    }
+}
@@ -0,0 +1,298 @@
+package play.classloading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import play.Logger;
+import play.Play;
+import play.PlayPlugin;
+
+/**
+ * Supertypes and annotations of the application classes, read from their
+ * enhanced bytecode with ASM. It answers getAssignableClasses and
+ * getAnnotatedClasses without loading every class, and is saved next to the
+ * bytecode cache (or in precompiled/) so that unchanged classes are not read
+ * again at the next start.
+ */
+public class ClassIndex {
+
+    private static final int MAGIC = 0x504c4349;
+    private static final int VERSION = 1;
+
+    /**
+     * What the index knows about a class
+     */
+    public static class Entry {
+
+        /**
+         * Hash of the Java source, 0 for precompiled classes
+         */
+        final long sourceHash;
+        final int access;
+        /**
+         * Superclass name, or null for java.lang.Object
+         */
+        final String superName;
+        final String[] interfaces;
+        /**
+         * Runtime visible class annotations
+         */
+        final String[] annotations;
+
+        Entry(long sourceHash, int access, String superName, String[] interfaces, String[] annotations) {
+            this.sourceHash = sourceHash;
+            this.access = access;
+            this.superName = superName;
+            this.interfaces = interfaces;
+            this.annotations = annotations;
+        }
+
+        public boolean isInterface() {
+            return (access & Opcodes.ACC_INTERFACE) != 0;
+        }
+
+        public boolean hasAnnotation(String annotation) {
+            for (String a : annotations) {
+                if (a.equals(annotation)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    /**
+     * The entry of this class, if it is up to date with its source. The
+     * source is not compared in precompiled mode, where classes are indexed
+     * from the precompiled bytecode without it.
+     *
+     * @param name
+     *            The fully qualified class name
+     * @param sourceHash
+     *            The hash of the current source
+     * @return The entry or null
+     */
+    public Entry get(String name, long sourceHash) {
+        Entry entry = entries.get(name);
+        return entry != null && (entry.sourceHash == sourceHash || Play.usePrecompiled) ? entry : null;
+    }
+
+    /**
+     * Index the bytecode of a class, unless its entry is already up to date
+     *
+     * @param name
+     *            The fully qualified class name
+     * @param sourceHash
+     *            The hash of the source the bytecode was compiled from
+     * @param bytecode
+     *            The enhanced bytecode
+     * @return The entry
+     */
+    public Entry index(String name, long sourceHash, byte[] bytecode) {
+        Entry entry = get(name, sourceHash);
+        if (entry == null) {
+            entry = read(sourceHash, bytecode);
+            entries.put(name, entry);
+            dirty = true;
+        }
+        return entry;
+    }
+
+    public void remove(String name) {
+        if (entries.remove(name) != null) {
+            dirty = true;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    static Entry read(long sourceHash, byte[] bytecode) {
+        final List<String> annotations = new ArrayList<>();
+        final Entry[] header = new Entry[1];
+        new ClassReader(bytecode).accept(new ClassVisitor(Opcodes.ASM5) {
+
+            int access;
+            String superName;
+            String[] interfaces;
+
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                this.access = access;
+                this.superName = superName == null ? null : superName.replace('/', '.');
+                this.interfaces = new String[interfaces == null ? 0 : interfaces.length];
+                for (int i = 0; i < this.interfaces.length; i++) {
+                    this.interfaces[i] = interfaces[i].replace('/', '.');
+                }
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                if (visible) {
+                    annotations.add(Type.getType(desc).getClassName());
+                }
+                return null;
+            }
+
+            @Override
+            public void visitEnd() {
+                header[0] = new Entry(sourceHash, access, superName, interfaces, annotations.toArray(new String[annotations.size()]));
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return header[0];
+    }
+
+    /**
+     * Fast hash of a Java source (64 bits FNV-1a)
+     *
+     * @param source
+     *            The source, may be null
+     * @return The hash, 0 when there is no source
+     */
+    public static long hash(String source) {
+        if (source == null) {
+            return 0L;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < source.length(); i++) {
+            hash ^= source.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0L ? 1L : hash;
+    }
+
+    /**
+     * The enhanced bytecode depends on the Play version and on the enabled
+     * plugins, like the bytecode cache
+     */
+    static String signature() {
+        StringBuilder signature = new StringBuilder(String.valueOf(Play.version));
+        if (Play.pluginCollection != null) {
+            for (PlayPlugin plugin : Play.pluginCollection.getEnabledPlugins()) {
+                signature.append(',').append(plugin.getClass().getName());
+            }
+        }
+        return signature.toString();
+    }
+
+    /**
+     * Where the index is kept: precompiled/ when precompiling or running
+     * precompiled, next to the bytecode cache otherwise.
+     *
+     * @return The index file, or null if it should not be persisted
+     */
+    static File file() {
+        if (System.getProperty("precompile") != null || Play.usePrecompiled) {
+            return Play.getFile("precompiled/java/.index");
+        }
+        if (!Play.initialized || Play.tmpDir == null || !Play.configuration.getProperty("play.bytecodeCache", "true").equals("true")) {
+            return null;
+        }
+        return BytecodeCache.cacheFile(".index");
+    }
+
+    /**
+     * Load the saved entries. Nothing is loaded if the index was saved by
+     * another Play version or with other plugins.
+     *
+     * @param file
+     *            The index file, may be null
+     */
+    public void load(File file) {
+        if (file == null || !file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !signature().equals(in.readUTF())) {
+                Logger.trace("Class index %s is outdated", file);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                long sourceHash = in.readLong();
+                int access = in.readInt();
+                String superName = in.readUTF();
+                String[] interfaces = new String[in.readInt()];
+                for (int j = 0; j < interfaces.length; j++) {
+                    interfaces[j] = in.readUTF();
+                }
+                String[] annotations = new String[in.readInt()];
+                for (int j = 0; j < annotations.length; j++) {
+                    annotations[j] = in.readUTF();
+                }
+                entries.putIfAbsent(name, new Entry(sourceHash, access, superName.isEmpty() ? null : superName, interfaces, annotations));
+            }
+        } catch (IOException e) {
+            Logger.warn(e, "Cannot read the class index %s", file);
+            entries.clear();
+        }
+    }
+
+    /**
+     * Save the entries of these classes if the index changed
+     *
+     * @param file
+     *            The index file, may be null
+     * @param names
+     *            The current application classes, entries of other classes
+     *            are dropped
+     */
+    public void save(File file, Collection<String> names) {
+        // A precompiled application only reads its index
+        if (!dirty || file == null || Play.usePrecompiled || (Play.readOnlyTmp && System.getProperty("precompile") == null)) {
+            return;
+        }
+        Set<String> current = names instanceof Set ? (Set<String>) names : new HashSet<>(names);
+        entries.keySet().retainAll(current);
+        file.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(signature());
+            List<Map.Entry<String, Entry>> all = new ArrayList<>(entries.entrySet());
+            out.writeInt(all.size());
+            for (Map.Entry<String, Entry> e : all) {
+                Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.sourceHash);
+                out.writeInt(entry.access);
+                out.writeUTF(entry.superName == null ? "" : entry.superName);
+                out.writeInt(entry.interfaces.length);
+                for (String i : entry.interfaces) {
+                    out.writeUTF(i);
+                }
+                out.writeInt(entry.annotations.length);
+                for (String a : entry.annotations) {
+                    out.writeUTF(a);
+                }
+            }
+            dirty = false;
+        } catch (IOException e) {
+            Logger.warn(e, "Cannot write the class index %s", file);
+        }
+    }
+}
@@ -29,8 +29,29 @@ import play.classloading.ApplicationClasses.ApplicationClass;
  */
 public abstract class Enhancer {
 
+    /**
+     * Set on the threads that enhance classes in parallel
+     */
+    private static final ThreadLocal<Boolean> compiledView = new ThreadLocal<>();
+
     protected ClassPool classPool;
 
+    /**
+     * Let the enhancers of the current thread read the other application
+     * classes as compiled rather than as enhanced: when classes are enhanced
+     * in parallel, the other classes may be enhanced at the same time.
+     *
+     * @param compiled
+     *            true while the current thread enhances classes in parallel
+     */
+    public static void readCompiledClasses(boolean compiled) {
+        if (compiled) {
+            compiledView.set(Boolean.TRUE);
+        } else {
+            compiledView.remove();
+        }
+    }
+
     public Enhancer() {
         this.classPool = newClassPool();
     }
@@ -84,11 +105,16 @@ public abstract class Enhancer {
             }
             ApplicationClass appClass = Play.classes.getApplicationClass(className);
 
-            if (appClass.enhancedByteCode == null) {
+            byte[] byteCode = appClass.enhancedByteCode;
+            if (compiledView.get() != null && appClass.javaByteCode != null) {
+                // Enhanced in parallel: the compiled bytecode is the stable view
+                byteCode = appClass.javaByteCode;
+            }
+            if (byteCode == null) {
                 throw new RuntimeException("Trying to visit uncompiled class while enhancing. Uncompiled class: " + className);
             }
 
-            return new ByteArrayInputStream(appClass.enhancedByteCode);
+            return new ByteArrayInputStream(byteCode);
         }
 
         @Override
@@ -0,0 +1,52 @@
+package play.data.binding;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+
+import play.classloading.ApplicationClassloaderCache;
+import play.utils.Java;
+
+/**
+ * The reflective metadata of an action method (parameter names, types,
+ * generic types and annotations, and which parameters are simple), read once
+ * per method and shared by all requests until the application classes are
+ * reloaded. The arguments themselves are still bound by {@link Binder}, from
+ * the parameter tree that the request builds once for all of them: the
+ * TypeBinder of each parameter is resolved on every bind.
+ */
+public class ActionBindingPlan {
+
+    private static final ApplicationClassloaderCache<Method, ActionBindingPlan> plans = new ApplicationClassloaderCache<>();
+
+    public final String[] paramNames;
+    public final Class<?>[] types;
+    public final Type[] genericTypes;
+    public final Annotation[][] annotations;
+    /**
+     * Simple parameters are bound from their own request parameter, without
+     * parsing the body
+     */
+    public final boolean[] simple;
+
+    ActionBindingPlan(Method method) throws Exception {
+        this.paramNames = Java.parameterNames(method);
+        this.types = method.getParameterTypes();
+        this.genericTypes = method.getGenericParameterTypes();
+        this.annotations = method.getParameterAnnotations();
+        this.simple = new boolean[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            simple[i] = type.equals(String.class) || Number.class.isAssignableFrom(type) || type.isPrimitive();
+        }
+    }
+
+    public static ActionBindingPlan forMethod(Method method) throws Exception {
+        ActionBindingPlan plan = plans.get(method);
+        if (plan == null) {
+            plan = new ActionBindingPlan(method);
+            plans.put(method, plan);
+        }
+        return plan;
+    }
+}
@@ -23,6 +23,8 @@ public class BeanWrapper {
      */
     private Map<String, Property> wrappers = new HashMap<>();
 
+    private volatile Constructor<?> constructor;
+
     public BeanWrapper(Class<?> forClass) {
         if (Logger.isTraceEnabled()) {
             Logger.trace("Bean wrapper for class %s", forClass.getName());
@@ -49,6 +51,10 @@ public class BeanWrapper {
         return wrappers.values();
     }
 
+    Property getProperty(String name) {
+        return wrappers.get(name);
+    }
+
     public void set(String name, Object instance, Object value) {
         for (Property prop : wrappers.values()) {
             if (name.equals(prop.name)) {
@@ -71,8 +77,12 @@ public class BeanWrapper {
     }
 
     protected Object newBeanInstance() throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
-        Constructor<?> constructor = beanClass.getDeclaredConstructor();
-        constructor.setAccessible(true);
+        Constructor<?> constructor = this.constructor;
+        if (constructor == null) {
+            constructor = beanClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            this.constructor = constructor;
+        }
         return constructor.newInstance();
     }
 
@@ -31,6 +31,7 @@ import org.joda.time.DateTime;
 
 import play.Logger;
 import play.Play;
+import play.classloading.ApplicationClassloaderCache;
 import play.data.Upload;
 import play.data.binding.types.BinaryBinder;
 import play.data.binding.types.ByteArrayArrayBinder;
@@ -104,14 +105,15 @@ public abstract class Binder {
         supportedTypes.remove(clazz);
     }
 
-    static Map<Class<?>, BeanWrapper> beanwrappers = new HashMap<>();
+    static final ApplicationClassloaderCache<Class<?>, BeanWrapper> beanwrappers = new ApplicationClassloaderCache<>();
 
     static BeanWrapper getBeanWrapper(Class<?> clazz) {
-        if (!beanwrappers.containsKey(clazz)) {
-            BeanWrapper beanwrapper = new BeanWrapper(clazz);
+        BeanWrapper beanwrapper = beanwrappers.get(clazz);
+        if (beanwrapper == null) {
+            beanwrapper = new BeanWrapper(clazz);
             beanwrappers.put(clazz, beanwrapper);
         }
-        return beanwrappers.get(clazz);
+        return beanwrapper;
     }
 
     public static class MethodAndParamInfo {
@@ -362,7 +364,7 @@ public abstract class Binder {
         return bean;
     }
 
-    private static <T> T createNewInstance(Class<T> clazz) {
+    static <T> T createNewInstance(Class<T> clazz) {
         try {
             Constructor<T> constructor = clazz.getDeclaredConstructor();
             constructor.setAccessible(true);
@@ -0,0 +1,403 @@
+package play.data.binding;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import play.Logger;
+import play.Play;
+import play.classloading.ApplicationClassloaderCache;
+import play.data.validation.Validation;
+import play.db.Model;
+import play.exceptions.UnexpectedException;
+import play.mvc.results.Status;
+import play.utils.Utils;
+
+/**
+ * Bind the parameters of an action from a JSON request body.
+ *
+ * The body is read once with a streaming JsonReader, and each value is
+ * converted and set as it is read, without building a JSON tree or request
+ * parameters first: the fields of a root object are bound to the parameters
+ * of the same name, and a root array to the first array or collection
+ * parameter. For example:
+ *
+ * <pre>
+ * {"user": {"name": "bob", "tags": ["a", "b"]}, "page": 2}
+ * </pre>
+ *
+ * binds the user and page parameters as the user.name, user.tags[0],
+ * user.tags[1] and page form fields would, with the same TypeBinders and
+ * annotations. JSON nulls are left out. Models, and the values whose JSON
+ * shape does not match their type, are flattened into form fields and bound
+ * by the {@link Binder}, so that plugins such as JPA still bind them.
+ */
+public class JsonBinder {
+
+    private static final ApplicationClassloaderCache<Class<?>, Boolean> beans = new ApplicationClassloaderCache<>();
+
+    private final int maxParams = Integer.parseInt(Play.configuration.getProperty("play.json.maxParams", "0")); // 0 == no limit
+    private final boolean globalBinders = hasGlobalBinders();
+    private final StringBuilder path = new StringBuilder();
+    private String[] profiles;
+    private int values;
+
+    private JsonBinder() {
+    }
+
+    /**
+     * @param json
+     *            The request body
+     * @param names
+     *            The parameter names
+     * @param types
+     *            The parameter classes
+     * @param genericTypes
+     *            The parameter types
+     * @param annotations
+     *            The parameter annotations
+     * @return The value of each parameter, or {@link Binder#MISSING} when the
+     *         body has none, to bind it from the other request parameters
+     */
+    public static Object[] bind(String json, String[] names, Class<?>[] types, Type[] genericTypes, Annotation[][] annotations) {
+        Object[] result = new Object[names.length];
+        Arrays.fill(result, Binder.MISSING);
+        JsonBinder binder = new JsonBinder();
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setLenient(true);
+        try {
+            JsonToken root = reader.peek();
+            if (root == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    int i = Arrays.asList(names).indexOf(reader.nextName());
+                    if (i < 0 || result[i] != Binder.MISSING) {
+                        reader.skipValue();
+                    } else {
+                        result[i] = binder.bindParameter(reader, names[i], types[i], genericTypes[i], annotations[i]);
+                    }
+                }
+            } else if (root == JsonToken.BEGIN_ARRAY) {
+                for (int i = 0; i < types.length; i++) {
+                    if (types[i].isArray() || Collection.class.isAssignableFrom(types[i])) {
+                        result[i] = binder.bindParameter(reader, "", types[i], genericTypes[i], annotations[i]);
+                        break;
+                    }
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Not JSON after all, nothing is bound from the body
+            Logger.debug(e, "Cannot parse the JSON body of the request");
+            Arrays.fill(result, Binder.MISSING);
+        }
+        return result;
+    }
+
+    private Object bindParameter(JsonReader reader, String name, Class<?> clazz, Type type, Annotation[] annotations) throws IOException {
+        profiles = new BindingAnnotations(annotations).getProfiles();
+        path.setLength(0);
+        path.append(name);
+        return read(reader, clazz, type, annotations);
+    }
+
+    /**
+     * @return The value read at the current path, or {@link Binder#MISSING}
+     *         if there is none
+     */
+    private Object read(JsonReader reader, Class<?> clazz, Type type, Annotation[] annotations) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return Binder.MISSING;
+        }
+        boolean scalar = token != JsonToken.BEGIN_ARRAY && token != JsonToken.BEGIN_OBJECT;
+        if (scalar && (clazz == String.class || clazz.isPrimitive())) {
+            return readValue(reader, clazz, type, annotations, token);
+        }
+        boolean model = Model.class.isAssignableFrom(clazz);
+        boolean container = clazz.isArray() || Collection.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz);
+        if (scalar) {
+            if (!model && !container) {
+                return readValue(reader, clazz, type, annotations, token);
+            }
+        } else if (!model && !hasCustomBinder(annotations)) {
+            if (token == JsonToken.BEGIN_ARRAY && clazz.isArray() && !hasTypeBinder(clazz)) {
+                return readArray(reader, clazz.getComponentType(), annotations);
+            }
+            if (token == JsonToken.BEGIN_ARRAY && Collection.class.isAssignableFrom(clazz)) {
+                return readCollection(reader, clazz, type, annotations);
+            }
+            if (token == JsonToken.BEGIN_OBJECT && Map.class.isAssignableFrom(clazz)) {
+                return readMap(reader, clazz, type, annotations);
+            }
+            if (token == JsonToken.BEGIN_OBJECT && isBean(clazz)) {
+                return readBean(reader, clazz);
+            }
+        }
+        // Bound the way a form posting the same fields would be
+        String key = path.toString();
+        Map<String, String[]> params = new LinkedHashMap<>();
+        flatten(reader, key, params);
+        return Binder.bind(ParamNode.convert(params), key, clazz, type, annotations);
+    }
+
+    private Object readValue(JsonReader reader, Class<?> clazz, Type type, Annotation[] annotations, JsonToken token) throws IOException {
+        String value = token == JsonToken.BOOLEAN ? String.valueOf(reader.nextBoolean()) : reader.nextString();
+        count();
+        try {
+            if (!globalBinders && (annotations == null || annotations.length == 0)) {
+                if (clazz == String.class) {
+                    return value;
+                }
+                if (token == JsonToken.NUMBER && value.indexOf('.') < 0) {
+                    if (clazz == int.class || clazz == Integer.class) {
+                        return Integer.valueOf(value);
+                    }
+                    if (clazz == long.class || clazz == Long.class) {
+                        return Long.valueOf(value);
+                    }
+                }
+            }
+            return Binder.directBind(path.toString(), annotations, value, clazz, type);
+        } catch (NumberFormatException | ParseException e) {
+            Logger.debug("Failed to bind %s=%s: %s", path, value, e);
+        } catch (Exception e) {
+            Logger.error(e, "Failed to bind %s=%s", path, value);
+        }
+        Validation.addError(path.toString(), "validation.invalid");
+        return Binder.MISSING;
+    }
+
+    private Object readBean(JsonReader reader, Class<?> clazz) throws IOException {
+        BeanWrapper wrapper = Binder.getBeanWrapper(clazz);
+        Object bean;
+        try {
+            bean = wrapper.newBeanInstance();
+        } catch (Exception e) {
+            Logger.warn("Failed to create instance of %s: %s", clazz.getName(), e);
+            throw new UnexpectedException(e);
+        }
+        int length = path.length();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            BeanWrapper.Property property = wrapper.getProperty(name);
+            Annotation[] annotations = property == null ? null : property.getAnnotations();
+            if (property == null
+                    || (annotations.length > 0 && new BindingAnnotations(annotations, profiles).checkNoBinding())) {
+                reader.skipValue();
+                continue;
+            }
+            if (length > 0) {
+                path.append('.');
+            }
+            path.append(name);
+            Object value = read(reader, property.getType(), property.getGenericType(), annotations);
+            path.setLength(length);
+            if (value != Binder.MISSING && value != Binder.NO_BINDING) {
+                property.setValue(bean, value);
+            }
+        }
+        reader.endObject();
+        return bean;
+    }
+
+    private Object readArray(JsonReader reader, Class<?> componentType, Annotation[] annotations) throws IOException {
+        List<Object> items = new ArrayList<>();
+        readItems(reader, componentType, componentType, annotations, items);
+        Object array = Array.newInstance(componentType, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Array.set(array, i, items.get(i));
+        }
+        return array;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object readCollection(JsonReader reader, Class<?> clazz, Type type, Annotation[] annotations) throws IOException {
+        Type componentType = String.class;
+        if (type instanceof ParameterizedType) {
+            componentType = ((ParameterizedType) type).getActualTypeArguments()[0];
+        }
+        Class<?> componentClass = rawClass(componentType);
+
+        Collection<Object> collection;
+        if (clazz.equals(EnumSet.class)) {
+            collection = (Collection) EnumSet.noneOf((Class<Enum>) componentClass);
+        } else if (clazz.isInterface()) {
+            if (clazz.equals(Set.class)) {
+                collection = new HashSet<>();
+            } else if (clazz.equals(SortedSet.class)) {
+                collection = new TreeSet<>();
+            } else {
+                collection = new ArrayList<>();
+            }
+        } else {
+            collection = (Collection<Object>) Binder.createNewInstance(clazz);
+        }
+        readItems(reader, componentClass, componentType, annotations, collection);
+        return collection;
+    }
+
+    private void readItems(JsonReader reader, Class<?> clazz, Type type, Annotation[] annotations, Collection<Object> items)
+            throws IOException {
+        int length = path.length();
+        reader.beginArray();
+        for (int i = 0; reader.hasNext(); i++) {
+            path.append('[').append(i).append(']');
+            Object item = read(reader, clazz, type, annotations);
+            path.setLength(length);
+            // Invalid items are left out, as in a form
+            if (item != Binder.MISSING && item != Binder.NO_BINDING) {
+                items.add(item);
+            }
+        }
+        reader.endArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object readMap(JsonReader reader, Class<?> clazz, Type type, Annotation[] annotations) throws IOException {
+        Class<?> keyClass = String.class;
+        Type valueType = String.class;
+        if (type instanceof ParameterizedType) {
+            keyClass = rawClass(((ParameterizedType) type).getActualTypeArguments()[0]);
+            valueType = ((ParameterizedType) type).getActualTypeArguments()[1];
+        }
+        Class<?> valueClass = rawClass(valueType);
+
+        Map<Object, Object> map = clazz.isInterface() ? new HashMap<>() : (Map<Object, Object>) Binder.createNewInstance(clazz);
+        int length = path.length();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            Object mapKey = name;
+            if (keyClass != String.class) {
+                try {
+                    mapKey = Binder.directBind(path.toString(), annotations, name, keyClass, keyClass);
+                } catch (Exception e) {
+                    // Left out, as in a form
+                    Logger.debug("Failed to bind %s=%s: %s", path, name, e);
+                    reader.skipValue();
+                    continue;
+                }
+            }
+            path.append('.').append(name);
+            Object value = read(reader, valueClass, valueType, annotations);
+            path.setLength(length);
+            map.put(mapKey, value == Binder.MISSING || value == Binder.NO_BINDING ? null : value);
+        }
+        reader.endObject();
+        return map;
+    }
+
+    /**
+     * Read a value as the form fields that would post it: key.field for the
+     * fields of an object and key[i] for the items of an array
+     */
+    private void flatten(JsonReader reader, String key, Map<String, String[]> params) throws IOException {
+        switch (reader.peek()) {
+        case BEGIN_OBJECT:
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                flatten(reader, key.isEmpty() ? name : key + "." + name, params);
+            }
+            reader.endObject();
+            break;
+        case BEGIN_ARRAY:
+            reader.beginArray();
+            for (int i = 0; reader.hasNext(); i++) {
+                flatten(reader, key + "[" + i + "]", params);
+            }
+            reader.endArray();
+            break;
+        case NULL:
+            reader.nextNull();
+            break;
+        case BOOLEAN:
+            count();
+            Utils.Maps.mergeValueInMap(params, key, String.valueOf(reader.nextBoolean()));
+            break;
+        default:
+            // Numbers keep their literal representation
+            count();
+            Utils.Maps.mergeValueInMap(params, key, reader.nextString());
+        }
+    }
+
+    private void count() {
+        if (maxParams != 0 && ++values > maxParams) {
+            Logger.warn("Number of JSON values is higher than maximum of %d, aborting. Can be configured using 'play.json.maxParams'",
+                    maxParams);
+            throw new Status(413); // 413 Request Entity Too Large
+        }
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        return type instanceof Class ? (Class<?>) type : Object.class;
+    }
+
+    /**
+     * @return true for the classes bound field by field
+     */
+    private static boolean isBean(Class<?> clazz) {
+        Boolean bean = beans.get(clazz);
+        if (bean == null) {
+            bean = !clazz.isPrimitive() && !clazz.isArray() && !clazz.isInterface() && !clazz.isEnum()
+                    && !Modifier.isAbstract(clazz.getModifiers()) && !clazz.getName().startsWith("java.") && !hasTypeBinder(clazz);
+            beans.put(clazz, bean);
+        }
+        return bean;
+    }
+
+    private static boolean hasTypeBinder(Class<?> clazz) {
+        for (Class<?> c : Binder.supportedTypes.keySet()) {
+            if (c.isAssignableFrom(clazz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasCustomBinder(Annotation[] annotations) {
+        if (annotations != null) {
+            for (Annotation annotation : annotations) {
+                if (annotation.annotationType().equals(As.class) && !((As) annotation).binder().equals(As.DEFAULT.class)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasGlobalBinders() {
+        for (Class<?> c : Play.classloader.getAssignableClasses(TypeBinder.class)) {
+            if (c.isAnnotationPresent(Global.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 public class ParamNode {
     private final String name;
@@ -22,6 +23,7 @@ public class ParamNode {
     // a[b][c]=12
     // a.b[c]=12
     private static final String keyPartDelimiterRegexpString = "[\\.\\[\\]]+";
+    private static final Pattern keyPartDelimiter = Pattern.compile(keyPartDelimiterRegexpString);
 
     public ParamNode(String name) {
         this.name = name;
@@ -57,7 +59,7 @@ public class ParamNode {
     }
 
     public ParamNode getChild(String name, boolean returnEmptyChildIfNotFound) {
-        ParamNode child = getChild( name.split(keyPartDelimiterRegexpString));
+        ParamNode child = getChild(splitKey(name));
         if (child == null && returnEmptyChildIfNotFound) {
             child = new ParamNode(name);
         }
@@ -131,6 +133,20 @@ public class ParamNode {
         return originalKey;
     }
 
+    /**
+     * Same as key.split(keyPartDelimiterRegexpString), without the regex for
+     * the common keys that have a single part
+     */
+    static String[] splitKey(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '.' || c == '[' || c == ']') {
+                return keyPartDelimiter.split(key);
+            }
+        }
+        return key.isEmpty() ? new String[] { "" } : new String[] { key };
+    }
+
     public static RootParamNode convert(Map<String, String[]> params) {
         RootParamNode root = new RootParamNode( params);
 
@@ -143,7 +159,7 @@ public class ParamNode {
 
             ParamNode currentParent = root;
 
-            for ( String name : key.split(keyPartDelimiterRegexpString)) {
+            for (String name : splitKey(key)) {
                 ParamNode paramNode = currentParent.getChild( name );
                 if (paramNode ==null) {
                     // first time we see this node - create it and add it to parent
@@ -12,7 +12,7 @@ public class DataParsers {
         parsers.put("multipart/form-data", new ApacheMultipartParser());
         parsers.put("multipart/mixed", new ApacheMultipartParser());
         parsers.put("application/xml", new TextParser());
-        parsers.put("application/json", new TextParser());
+        parsers.put("application/json", new JsonParser());
     }
 
     public static DataParser forContentType(String contentType) {
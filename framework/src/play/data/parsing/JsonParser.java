@@ -0,0 +1,32 @@
+package play.data.parsing;
+
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+
+import play.exceptions.UnexpectedException;
+import play.libs.IO;
+import play.mvc.Http;
+
+/**
+ * Parse JSON requests.
+ *
+ * The raw body is kept under the "body" key, as for the other text bodies.
+ * The action parameters are bound from it by
+ * {@link play.data.binding.JsonBinder}, which streams it once for all the
+ * parameters.
+ */
+public class JsonParser extends DataParser {
+
+    @Override
+    public Map<String, String[]> parse(InputStream is) {
+        try {
+            Map<String, String[]> params = new HashMap<>();
+            params.put("body", new String[] { new String(IO.readContent(is), Http.Request.current().encoding) });
+            return params;
+        } catch (UnsupportedEncodingException e) {
+            throw new UnexpectedException(e);
+        }
+    }
+}
@@ -3,7 +3,12 @@ package play.data.validation;
 import net.sf.oval.ConstraintViolation;
 import net.sf.oval.context.MethodParameterContext;
 import net.sf.oval.guard.Guard;
+import net.sf.oval.guard.Pre;
+import play.Play;
 import play.PlayPlugin;
+import play.classloading.ApplicationClassloaderCache;
+import play.classloading.ApplicationClassloaderState;
+import play.data.binding.As;
 import play.exceptions.ActionNotFoundException;
 import play.exceptions.UnexpectedException;
 import play.mvc.ActionInvoker;
@@ -19,9 +24,11 @@ import java.lang.reflect.Modifier;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -60,22 +67,15 @@ public class ValidationPlugin extends PlayPlugin {
 
         try {
             Validation.current.set(restore());
-            boolean verify = false;
-            for (Annotation[] annotations : actionMethod.getParameterAnnotations()) {
-                if (annotations.length > 0) {
-                    verify = true;
-                    break;
-                }
-            }
-            if (!verify) {
+            ActionValidationPlan plan = getPlan(actionMethod);
+            if (!plan.hasConstraints) {
                 return;
             }
-            List<ConstraintViolation> violations = new Validator().validateAction(actionMethod);
-            ArrayList<Error> errors = new ArrayList<>();
-            String[] paramNames = Java.parameterNames(actionMethod);
+            List<ConstraintViolation> violations = plan.validator.validateAction(actionMethod);
+            ArrayList<Error> errors = new ArrayList<>(violations.size());
             for (ConstraintViolation violation : violations) {
                 errors.add(new Error(
-                        paramNames[((MethodParameterContext) violation
+                        plan.paramNames[((MethodParameterContext) violation
                                 .getContext()).getParameterIndex()], violation
                                 .getMessage(),
                         violation.getMessageVariables() == null ? new String[0]
@@ -109,8 +109,85 @@ public class ValidationPlugin extends PlayPlugin {
     }
 
     // ~~~~~~
+    /**
+     * The Guard and the per-action plans are shared by all requests, and
+     * dropped as soon as the application classes are reloaded.
+     */
+    private static volatile Validator validator;
+    private static final ApplicationClassloaderCache<Method, ActionValidationPlan> plans = new ApplicationClassloaderCache<>();
+
+    /**
+     * The parameter annotations that only drive the binding and never carry a
+     * check (@NoBinding and @Global do not apply to parameters)
+     */
+    private static final Set<Class<? extends Annotation>> BINDING_ANNOTATIONS = Collections.<Class<? extends Annotation>> singleton(As.class);
+
+    /**
+     * What needs to be validated for an action method
+     */
+    static class ActionValidationPlan {
+
+        final Validator validator;
+        final boolean hasConstraints;
+        final String[] paramNames;
+
+        ActionValidationPlan(Validator validator, Method actionMethod) throws Exception {
+            this.validator = validator;
+            boolean annotated = false;
+            boolean constrained = false;
+            for (Annotation[] annotations : actionMethod.getParameterAnnotations()) {
+                for (Annotation annotation : annotations) {
+                    annotated = true;
+                    if (!isBindingAnnotation(annotation)) {
+                        constrained = true;
+                        break;
+                    }
+                }
+            }
+            if (annotated && actionMethod.isAnnotationPresent(Pre.class)) {
+                constrained = true;
+            }
+            this.hasConstraints = constrained;
+            this.paramNames = constrained ? Java.parameterNames(actionMethod) : null;
+        }
+
+        static boolean isBindingAnnotation(Annotation annotation) {
+            return BINDING_ANNOTATIONS.contains(annotation.annotationType());
+        }
+    }
+
+    static ActionValidationPlan getPlan(Method actionMethod) throws Exception {
+        ActionValidationPlan plan = plans.get(actionMethod);
+        if (plan == null) {
+            plan = new ActionValidationPlan(validator(), actionMethod);
+            plans.put(actionMethod, plan);
+        }
+        return plan;
+    }
+
+    private static Validator validator() {
+        Validator current = validator;
+        ApplicationClassloaderState state = Play.classloader == null ? null : Play.classloader.currentState;
+        if (current == null || (state != null && !state.equals(current.state))) {
+            // Classes have been reloaded, forget the old ones
+            current = new Validator(state);
+            validator = current;
+        }
+        return current;
+    }
+
+    /**
+     * Validates action parameters. A single instance is shared by all threads,
+     * OVal's Guard being thread-safe once configured.
+     */
     static class Validator extends Guard {
 
+        final ApplicationClassloaderState state;
+
+        Validator(ApplicationClassloaderState state) {
+            this.state = state;
+        }
+
         public List<ConstraintViolation> validateAction(Method actionMethod) throws Exception {
             List<ConstraintViolation> violations = new ArrayList<>();
             Object instance = null;
@@ -2,6 +2,7 @@ package play.db;
 
 import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -21,6 +22,9 @@ import org.hibernate.internal.SessionImpl;
 import com.sun.rowset.CachedRowSetImpl;
 
 import play.Logger;
+import play.Play;
+import play.db.helper.JdbcIterator;
+import play.db.helper.JdbcResultFactory;
 import play.db.jpa.JPA;
 import play.exceptions.DatabaseException;
 
@@ -48,11 +52,21 @@ public class DB {
          */
         private String destroyMethod;
 
+        /**
+         * Router between the data source and its read replicas, if any
+         */
+        private ReplicaRoutingDataSource routing;
+
         public ExtendedDatasource(DataSource ds, String destroyMethod) {
             this.datasource = ds;
             this.destroyMethod = destroyMethod;
         }
 
+        public ExtendedDatasource(DataSource ds, String destroyMethod, ReplicaRoutingDataSource routing) {
+            this(ds, destroyMethod);
+            this.routing = routing;
+        }
+
         public String getDestroyMethod() {
             return destroyMethod;
         }
@@ -61,6 +75,10 @@ public class DB {
             return datasource;
         }
 
+        public ReplicaRoutingDataSource getRoutingDataSource() {
+            return routing;
+        }
+
     }
 
     /**
@@ -97,9 +115,26 @@ public class DB {
         return getDataSource(DEFAULT);
     }
 
+    /**
+     * The data source to take the connections from: the router between the
+     * primary and its read replicas when db.replicas is set, the primary data
+     * source otherwise.
+     *
+     * @param name
+     *            the DB name
+     * @return The data source
+     */
+    public static DataSource getRoutingDataSource(String name) {
+        ExtendedDatasource extDatasource = datasources.get(name);
+        if (extDatasource != null && extDatasource.getRoutingDataSource() != null) {
+            return extDatasource.getRoutingDataSource();
+        }
+        return getDataSource(name);
+    }
+
     public static Connection getConnection(String name, boolean autocommit) {
         try {
-            Connection connection = getDataSource(name).getConnection();
+            Connection connection = getRoutingDataSource(name).getConnection();
             connection.setAutoCommit(autocommit);
             return connection;
         } catch (Exception e) {
@@ -187,7 +222,7 @@ public class DB {
             }
 
             // We have no connection
-            Connection connection = getDataSource(name).getConnection();
+            Connection connection = getRoutingDataSource(name).getConnection();
             registerLocalConnection(name, connection);
             return connection;
         } catch (NullPointerException e) {
@@ -216,6 +251,13 @@ public class DB {
      *         results
      */
     public static boolean execute(String name, String SQL) {
+        if (ReplicaRoutingDataSource.pinToPrimary()) {
+            // The connection may come from a read replica
+            close(name);
+            if (JPA.isEnabled()) {
+                JPA.releaseConnection(name);
+            }
+        }
         Statement statement = null;
         try {
             statement = getConnection(name).createStatement();
@@ -285,6 +327,70 @@ public class DB {
         }
     }
 
+    /**
+     * Execute an SQL query and iterate over its rows with a forward-only,
+     * read-only cursor, instead of loading them all in memory like
+     * {@link #executeQuery(String)}. Rows are fetched db.stream.fetchSize at a
+     * time (500 by default).
+     *
+     * <pre>
+     * try (JdbcIterator&lt;Long&gt; ids = DB.stream("select id from orders where year = ?", JdbcResultFactories.build(Long.class), 2017)) {
+     *     for (Long id : ids) {
+     *         ...
+     *     }
+     * }
+     * </pre>
+     *
+     * Some drivers only stream the rows inside a transaction (PostgreSQL) or
+     * with a specific fetch size (Integer.MIN_VALUE for MySQL).
+     *
+     * @param SQL
+     *            the SQL statement
+     * @param mapper
+     *            Build an object from each row
+     * @param params
+     *            The statement parameters
+     * @param <T>
+     *            The row type
+     * @return An iterator that must be closed to release the cursor (it is
+     *         closed automatically once the last row has been read)
+     */
+    public static <T> JdbcIterator<T> stream(String SQL, JdbcResultFactory<T> mapper, Object... params) {
+        return stream(DEFAULT, SQL, mapper, params);
+    }
+
+    /**
+     * Execute an SQL query and iterate over its rows with a forward-only,
+     * read-only cursor
+     *
+     * @param name
+     *            the DB name
+     * @param SQL
+     *            the SQL statement
+     * @param mapper
+     *            Build an object from each row
+     * @param params
+     *            The statement parameters
+     * @param <T>
+     *            The row type
+     * @return An iterator that must be closed to release the cursor
+     * @see #stream(String, JdbcResultFactory, Object...)
+     */
+    public static <T> JdbcIterator<T> stream(String name, String SQL, JdbcResultFactory<T> mapper, Object... params) {
+        PreparedStatement statement = null;
+        try {
+            statement = getConnection(name).prepareStatement(SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.parseInt(Play.configuration.getProperty("db.stream.fetchSize", "500")));
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            return new JdbcIterator<>(statement, statement.executeQuery(), mapper);
+        } catch (SQLException ex) {
+            safeCloseStatement(statement);
+            throw new DatabaseException(ex.getMessage(), ex);
+        }
+    }
+
     public static void safeCloseResultSet(ResultSet resultSet) {
         if (resultSet != null) {
             try {
@@ -318,6 +424,11 @@ public class DB {
                 Method close = extDatasource.datasource.getClass().getMethod(extDatasource.getDestroyMethod(), new Class[] {});
                 if (close != null) {
                     close.invoke(extDatasource.getDataSource(), new Object[] {});
+                    if (extDatasource.getRoutingDataSource() != null) {
+                        for (DataSource replica : extDatasource.getRoutingDataSource().getReplicas()) {
+                            replica.getClass().getMethod(extDatasource.getDestroyMethod()).invoke(replica);
+                        }
+                    }
                     datasources.remove(name);
                     DB.datasource = null;
                     Logger.trace("Datasource destroyed");
@@ -101,7 +101,7 @@ public class DBPlugin extends PlayPlugin {
                         DB.datasource = ds;
                         DB.destroyMethod = destroyMethod;
 
-                        DB.ExtendedDatasource extDs = new DB.ExtendedDatasource(ds, destroyMethod);
+                        DB.ExtendedDatasource extDs = new DB.ExtendedDatasource(ds, destroyMethod, replicas(dbName, dbConfig, ds));
 
                         url = testDataSource(ds);
                         Logger.info("Connected to %s for %s", url, dbName);
@@ -120,6 +120,34 @@ public class DBPlugin extends PlayPlugin {
         }
     }
 
+    /**
+     * Create the read replicas data sources listed by db.replicas, with the
+     * same settings as the primary data source except for the url
+     */
+    protected ReplicaRoutingDataSource replicas(String dbName, final Configuration dbConfig, DataSource primary) throws Exception {
+        String replicaUrls = dbConfig.getProperty("db.replicas");
+        if (StringUtils.isBlank(replicaUrls)) {
+            return null;
+        }
+        List<DataSource> replicas = new ArrayList<>();
+        for (final String replicaUrl : replicaUrls.split(",")) {
+            Configuration replicaConfig = new Configuration(dbConfig.configName) {
+                @Override
+                public String getProperty(String key, String defaultString) {
+                    if ("db.url".equals(key)) {
+                        return replicaUrl.trim();
+                    }
+                    return dbConfig.getProperty(key, defaultString);
+                }
+            };
+            DataSource replica = factory(dbConfig).createDataSource(replicaConfig);
+            Logger.info("Connected to replica %s for %s", testDataSource(replica), dbName);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas,
+                ReplicaRoutingDataSource.Balance.parse(dbConfig.getProperty("db.replicas.balance")));
+    }
+
     protected String testDataSource(DataSource ds) throws SQLException {
         try (Connection connection = ds.getConnection()) {
             return connection.getMetaData().getURL();
@@ -136,6 +164,7 @@ public class DBPlugin extends PlayPlugin {
     @Override
     public void invocationFinally() {
         DB.closeAll();
+        ReplicaRoutingDataSource.clearRoute();
     }
 
     private static void check(Configuration config, String mode, String property) {
@@ -248,6 +277,9 @@ public class DBPlugin extends PlayPlugin {
             if (extDataSource != null && !dbConfig.getProperty("db.destroyMethod", "").equals(extDataSource.getDestroyMethod())) {
                 return true;
             }
+            if (extDataSource != null && (extDataSource.getRoutingDataSource() != null) != !StringUtils.isBlank(dbConfig.getProperty("db.replicas"))) {
+                return true;
+            }
         }
         return false;
     }
@@ -45,6 +45,50 @@ public interface Model {
 
     }
 
+    /**
+     * A {@link Factory} that also supports keyset (seek) pagination. Generic
+     * callers check for it and fall back to {@link Factory#fetch} otherwise.
+     */
+    public static interface KeysetFactory extends Factory {
+
+        /**
+         * Keyset (seek) pagination: fetch the rows that come after a sort key
+         * tuple rather than skipping an offset, so that deep pages cost the
+         * same as the first one. Rows are ordered by orderBy then by the key.
+         *
+         * @param after
+         *            Sort key of the last row of the previous page, as returned
+         *            by {@link #keysetOf(Model, String)}, or null for the first
+         *            page
+         * @param length
+         *            Maximum number of results
+         * @param orderBy
+         *            Order by field (the key when null)
+         * @param orderDirection
+         *            ASC or DESC
+         * @param properties
+         *            Searched properties
+         * @param keywords
+         *            Search keywords
+         * @param where
+         *            Additional condition
+         * @return A list of results
+         */
+        public List<Model> fetchAfter(Object[] after, int length, String orderBy, String orderDirection, List<String> properties,
+                String keywords, String where);
+
+        /**
+         * @param m
+         *            A model
+         * @param orderBy
+         *            Order by field (the key when null)
+         * @return The sort key tuple of the model for
+         *         {@link #fetchAfter(Object[], int, String, String, List, String, String)}
+         */
+        public Object[] keysetOf(Model m, String orderBy);
+
+    }
+
     public static class Manager {
 
         public static Model.Factory factoryFor(Class<? extends Model> clazz) {
@@ -0,0 +1,238 @@
+package play.db;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Route connections between a primary datasource and its read replicas.
+ *
+ * Connections are taken from a replica only when the current invocation has
+ * been flagged as read-only (read-only JPA transaction or
+ * {@link play.db.jpa.NoTransaction}) and has not written anything yet. Once
+ * {@link #pinToPrimary()} has been called, by DB.execute or by the first
+ * insert, update or delete that Hibernate prepares, the invocation keeps
+ * using the primary until {@link #clearRoute()}. DB.execute also gives back
+ * the replica connection of a read-only JPA EntityManager; a transaction
+ * keeps its connection, so the EntityManager writes must run in a
+ * transaction that is not read-only. The replica connections are read-only,
+ * so that a write through them fails instead of running on a replica: call
+ * {@link #pinToPrimary()} before writing with a connection of
+ * DB.getConnection() in a read-only invocation.
+ */
+public class ReplicaRoutingDataSource implements DataSource {
+
+    public enum Balance {
+        ROUND_ROBIN, LEAST_CONNECTIONS;
+
+        public static Balance parse(String value) {
+            if ("leastConnections".equalsIgnoreCase(value) || "least_connections".equalsIgnoreCase(value)) {
+                return LEAST_CONNECTIONS;
+            }
+            return ROUND_ROBIN;
+        }
+    }
+
+    static class Route {
+        boolean readOnly;
+        boolean pinned;
+    }
+
+    private static final ThreadLocal<Route> route = new ThreadLocal<Route>() {
+        @Override
+        protected Route initialValue() {
+            return new Route();
+        }
+    };
+
+    final DataSource primary;
+    final List<DataSource> replicas;
+    final Balance balance;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger[] active;
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong primaryConnections = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Balance balance) {
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.balance = balance;
+        this.active = new AtomicInteger[replicas.size()];
+        for (int i = 0; i < active.length; i++) {
+            active[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Flag the current invocation as read-only: until it writes, its
+     * connections can be taken from a replica
+     *
+     * @param readOnly
+     *            true if the invocation only reads
+     * @return The previous flag, to restore it once done
+     */
+    public static boolean readOnly(boolean readOnly) {
+        Route current = route.get();
+        boolean previous = current.readOnly;
+        current.readOnly = readOnly;
+        return previous;
+    }
+
+    /**
+     * Send the next connections of the current invocation to the primary, so
+     * that it reads its own writes
+     *
+     * @return true if the invocation was routed to the replicas until now
+     */
+    public static boolean pinToPrimary() {
+        Route current = route.get();
+        boolean wasReadingReplicas = current.readOnly && !current.pinned;
+        current.pinned = true;
+        return wasReadingReplicas;
+    }
+
+    /**
+     * Forget the routing of the current invocation
+     */
+    public static void clearRoute() {
+        route.remove();
+    }
+
+    static boolean useReplicas() {
+        Route current = route.get();
+        return current.readOnly && !current.pinned;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.get();
+    }
+
+    public long getPrimaryConnections() {
+        return primaryConnections.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty() || !useReplicas()) {
+            primaryConnections.incrementAndGet();
+            return primary.getConnection();
+        }
+        int index = chooseReplica();
+        replicaConnections.incrementAndGet();
+        Connection connection = replicas.get(index).getConnection();
+        connection.setReadOnly(true);
+        if (balance == Balance.LEAST_CONNECTIONS) {
+            return tracked(connection, active[index]);
+        }
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Credentials are only known for the primary
+        primaryConnections.incrementAndGet();
+        return primary.getConnection(username, password);
+    }
+
+    int chooseReplica() {
+        if (balance == Balance.LEAST_CONNECTIONS) {
+            int best = 0;
+            for (int i = 1; i < active.length; i++) {
+                if (active[i].get() < active[best].get()) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+        return (next.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+    }
+
+    /**
+     * Count the connection as active until it is closed
+     */
+    private static Connection tracked(final Connection connection, final AtomicInteger counter) {
+        counter.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                new InvocationHandler() {
+                    boolean closed;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("equals".equals(method.getName()) && args != null && args.length == 1) {
+                            return proxy == args[0];
+                        }
+                        if ("hashCode".equals(method.getName()) && args == null) {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("close".equals(method.getName()) && !closed) {
+                            closed = true;
+                            counter.decrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
@@ -3,6 +3,7 @@ package play.db.helper;
 import java.io.Closeable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Iterator;
 
 /**
@@ -26,6 +27,7 @@ public class JdbcIterator<T> implements Iterator<T>, Iterable<T>, Closeable {
 
     protected final JdbcResultFactory<T> factory;
     protected ResultSet result;
+    protected Statement statement;
     private T next;
 
     public JdbcIterator(ResultSet result, JdbcResultFactory<T> factory) throws SQLException {
@@ -40,6 +42,17 @@ public class JdbcIterator<T> implements Iterator<T>, Iterable<T>, Closeable {
         this(result, JdbcResultFactories.build(resultClass));
     }
 
+    /**
+     * @param statement Statement closed with the iterator
+     * @param result Result set of the statement
+     * @param factory Row mapper
+     * @throws SQLException If the factory cannot be initialized
+     */
+    public JdbcIterator(Statement statement, ResultSet result, JdbcResultFactory<T> factory) throws SQLException {
+        this(result, factory);
+        this.statement = statement;
+    }
+
     @Override
     public void close() {
         if (result != null) {
@@ -52,6 +65,15 @@ public class JdbcIterator<T> implements Iterator<T>, Iterable<T>, Closeable {
                 throw new RuntimeException(ex);
             }
         }
+        if (statement != null) {
+            try {
+                statement.close();
+                statement = null;
+            } catch (SQLException ex) {
+                statement = null;
+                throw new RuntimeException(ex);
+            }
+        }
     }
 
     public static void close(Iterator<?> iterator) {
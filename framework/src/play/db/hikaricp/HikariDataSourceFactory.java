@@ -12,6 +12,7 @@ import java.beans.PropertyVetoException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.sql.SQLException;
+import java.util.Map;
 import java.util.Set;
 
 import static java.lang.Integer.parseInt;
@@ -45,8 +46,7 @@ public class HikariDataSourceFactory implements DataSourceFactory {
     // db.pool.idle.testInterval - HikariCP tests connections when they're leased, not on a timer
     // db.pool.connection.threshold - HikariCP doesn't have a percentile idle threshold; db.pool.size.idle can be used to keep a fixed number of connections idle
     // db.pool.threads - HikariCP does not use extra threads to "aid" connection release
-    // db.pool.maxStatements - HikariCP does not offer PreparedStatement caching
-    // db.pool.maxStatementsPerConnection - HikariCP does not offer PreparedStatement caching
+    // db.pool.maxStatements - HikariCP does not offer PreparedStatement caching, see db.pool.maxStatementsPerConnection
 
     // I could not find an analogue for HikariCP:
 //    ds.setAcquireRetryAttempts(parseInt(dbConfig.getProperty("db.pool.acquireRetryAttempts", "10")));
@@ -60,6 +60,25 @@ public class HikariDataSourceFactory implements DataSourceFactory {
 //    ds.setContextClassLoaderSource("library");
 //    ds.setPrivilegeSpawnedThreads(true);
 
+    // HikariCP does not cache the PreparedStatements, the drivers that can do it are asked to
+    int maxStatements = parseInt(dbConfig.getProperty("db.pool.maxStatementsPerConnection", "0"));
+    if (maxStatements > 0) {
+      String driverClass = dbConfig.getProperty("db.driver");
+      if (driverClass.startsWith("com.mysql.") || driverClass.startsWith("org.mariadb.")) {
+        ds.addDataSourceProperty("cachePrepStmts", "true");
+        ds.addDataSourceProperty("prepStmtCacheSize", String.valueOf(maxStatements));
+        ds.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+      } else if (driverClass.equals("org.postgresql.Driver")) {
+        ds.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(maxStatements));
+      }
+    }
+    // Other driver properties, as db.pool.dataSource.useServerPrepStmts=true
+    for (Map.Entry<String, String> property : dbConfig.getProperties().entrySet()) {
+      if (property.getKey().startsWith("db.pool.dataSource.")) {
+        ds.addDataSourceProperty(property.getKey().substring("db.pool.dataSource.".length()), property.getValue());
+      }
+    }
+
     if (dbConfig.getProperty("db.testquery") != null) {
       ds.setConnectionTestQuery(dbConfig.getProperty("db.testquery"));
     } else {
@@ -0,0 +1,84 @@
+package play.db.jpa;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.CascadeType;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+
+import play.classloading.ApplicationClassloaderCache;
+
+/**
+ * The fields of an entity class that {@link JPABase#_save()} cascades to: the
+ * associations with <code>CascadeType.ALL</code> or
+ * <code>CascadeType.PERSIST</code>, found once per class rather than on each
+ * save.
+ */
+final class CascadePlan {
+
+    private static final CascadePlan NONE = new CascadePlan(new Field[0]);
+
+    // Read on every save
+    private static final ApplicationClassloaderCache<Class<?>, CascadePlan> plans = new ApplicationClassloaderCache<>();
+
+    /**
+     * The cascading fields, accessible
+     */
+    final Field[] fields;
+
+    private CascadePlan(Field[] fields) {
+        this.fields = fields;
+    }
+
+    static CascadePlan of(Class<?> clazz) {
+        CascadePlan plan = plans.get(clazz);
+        if (plan == null) {
+            plan = compute(clazz);
+            plans.put(clazz, plan);
+        }
+        return plan;
+    }
+
+    private static CascadePlan compute(Class<?> clazz) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = clazz; c != null && !c.equals(JPABase.class); c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isTransient(field.getModifiers()) && !Modifier.isStatic(field.getModifiers()) && cascades(field)) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        return fields.isEmpty() ? NONE : new CascadePlan(fields.toArray(new Field[fields.size()]));
+    }
+
+    private static boolean cascades(Field field) {
+        if (field.isAnnotationPresent(ManyToMany.class)) {
+            return cascadeAll(field.getAnnotation(ManyToMany.class).cascade());
+        }
+        if (field.isAnnotationPresent(ManyToOne.class)) {
+            return cascadeAll(field.getAnnotation(ManyToOne.class).cascade());
+        }
+        if (field.isAnnotationPresent(OneToMany.class)) {
+            return cascadeAll(field.getAnnotation(OneToMany.class).cascade());
+        }
+        if (field.isAnnotationPresent(OneToOne.class)) {
+            return cascadeAll(field.getAnnotation(OneToOne.class).cascade());
+        }
+        return false;
+    }
+
+    private static boolean cascadeAll(CascadeType[] types) {
+        for (CascadeType cascadeType : types) {
+            if (cascadeType == CascadeType.ALL || cascadeType == CascadeType.PERSIST) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -14,13 +14,18 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.MappedSuperclass;
 import javax.persistence.NoResultException;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
+import javax.persistence.Parameter;
 import javax.persistence.PostLoad;
 import javax.persistence.PostPersist;
 import javax.persistence.PostUpdate;
@@ -34,7 +39,9 @@ import play.data.binding.Binder;
 import play.data.binding.BindingAnnotations;
 import play.data.binding.ParamNode;
 import play.data.validation.Validation;
+import play.db.Configuration;
 import play.exceptions.UnexpectedException;
+import play.libs.F;
 import play.mvc.Scope.Params;
 
 /**
@@ -365,6 +372,41 @@ public class GenericModel extends JPABase {
         return (T) this;
     }
 
+    /**
+     * Save the entities in JDBC batches of <code>db.batchSize</code> (50 if it
+     * is not set), with {@link JPA#batch(int, F.Function0)}: they are flushed
+     * together, and detached once saved.
+     *
+     * @param entities
+     *            The entities to save
+     * @param <T>
+     *            class of the entities
+     * @return The entities
+     */
+    public static <T extends JPABase> Collection<T> saveAll(final Collection<T> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        String dbName = JPA.getDBName(entities.iterator().next().getClass());
+        int size = Integer.parseInt(new Configuration(dbName).getProperty("db.batchSize", "0"));
+        try {
+            return JPA.batch(size > 0 ? size : 50, new F.Function0<Collection<T>>() {
+
+                @Override
+                public Collection<T> apply() {
+                    for (T entity : entities) {
+                        entity._save();
+                    }
+                    return entities;
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UnexpectedException(e);
+        }
+    }
+
     /**
      * store (ie insert) the entity.
      * 
@@ -523,14 +565,23 @@ public class GenericModel extends JPABase {
      */
     public static class JPAQuery {
 
+        private static final Pattern ORDER_BY = Pattern.compile("\\s+order\\s+by\\s+.*$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+        private static final Pattern WHERE = Pattern.compile("\\swhere\\s", Pattern.CASE_INSENSITIVE);
+
         public Query query;
         public String sq;
+        EntityManager em;
 
         public JPAQuery(String sq, Query query) {
             this.query = query;
             this.sq = sq;
         }
 
+        public JPAQuery(String sq, Query query, EntityManager em) {
+            this(sq, query);
+            this.em = em;
+        }
+
         public JPAQuery(Query query) {
             this.query = query;
             this.sq = query.toString();
@@ -631,6 +682,114 @@ public class GenericModel extends JPABase {
             return this;
         }
 
+        /**
+         * Keyset (seek) pagination: restrict the query to the rows that come
+         * after the given sort key tuple, instead of skipping an offset. The
+         * database can then jump straight to the page using an index, however
+         * deep it is.
+         * <p>
+         * The order by clause of the query is replaced by the given one, which
+         * must end with a unique column (typically the id) so that the order
+         * is total. For example:
+         * </p>
+         *
+         * <pre>
+         * List&lt;Post&gt; next = Post.find("byAuthor", author).after("postedAt desc, id desc", last.postedAt, last.id).fetch(20);
+         * </pre>
+         *
+         * Grouped queries are not supported, and the sort columns must not be
+         * null.
+         *
+         * @param orderBy
+         *            Comma separated sort columns, each one optionally followed
+         *            by asc or desc
+         * @param lastKey
+         *            Values of the sort columns for the last row of the
+         *            previous page; no value fetches the first page
+         * @return A new query
+         */
+        public JPAQuery after(String orderBy, Object... lastKey) {
+            String base = ORDER_BY.matcher(sq).replaceFirst("");
+            StringBuilder jpql = new StringBuilder(base.length() + 64);
+            if (lastKey == null || lastKey.length == 0) {
+                jpql.append(base);
+            } else {
+                if (lastKey.length != orderBy.split(",").length) {
+                    throw new IllegalArgumentException("Expected one value per sort column of '" + orderBy + "'");
+                }
+                JPQL.checkKeyset(lastKey);
+                Matcher where = WHERE.matcher(base);
+                if (where.find()) {
+                    jpql.append(base, 0, where.end()).append('(').append(base, where.end(), base.length()).append(") and ");
+                } else {
+                    jpql.append(base).append(" where ");
+                }
+                jpql.append(JPQL.keysetPredicate(orderBy, "keyset"));
+            }
+            jpql.append(" order by ").append(orderBy);
+
+            EntityManager entityManager = em != null ? em : JPA.em();
+            Query seek = entityManager.createQuery(jpql.toString());
+            // Carry over the parameters already bound on this query
+            for (Parameter<?> parameter : query.getParameters()) {
+                if (!query.isBound(parameter)) {
+                    continue;
+                }
+                if (parameter.getName() != null) {
+                    seek.setParameter(parameter.getName(), query.getParameterValue(parameter));
+                } else {
+                    seek.setParameter(parameter.getPosition(), query.getParameterValue(parameter));
+                }
+            }
+            if (lastKey != null) {
+                for (int i = 0; i < lastKey.length; i++) {
+                    seek.setParameter("keyset" + (i + 1), lastKey[i]);
+                }
+            }
+            return new JPAQuery(jpql.toString(), seek, entityManager);
+        }
+
+        /**
+         * Iterate over the results with a forward-only cursor, instead of
+         * loading them all in memory. The rows are read jpa.stream.fetchSize
+         * at a time (500 by default).
+         *
+         * <pre>
+         * try (Stream&lt;Order&gt; orders = Order.find("year = ?1", 2017).stream()) {
+         *     orders.forEach(order -&gt; csv.write(order));
+         * }
+         * </pre>
+         *
+         * @param <T>
+         *            The entity class
+         * @return A stream that must be closed to release the cursor
+         * @see JPAScroll
+         */
+        public <T> Stream<T> stream() {
+            JPAScroll<T> scroll = scroll(Integer.parseInt(Play.configuration.getProperty("jpa.stream.fetchSize", "500")));
+            return scroll.stream();
+        }
+
+        /**
+         * Iterate over the results with a forward-only cursor, instead of
+         * loading them all in memory.
+         *
+         * @param fetchSize
+         *            Number of rows fetched from the database at a time, and
+         *            number of entities kept in the persistence context
+         * @param <T>
+         *            The entity class
+         * @return An iterator that must be closed to release the cursor
+         * @see JPAScroll
+         */
+        public <T> JPAScroll<T> scroll(int fetchSize) {
+            try {
+                return new JPAScroll<>(em != null ? em : JPA.em(), query, fetchSize);
+            } catch (Exception e) {
+                throw new JPAQueryException("Error while executing query <strong>" + sq + "</strong>", JPAQueryException.findBestCause(e));
+            }
+        }
+
         /**
          * Retrieve a page of result
          * 
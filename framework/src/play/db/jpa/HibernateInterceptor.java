@@ -5,6 +5,9 @@ import org.hibernate.CallbackException;
 import org.hibernate.EmptyInterceptor;
 import org.hibernate.collection.spi.PersistentCollection;
 import org.hibernate.type.Type;
+
+import play.db.ReplicaRoutingDataSource;
+
 import java.io.Serializable;
 
 
@@ -86,4 +89,22 @@ public class HibernateInterceptor extends EmptyInterceptor {
     public void afterTransactionCompletion(org.hibernate.Transaction tx) {
         entities.remove();
     }
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        JPATracer.prepare(sql);
+        if (!isQuery(sql)) {
+            // The rest of the invocation reads its own writes
+            ReplicaRoutingDataSource.pinToPrimary();
+        }
+        return super.onPrepareStatement(sql);
+    }
+
+    static boolean isQuery(String sql) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, "select", 0, 6);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package play.db.jpa;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -10,11 +13,14 @@ import javax.persistence.FlushModeType;
 import javax.persistence.PersistenceException;
 import javax.persistence.PersistenceUnit;
 
+import org.hibernate.Session;
+
 import play.Invoker.InvocationContext;
 import play.Invoker.Suspend;
 import play.Logger;
 import play.Play;
 import play.db.DB;
+import play.db.ReplicaRoutingDataSource;
 import play.exceptions.JPAException;
 import play.libs.F;
 
@@ -34,9 +40,35 @@ public class JPA {
 
     public static class JPAContext {
         public String dbName = JPA.DEFAULT;
+        /**
+         * null until the entity manager is first used, when the context has
+         * been bound with {@link JPA#bindLazilyForCurrentThread(String, boolean)}
+         */
         public EntityManager entityManager;
         public boolean readonly = true;
         public boolean autoCommit = false;
+        boolean rollbackOnly = false;
+
+        /**
+         * @return true if the entity manager has been created
+         */
+        public boolean isOpen() {
+            return entityManager != null;
+        }
+
+        EntityManager open() {
+            if (entityManager == null) {
+                EntityManager em = newEntityManager(dbName);
+                if (!readonly) {
+                    em.getTransaction().begin();
+                    if (rollbackOnly) {
+                        em.getTransaction().setRollbackOnly();
+                    }
+                }
+                entityManager = em;
+            }
+            return entityManager;
+        }
     }
 
     public static boolean isInitialized() {
@@ -114,7 +146,7 @@ public class JPA {
         JPAContext jpaContext = get(key);
         if (jpaContext == null)
             throw new JPAException("No active EntityManager for name [" + key + "], transaction not started?");
-        return jpaContext.entityManager;
+        return jpaContext.open();
     }
 
     /**
@@ -137,6 +169,47 @@ public class JPA {
         get().put(name, context);
     }
 
+    /**
+     * Bind a JPA context to the current thread without creating its
+     * EntityManager: it is created, and its transaction started, the first time
+     * {@link #em(String)} is called. This way, invocations that do not use the
+     * database do not hold a connection.
+     *
+     * @param name
+     *            The DB name
+     * @param readonly
+     *            indicate if it is in read only mode
+     */
+    public static void bindLazilyForCurrentThread(String name, boolean readonly) {
+        JPAContext context = new JPAContext();
+        context.dbName = name;
+        context.readonly = readonly;
+        get().put(name, context);
+    }
+
+    /**
+     * Give back the connection of the current EntityManager, so that its next
+     * statements take a new one from the datasource: DB.execute uses it to
+     * move a read-only invocation from a read replica to the primary. A
+     * transaction keeps its connection until it ends, so this fails inside a
+     * transaction: write in a transaction that is not read-only instead.
+     *
+     * @param name
+     *            The DB name
+     */
+    public static void releaseConnection(String name) {
+        JPAContext context = get(name);
+        if (context == null || !context.isOpen()) {
+            // The EntityManager will take its connection from the primary
+            return;
+        }
+        if (context.entityManager.getTransaction().isActive()) {
+            throw new JPAException("Cannot move the transaction of [" + name
+                    + "] from a read replica to the primary, write in a transaction that is not read-only");
+        }
+        context.entityManager.unwrap(Session.class).disconnect();
+    }
+
     public static void unbindForCurrentThread(String name) {
         // Get all our context for our current thread
         get().remove(name);
@@ -158,7 +231,13 @@ public class JPA {
     }
 
     public static void setRollbackOnly(String em) {
-        get(em).entityManager.getTransaction().setRollbackOnly();
+        JPAContext context = get(em);
+        if (context.isOpen()) {
+            context.entityManager.getTransaction().setRollbackOnly();
+        } else {
+            // Applied when the transaction begins
+            context.rollbackOnly = true;
+        }
     }
 
     /**
@@ -214,14 +293,129 @@ public class JPA {
 
     public static boolean isInsideTransaction(String name) {
         JPAContext jpaContext = get(name);
+        if (jpaContext != null && !jpaContext.isOpen()) {
+            // The transaction will begin on first use
+            return true;
+        }
         return jpaContext != null && jpaContext.entityManager != null && jpaContext.entityManager.getTransaction() != null;
     }
 
+    /**
+     * Run a block that saves many entities, in JDBC batches: the entities
+     * saved in the block are only flushed every <code>size</code> saves, with
+     * the JDBC batch size of their sessions set to <code>size</code>, and the
+     * entities saved are detached after each flush so that the sessions do
+     * not grow with the import.
+     *
+     * The entities saved, with their associations cascading the detach, are
+     * detached once they are flushed; the other entities stay attached. A
+     * batch inside another one is part of the outer batch.
+     *
+     * @param size
+     *            The number of saves per flush
+     * @param block
+     *            The block that saves the entities
+     * @param <T>
+     *            The type of the result
+     * @return The result of the block
+     * @throws java.lang.Throwable
+     *             Thrown in case of error
+     */
+    public static <T> T batch(int size, F.Function0<T> block) throws Throwable {
+        if (Batch.current() != null) {
+            return block.apply();
+        }
+        Batch batch = new Batch(size);
+        Batch.current.set(batch);
+        try {
+            T result = block.apply();
+            batch.flush();
+            return result;
+        } finally {
+            Batch.current.remove();
+            batch.end();
+        }
+    }
+
+    /**
+     * The entities saved in {@link JPA#batch(int, F.Function0)} and not yet
+     * flushed
+     */
+    static class Batch {
+
+        static final ThreadLocal<Batch> current = new ThreadLocal<>();
+
+        final int size;
+        /**
+         * The entities saved since the last flush, by DB name
+         */
+        final Map<String, List<JPABase>> saved = new HashMap<>();
+        private int count;
+        /**
+         * The JDBC batch size of the sessions before the batch, by DB name
+         */
+        final Map<String, Integer> jdbcBatchSizes = new HashMap<>();
+
+        Batch(int size) {
+            this.size = Math.max(size, 1);
+        }
+
+        static Batch current() {
+            return current.get();
+        }
+
+        void add(JPABase entity, String dbName) {
+            if (!jdbcBatchSizes.containsKey(dbName)) {
+                Session session = em(dbName).unwrap(Session.class);
+                jdbcBatchSizes.put(dbName, session.getJdbcBatchSize());
+                session.setJdbcBatchSize(size);
+            }
+            saved.computeIfAbsent(dbName, name -> new ArrayList<>()).add(entity);
+            if (++count >= size) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (count == 0) {
+                return;
+            }
+            for (String dbName : jdbcBatchSizes.keySet()) {
+                JPABase.flush(em(dbName));
+            }
+            for (Map.Entry<String, List<JPABase>> entities : saved.entrySet()) {
+                EntityManager entityManager = em(entities.getKey());
+                for (JPABase entity : entities.getValue()) {
+                    entity.cascade(false);
+                    if (entityManager.contains(entity)) {
+                        entityManager.detach(entity);
+                    }
+                }
+            }
+            saved.clear();
+            count = 0;
+        }
+
+        void end() {
+            for (Map.Entry<String, Integer> jdbcBatchSize : jdbcBatchSizes.entrySet()) {
+                JPAContext context = get(jdbcBatchSize.getKey());
+                if (context != null && context.isOpen() && context.entityManager.isOpen()) {
+                    context.entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize.getValue());
+                }
+            }
+        }
+    }
+
     public static <T> T withinFilter(F.Function0<T> block) throws Throwable {
         if (InvocationContext.current().getAnnotation(NoTransaction.class) != null) {
             // Called method or class is annotated with @NoTransaction telling us that
             // we should not start a transaction
-            return block.apply();
+            boolean wasReadOnly = ReplicaRoutingDataSource.readOnly(true);
+            try {
+                return block.apply();
+            } finally {
+                ReplicaRoutingDataSource.readOnly(wasReadOnly);
+            }
         }
 
         boolean readOnly = false;
@@ -267,19 +461,16 @@ public class JPA {
     public static <T> T withTransaction(String dbName, boolean readOnly, F.Function0<T> block) throws Throwable {
         if (isEnabled()) {
             boolean closeEm = true;
-            // For each existing persistence unit
+            // Read-only transactions can be served by read replicas, until
+            // the invocation first writes (see HibernateInterceptor)
+            boolean wasReadOnly = ReplicaRoutingDataSource.readOnly(readOnly);
 
             try {
-                // we are starting a transaction for all known persistent unit
-                // this is probably not the best, but there is no way we can know where to go from
-                // at this stage
+                // We don't know which persistent units will be used at this
+                // stage: the entity managers and their transactions are only
+                // created on first use
                 for (String name : emfs.keySet()) {
-                    EntityManager localEm = JPA.newEntityManager(name);
-                    JPA.bindForCurrentThread(name, localEm, readOnly);
-
-                    if (!readOnly) {
-                        localEm.getTransaction().begin();
-                    }
+                    JPA.bindLazilyForCurrentThread(name, readOnly);
                 }
 
                 T result = block.apply();
@@ -288,6 +479,9 @@ public class JPA {
                 // Get back our entity managers
                 // Because people might have mess up with the current entity managers
                 for (JPAContext jpaContext : get().values()) {
+                    if (!jpaContext.isOpen()) {
+                        continue;
+                    }
                     EntityManager m = jpaContext.entityManager;
                     EntityTransaction localTx = m.getTransaction();
                     // The resource transaction must be in progress in order to determine if it has been marked for
@@ -298,6 +492,9 @@ public class JPA {
                 }
 
                 for (JPAContext jpaContext : get().values()) {
+                    if (!jpaContext.isOpen()) {
+                        continue;
+                    }
                     EntityManager m = jpaContext.entityManager;
                     boolean ro = jpaContext.readonly;
                     EntityTransaction localTx = m.getTransaction();
@@ -319,6 +516,9 @@ public class JPA {
             } catch (Throwable t) {
                 // Because people might have mess up with the current entity managers
                 for (JPAContext jpaContext : get().values()) {
+                    if (!jpaContext.isOpen()) {
+                        continue;
+                    }
                     EntityManager m = jpaContext.entityManager;
                     EntityTransaction localTx = m.getTransaction();
                     try {
@@ -332,10 +532,11 @@ public class JPA {
 
                 throw t;
             } finally {
+                ReplicaRoutingDataSource.readOnly(wasReadOnly);
                 if (closeEm) {
                     for (JPAContext jpaContext : get().values()) {
                         EntityManager localEm = jpaContext.entityManager;
-                        if (localEm.isOpen()) {
+                        if (localEm != null && localEm.isOpen()) {
                             localEm.close();
                         }
                         JPA.clearContext(jpaContext.dbName);
@@ -367,6 +568,12 @@ public class JPA {
     }
 
     public static void closeTx(String name) {
+        JPAContext context = get(name);
+        if (context != null && !context.isOpen()) {
+            // Never used, there is nothing to commit
+            JPA.clearContext(name);
+            return;
+        }
         if (JPA.isInsideTransaction(name)) {
             EntityManager manager = em(name);
             try {
@@ -409,6 +616,11 @@ public class JPA {
     }
 
     public static void rollbackTx(String name) {
+        JPAContext context = get(name);
+        if (context != null && !context.isOpen()) {
+            JPA.clearContext(name);
+            return;
+        }
         if (JPA.isInsideTransaction()) {
             EntityManager manager = em(name);
             try {
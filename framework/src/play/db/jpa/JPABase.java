@@ -2,22 +2,16 @@ package play.db.jpa;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 
-import javax.persistence.CascadeType;
 import javax.persistence.EntityManager;
-import javax.persistence.ManyToMany;
-import javax.persistence.ManyToOne;
 import javax.persistence.MappedSuperclass;
-import javax.persistence.OneToMany;
-import javax.persistence.OneToOne;
 import javax.persistence.PersistenceException;
 
 import org.hibernate.collection.internal.PersistentMap;
@@ -48,27 +42,15 @@ public class JPABase implements Serializable, play.db.Model {
             em(dbName).persist(this);
             PlayPlugin.postEvent("JPASupport.objectPersisted", this);
         }
-        avoidCascadeSaveLoops.set(new HashSet<JPABase>());
-        try {
-            saveAndCascade(true);
-        } finally {
-            avoidCascadeSaveLoops.get().clear();
-        }
-        try {
-            em(dbName).flush();
-        } catch (PersistenceException e) {
-            if (e.getCause() instanceof GenericJDBCException) {
-                throw new PersistenceException(((GenericJDBCException) e.getCause()).getSQL(), e);
-            } else {
-                throw e;
-            }
-        }
-        avoidCascadeSaveLoops.set(new HashSet<JPABase>());
-        try {
-            saveAndCascade(false);
-        } finally {
-            avoidCascadeSaveLoops.get().clear();
+        cascade(true);
+        JPA.Batch batch = JPA.Batch.current();
+        if (batch != null) {
+            // Flushed with the other entities of the batch
+            batch.add(this, dbName);
+            return;
         }
+        flush(em(dbName));
+        cascade(false);
     }
 
     @Override
@@ -76,28 +58,10 @@ public class JPABase implements Serializable, play.db.Model {
         String dbName = JPA.getDBName(this.getClass());
 
         try {
-            avoidCascadeSaveLoops.set(new HashSet<JPABase>());
-            try {
-                saveAndCascade(true);
-            } finally {
-                avoidCascadeSaveLoops.get().clear();
-            }
+            cascade(true);
             em(dbName).remove(this);
-            try {
-                em(dbName).flush();
-            } catch (PersistenceException e) {
-                if (e.getCause() instanceof GenericJDBCException) {
-                    throw new PersistenceException(((GenericJDBCException) e.getCause()).getSQL(), e);
-                } else {
-                    throw e;
-                }
-            }
-            avoidCascadeSaveLoops.set(new HashSet<JPABase>());
-            try {
-                saveAndCascade(false);
-            } finally {
-                avoidCascadeSaveLoops.get().clear();
-            }
+            flush(em(dbName));
+            cascade(false);
             PlayPlugin.postEvent("JPASupport.objectDeleted", this);
         } catch (PersistenceException e) {
             throw e;
@@ -106,6 +70,36 @@ public class JPABase implements Serializable, play.db.Model {
         }
     }
 
+    /**
+     * Flush the entity manager, with the SQL of the statement that failed in
+     * the exception
+     */
+    static void flush(EntityManager em) {
+        try {
+            em.flush();
+        } catch (PersistenceException e) {
+            if (e.getCause() instanceof GenericJDBCException) {
+                throw new PersistenceException(((GenericJDBCException) e.getCause()).getSQL(), e);
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Mark this entity and the ones it cascades to as saved, before the flush,
+     * or as not saved anymore, after it
+     */
+    void cascade(boolean willBeSaved) {
+        Set<JPABase> outer = avoidCascadeSaveLoops.get();
+        avoidCascadeSaveLoops.set(Collections.newSetFromMap(new IdentityHashMap<JPABase, Boolean>()));
+        try {
+            saveAndCascade(willBeSaved);
+        } finally {
+            avoidCascadeSaveLoops.set(outer);
+        }
+    }
+
     @Override
     public Object _key() {
         return Model.Manager.factoryFor(this.getClass()).keyValue(this);
@@ -126,71 +120,37 @@ public class JPABase implements Serializable, play.db.Model {
             }
         }
         // Cascade save
+        Field[] fields = CascadePlan.of(this.getClass()).fields;
         try {
-            Set<Field> fields = new HashSet<>();
-            Class clazz = this.getClass();
-            while (!clazz.equals(JPABase.class)) {
-                Collections.addAll(fields, clazz.getDeclaredFields());
-                clazz = clazz.getSuperclass();
-            }
             for (Field field : fields) {
-                field.setAccessible(true);
-                if (Modifier.isTransient(field.getModifiers())) {
-                    continue;
-                }
-                boolean doCascade = false;
-                if (field.isAnnotationPresent(OneToOne.class)) {
-                    doCascade = cascadeAll(field.getAnnotation(OneToOne.class).cascade());
-                }
-                if (field.isAnnotationPresent(OneToMany.class)) {
-                    doCascade = cascadeAll(field.getAnnotation(OneToMany.class).cascade());
-                }
-                if (field.isAnnotationPresent(ManyToOne.class)) {
-                    doCascade = cascadeAll(field.getAnnotation(ManyToOne.class).cascade());
-                }
-                if (field.isAnnotationPresent(ManyToMany.class)) {
-                    doCascade = cascadeAll(field.getAnnotation(ManyToMany.class).cascade());
-                }
-                if (doCascade) {
-                    Object value = field.get(this);
-                    if (value != null) {
-                        if (value instanceof PersistentMap) {
-                            if (((PersistentMap) value).wasInitialized()) {
-
-                                cascadeOrphans(this, (PersistentCollection) value, willBeSaved);
+                Object value = field.get(this);
+                if (value != null) {
+                    if (value instanceof PersistentMap) {
+                        if (((PersistentMap) value).wasInitialized()) {
 
-                                for (Object o : ((Map) value).values()) {
-                                    saveAndCascadeIfJPABase(o, willBeSaved);
-                                }
-                            }
-                        } else if (value instanceof PersistentCollection) {
-                            PersistentCollection col = (PersistentCollection) value;
-                            if (((PersistentCollection) value).wasInitialized()) {
+                            cascadeOrphans(this, (PersistentCollection) value, willBeSaved);
 
-                                cascadeOrphans(this, (PersistentCollection) value, willBeSaved);
-
-                                for (Object o : (Collection) value) {
-                                    saveAndCascadeIfJPABase(o, willBeSaved);
-                                }
-                            } else {
-                                cascadeOrphans(this, col, willBeSaved);
-
-                                for (Object o : (Collection) value) {
-                                    saveAndCascadeIfJPABase(o, willBeSaved);
-                                }
-                            }
-                        } else if (value instanceof Collection) {
-                            for (Object o : (Collection) value) {
+                            for (Object o : ((Map) value).values()) {
                                 saveAndCascadeIfJPABase(o, willBeSaved);
                             }
-                        } else if (value instanceof HibernateProxy && value instanceof JPABase) {
-                            if (!((HibernateProxy) value).getHibernateLazyInitializer().isUninitialized()) {
-                                ((JPABase) ((HibernateProxy) value).getHibernateLazyInitializer().getImplementation())
-                                        .saveAndCascade(willBeSaved);
-                            }
-                        } else if (value instanceof JPABase) {
-                            ((JPABase) value).saveAndCascade(willBeSaved);
                         }
+                    } else if (value instanceof PersistentCollection) {
+                        cascadeOrphans(this, (PersistentCollection) value, willBeSaved);
+
+                        for (Object o : (Collection) value) {
+                            saveAndCascadeIfJPABase(o, willBeSaved);
+                        }
+                    } else if (value instanceof Collection) {
+                        for (Object o : (Collection) value) {
+                            saveAndCascadeIfJPABase(o, willBeSaved);
+                        }
+                    } else if (value instanceof HibernateProxy && value instanceof JPABase) {
+                        if (!((HibernateProxy) value).getHibernateLazyInitializer().isUninitialized()) {
+                            ((JPABase) ((HibernateProxy) value).getHibernateLazyInitializer().getImplementation())
+                                    .saveAndCascade(willBeSaved);
+                        }
+                    } else if (value instanceof JPABase) {
+                        ((JPABase) value).saveAndCascade(willBeSaved);
                     }
                 }
             }
@@ -231,15 +191,6 @@ public class JPABase implements Serializable, play.db.Model {
         }
     }
 
-    private static boolean cascadeAll(CascadeType[] types) {
-        for (CascadeType cascadeType : types) {
-            if (cascadeType == CascadeType.ALL || cascadeType == CascadeType.PERSIST) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * Retrieve the current entityManager
      * 
@@ -34,7 +34,7 @@ import play.data.binding.NoBinding;
 import play.db.Model;
 import play.exceptions.UnexpectedException;
 
-public class JPAModelLoader implements Model.Factory {
+public class JPAModelLoader implements Model.KeysetFactory {
 
     private String dbName;
     private Class<? extends Model> clazz;
@@ -115,6 +115,99 @@ public class JPAModelLoader implements Model.Factory {
         return query.getResultList();
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Model> fetchAfter(Object[] after, int size, String orderBy, String order, List<String> searchFields, String keywords,
+            String where) {
+        if (order == null || (!order.equals("ASC") && !order.equals("DESC"))) {
+            order = "ASC";
+        }
+        List<String> columns = keysetColumns(orderBy);
+        StringBuilder keyset = new StringBuilder();
+        for (String column : columns) {
+            if (keyset.length() > 0) {
+                keyset.append(", ");
+            }
+            keyset.append(column).append(" ").append(order);
+        }
+
+        StringBuilder q = new StringBuilder("from ").append(this.clazz.getName());
+        List<String> conditions = new ArrayList<>(3);
+        if (keywords != null && !keywords.isEmpty()) {
+            String searchQuery = this.getSearchQuery(searchFields);
+            if (!searchQuery.equals("")) {
+                conditions.add("(" + searchQuery + ")");
+            }
+        }
+        if (where != null) {
+            conditions.add("(" + where + ")");
+        }
+        if (after != null) {
+            if (after.length != columns.size()) {
+                throw new IllegalArgumentException("Expected a sort key of " + columns.size() + " values for " + columns);
+            }
+            JPQL.checkKeyset(after);
+            conditions.add(JPQL.keysetPredicate(keyset.toString(), "keyset"));
+        }
+        for (int i = 0; i < conditions.size(); i++) {
+            q.append(i == 0 ? " where " : " and ").append(conditions.get(i));
+        }
+        q.append(" order by ").append(keyset);
+        String jpql = q.toString();
+        Query query = JPA.em(this.dbName).createQuery(jpql);
+        if (keywords != null && !keywords.equals("") && jpql.indexOf("?1") != -1) {
+            query.setParameter(1, "%" + keywords.toLowerCase() + "%");
+        }
+        if (after != null) {
+            for (int i = 0; i < after.length; i++) {
+                query.setParameter("keyset" + (i + 1), after[i]);
+            }
+        }
+        query.setMaxResults(size);
+        return query.getResultList();
+    }
+
+    @Override
+    public Object[] keysetOf(Model m, String orderBy) {
+        if (m == null) {
+            return null;
+        }
+        try {
+            List<String> columns = keysetColumns(orderBy);
+            Object[] values = new Object[columns.size()];
+            Field[] keys = keyFields();
+            int i = 0;
+            if (columns.size() > keys.length) {
+                initProperties();
+                Model.Property property = this.properties.get(orderBy);
+                if (property == null) {
+                    throw new UnexpectedException("Cannot sort " + clazz.getName() + " on unknown property " + orderBy);
+                }
+                property.field.setAccessible(true);
+                values[i++] = property.field.get(m);
+            }
+            for (Field key : keys) {
+                values[i++] = key.get(m);
+            }
+            return values;
+        } catch (IllegalAccessException e) {
+            throw new UnexpectedException(e);
+        }
+    }
+
+    /**
+     * The order by field followed by the key fields, so that the order is total
+     */
+    private List<String> keysetColumns(String orderBy) {
+        List<String> columns = new ArrayList<>();
+        List<String> keys = Arrays.asList(keyNames());
+        if (orderBy != null && !keys.contains(orderBy)) {
+            columns.add(orderBy);
+        }
+        columns.addAll(keys);
+        return columns;
+    }
+
     @Override
     public Long count(List<String> searchFields, String keywords, String where) {
         String q = "select count(*) from " + this.clazz.getName() + " e";
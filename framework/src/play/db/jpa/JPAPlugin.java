@@ -1,5 +1,6 @@
 package play.db.jpa;
 
+import com.google.gson.JsonObject;
 import org.apache.log4j.Level;
 import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
@@ -7,6 +8,7 @@ import org.hibernate.jpa.boot.internal.PersistenceUnitInfoDescriptor;
 import play.Logger;
 import play.Play;
 import play.PlayPlugin;
+import play.Tracer;
 import play.classloading.ApplicationClasses.ApplicationClass;
 import play.data.binding.Binder;
 import play.data.binding.ParamNode;
@@ -20,6 +22,8 @@ import play.exceptions.UnexpectedException;
 import javax.persistence.*;
 import javax.persistence.spi.PersistenceUnitInfo;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.util.*;
 
@@ -208,7 +212,19 @@ public class JPAPlugin extends PlayPlugin {
             properties.setProperty("hibernate.hbm2ddl.auto", dbConfig.getProperty("jpa.ddl", "update"));
         }
 
-        properties.put("hibernate.connection.datasource", DB.getDataSource(dbName));
+        properties.put("hibernate.connection.datasource", DB.getRoutingDataSource(dbName));
+
+        // JDBC batching of the inserts and updates, unless set with the hibernate.* properties
+        int batchSize = Integer.parseInt(dbConfig.getProperty("db.batchSize", "0"));
+        if (batchSize > 0) {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+            properties.putIfAbsent("hibernate.order_inserts", "true");
+            properties.putIfAbsent("hibernate.order_updates", "true");
+            properties.putIfAbsent("hibernate.jdbc.batch_versioned_data", "true");
+        }
+        if (Tracer.get() != null) {
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JPATracer.class.getName());
+        }
         return properties;
     }
 
@@ -269,6 +285,37 @@ public class JPAPlugin extends PlayPlugin {
         closeAllPersistenceUnits();    
     }
 
+    @Override
+    public String getStatus() {
+        JPQL jpql = JPQL.instance;
+        if (jpql == null) {
+            return null;
+        }
+        StringWriter sw = new StringWriter();
+        PrintWriter out = new PrintWriter(sw);
+        out.println("JPQL query cache:");
+        out.println("~~~~~~~~~~~~~~~~~");
+        out.println("Size: " + jpql.queryCacheSize());
+        out.println("Hits: " + jpql.queryCacheHits());
+        out.println("Misses: " + jpql.queryCacheMisses());
+        return sw.toString();
+    }
+
+    @Override
+    public JsonObject getJsonStatus() {
+        JPQL jpql = JPQL.instance;
+        if (jpql == null) {
+            return null;
+        }
+        JsonObject status = new JsonObject();
+        JsonObject queryCache = new JsonObject();
+        queryCache.addProperty("size", jpql.queryCacheSize());
+        queryCache.addProperty("hits", jpql.queryCacheHits());
+        queryCache.addProperty("misses", jpql.queryCacheMisses());
+        status.add("jpqlQueryCache", queryCache);
+        return status;
+    }
+
     private void closeAllPersistenceUnits() {
         for (EntityManagerFactory emf : JPA.emfs.values()) {
             if (emf.isOpen()) {
@@ -282,7 +329,10 @@ public class JPAPlugin extends PlayPlugin {
     public void afterFixtureLoad() {
         if (JPA.isEnabled()) {
             for(String emfKey: JPA.emfs.keySet()) {
-                JPA.em(emfKey).clear();
+                JPA.JPAContext context = JPA.get(emfKey);
+                if (context != null && context.isOpen()) {
+                    context.entityManager.clear();
+                }
             }
         }
     } 
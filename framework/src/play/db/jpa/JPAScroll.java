@@ -0,0 +1,181 @@
+package play.db.jpa;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.hibernate.type.Type;
+
+/**
+ * Iterate over the results of a JPA query with a forward-only database cursor.
+ *
+ * Rows are fetched from the database fetchSize at a time, and the entities
+ * returned are evicted from the persistence context every fetchSize rows,
+ * with the entities their eager associations loaded, so memory stays flat
+ * whatever the size of the result. An evicted entity is detached: changes made
+ * to it are not saved anymore and its lazy associations cannot be loaded. The
+ * entities that were in the persistence context before the scroll started are
+ * never evicted.
+ *
+ * The cursor must be closed once done, it is closed automatically when the last
+ * row has been read.
+ */
+public class JPAScroll<T> implements Iterator<T>, Iterable<T>, Closeable {
+
+    private final Session session;
+    private final PersistenceContext persistenceContext;
+    private final Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    private final int fetchSize;
+    private final List<Object> window;
+    private ScrollableResults results;
+    private boolean loaded;
+
+    public JPAScroll(EntityManager em, Query query, int fetchSize) {
+        this.session = em.unwrap(Session.class);
+        this.persistenceContext = ((SessionImplementor) session).getPersistenceContext();
+        for (Map.Entry<Object, EntityEntry> entry : persistenceContext.reentrantSafeEntityEntries()) {
+            owned.add(entry.getKey());
+        }
+        this.fetchSize = fetchSize;
+        this.window = new ArrayList<>(fetchSize);
+        org.hibernate.query.Query<?> hibernateQuery = query.unwrap(org.hibernate.query.Query.class);
+        hibernateQuery.setFetchSize(fetchSize);
+        hibernateQuery.setCacheable(false);
+        this.results = hibernateQuery.scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!loaded && results != null) {
+            if (results.next()) {
+                loaded = true;
+            } else {
+                close();
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        loaded = false;
+        if (window.size() >= fetchSize) {
+            evictWindow();
+        }
+        Object[] row = results.get();
+        Object next = row.length == 1 ? row[0] : row;
+        window.add(next);
+        return (T) next;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this;
+    }
+
+    /**
+     * @return A sequential stream over the remaining rows, that closes the
+     *         cursor when the stream is closed
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        loaded = false;
+        if (results != null) {
+            try {
+                results.close();
+            } finally {
+                results = null;
+                window.clear();
+            }
+        }
+    }
+
+    private void evictWindow() {
+        Set<Object> evicted = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        for (Object row : window) {
+            if (row instanceof Object[]) {
+                for (Object column : (Object[]) row) {
+                    evict(column, evicted);
+                }
+            } else {
+                evict(row, evicted);
+            }
+        }
+        window.clear();
+    }
+
+    /**
+     * Evict an entity loaded by the scroll, and the entities loaded with it:
+     * Session.evict only cascades to the associations mapped with
+     * CascadeType.DETACH
+     */
+    private void evict(Object o, Set<Object> evicted) {
+        if (o instanceof HibernateProxy) {
+            LazyInitializer initializer = ((HibernateProxy) o).getHibernateLazyInitializer();
+            if (initializer.isUninitialized()) {
+                return;
+            }
+            o = initializer.getImplementation();
+        }
+        if (o == null || owned.contains(o) || !evicted.add(o)) {
+            return;
+        }
+        // Null for scalars and for entities not managed anymore
+        EntityEntry entry = persistenceContext.getEntry(o);
+        if (entry == null) {
+            return;
+        }
+        Type[] types = entry.getPersister().getPropertyTypes();
+        Object[] values = entry.getPersister().getPropertyValues(o);
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].isEntityType()) {
+                evict(values[i], evicted);
+            } else if (types[i].isCollectionType() && values[i] instanceof PersistentCollection
+                    && ((PersistentCollection) values[i]).wasInitialized()) {
+                Collection<?> elements = values[i] instanceof Map ? ((Map<?, ?>) values[i]).values()
+                        : values[i] instanceof Collection ? (Collection<?>) values[i] : Collections.emptyList();
+                for (Object element : elements) {
+                    evict(element, evicted);
+                }
+            }
+        }
+        session.evict(o);
+    }
+}
@@ -0,0 +1,91 @@
+package play.db.jpa;
+
+import org.hibernate.BaseSessionEventListener;
+
+import play.Trace;
+
+/**
+ * Opens a span around the JDBC work of the sessions when the invocation is
+ * traced: the connection acquisitions, the statements with their SQL, the
+ * batches and the flushes. Hibernate creates one listener per session.
+ */
+public class JPATracer extends BaseSessionEventListener {
+
+    /**
+     * The SQL of the statement being prepared, set by the
+     * {@link HibernateInterceptor} while the invocation is traced
+     */
+    static final ThreadLocal<String> statement = new ThreadLocal<>();
+
+    private Trace.Span connection;
+    private Trace.Span execution;
+    private Trace.Span batch;
+    private Trace.Span flush;
+
+    static void prepare(String sql) {
+        if (Trace.current() != null) {
+            statement.set(sql);
+        }
+    }
+
+    private static String sql() {
+        String sql = statement.get();
+        statement.remove();
+        return sql;
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        connection = Trace.start("jpa.connection", null);
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        execution = Trace.start("jpa.query", sql());
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        if (execution != null) {
+            execution.close();
+            execution = null;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batch = Trace.start("jpa.batch", sql());
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        if (batch != null) {
+            batch.close();
+            batch = null;
+        }
+    }
+
+    @Override
+    public void flushStart() {
+        flush = Trace.start("jpa.flush", null);
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        if (flush != null) {
+            if (flush.isRecording()) {
+                flush.detail(numberOfEntities + " entities, " + numberOfCollections + " collections");
+            }
+            flush.close();
+            flush = null;
+        }
+    }
+}
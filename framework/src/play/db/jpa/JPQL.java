@@ -1,7 +1,11 @@
 package play.db.jpa;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
@@ -15,6 +19,21 @@ import play.mvc.Scope.Params;
 
 public class JPQL {
 
+    /**
+     * Generated JPQL keyed by (kind, dbName, entity, shortcut, params shape).
+     * Emitting the very same String for a given shortcut also lets Hibernate
+     * reuse its own query plan.
+     */
+    private final ConcurrentMap<String, String> queryCache = new ConcurrentHashMap<>();
+    private final int queryCacheSize;
+    final AtomicLong queryCacheHits = new AtomicLong();
+    final AtomicLong queryCacheMisses = new AtomicLong();
+
+    public JPQL() {
+        this.queryCacheSize = Play.configuration == null ? 1000
+                : Integer.parseInt(Play.configuration.getProperty("jpa.queryCache.size", "1000"));
+    }
+
     public EntityManager em(String dbName) {
         return JPA.em(dbName);
     }
@@ -73,10 +92,10 @@ public class JPQL {
 
 
     public JPAQuery find(String dbName, String entity, String query, Object[] params) {
-        Query q = em(dbName).createQuery(
-                createFindByQuery(dbName, entity, entity, query, params));
-        return new JPAQuery(
-                createFindByQuery(dbName, entity, entity, query, params), bindParameters(q, params));
+        String jpql = createFindByQuery(dbName, entity, entity, query, params);
+        EntityManager em = em(dbName);
+        Query q = em.createQuery(jpql);
+        return new JPAQuery(jpql, bindParameters(q, params), em);
     }
 
     public JPAQuery find(String entity) {
@@ -84,10 +103,10 @@ public class JPQL {
     }
 
     public JPAQuery find(String dbName, String entity) {
-        Query q = em(dbName).createQuery(
-                createFindByQuery(dbName, entity, entity, null));
-        return new JPAQuery(
-                createFindByQuery(dbName, entity, entity, null), bindParameters(q));
+        String jpql = createFindByQuery(dbName, entity, entity, null);
+        EntityManager em = em(dbName);
+        Query q = em.createQuery(jpql);
+        return new JPAQuery(jpql, bindParameters(q), em);
     }
 
     public JPAQuery all(String entity) {
@@ -95,10 +114,10 @@ public class JPQL {
     }
 
     public JPAQuery all(String dbName, String entity) {
-        Query q = em(dbName).createQuery(
-                createFindByQuery(dbName, entity, entity, null));
-        return new JPAQuery(
-                createFindByQuery(dbName, entity, entity, null), bindParameters(q));
+        String jpql = createFindByQuery(dbName, entity, entity, null);
+        EntityManager em = em(dbName);
+        Query q = em.createQuery(jpql);
+        return new JPAQuery(jpql, bindParameters(q), em);
     }
 
     public int delete(String dbName, String entity, String query, Object[] params) {
@@ -149,6 +168,19 @@ public class JPQL {
     }
 
     public String createFindByQuery(String dbName, String entityName, String entityClass, String query, Object... params) {
+        String key = cacheKey("find", dbName, entityName, query, params);
+        String jpql = queryCache.get(key);
+        if (jpql != null) {
+            queryCacheHits.incrementAndGet();
+            return jpql;
+        }
+        queryCacheMisses.incrementAndGet();
+        jpql = buildFindByQuery(dbName, entityName, entityClass, query, params);
+        cacheQuery(key, jpql);
+        return jpql;
+    }
+
+    protected String buildFindByQuery(String dbName, String entityName, String entityClass, String query, Object... params) {
         if (query == null || query.trim().length() == 0) {
             return "from " + entityName;
         }
@@ -174,6 +206,19 @@ public class JPQL {
     }
 
     public String createDeleteQuery(String entityName, String entityClass, String query, Object... params) {
+        String key = cacheKey("delete", null, entityName, query, params);
+        String jpql = queryCache.get(key);
+        if (jpql != null) {
+            queryCacheHits.incrementAndGet();
+            return jpql;
+        }
+        queryCacheMisses.incrementAndGet();
+        jpql = buildDeleteQuery(entityName, entityClass, query, params);
+        cacheQuery(key, jpql);
+        return jpql;
+    }
+
+    protected String buildDeleteQuery(String entityName, String entityClass, String query, Object... params) {
         if (query == null) {
             return "delete from " + entityName;
         }
@@ -193,6 +238,19 @@ public class JPQL {
     }
 
     public String createCountQuery(String dbName, String entityName, String entityClass, String query, Object... params) {
+        String key = cacheKey("count", dbName, entityName, query, params);
+        String jpql = queryCache.get(key);
+        if (jpql != null) {
+            queryCacheHits.incrementAndGet();
+            return jpql;
+        }
+        queryCacheMisses.incrementAndGet();
+        jpql = buildCountQuery(dbName, entityName, entityClass, query, params);
+        cacheQuery(key, jpql);
+        return jpql;
+    }
+
+    protected String buildCountQuery(String dbName, String entityName, String entityClass, String query, Object... params) {
         if (query.trim().toLowerCase().startsWith("select ")) {
             return query;
         }
@@ -312,12 +370,104 @@ public class JPQL {
         return jpql.toString();
     }
 
+    /**
+     * The generated JPQL only depends on whether params is null, holds a
+     * single value or several ones
+     */
+    private static String cacheKey(String kind, String dbName, String entityName, String query, Object[] params) {
+        char paramsShape = params == null ? '0' : params.length == 1 ? '1' : 'n';
+        return new StringBuilder(kind.length() + entityName.length() + (query == null ? 0 : query.length()) + 32).append(kind)
+                .append('\u0000').append(dbName).append('\u0000').append(entityName).append('\u0000').append(paramsShape)
+                .append('\u0000').append(query).toString();
+    }
+
+    private void cacheQuery(String key, String jpql) {
+        if (queryCacheSize <= 0) {
+            return;
+        }
+        if (queryCache.size() >= queryCacheSize) {
+            // Shortcuts are a bounded set in a sane application, so this
+            // only protects us from dynamically built queries
+            queryCache.clear();
+        }
+        queryCache.put(key, jpql);
+    }
+
+    /**
+     * @return Number of cached generated queries
+     */
+    public int queryCacheSize() {
+        return queryCache.size();
+    }
+
+    public long queryCacheHits() {
+        return queryCacheHits.get();
+    }
+
+    public long queryCacheMisses() {
+        return queryCacheMisses.get();
+    }
+
     private boolean isHSQL(String dbName) {
         Configuration dbConfig = new Configuration(dbName);
         String db = dbConfig.getProperty("db");
         return ("mem".equals(db) || "fs".equals(db) || "org.hsqldb.jdbcDriver".equals(dbConfig.getProperty("db.driver")));
     }
 
+    /**
+     * Build the keyset (seek) predicate selecting the rows that come after a
+     * sort key tuple, e.g. for "postedAt desc, id desc":
+     * <code>((postedAt &lt; :k1) or (postedAt = :k1 and id &lt; :k2))</code>
+     *
+     * @param orderBy
+     *            Comma separated list of columns, each one optionally followed
+     *            by asc or desc
+     * @param paramPrefix
+     *            Prefix of the named parameters holding the tuple values,
+     *            numbered from 1 in orderBy order
+     * @return The JPQL predicate
+     */
+    public static String keysetPredicate(String orderBy, String paramPrefix) {
+        String[] columns = orderBy.split(",");
+        StringBuilder predicate = new StringBuilder("(");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                predicate.append(" or ");
+            }
+            predicate.append('(');
+            for (int j = 0; j < i; j++) {
+                predicate.append(keysetColumn(columns[j])).append(" = :").append(paramPrefix).append(j + 1).append(" and ");
+            }
+            predicate.append(keysetColumn(columns[i])).append(isDescending(columns[i]) ? " < :" : " > :").append(paramPrefix)
+                    .append(i + 1).append(')');
+        }
+        return predicate.append(')').toString();
+    }
+
+    /**
+     * Reject a sort key tuple with null values: no row compares greater or
+     * lower than null, so the next page would silently be empty
+     *
+     * @param values
+     *            The values of the sort key tuple
+     */
+    static void checkKeyset(Object[] values) {
+        for (Object value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("Keyset pagination needs non null sort values, got " + Arrays.toString(values));
+            }
+        }
+    }
+
+    private static String keysetColumn(String orderByPart) {
+        return orderByPart.trim().split("\\s+")[0];
+    }
+
+    private static boolean isDescending(String orderByPart) {
+        String[] tokens = orderByPart.trim().split("\\s+");
+        return tokens.length > 1 && "desc".equalsIgnoreCase(tokens[1]);
+    }
+
     protected static String extractProp(String part, String end) {
         String prop = part.substring(0, part.length() - end.length());
         prop = (prop.charAt(0) + "").toLowerCase() + prop.substring(1);
@@ -14,6 +14,7 @@ import play.Play;
 import play.PlayPlugin;
 import play.exceptions.UnexpectedException;
 import play.libs.IO;
+import play.vfs.FileWatcher;
 import play.vfs.VirtualFile;
 
 /**
@@ -25,8 +26,17 @@ public class MessagesPlugin extends PlayPlugin {
 
     private static List<String> includeMessageFilenames = new ArrayList<>();
 
+    /**
+     * The changes of the messages files, or null if they are polled
+     */
+    private static volatile FileWatcher.Changes messagesChanges;
+
     @Override
     public void onApplicationStart() {
+        if (messagesChanges != null) {
+            // Reading them now
+            messagesChanges.takeModified();
+        }
         includeMessageFilenames.clear();
         Messages.defaults = new Properties();
         try {
@@ -64,6 +74,23 @@ public class MessagesPlugin extends PlayPlugin {
             Messages.locales.put(locale, properties);
         }
         lastLoading = System.currentTimeMillis();
+        watch();
+    }
+
+    private static void watch() {
+        if (FileWatcher.get() == null) {
+            messagesChanges = null;
+            return;
+        }
+        List<VirtualFile> files = new ArrayList<>();
+        files.add(Play.getVirtualFile("conf"));
+        for (VirtualFile module : Play.modules.values()) {
+            files.add(module.child("conf"));
+        }
+        for (String include : includeMessageFilenames) {
+            files.add(VirtualFile.open(include));
+        }
+        messagesChanges = FileWatcher.changes("messages", files);
     }
 
     static Properties read(VirtualFile vf) {
@@ -125,6 +152,13 @@ public class MessagesPlugin extends PlayPlugin {
 
     @Override
     public void detectChange() {
+        FileWatcher.Changes changes = messagesChanges;
+        if (changes != null) {
+            if (!changes.hasChanges()) {
+                return;
+            }
+            changes.takeModified();
+        }
         VirtualFile vf = Play.getVirtualFile("conf/messages");
         if (vf != null && vf.exists() && !vf.isDirectory()
                 && vf.lastModified() > lastLoading) {
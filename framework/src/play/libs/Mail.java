@@ -19,6 +19,7 @@ import org.apache.commons.mail.EmailException;
 
 import play.Logger;
 import play.Play;
+import play.Trace;
 import play.exceptions.MailException;
 import play.libs.mail.AbstractMailSystemFactory;
 import play.libs.mail.MailSystem;
@@ -57,7 +58,7 @@ public class Mail {
      * @return true if email successfully send
      */
     public static Future<Boolean> send(Email email) {
-        try {
+        try (Trace.Span span = Trace.start("mail.send", email.getSubject())) {
             email = buildMessage(email);
             return currentMailSystem().sendMessage(email);
         } catch (EmailException ex) {
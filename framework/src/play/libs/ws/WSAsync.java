@@ -37,6 +37,7 @@ import oauth.signpost.exception.OAuthMessageSignerException;
 import oauth.signpost.http.HttpRequest;
 import play.Logger;
 import play.Play;
+import play.Trace;
 import play.libs.F.Promise;
 import play.libs.MimeTypes;
 import play.libs.OAuth.ServiceInfo;
@@ -263,7 +264,7 @@ public class WSAsync implements WSImpl {
             this.type = "GET";
             sign();
             try {
-                return new HttpAsyncResponse(prepare(prepareGet()).execute().get());
+                return call(prepareGet());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -283,7 +284,7 @@ public class WSAsync implements WSImpl {
             this.type = "PATCH";
             sign();
             try {
-                return new HttpAsyncResponse(prepare(preparePatch()).execute().get());
+                return call(preparePatch());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -303,7 +304,7 @@ public class WSAsync implements WSImpl {
             this.type = "POST";
             sign();
             try {
-                return new HttpAsyncResponse(prepare(preparePost()).execute().get());
+                return call(preparePost());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -322,7 +323,7 @@ public class WSAsync implements WSImpl {
         public HttpResponse put() {
             this.type = "PUT";
             try {
-                return new HttpAsyncResponse(prepare(preparePut()).execute().get());
+                return call(preparePut());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -340,7 +341,7 @@ public class WSAsync implements WSImpl {
         public HttpResponse delete() {
             this.type = "DELETE";
             try {
-                return new HttpAsyncResponse(prepare(prepareDelete()).execute().get());
+                return call(prepareDelete());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -358,7 +359,7 @@ public class WSAsync implements WSImpl {
         public HttpResponse options() {
             this.type = "OPTIONS";
             try {
-                return new HttpAsyncResponse(prepare(prepareOptions()).execute().get());
+                return call(prepareOptions());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -376,7 +377,7 @@ public class WSAsync implements WSImpl {
         public HttpResponse head() {
             this.type = "HEAD";
             try {
-                return new HttpAsyncResponse(prepare(prepareHead()).execute().get());
+                return call(prepareHead());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -451,6 +452,15 @@ public class WSAsync implements WSImpl {
             return builder;
         }
 
+        /**
+         * Execute the request synchronously
+         */
+        private HttpResponse call(BoundRequestBuilder builder) throws Exception {
+            try (Trace.Span span = Trace.start("ws", this.type + " " + this.url)) {
+                return new HttpAsyncResponse(prepare(builder).execute().get());
+            }
+        }
+
         private Promise<HttpResponse> execute(BoundRequestBuilder builder) {
             try {
                 final Promise<HttpResponse> smartFuture = new Promise<>();
@@ -23,6 +23,7 @@ import oauth.signpost.OAuthConsumer;
 import oauth.signpost.basic.DefaultOAuthConsumer;
 import play.Logger;
 import play.Play;
+import play.Trace;
 import play.libs.IO;
 import play.libs.WS.HttpResponse;
 import play.libs.WS.WSImpl;
@@ -112,7 +113,7 @@ public class WSUrlFetch implements WSImpl {
         @Override
         public HttpResponse get() {
             try {
-                return new HttpUrlfetchResponse(prepare(new URL(getPreparedUrl("GET")), "GET"));
+                return call("GET");
             } catch (Exception e) {
                 Logger.error(e.toString());
                 throw new RuntimeException(e);
@@ -122,8 +123,7 @@ public class WSUrlFetch implements WSImpl {
         @Override
         public HttpResponse patch() {
             try {
-                HttpURLConnection conn = prepare(new URL(getPreparedUrl("PATCH")), "PATCH");
-                return new HttpUrlfetchResponse(conn);
+                return call("PATCH");
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -133,8 +133,7 @@ public class WSUrlFetch implements WSImpl {
         @Override
         public HttpResponse post() {
             try {
-                HttpURLConnection conn = prepare(new URL(getPreparedUrl("POST")), "POST");
-                return new HttpUrlfetchResponse(conn);
+                return call("POST");
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -144,7 +143,7 @@ public class WSUrlFetch implements WSImpl {
         @Override
         public HttpResponse put() {
             try {
-                return new HttpUrlfetchResponse(prepare(new URL(getPreparedUrl("PUT")), "PUT"));
+                return call("PUT");
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -154,7 +153,7 @@ public class WSUrlFetch implements WSImpl {
         @Override
         public HttpResponse delete() {
             try {
-                return new HttpUrlfetchResponse(prepare(new URL(getPreparedUrl("DELETE")), "DELETE"));
+                return call("DELETE");
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -164,7 +163,7 @@ public class WSUrlFetch implements WSImpl {
         @Override
         public HttpResponse options() {
             try {
-                return new HttpUrlfetchResponse(prepare(new URL(getPreparedUrl("OPTIONS")), "OPTIONS"));
+                return call("OPTIONS");
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -174,7 +173,7 @@ public class WSUrlFetch implements WSImpl {
         @Override
         public HttpResponse head() {
             try {
-                return new HttpUrlfetchResponse(prepare(new URL(getPreparedUrl("HEAD")), "HEAD"));
+                return call("HEAD");
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -184,12 +183,21 @@ public class WSUrlFetch implements WSImpl {
         @Override
         public HttpResponse trace() {
             try {
-                return new HttpUrlfetchResponse(prepare(new URL(getPreparedUrl("TRACE")), "TRACE"));
+                return call("TRACE");
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
         }
 
+        /**
+         * Execute the request synchronously
+         */
+        private HttpResponse call(String method) throws Exception {
+            try (Trace.Span span = Trace.start("ws", method + " " + this.url)) {
+                return new HttpUrlfetchResponse(prepare(new URL(getPreparedUrl(method)), method));
+            }
+        }
+
         private HttpURLConnection prepare(URL url, String method) {
             String keyStore = Play.configuration.getProperty("ssl.keyStore", System.getProperty("javax.net.ssl.keyStore"));
             String keyStorePass = Play.configuration.getProperty("ssl.keyStorePassword",
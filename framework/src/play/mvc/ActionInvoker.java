@@ -7,12 +7,15 @@ import org.apache.commons.javaflow.bytecode.StackRecorder;
 import play.Invoker.Suspend;
 import play.Logger;
 import play.Play;
+import play.Trace;
 import play.cache.Cache;
 import play.cache.CacheFor;
 import play.classloading.enhancers.ControllersEnhancer;
 import play.classloading.enhancers.ControllersEnhancer.ControllerInstrumentation;
+import play.data.binding.ActionBindingPlan;
 import play.data.binding.Binder;
 import play.data.binding.CachedBoundActionMethodArgs;
+import play.data.binding.JsonBinder;
 import play.data.binding.ParamNode;
 import play.data.binding.RootParamNode;
 import play.data.parsing.UrlEncodedParser;
@@ -26,6 +29,8 @@ import play.mvc.Router.Route;
 import play.mvc.results.NoResult;
 import play.mvc.results.NotFound;
 import play.mvc.results.Result;
+import play.mvc.results.RenderJson;
+import play.server.AccessLog;
 import play.utils.Java;
 import play.utils.Utils;
 
@@ -61,6 +66,9 @@ public class ActionInvoker {
         if (request.action == null) {
             Play.pluginCollection.routeRequest(request);
             Route route = Router.route(request);
+            if (AccessLog.entry(request) != null) {
+                request.args.put(ROUTE, route);
+            }
             Play.pluginCollection.onRequestRouting(route);
         }
         request.resolveFormat();
@@ -135,6 +143,10 @@ public class ActionInvoker {
 
             // Monitoring
             monitor = MonitorFactory.start(request.action + "()");
+            Trace trace = Trace.current();
+            if (trace != null) {
+                trace.root().detail(request.method + " " + request.path + " " + request.action);
+            }
 
             String cacheKey = null;
             Result actionResult = null;
@@ -161,12 +173,18 @@ public class ActionInvoker {
 
                 if (actionResult == null) {
                     ControllerInstrumentation.initActionCall();
-                    inferResult(invokeControllerMethod(actionMethod));
+                    try (Trace.Span span = Trace.start("action", request.action)) {
+                        inferResult(invokeControllerMethod(actionMethod));
+                    }
                 }
             } catch (Result result) {
                 actionResult = result;
                 // Cache it if needed
                 if (cacheKey != null && !"".equals(cacheKey)) {
+                    if (actionResult instanceof RenderJson) {
+                        // Cache the serialized form, not the live objects
+                        ((RenderJson) actionResult).getJson();
+                    }
                     Cache.set(cacheKey, actionResult, actionMethod.getAnnotation(CacheFor.class).value());
                 }
             } catch (JavaExecutionException e) {
@@ -195,7 +213,9 @@ public class ActionInvoker {
             Scope.Session.current().save();
             Scope.Flash.current().save();
 
-            result.apply(request, response);
+            try (Trace.Span span = Trace.start("result", result.getClass().getSimpleName())) {
+                result.apply(request, response);
+            }
 
             Play.pluginCollection.afterActionInvocation();
 
@@ -301,7 +321,9 @@ public class ActionInvoker {
             }
             if (!skip) {
                 before.setAccessible(true);
-                inferResult(invokeControllerMethod(before));
+                try (Trace.Span span = trace("@Before", before)) {
+                    inferResult(invokeControllerMethod(before));
+                }
             }
         }
     }
@@ -335,11 +357,24 @@ public class ActionInvoker {
             }
             if (!skip) {
                 after.setAccessible(true);
-                inferResult(invokeControllerMethod(after));
+                try (Trace.Span span = trace("@After", after)) {
+                    inferResult(invokeControllerMethod(after));
+                }
             }
         }
     }
 
+    /**
+     * The span of an interceptor, named after its method only when the
+     * invocation is traced
+     */
+    private static Trace.Span trace(String name, Method interceptor) {
+        if (Trace.current() == null) {
+            return Trace.start(name, null);
+        }
+        return Trace.start(name, interceptor.getDeclaringClass().getSimpleName() + "." + interceptor.getName());
+    }
+
     /**
      * Checks and calla all methods in controller annotated with @Finally. The
      * caughtException-value is sent as argument to @Finally-method if method
@@ -390,14 +425,16 @@ public class ActionInvoker {
 
                     // check if method accepts Throwable as only parameter
                     Class[] parameterTypes = aFinally.getParameterTypes();
-                    if (parameterTypes.length == 1 && parameterTypes[0] == Throwable.class) {
-                        // invoking @Finally method with caughtException as
-                        // parameter
-                        invokeControllerMethod(aFinally, new Object[] { caughtException });
-                    } else {
-                        // invoke @Finally-method the regular way without
-                        // caughtException
-                        invokeControllerMethod(aFinally, null);
+                    try (Trace.Span span = trace("@Finally", aFinally)) {
+                        if (parameterTypes.length == 1 && parameterTypes[0] == Throwable.class) {
+                            // invoking @Finally method with caughtException as
+                            // parameter
+                            invokeControllerMethod(aFinally, new Object[] { caughtException });
+                        } else {
+                            // invoke @Finally-method the regular way without
+                            // caughtException
+                            invokeControllerMethod(aFinally, null);
+                        }
                     }
                 }
             }
@@ -504,6 +541,11 @@ public class ActionInvoker {
     static final String CONTINUATIONS_STORE_PARAMS = "__CONTINUATIONS_STORE_PARAMS";
     public static final String CONTINUATIONS_STORE_VALIDATIONS = "__CONTINUATIONS_STORE_VALIDATIONS";
     static final String CONTINUATIONS_STORE_VALIDATIONPLUGIN_KEYS = "__CONTINUATIONS_STORE_VALIDATIONPLUGIN_KEYS";
+    /**
+     * The key of the route of a request in its args, when the request is in
+     * the access log
+     */
+    public static final String ROUTE = "__ROUTE";
 
     static Object invokeWithContinuation(Method method, Object instance, Object[] realArgs) throws Exception {
         // Callback case
@@ -606,8 +648,8 @@ public class ActionInvoker {
     }
 
     public static Object[] getActionMethodArgs(Method method, Object o) throws Exception {
-        String[] paramsNames = Java.parameterNames(method);
-        if (paramsNames == null && method.getParameterTypes().length > 0) {
+        ActionBindingPlan plan = ActionBindingPlan.forMethod(method);
+        if (plan.paramNames == null && plan.types.length > 0) {
             throw new UnexpectedException("Parameter names not found for method " + method);
         }
 
@@ -619,24 +661,38 @@ public class ActionInvoker {
             return rArgs;
         }
 
-        rArgs = new Object[method.getParameterTypes().length];
-        for (int i = 0; i < method.getParameterTypes().length; i++) {
-
-            Class<?> type = method.getParameterTypes()[i];
-            Map<String, String[]> params = new HashMap<>();
+        Object[] jsonArgs = null;
+        if (plan.types.length > 0 && "application/json".equals(Http.Request.current().contentType)) {
+            String body = Scope.Params.current().get("body");
+            if (body != null) {
+                // Streamed once for all the parameters, see JsonBinder
+                jsonArgs = JsonBinder.bind(body, plan.paramNames, plan.types, plan.genericTypes, plan.annotations);
+            }
+        }
 
+        rArgs = new Object[plan.types.length];
+        for (int i = 0; i < plan.types.length; i++) {
+            if (jsonArgs != null && jsonArgs[i] != Binder.MISSING) {
+                rArgs[i] = jsonArgs[i];
+                continue;
+            }
+            RootParamNode root;
             // In case of simple params, we don't want to parse the body.
-            if (type.equals(String.class) || Number.class.isAssignableFrom(type) || type.isPrimitive()) {
-                params.put(paramsNames[i], Scope.Params.current().getAll(paramsNames[i]));
+            if (plan.simple[i]) {
+                Map<String, String[]> params = new HashMap<>(2);
+                params.put(plan.paramNames[i], Scope.Params.current().getAll(plan.paramNames[i]));
+                root = ParamNode.convert(params);
             } else {
-                params.putAll(Scope.Params.current().all());
+                // The parameter tree is built once per request and shared
+                root = Scope.Params.current().getRootParamNode();
+            }
+            if (Logger.isTraceEnabled()) {
+                Logger.trace("getActionMethodArgs name [" + plan.paramNames[i] + "] annotation ["
+                        + Utils.join(plan.annotations[i], " ") + "]");
             }
-            Logger.trace("getActionMethodArgs name [" + paramsNames[i] + "] annotation ["
-                    + Utils.join(method.getParameterAnnotations()[i], " ") + "]");
 
-            RootParamNode root = ParamNode.convert(params);
-            rArgs[i] = Binder.bind(root, paramsNames[i], method.getParameterTypes()[i], method.getGenericParameterTypes()[i],
-                    method.getParameterAnnotations()[i], new Binder.MethodAndParamInfo(o, method, i + 1));
+            rArgs[i] = Binder.bind(root, plan.paramNames[i], plan.types[i], plan.genericTypes[i], plan.annotations[i],
+                    new Binder.MethodAndParamInfo(o, method, i + 1));
         }
 
         CachedBoundActionMethodArgs.current().storeActionMethodArgs(method, rArgs);
@@ -8,10 +8,12 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import org.apache.commons.javaflow.Continuation;
 import org.apache.commons.javaflow.bytecode.StackRecorder;
@@ -437,6 +439,31 @@ public class Controller implements PlayController, ControllerSupport, LocalVaria
         throw new RenderJson(o, gson);
     }
 
+    /**
+     * Render a 200 OK application/json response with a JSON array, written
+     * one element at a time. Use it with JPAQuery.scroll() or DB.stream() to
+     * export large result sets; the iterator is closed at the end if it is
+     * closeable. The elements are serialized while the response is sent,
+     * after the interceptors.
+     *
+     * @param elements
+     *            The elements to serialize
+     */
+    protected static void renderJSON(Iterator<?> elements) {
+        throw new RenderJson(elements);
+    }
+
+    /**
+     * Render a 200 OK application/json response with a JSON array, written
+     * one element at a time. The stream is closed at the end.
+     *
+     * @param elements
+     *            The elements to serialize
+     */
+    protected static void renderJSON(Stream<?> elements) {
+        throw new RenderJson(elements);
+    }
+
     /**
      * Send a 304 Not Modified response
      */
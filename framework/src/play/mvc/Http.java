@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -14,9 +15,13 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.ChannelHandlerContext;
 
 import com.google.gson.Gson;
@@ -896,6 +901,14 @@ public class Http {
             }
         }
 
+        /**
+         * @return true if the HTTP server can stream this response with
+         *         writeChunk
+         */
+        public boolean isChunkedStreamSupported() {
+            return !writeChunkHandlers.isEmpty();
+        }
+
         public void onWriteChunk(F.Action<Object> handler) {
             writeChunkHandlers.add(handler);
         }
@@ -965,6 +978,60 @@ public class Http {
         public void sendJson(Object o) {
             send(new Gson().toJson(o));
         }
+
+        /**
+         * Send a frame that has already been encoded, typically shared by many
+         * outbounds through {@link WebSocketHub}. The default implementation
+         * falls back to the plain send methods.
+         *
+         * @param frame
+         *            The encoded frame
+         * @return A promise redeemed once the frame has been written
+         */
+        public Promise<Void> send(EncodedWebSocketFrame frame) {
+            if (frame.isBinary) {
+                byte[] data = frame.bytes();
+                send((byte) 0x2, data, 0, data.length);
+            } else {
+                send(frame.text());
+            }
+            Promise<Void> written = new Promise<>();
+            written.invoke(null);
+            return written;
+        }
+
+        /**
+         * @return true if more frames can be written without queueing them
+         */
+        public boolean isWritable() {
+            return isOpen();
+        }
+
+        private final Queue<Runnable> writableCallbacks = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Run a callback once, when the outbound is writable again, whatever
+         * filled it. It runs right away if the outbound is already writable,
+         * or closed.
+         *
+         * @param callback
+         *            The callback
+         */
+        public void onWritable(Runnable callback) {
+            writableCallbacks.add(callback);
+            writabilityChanged();
+        }
+
+        /**
+         * Called by the server when the outbound may have become writable, to
+         * run the callbacks registered with {@link #onWritable}
+         */
+        public void writabilityChanged() {
+            Runnable callback;
+            while ((isWritable() || !isOpen()) && (callback = writableCallbacks.poll()) != null) {
+                callback.run();
+            }
+        }
     }
 
     public static class WebSocketEvent {
@@ -1031,4 +1098,48 @@ public class Http {
 
     public static class WebSocketClose extends WebSocketEvent {
     }
+
+    /**
+     * A Websocket frame whose payload is encoded once into a read-only buffer,
+     * so that it can be written to any number of outbounds without copying
+     */
+    public static class EncodedWebSocketFrame {
+
+        public final boolean isBinary;
+        final ChannelBuffer payload;
+
+        private EncodedWebSocketFrame(boolean isBinary, ChannelBuffer payload) {
+            this.isBinary = isBinary;
+            this.payload = ChannelBuffers.unmodifiableBuffer(payload);
+        }
+
+        public static EncodedWebSocketFrame text(String data) {
+            return new EncodedWebSocketFrame(false, ChannelBuffers.copiedBuffer(data, StandardCharsets.UTF_8));
+        }
+
+        public static EncodedWebSocketFrame binary(byte[] data) {
+            return new EncodedWebSocketFrame(true, ChannelBuffers.wrappedBuffer(data));
+        }
+
+        /**
+         * @return A view of the shared payload with its own reader index
+         */
+        public ChannelBuffer payload() {
+            return payload.duplicate();
+        }
+
+        public int length() {
+            return payload.readableBytes();
+        }
+
+        public String text() {
+            return payload.toString(StandardCharsets.UTF_8);
+        }
+
+        public byte[] bytes() {
+            byte[] data = new byte[payload.readableBytes()];
+            payload.getBytes(payload.readerIndex(), data);
+            return data;
+        }
+    }
 }
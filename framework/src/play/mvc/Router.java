@@ -13,6 +13,7 @@ import play.mvc.results.RenderStatic;
 import play.templates.TemplateLoader;
 import play.utils.Default;
 import play.utils.Utils;
+import play.vfs.FileWatcher;
 import play.vfs.VirtualFile;
 
 import java.io.File;
@@ -39,6 +40,11 @@ public class Router {
      */
     public static long lastLoading = -1;
 
+    /**
+     * The changes of the routes files, or null if they are polled
+     */
+    private static volatile FileWatcher.Changes routesChanges;
+
     /**
      * Parse the routes file. This is called at startup.
      *
@@ -47,6 +53,17 @@ public class Router {
      *            a '/' character.
      */
     public static void load(String prefix) {
+        routesChanges = null;
+        if (FileWatcher.get() != null) {
+            List<VirtualFile> files = new ArrayList<>(Play.modulesRoutes.values());
+            files.add(Play.routes);
+            FileWatcher.Changes changes = FileWatcher.changes("routes", files);
+            if (changes != null) {
+                // Loading now
+                changes.takeModified();
+            }
+            routesChanges = changes;
+        }
         routes.clear();
         actionRoutesCache.clear();
         parse(Play.routes, prefix);
@@ -326,6 +343,13 @@ public class Router {
         if (Play.mode == Mode.PROD && lastLoading > 0) {
             return;
         }
+        FileWatcher.Changes changes = routesChanges;
+        if (lastLoading > 0 && changes != null && !changes.hasChanges()) {
+            return;
+        }
+        if (changes != null) {
+            changes.takeModified();
+        }
         if (Play.routes.lastModified() > lastLoading) {
             load(prefix);
         } else {
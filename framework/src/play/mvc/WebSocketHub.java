@@ -0,0 +1,263 @@
+package play.mvc;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.Gson;
+
+import play.Logger;
+import play.Play;
+import play.mvc.Http.EncodedWebSocketFrame;
+import play.mvc.Http.Outbound;
+
+/**
+ * Named broadcast channels for websockets.
+ *
+ * A message broadcast to a channel is encoded only once and the same read-only
+ * buffer is written to every subscribed outbound. Each subscriber has its own
+ * bounded queue; when a client cannot keep up, the configured
+ * {@link SlowConsumerPolicy} is applied.
+ *
+ * <pre>
+ * public static void dashboard() {
+ *     WebSocketHub.channel("dashboard").subscribe(outbound);
+ *     ...
+ * }
+ *
+ * WebSocketHub.channel("dashboard").broadcastJson(stats);
+ * </pre>
+ *
+ * Configuration:
+ * <ul>
+ * <li>play.websocket.broadcast.queueSize: max frames queued per subscriber
+ * (default 128)</li>
+ * <li>play.websocket.broadcast.slowConsumer: dropOldest, dropNewest or close
+ * (default dropOldest)</li>
+ * </ul>
+ */
+public class WebSocketHub {
+
+    private static final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<>();
+    private static final Gson gson = new Gson();
+
+    public enum SlowConsumerPolicy {
+        /**
+         * Discard the oldest queued frame to make room for the new one
+         */
+        DROP_OLDEST,
+        /**
+         * Discard the new frame
+         */
+        DROP_NEWEST,
+        /**
+         * Close the outbound and unsubscribe it
+         */
+        CLOSE;
+
+        public static SlowConsumerPolicy parse(String value) {
+            if ("dropNewest".equalsIgnoreCase(value) || "drop_newest".equalsIgnoreCase(value)) {
+                return DROP_NEWEST;
+            }
+            if ("close".equalsIgnoreCase(value)) {
+                return CLOSE;
+            }
+            return DROP_OLDEST;
+        }
+    }
+
+    /**
+     * Get (or create) a channel with the configured queue size and slow
+     * consumer policy
+     *
+     * @param name
+     *            The channel name
+     * @return The channel
+     */
+    public static Channel channel(String name) {
+        Channel channel = channels.get(name);
+        if (channel == null) {
+            int queueSize = Integer.parseInt(Play.configuration.getProperty("play.websocket.broadcast.queueSize", "128"));
+            SlowConsumerPolicy policy = SlowConsumerPolicy.parse(Play.configuration.getProperty("play.websocket.broadcast.slowConsumer"));
+            channel = channel(name, queueSize, policy);
+        }
+        return channel;
+    }
+
+    /**
+     * Get (or create) a channel with a specific queue size and slow consumer
+     * policy. If the channel already exists it is returned unchanged.
+     *
+     * @param name
+     *            The channel name
+     * @param queueSize
+     *            Max frames queued per subscriber
+     * @param policy
+     *            What to do when a subscriber queue is full
+     * @return The channel
+     */
+    public static Channel channel(String name, int queueSize, SlowConsumerPolicy policy) {
+        Channel channel = channels.get(name);
+        if (channel == null) {
+            Channel created = new Channel(name, queueSize, policy);
+            channel = channels.putIfAbsent(name, created);
+            if (channel == null) {
+                channel = created;
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * Remove a channel and drop all its subscribers (without closing them)
+     *
+     * @param name
+     *            The channel name
+     */
+    public static void remove(String name) {
+        Channel channel = channels.remove(name);
+        if (channel != null) {
+            channel.subscribers.clear();
+        }
+    }
+
+    public static class Channel {
+
+        public final String name;
+        final int queueSize;
+        final SlowConsumerPolicy policy;
+        final ConcurrentMap<Outbound, Subscriber> subscribers = new ConcurrentHashMap<>();
+        final AtomicLong dropped = new AtomicLong();
+
+        Channel(String name, int queueSize, SlowConsumerPolicy policy) {
+            this.name = name;
+            this.queueSize = queueSize;
+            this.policy = policy;
+        }
+
+        public void subscribe(Outbound outbound) {
+            subscribers.putIfAbsent(outbound, new Subscriber(this, outbound));
+        }
+
+        public void unsubscribe(Outbound outbound) {
+            subscribers.remove(outbound);
+        }
+
+        public int size() {
+            return subscribers.size();
+        }
+
+        public Collection<Outbound> subscribers() {
+            return Collections.unmodifiableSet(subscribers.keySet());
+        }
+
+        /**
+         * @return Number of frames discarded because of slow consumers
+         */
+        public long dropped() {
+            return dropped.get();
+        }
+
+        public void broadcast(String data) {
+            broadcast(EncodedWebSocketFrame.text(data));
+        }
+
+        public void broadcast(byte[] data) {
+            broadcast(EncodedWebSocketFrame.binary(data));
+        }
+
+        public void broadcast(String pattern, Object... args) {
+            broadcast(String.format(pattern, args));
+        }
+
+        public void broadcastJson(Object o) {
+            broadcast(gson.toJson(o));
+        }
+
+        public void broadcast(EncodedWebSocketFrame frame) {
+            for (Subscriber subscriber : subscribers.values()) {
+                if (!subscriber.outbound.isOpen()) {
+                    unsubscribe(subscriber.outbound);
+                    continue;
+                }
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    static class Subscriber {
+
+        final Channel channel;
+        final Outbound outbound;
+        final ArrayBlockingQueue<EncodedWebSocketFrame> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean waiting = new AtomicBoolean();
+        final Runnable writable = new Runnable() {
+
+            @Override
+            public void run() {
+                waiting.set(false);
+                drain();
+            }
+        };
+
+        Subscriber(Channel channel, Outbound outbound) {
+            this.channel = channel;
+            this.outbound = outbound;
+            this.queue = new ArrayBlockingQueue<>(channel.queueSize);
+        }
+
+        void offer(EncodedWebSocketFrame frame) {
+            while (!queue.offer(frame)) {
+                channel.dropped.incrementAndGet();
+                switch (channel.policy) {
+                case DROP_NEWEST:
+                    return;
+                case CLOSE:
+                    Logger.debug("Closing slow websocket consumer on channel %s", channel.name);
+                    channel.unsubscribe(outbound);
+                    queue.clear();
+                    outbound.close();
+                    return;
+                default:
+                    queue.poll();
+                }
+            }
+            drain();
+        }
+
+        void drain() {
+            // Only one thread writes for a given subscriber, so frames keep
+            // their broadcast order
+            while (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                try {
+                    EncodedWebSocketFrame frame;
+                    while (outbound.isWritable() && (frame = queue.poll()) != null) {
+                        outbound.send(frame);
+                    }
+                } catch (IllegalStateException e) {
+                    // The outbound has been closed under our feet
+                } finally {
+                    draining.set(false);
+                }
+                if (!outbound.isOpen()) {
+                    channel.unsubscribe(outbound);
+                    queue.clear();
+                    return;
+                }
+                if (!outbound.isWritable()) {
+                    // Drained again once the channel is writable, whether it
+                    // was filled by the hub or by other writes
+                    if (waiting.compareAndSet(false, true)) {
+                        outbound.onWritable(writable);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -3,55 +3,116 @@ package play.mvc.results;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
+import play.classloading.ApplicationClassloaderCache;
 import play.exceptions.UnexpectedException;
 import play.mvc.Http.Request;
 import play.mvc.Http.Response;
 
 /**
  * 200 OK with application/json
+ *
+ * Objects are serialized when the result is created, so that interceptors
+ * and exception handlers see the same JSON as the action. Iterators and
+ * streams are written as a JSON array one element at a time when the result
+ * is applied; the server then reads them as the connection accepts more data.
  */
 public class RenderJson extends Result {
 
     private static final Gson GSON = new Gson();
-    
-    private final String json;
+
+    /**
+     * Size of the chunks read when streaming an array
+     */
+    static final int CHUNK_SIZE = 8192;
+
+    /**
+     * Gson by serializer classes
+     */
+    private static final ApplicationClassloaderCache<List<Class<?>>, Gson> gsons = new ApplicationClassloaderCache<>();
+
+    private String json;
     private final Object response;
+    private final transient Gson gson;
+    private transient Iterator<?> elements;
+    private transient AutoCloseable source;
 
     public RenderJson(Object response) {
-        this.response = response;
-        json = GSON.toJson(response);
+        this(response, (Gson) null);
     }
 
     public RenderJson(Object response, Type type) {
         this.response = response;
+        this.gson = GSON;
         json = GSON.toJson(response, type);
     }
 
     public RenderJson(Object response, JsonSerializer<?>... adapters) {
         this.response = response;
-        GsonBuilder gson = new GsonBuilder();
-        for (Object adapter : adapters) {
-            Type t = getMethod(adapter.getClass(), "serialize").getParameterTypes()[0];
-            gson.registerTypeAdapter(t, adapter);
-        }
-        json = gson.create().toJson(response);
+        this.gson = gsonFor(adapters);
+        json = gson.toJson(response);
     }
 
     public RenderJson(String jsonString) {
         json = jsonString;
         this.response = null;
+        this.gson = GSON;
     }
 
     public RenderJson(Object response, Gson gson) {
         this.response = response;
-        if (gson != null) {
-            json = gson.toJson(response);
-        } else {
-            json = GSON.toJson(response);
-        }
+        this.gson = gson != null ? gson : GSON;
+        json = this.gson.toJson(response);
+    }
+
+    /**
+     * Write the elements as a JSON array, without loading them all in memory.
+     * The elements are serialized when the response is written, after the
+     * interceptors, and the iterator is closed at the end if it is
+     * {@link AutoCloseable}, like JPAScroll or JdbcIterator.
+     *
+     * @param elements
+     *            The elements to serialize
+     */
+    public RenderJson(Iterator<?> elements) {
+        this(elements, (Gson) null);
+    }
+
+    public RenderJson(Iterator<?> elements, Gson gson) {
+        this.response = null;
+        this.gson = gson != null ? gson : GSON;
+        this.elements = elements;
+        this.source = elements instanceof AutoCloseable ? (AutoCloseable) elements : null;
+    }
+
+    /**
+     * Write the elements as a JSON array, then close the stream
+     *
+     * @param elements
+     *            The elements to serialize
+     */
+    public RenderJson(Stream<?> elements) {
+        this(elements, (Gson) null);
+    }
+
+    public RenderJson(Stream<?> elements, Gson gson) {
+        this(elements.iterator(), gson);
+        this.source = elements;
     }
 
     @Override
@@ -59,13 +120,75 @@ public class RenderJson extends Result {
         try {
             String encoding = getEncoding();
             setContentTypeIfNotSet(response, "application/json; charset=" + encoding);
-            response.out.write(json.getBytes(encoding));
+            if (json != null) {
+                response.out.write(json.getBytes(encoding));
+            } else if (response.isChunkedStreamSupported()) {
+                // Pulled by the server when the client is ready for more
+                response.direct = new ArrayInputStream(encoding);
+            } else {
+                try {
+                    JsonWriter jsonWriter = gson.newJsonWriter(new OutputStreamWriter(response.out, encoding));
+                    jsonWriter.beginArray();
+                    while (elements.hasNext()) {
+                        writeElement(jsonWriter);
+                    }
+                    jsonWriter.endArray();
+                    jsonWriter.flush();
+                } finally {
+                    closeSource();
+                }
+            }
         } catch (Exception e) {
             throw new UnexpectedException(e);
         }
     }
 
+    private void writeElement(JsonWriter jsonWriter) throws IOException {
+        Object element = elements.next();
+        if (element == null) {
+            jsonWriter.nullValue();
+        } else {
+            gson.toJson(element, element.getClass(), jsonWriter);
+        }
+    }
+
+    private void closeSource() {
+        elements = null;
+        if (source != null) {
+            try {
+                source.close();
+            } catch (Exception e) {
+                throw new UnexpectedException(e);
+            } finally {
+                source = null;
+            }
+        }
+    }
+
+    /**
+     * Serialize the whole response in memory. The string is kept, so that the
+     * result can be cached and applied again.
+     *
+     * @return The JSON string
+     */
     public String getJson() {
+        if (json == null) {
+            StringWriter writer = new StringWriter();
+            try {
+                JsonWriter jsonWriter = gson.newJsonWriter(writer);
+                jsonWriter.beginArray();
+                while (elements.hasNext()) {
+                    writeElement(jsonWriter);
+                }
+                jsonWriter.endArray();
+                jsonWriter.flush();
+            } catch (IOException e) {
+                throw new UnexpectedException(e);
+            } finally {
+                closeSource();
+            }
+            json = writer.toString();
+        }
         return json;
     }
 
@@ -73,6 +196,46 @@ public class RenderJson extends Result {
         return response;
     }
 
+    /**
+     * Gson configured with these serializers. It is shared as long as the
+     * serializers hold no state, since only their classes are compared.
+     */
+    static Gson gsonFor(JsonSerializer<?>... adapters) {
+        List<Class<?>> key = new ArrayList<>(adapters.length);
+        for (JsonSerializer<?> adapter : adapters) {
+            if (!isStateless(adapter.getClass())) {
+                return createGson(adapters);
+            }
+            key.add(adapter.getClass());
+        }
+        Gson gson = gsons.get(key);
+        if (gson == null) {
+            gson = createGson(adapters);
+            gsons.put(key, gson);
+        }
+        return gson;
+    }
+
+    private static Gson createGson(JsonSerializer<?>... adapters) {
+        GsonBuilder gson = new GsonBuilder();
+        for (Object adapter : adapters) {
+            Type t = getMethod(adapter.getClass(), "serialize").getParameterTypes()[0];
+            gson.registerTypeAdapter(t, adapter);
+        }
+        return gson.create();
+    }
+
+    private static boolean isStateless(Class<?> clazz) {
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     private static Method getMethod(Class clazz, String methodName) {
         Method bestMatch = null;
         for (Method m : clazz.getDeclaredMethods()) {
@@ -84,4 +247,77 @@ public class RenderJson extends Result {
         }
         return bestMatch;
     }
+
+    /**
+     * The JSON array, serialized about CHUNK_SIZE bytes at a time as it is
+     * read. The source is closed with the stream.
+     */
+    class ArrayInputStream extends InputStream {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(CHUNK_SIZE * 2);
+        private final JsonWriter jsonWriter;
+        private byte[] chunk = new byte[0];
+        private int position;
+        private boolean started;
+        private boolean finished;
+
+        ArrayInputStream(String encoding) throws IOException {
+            jsonWriter = gson.newJsonWriter(new OutputStreamWriter(buffer, encoding));
+        }
+
+        private boolean fill() throws IOException {
+            while (position == chunk.length && !finished) {
+                if (!started) {
+                    jsonWriter.beginArray();
+                    started = true;
+                }
+                while (elements.hasNext() && buffer.size() < CHUNK_SIZE) {
+                    writeElement(jsonWriter);
+                    jsonWriter.flush();
+                }
+                if (!elements.hasNext()) {
+                    jsonWriter.endArray();
+                    jsonWriter.flush();
+                    finished = true;
+                    closeSource();
+                }
+                chunk = buffer.toByteArray();
+                buffer.reset();
+                position = 0;
+            }
+            return position < chunk.length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? chunk[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int read = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return chunk.length - position;
+        }
+
+        @Override
+        public void close() {
+            if (!finished) {
+                finished = true;
+                closeSource();
+            }
+        }
+    }
 }
@@ -4,15 +4,23 @@ import play.exceptions.UnexpectedException;
 import play.libs.MimeTypes;
 import play.mvc.Http.Request;
 import play.mvc.Http.Response;
+import play.server.AccessLog;
 import play.templates.Template;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 200 OK with a template rendering
  */
 public class RenderTemplate extends Result {
 
+    /**
+     * The key of the time spent rendering the templates of a request in its
+     * args, in nanoseconds, when the request is in the access log
+     */
+    public static final String RENDER_TIME = "__RENDER_TIME";
+
     private final String name;
     private final String content;
     private final Map<String, Object> arguments;
@@ -24,9 +32,14 @@ public class RenderTemplate extends Result {
         }
         this.name = template.name;
         this.arguments = arguments;
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         this.content = template.render(arguments);
-        this.renderTime = System.currentTimeMillis() - start;
+        long time = System.nanoTime() - start;
+        this.renderTime = TimeUnit.NANOSECONDS.toMillis(time);
+        Request request = Request.current();
+        if (AccessLog.entry(request) != null) {
+            request.args.merge(RENDER_TIME, time, (previous, added) -> (Long) previous + (Long) added);
+        }
     }
 
     @Override
@@ -1,5 +1,7 @@
 package play.plugins;
 
+import com.jamonapi.MonitorFactory;
+
 import play.Logger;
 import play.PlayPlugin;
 import play.classloading.ApplicationClasses.ApplicationClass;
@@ -22,9 +24,11 @@ public class EnhancerPlugin extends PlayPlugin {
             try {
                 long start = System.currentTimeMillis();
                 enhancer.enhanceThisClass(applicationClass);
+                long time = System.currentTimeMillis() - start;
+                // Shown with the other monitors in /@status, to see which enhancer dominates the startup
+                MonitorFactory.add(enhancer.getClass().getSimpleName() + ".enhanceThisClass()", "ms.", time);
                 if (Logger.isTraceEnabled()) {
-                    Logger.trace("%sms to apply %s to %s", System.currentTimeMillis() - start, enhancer.getClass().getSimpleName(),
-                            applicationClass.name);
+                    Logger.trace("%sms to apply %s to %s", time, enhancer.getClass().getSimpleName(), applicationClass.name);
                 }
             } catch (Exception e) {
                 throw new UnexpectedException("While applying " + enhancer + " on " + applicationClass.name, e);
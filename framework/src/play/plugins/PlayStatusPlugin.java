@@ -7,11 +7,14 @@ import com.jamonapi.Monitor;
 import com.jamonapi.MonitorFactory;
 import com.jamonapi.utils.Misc;
 import org.apache.commons.lang.StringUtils;
+import play.AsyncLogger;
 import play.Invoker;
 import play.Logger;
 import play.Play;
 import play.Play.Mode;
 import play.PlayPlugin;
+import play.Trace;
+import play.Tracer;
 import play.mvc.Http.Header;
 import play.mvc.Http.Request;
 import play.mvc.Http.Response;
@@ -64,12 +67,35 @@ public class PlayStatusPlugin extends PlayPlugin {
         return dump.toString();
     }
 
+    /**
+     * Get the slow invocations
+     *
+     * @param json
+     *            true if the spans should be returned in the Zipkin v2 JSON format
+     * @return the traces of the slow invocations, the last one first
+     */
+    public String computeTraces(boolean json) {
+        Tracer tracer = Tracer.get();
+        if (tracer == null) {
+            return json ? "[]" : "Tracing is disabled (play.trace=false)\n";
+        }
+        List<Trace> traces = tracer.traces();
+        if (json) {
+            return tracer.toZipkin(traces).toString();
+        }
+        return String.format("%d slow invocations (over %d ms), the last %d:%n%n", tracer.slow(), tracer.threshold() / 1000000,
+                traces.size()) + tracer.toText(traces);
+    }
+
     /**
      * Intercept /@status and check that the Authorization header is valid. Then ask each plugin for a status dump and
      * send it over the HTTP response.
      *
      * You can ask the /@status using the authorization header and putting your status secret key in it. Prior to that
      * you would be required to start play with a -DstatusKey=yourkey
+     *
+     * /@traces shows the slow invocations kept by the {@link Tracer}, with the same authorization, and /@traces.json
+     * their spans in the Zipkin v2 format.
      */
     @Override
     public boolean rawInvocation(Request request, Response response) throws Exception {
@@ -81,7 +107,8 @@ public class PlayStatusPlugin extends PlayPlugin {
                 Logger.error("Cannot execute @kill since Play is not running as standalone server");
             }
         }
-        if (request.path.equals("/@status") || request.path.equals("/@status.json")) {
+        boolean traces = request.path.equals("/@traces") || request.path.equals("/@traces.json");
+        if (request.path.equals("/@status") || request.path.equals("/@status.json") || traces) {
             if (!Play.started) {
                 response.print("Application is not started");
                 response.status = 503;
@@ -91,7 +118,7 @@ public class PlayStatusPlugin extends PlayPlugin {
             Header authorization = request.headers.get("authorization");
             String statusKey = Play.configuration.getProperty("application.statusKey", System.getProperty("statusKey"));
             if (authorization != null && statusKey != null && statusKey.equals(authorization.value())) {
-                response.print(computeApplicationStatus(request.path.contains(".json")));
+                response.print(traces ? computeTraces(request.path.contains(".json")) : computeApplicationStatus(request.path.contains(".json")));
                 response.status = 200;
                 return true;
             }
@@ -165,6 +192,24 @@ public class PlayStatusPlugin extends PlayPlugin {
         out.println("Scheduled task count: " + Invoker.executor.getTaskCount());
         out.println("Queue size: " + Invoker.executor.getQueue().size());
         out.println();
+        AsyncLogger logger = AsyncLogger.get();
+        if (logger != null) {
+            out.println("Async logger:");
+            out.println("~~~~~~~~~~~~~");
+            out.println("Queue size: " + logger.size() + "/" + logger.capacity());
+            out.println("Written: " + logger.written());
+            out.println("Dropped: " + logger.dropped());
+            out.println("Blocked: " + logger.blocked());
+            out.println();
+        }
+        Tracer tracer = Tracer.get();
+        if (tracer != null) {
+            out.println("Tracer:");
+            out.println("~~~~~~~");
+            out.println("Slow invocations: " + tracer.slow() + " (see /@traces)");
+            out.println("Traces not exported: " + tracer.dropped());
+            out.println();
+        }
         try {
             out.println("Monitors:");
             out.println("~~~~~~~~");
@@ -222,6 +267,26 @@ public class PlayStatusPlugin extends PlayPlugin {
             status.add("pool", pool);
         }
 
+        AsyncLogger logger = AsyncLogger.get();
+        if (logger != null) {
+            JsonObject log = new JsonObject();
+            log.addProperty("queue", logger.size());
+            log.addProperty("capacity", logger.capacity());
+            log.addProperty("written", logger.written());
+            log.addProperty("dropped", logger.dropped());
+            log.addProperty("blocked", logger.blocked());
+            status.add("logger", log);
+        }
+
+        Tracer tracer = Tracer.get();
+        if (tracer != null) {
+            JsonObject trace = new JsonObject();
+            trace.addProperty("slow", tracer.slow());
+            trace.addProperty("threshold", tracer.threshold() / 1000000);
+            trace.addProperty("dropped", tracer.dropped());
+            status.add("tracer", trace);
+        }
+
         {
             JsonArray monitors = new JsonArray();
             try {
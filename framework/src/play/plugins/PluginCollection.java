@@ -9,6 +9,9 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.net.URL;
 import java.util.*;
+import java.util.function.Predicate;
+
+import com.jamonapi.MonitorFactory;
 
 import play.Logger;
 import play.Play;
@@ -57,7 +60,7 @@ public class PluginCollection {
      * Readonly copy of allPlugins - updated each time allPlugins is updated. Using this cached copy so we don't have to
      * create it all the time..
      */
-    protected List<PlayPlugin> allPlugins_readOnlyCopy = createReadonlyCopy(allPlugins);
+    protected volatile List<PlayPlugin> allPlugins_readOnlyCopy = createReadonlyCopy(allPlugins);
 
     /**
      * List of all enabled plugins
@@ -68,7 +71,7 @@ public class PluginCollection {
      * Readonly copy of enabledPlugins - updated each time enabledPlugins is updated. Using this cached copy so we don't
      * have to create it all the time
      */
-    protected List<PlayPlugin> enabledPlugins_readOnlyCopy = createReadonlyCopy(enabledPlugins);
+    protected volatile List<PlayPlugin> enabledPlugins_readOnlyCopy = createReadonlyCopy(enabledPlugins);
 
     /**
      * List of all enabled plugins with filters
@@ -79,7 +82,131 @@ public class PluginCollection {
      * Readonly copy of enabledPluginsWithFilters - updated each time enabledPluginsWithFilters is updated. Using this
      * cached copy so we don't have to create it all the time
      */
-    protected List<PlayPlugin> enabledPluginsWithFilters_readOnlyCopy = createReadonlyCopy(enabledPluginsWithFilters);
+    protected volatile List<PlayPlugin> enabledPluginsWithFilters_readOnlyCopy = createReadonlyCopy(enabledPluginsWithFilters);
+
+    /**
+     * The enabled plugins implementing each hook, and the composed filters - updated each time the enabled plugins
+     * change
+     */
+    volatile Hooks hooks = new Hooks(Collections.<PlayPlugin> emptyList(), Collections.<PlayPlugin> emptyList());
+
+    /**
+     * For each hook called on every invocation, the enabled plugins that override it, in order. Most plugins keep the
+     * empty implementation of PlayPlugin for most hooks, and are not called at all.
+     */
+    static class Hooks {
+
+        final PlayPlugin[] beforeInvocation;
+        final PlayPlugin[] afterInvocation;
+        final PlayPlugin[] onInvocationSuccess;
+        final PlayPlugin[] onInvocationException;
+        final PlayPlugin[] invocationFinally;
+        final PlayPlugin[] beforeActionInvocation;
+        final PlayPlugin[] onActionInvocationResult;
+        final PlayPlugin[] afterActionInvocation;
+        final PlayPlugin[] onActionInvocationFinally;
+        final PlayPlugin[] routeRequest;
+        final PlayPlugin[] onRequestRouting;
+        final PlayPlugin[] rawInvocation;
+        final PlayPlugin[] serveStatic;
+        final PlayPlugin[] beforeDetectingChanges;
+        final PlayPlugin[] detectChange;
+        final PlayPlugin[] detectClassesChange;
+        final PlayPlugin[] bind;
+        final PlayPlugin[] bindBean;
+        final PlayPlugin[] unBind;
+        final PlayPlugin[] willBeValidated;
+        final PlayPlugin[] modelFactory;
+        final PlayPlugin[] getMessage;
+        final PlayPlugin[] loadTemplate;
+        final PlayPlugin[] overrideTemplateSource;
+        final PlayPlugin[] onEvent;
+        final F.Option<PlayPlugin.Filter> filters;
+
+        Hooks(List<PlayPlugin> plugins, List<PlayPlugin> pluginsWithFilters) {
+            beforeInvocation = implementing(plugins, "beforeInvocation");
+            afterInvocation = implementing(plugins, "afterInvocation");
+            onInvocationSuccess = implementing(plugins, "onInvocationSuccess");
+            onInvocationException = implementing(plugins, "onInvocationException", Throwable.class);
+            invocationFinally = implementing(plugins, "invocationFinally");
+            beforeActionInvocation = implementing(plugins, "beforeActionInvocation", Method.class);
+            onActionInvocationResult = implementing(plugins, "onActionInvocationResult", Result.class);
+            afterActionInvocation = implementing(plugins, "afterActionInvocation");
+            onActionInvocationFinally = implementing(plugins, "onActionInvocationFinally");
+            routeRequest = implementing(plugins, "routeRequest", Http.Request.class);
+            onRequestRouting = implementing(plugins, "onRequestRouting", Router.Route.class);
+            rawInvocation = implementing(plugins, "rawInvocation", Http.Request.class, Http.Response.class);
+            serveStatic = implementing(plugins, "serveStatic", VirtualFile.class, Http.Request.class, Http.Response.class);
+            beforeDetectingChanges = implementing(plugins, "beforeDetectingChanges");
+            detectChange = implementing(plugins, "detectChange");
+            detectClassesChange = implementing(plugins, "detectClassesChange");
+            // The default implementations of bind and bindBean call the deprecated bind methods
+            bind = implementing(plugins, c -> overrides(c, "bind", RootParamNode.class, String.class, Class.class, Type.class, Annotation[].class)
+                    || overrides(c, "bind", String.class, Class.class, Type.class, Annotation[].class, Map.class));
+            bindBean = implementing(plugins, c -> overrides(c, "bindBean", RootParamNode.class, String.class, Object.class)
+                    || overrides(c, "bind", String.class, Object.class, Map.class));
+            unBind = implementing(plugins, "unBind", Object.class, String.class);
+            willBeValidated = implementing(plugins, "willBeValidated", Object.class);
+            modelFactory = implementing(plugins, "modelFactory", Class.class);
+            getMessage = implementing(plugins, "getMessage", String.class, Object.class, Object[].class);
+            loadTemplate = implementing(plugins, "loadTemplate", VirtualFile.class);
+            overrideTemplateSource = implementing(plugins, "overrideTemplateSource", BaseTemplate.class, String.class);
+            onEvent = implementing(plugins, "onEvent", String.class, Object.class);
+            filters = compose(pluginsWithFilters);
+        }
+
+        private static PlayPlugin[] implementing(List<PlayPlugin> plugins, String hook, Class<?>... parameterTypes) {
+            return implementing(plugins, c -> overrides(c, hook, parameterTypes));
+        }
+
+        private static PlayPlugin[] implementing(List<PlayPlugin> plugins, Predicate<Class<?>> overridden) {
+            List<PlayPlugin> implementing = new ArrayList<>();
+            for (PlayPlugin plugin : plugins) {
+                if (overridden.test(plugin.getClass())) {
+                    implementing.add(plugin);
+                }
+            }
+            return implementing.toArray(new PlayPlugin[implementing.size()]);
+        }
+
+        /**
+         * @return true if this plugin class, or one of its super classes below PlayPlugin, declares the hook
+         */
+        static boolean overrides(Class<?> pluginClass, String hook, Class<?>... parameterTypes) {
+            for (Class<?> c = pluginClass; c != null && c != PlayPlugin.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod(hook, parameterTypes);
+                    return true;
+                } catch (NoSuchMethodException e) {
+                    // Look in the super class
+                } catch (SecurityException | NoClassDefFoundError e) {
+                    // Cannot tell, so it is called
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static F.Option<PlayPlugin.Filter> compose(List<PlayPlugin> pluginsWithFilters) {
+            if (pluginsWithFilters.isEmpty()) {
+                return F.Option.None();
+            }
+            Iterator<PlayPlugin> itr = pluginsWithFilters.iterator();
+            PlayPlugin.Filter ret = itr.next().getFilter();
+            while (itr.hasNext()) {
+                ret = ret.decorate(itr.next().getFilter());
+            }
+            return F.Option.Some(ret);
+        }
+    }
+
+    /**
+     * Compute the hooks of the enabled plugins again
+     */
+    protected void updateHooks() {
+        hooks = new Hooks(enabledPlugins_readOnlyCopy, enabledPluginsWithFilters_readOnlyCopy);
+    }
 
     /**
      * Using readonly list to crash if someone tries to modify the copy.
@@ -317,6 +444,7 @@ public class PluginCollection {
                 Collections.sort(enabledPluginsWithFilters);
                 enabledPluginsWithFilters_readOnlyCopy = createReadonlyCopy(enabledPluginsWithFilters);
             }
+            updateHooks();
         }
 
     }
@@ -342,6 +470,7 @@ public class PluginCollection {
                     Collections.sort(enabledPluginsWithFilters);
                     enabledPluginsWithFilters_readOnlyCopy = createReadonlyCopy(enabledPluginsWithFilters);
                 }
+                updateHooks();
 
                 updatePlayPluginsList();
                 Logger.trace("Plugin " + plugin + " enabled");
@@ -371,7 +500,7 @@ public class PluginCollection {
      *            The plugin class
      * @return PlayPlugin
      */
-    public synchronized <T extends PlayPlugin> T getPluginInstance(Class<T> pluginClazz) {
+    public <T extends PlayPlugin> T getPluginInstance(Class<T> pluginClazz) {
         for (PlayPlugin p : getAllPlugins()) {
             if (pluginClazz.isInstance(p)) {
                 return (T) p;
@@ -396,6 +525,7 @@ public class PluginCollection {
             if (enabledPluginsWithFilters.remove(plugin)) {
                 enabledPluginsWithFilters_readOnlyCopy = createReadonlyCopy(enabledPluginsWithFilters);
             }
+            updateHooks();
 
             updatePlayPluginsList();
             Logger.trace("Plugin " + plugin + " disabled");
@@ -442,23 +572,16 @@ public class PluginCollection {
         return enabledPluginsWithFilters_readOnlyCopy;
     }
 
+    /**
+     * The filters of the enabled plugins, composed in order. The composition is done once each time the enabled
+     * plugins change.
+     * 
+     * @return The composed filter, if a plugin defines one
+     */
     @SuppressWarnings("unchecked")
     public <T> F.Option<PlayPlugin.Filter<T>> composeFilters() {
-        // Copy list of plugins here in case the list changes in the midst of
-        // doing composition...
-        // (Is it really necessary to do this?)
-        List<PlayPlugin> pluginsWithFilters = new ArrayList<>(this.getEnabledPluginsWithFilters());
-
-        if (pluginsWithFilters.isEmpty()) {
-            return F.Option.None();
-        } else {
-            Iterator<PlayPlugin> itr = pluginsWithFilters.iterator();
-            PlayPlugin.Filter<T> ret = itr.next().getFilter();
-            while (itr.hasNext()) {
-                ret = ret.<T> decorate(itr.next().getFilter());
-            }
-            return F.Option.Some(ret);
-        }
+        F.Option filters = hooks.filters;
+        return filters;
     }
 
     /**
@@ -529,7 +652,7 @@ public class PluginCollection {
     }
 
     public boolean detectClassesChange() {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.detectClassesChange) {
             if (plugin.detectClassesChange()) {
                 return true;
             }
@@ -538,31 +661,31 @@ public class PluginCollection {
     }
 
     public void invocationFinally() {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.invocationFinally) {
             plugin.invocationFinally();
         }
     }
 
     public void beforeInvocation() {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.beforeInvocation) {
             plugin.beforeInvocation();
         }
     }
 
     public void afterInvocation() {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.afterInvocation) {
             plugin.afterInvocation();
         }
     }
 
     public void onInvocationSuccess() {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.onInvocationSuccess) {
             plugin.onInvocationSuccess();
         }
     }
 
     public void onInvocationException(Throwable e) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.onInvocationException) {
             try {
                 plugin.onInvocationException(e);
             } catch (Throwable ex) {
@@ -572,17 +695,41 @@ public class PluginCollection {
     }
 
     public void beforeDetectingChanges() {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.beforeDetectingChanges) {
             plugin.beforeDetectingChanges();
         }
     }
 
     public void detectChange() {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.detectChange) {
             plugin.detectChange();
         }
     }
 
+    /**
+     * The framework plugins whose change detection only looks at files that the FileWatcher watches
+     */
+    private static final Set<String> WATCHED_CHANGE_DETECTORS = new HashSet<>(
+            Arrays.asList("play.ConfigurationChangeWatcherPlugin", "play.i18n.MessagesPlugin"));
+
+    /**
+     * @return true if an enabled plugin detects changes on its own, so that its hooks must be called even when no
+     *         watched file has changed
+     */
+    public boolean hasUnwatchedChangeDetectors() {
+        return hasUnwatched(hooks.beforeDetectingChanges) || hasUnwatched(hooks.detectChange)
+                || hasUnwatched(hooks.detectClassesChange);
+    }
+
+    private static boolean hasUnwatched(PlayPlugin[] plugins) {
+        for (PlayPlugin plugin : plugins) {
+            if (!WATCHED_CHANGE_DETECTORS.contains(plugin.getClass().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void onApplicationReady() {
         for (PlayPlugin plugin : getEnabledPlugins()) {
             plugin.onApplicationReady();
@@ -623,18 +770,40 @@ public class PluginCollection {
     }
 
     public void onEvent(String message, Object context) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.onEvent) {
             plugin.onEvent(message, context);
         }
     }
 
+    /**
+     * The framework plugins whose enhancers can enhance several classes at the same time
+     */
+    private static final Set<String> THREAD_SAFE_ENHANCERS = new HashSet<>(
+            Arrays.asList("play.plugins.EnhancerPlugin", "play.db.jpa.JPAPlugin"));
+
+    /**
+     * @return true if the only enabled plugins that enhance classes are the framework ones, so that classes can be
+     *         enhanced in parallel
+     */
+    public boolean hasOnlyThreadSafeEnhancers() {
+        for (PlayPlugin plugin : getEnabledPlugins()) {
+            if (!THREAD_SAFE_ENHANCERS.contains(plugin.getClass().getName())
+                    && Hooks.overrides(plugin.getClass(), "enhance", ApplicationClasses.ApplicationClass.class)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void enhance(ApplicationClasses.ApplicationClass applicationClass) {
         for (PlayPlugin plugin : getEnabledPlugins()) {
             try {
                 long start = System.currentTimeMillis();
                 plugin.enhance(applicationClass);
+                long time = System.currentTimeMillis() - start;
+                MonitorFactory.add(plugin.getClass().getName() + ".enhance()", "ms.", time);
                 if (Logger.isTraceEnabled()) {
-                    Logger.trace("%sms to apply %s to %s", System.currentTimeMillis() - start, plugin, applicationClass.name);
+                    Logger.trace("%sms to apply %s to %s", time, plugin, applicationClass.name);
                 }
             } catch (Exception e) {
                 throw new UnexpectedException("While applying " + plugin + " on " + applicationClass.name, e);
@@ -659,7 +828,7 @@ public class PluginCollection {
     }
 
     public Object bind(RootParamNode rootParamNode, String name, Class<?> clazz, Type type, Annotation[] annotations) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.bind) {
             Object result = plugin.bind(rootParamNode, name, clazz, type, annotations);
             if (result != null) {
                 return result;
@@ -669,7 +838,7 @@ public class PluginCollection {
     }
 
     public Object bindBean(RootParamNode rootParamNode, String name, Object bean) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.bindBean) {
             Object result = plugin.bindBean(rootParamNode, name, bean);
             if (result != null) {
                 return result;
@@ -679,7 +848,7 @@ public class PluginCollection {
     }
 
     public Map<String, Object> unBind(Object src, String name) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.unBind) {
             Map<String, Object> r = plugin.unBind(src, name);
             if (r != null) {
                 return r;
@@ -689,7 +858,7 @@ public class PluginCollection {
     }
 
     public Object willBeValidated(Object value) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.willBeValidated) {
             Object newValue = plugin.willBeValidated(value);
             if (newValue != null) {
                 return newValue;
@@ -699,7 +868,7 @@ public class PluginCollection {
     }
 
     public Model.Factory modelFactory(Class<? extends Model> modelClass) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.modelFactory) {
             Model.Factory factory = plugin.modelFactory(modelClass);
             if (factory != null) {
                 return factory;
@@ -709,7 +878,7 @@ public class PluginCollection {
     }
 
     public String getMessage(String locale, Object key, Object... args) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.getMessage) {
             String message = plugin.getMessage(locale, key, args);
             if (message != null) {
                 return message;
@@ -719,37 +888,37 @@ public class PluginCollection {
     }
 
     public void beforeActionInvocation(Method actionMethod) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.beforeActionInvocation) {
             plugin.beforeActionInvocation(actionMethod);
         }
     }
 
     public void onActionInvocationResult(Result result) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.onActionInvocationResult) {
             plugin.onActionInvocationResult(result);
         }
     }
 
     public void afterActionInvocation() {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.afterActionInvocation) {
             plugin.afterActionInvocation();
         }
     }
 
     public void onActionInvocationFinally() {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.onActionInvocationFinally) {
             plugin.onActionInvocationFinally();
         }
     }
 
     public void routeRequest(Http.Request request) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.routeRequest) {
             plugin.routeRequest(request);
         }
     }
 
     public void onRequestRouting(Router.Route route) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.onRequestRouting) {
             plugin.onRequestRouting(route);
         }
     }
@@ -761,7 +930,7 @@ public class PluginCollection {
     }
 
     public boolean rawInvocation(Http.Request request, Http.Response response) throws Exception {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.rawInvocation) {
             if (plugin.rawInvocation(request, response)) {
                 return true;
             }
@@ -770,7 +939,7 @@ public class PluginCollection {
     }
 
     public boolean serveStatic(VirtualFile file, Http.Request request, Http.Response response) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.serveStatic) {
             if (plugin.serveStatic(file, request, response)) {
                 return true;
             }
@@ -787,7 +956,7 @@ public class PluginCollection {
     }
 
     public String overrideTemplateSource(BaseTemplate template, String source) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.overrideTemplateSource) {
             String newSource = plugin.overrideTemplateSource(template, source);
             if (newSource != null) {
                 source = newSource;
@@ -797,7 +966,7 @@ public class PluginCollection {
     }
 
     public Template loadTemplate(VirtualFile file) {
-        for (PlayPlugin plugin : getEnabledPlugins()) {
+        for (PlayPlugin plugin : hooks.loadTemplate) {
             Template pluginProvided = plugin.loadTemplate(file);
             if (pluginProvided != null) {
                 return pluginProvided;
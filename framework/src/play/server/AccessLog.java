@@ -0,0 +1,370 @@
+package play.server;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import play.Logger;
+import play.Play;
+import play.mvc.ActionInvoker;
+import play.mvc.Http.Request;
+import play.mvc.Router;
+import play.mvc.results.RenderTemplate;
+import play.utils.BackgroundWriter;
+
+/**
+ * The access log of the server (<code>http.accessLog=true</code>): one line of
+ * JSON per request, with its timings.
+ *
+ * PlayHandler starts an {@link Entry} when a request is received, and marks it
+ * as the request goes through the invocation. Once the response is written,
+ * the entry is sampled and enqueued, and a {@link BackgroundWriter} formats
+ * and writes the lines in batches, rotating the file when it reaches
+ * <code>http.accessLog.maxSize</code>. Lines are dropped (and counted) rather
+ * than slowing the requests down when the writer cannot keep up.
+ */
+public class AccessLog {
+
+    /**
+     * The key of the entry of a request in its args
+     */
+    public static final String ENTRY = "__ACCESS_LOG_ENTRY";
+
+    private static volatile AccessLog current;
+
+    private final Properties configuration;
+    final boolean enabled;
+    final double sampleRate;
+    final File file;
+    final long maxSize;
+    final int maxFiles;
+    private final BackgroundWriter<Entry> writer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final String idPrefix = Long.toString(System.currentTimeMillis(), 36) + "-";
+    private final AtomicLong ids = new AtomicLong();
+    private OutputStream out;
+    private long size;
+
+    /**
+     * The access log of the application configuration
+     *
+     * @return The access log, or null if it is disabled
+     */
+    public static AccessLog get() {
+        AccessLog accessLog = current;
+        if (accessLog == null || accessLog.configuration != Play.configuration) {
+            accessLog = configure();
+        }
+        return accessLog.enabled ? accessLog : null;
+    }
+
+    private static synchronized AccessLog configure() {
+        AccessLog accessLog = current;
+        if (accessLog == null || accessLog.configuration != Play.configuration) {
+            if (accessLog != null) {
+                accessLog.stop();
+            }
+            accessLog = new AccessLog(Play.configuration);
+            if (accessLog.enabled) {
+                accessLog.start();
+            }
+            current = accessLog;
+        }
+        return accessLog;
+    }
+
+    AccessLog(Properties configuration) {
+        this.configuration = configuration;
+        this.enabled = Boolean.parseBoolean(configuration.getProperty("http.accessLog", "false"));
+        this.sampleRate = Double.parseDouble(configuration.getProperty("http.accessLog.sampleRate", "1").trim());
+        String path = configuration.getProperty("http.accessLog.path", "logs/access.log");
+        File logFile = new File(path);
+        this.file = logFile.isAbsolute() || Play.applicationPath == null ? logFile : new File(Play.applicationPath, path);
+        this.maxSize = Long.parseLong(configuration.getProperty("http.accessLog.maxSize", "104857600").trim());
+        this.maxFiles = Integer.parseInt(configuration.getProperty("http.accessLog.maxFiles", "5").trim());
+        this.writer = new BackgroundWriter<>("play-access-log", Integer.parseInt(configuration.getProperty("http.accessLog.bufferSize", "65536").trim()), 50,
+                new BackgroundWriter.Sink<Entry>() {
+                    @Override
+                    public void write(Entry entry) {
+                        AccessLog.this.write(entry);
+                    }
+
+                    @Override
+                    public void flush() {
+                        AccessLog.this.flush();
+                    }
+
+                    @Override
+                    public void close() {
+                        AccessLog.this.close();
+                    }
+                });
+    }
+
+    void start() {
+        writer.start();
+    }
+
+    /**
+     * Start the entry of a request
+     *
+     * @param received
+     *            When the request was received, from {@link System#nanoTime()}
+     * @param requestId
+     *            The X-Request-Id header, may be null
+     */
+    public Entry start(Request request, long received, String requestId) {
+        Entry entry = new Entry(this, received);
+        entry.requestId = requestId != null && !requestId.isEmpty() && requestId.length() <= 128 ? requestId
+                : idPrefix + Long.toString(ids.incrementAndGet(), 36);
+        request.args.put(ENTRY, entry);
+        return entry;
+    }
+
+    /**
+     * @return The entry of this request, or null if it is not logged
+     */
+    public static Entry entry(Request request) {
+        return request == null ? null : (Entry) request.args.get(ENTRY);
+    }
+
+    void log(Entry entry) {
+        if (entry.status < 500 && sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        if (!writer.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * The timings of a request, from {@link System#nanoTime()}, 0 for the
+     * steps it did not go through
+     */
+    public static class Entry {
+
+        private final AccessLog accessLog;
+        final long timestamp = System.currentTimeMillis();
+        final long received;
+        volatile long dequeued;
+        volatile long routed;
+        volatile long action;
+        volatile long render;
+        volatile long executed;
+        volatile long written;
+        String requestId;
+        String method;
+        String uri;
+        String remoteAddress;
+        String route;
+        String actionName;
+        int status;
+        long bytes = -1;
+        private boolean completed;
+
+        Entry(AccessLog accessLog, long received) {
+            this.accessLog = accessLog;
+            this.received = received;
+        }
+
+        public String requestId() {
+            return requestId;
+        }
+
+        /**
+         * The invocation starts running, after waiting in the queue
+         */
+        public void dequeued() {
+            if (dequeued == 0) {
+                dequeued = System.nanoTime();
+            }
+        }
+
+        /**
+         * The action of the request is found
+         */
+        public void routed() {
+            routed = System.nanoTime();
+        }
+
+        /**
+         * The action ran for this time, including the templates
+         */
+        public void executed(long start) {
+            executed = System.nanoTime();
+            action += executed - start;
+        }
+
+        /**
+         * The response of the request is written
+         *
+         * @param bytes
+         *            The length of the body, or -1 if it is not known
+         */
+        public synchronized void written(Request request, int status, long bytes) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            written = System.nanoTime();
+            this.status = status;
+            this.bytes = bytes;
+            method = request.method;
+            uri = request.url;
+            remoteAddress = request.remoteAddress;
+            actionName = request.action;
+            Object matched = request.args.get(ActionInvoker.ROUTE);
+            if (matched instanceof Router.Route) {
+                route = ((Router.Route) matched).method + " " + ((Router.Route) matched).path;
+            }
+            Object renderTime = request.args.get(RenderTemplate.RENDER_TIME);
+            if (renderTime instanceof Long) {
+                render = (Long) renderTime;
+            }
+            accessLog.log(this);
+        }
+
+        /**
+         * @return The line of this entry, without the line feed
+         */
+        String toJson() {
+            StringBuilder json = new StringBuilder(256);
+            json.append("{\"ts\":\"").append(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(timestamp))).append('"');
+            string(json, "id", requestId);
+            string(json, "remote", remoteAddress);
+            string(json, "method", method);
+            string(json, "uri", uri);
+            string(json, "route", route);
+            string(json, "action", actionName);
+            json.append(",\"status\":").append(status);
+            if (bytes >= 0) {
+                json.append(",\"bytes\":").append(bytes);
+            }
+            duration(json, "queue_us", received, dequeued);
+            duration(json, "route_us", dequeued, routed);
+            if (action > 0) {
+                json.append(",\"action_us\":").append(TimeUnit.NANOSECONDS.toMicros(action));
+            }
+            if (render > 0) {
+                json.append(",\"render_us\":").append(TimeUnit.NANOSECONDS.toMicros(render));
+            }
+            duration(json, "write_us", executed > 0 ? executed : dequeued > 0 ? dequeued : received, written);
+            duration(json, "total_us", received, written);
+            return json.append('}').toString();
+        }
+
+        private static void duration(StringBuilder json, String name, long from, long to) {
+            if (from > 0 && to >= from) {
+                json.append(",\"").append(name).append("\":").append(TimeUnit.NANOSECONDS.toMicros(to - from));
+            }
+        }
+
+        private static void string(StringBuilder json, String name, String value) {
+            if (value == null) {
+                return;
+            }
+            json.append(",\"").append(name).append("\":\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json.append('\\').append(c);
+                } else if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+            json.append('"');
+        }
+    }
+
+    /**
+     * Write the line of an entry, on the background thread
+     */
+    private void write(Entry entry) {
+        try {
+            byte[] line = (entry.toJson() + "\n").getBytes(StandardCharsets.UTF_8);
+            if (out == null || size + line.length > maxSize && size > 0) {
+                rotate();
+            }
+            out.write(line);
+            size += line.length;
+        } catch (IOException e) {
+            Logger.error(e, "Cannot write the access log %s", file);
+            close();
+        }
+    }
+
+    private void flush() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                Logger.error(e, "Cannot write the access log %s", file);
+                close();
+            }
+        }
+    }
+
+    /**
+     * Open the log, after renaming the full one to access.log.1, the previous
+     * access.log.1 to access.log.2, and so on up to maxFiles. With no rotated
+     * files, the full log is truncated.
+     */
+    private void rotate() throws IOException {
+        boolean opened = out != null;
+        close();
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        boolean full = file.length() > 0 && (opened || file.length() >= maxSize);
+        if (full && maxFiles > 0) {
+            File oldest = new File(file.getPath() + "." + maxFiles);
+            if (oldest.exists() && !oldest.delete()) {
+                throw new IOException("Cannot delete " + oldest);
+            }
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                File rotated = new File(file.getPath() + "." + i);
+                if (rotated.exists() && !rotated.renameTo(new File(file.getPath() + "." + (i + 1)))) {
+                    throw new IOException("Cannot rename " + rotated);
+                }
+            }
+            if (!file.renameTo(new File(file.getPath() + ".1"))) {
+                throw new IOException("Cannot rename " + file);
+            }
+        }
+        out = new BufferedOutputStream(new FileOutputStream(file, !full), 65536);
+        size = file.length();
+    }
+
+    private void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                Logger.warn("Cannot close the access log %s (%s)", file, e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Stop the background thread, after writing the entries left
+     */
+    void stop() {
+        writer.stop();
+    }
+}
@@ -0,0 +1,327 @@
+package play.server;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+
+import play.Play;
+
+/**
+ * The gzip/deflate compression of the dynamic responses, negotiated with the
+ * Accept-Encoding header of the request.
+ *
+ * Only the responses of the configured content types, and of at least
+ * <code>play.netty.compression.minSize</code> bytes when their length is
+ * known, are compressed. Responses that already have a Content-Encoding (like
+ * precompressed files) are sent as they are, and static files are never
+ * compressed.
+ */
+public class HttpCompression {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    static final String DEFAULT_TYPES = "text/html,text/plain,text/css,text/csv,text/xml,text/javascript,application/javascript,"
+            + "application/json,application/xml,application/xhtml+xml,image/svg+xml";
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    /**
+     * The deflaters of the responses compressed at once, reset after each
+     * response
+     */
+    private static final ThreadLocal<Deflater> gzipDeflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private static final ThreadLocal<Deflater> deflateDeflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, false));
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    private static volatile HttpCompression current;
+
+    private final Properties configuration;
+    final boolean enabled;
+    final int minSize;
+    final int level;
+    private final Set<String> types = new HashSet<>();
+    private final Set<String> typeFamilies = new HashSet<>();
+
+    /**
+     * The compression settings of the application configuration
+     */
+    public static HttpCompression get() {
+        HttpCompression compression = current;
+        if (compression == null || compression.configuration != Play.configuration) {
+            compression = new HttpCompression(Play.configuration);
+            current = compression;
+        }
+        return compression;
+    }
+
+    public HttpCompression(Properties configuration) {
+        this.configuration = configuration;
+        this.enabled = Boolean.parseBoolean(configuration.getProperty("play.netty.compression", "false"));
+        this.minSize = Integer.parseInt(configuration.getProperty("play.netty.compression.minSize", "1024").trim());
+        this.level = Integer.parseInt(configuration.getProperty("play.netty.compression.level", "6").trim());
+        for (String type : configuration.getProperty("play.netty.compression.types", DEFAULT_TYPES).split(",")) {
+            type = type.trim().toLowerCase(Locale.ENGLISH);
+            if (type.endsWith("/*")) {
+                typeFamilies.add(type.substring(0, type.length() - 1));
+            } else if (!type.isEmpty()) {
+                types.add(type);
+            }
+        }
+    }
+
+    /**
+     * @param contentType
+     *            The Content-Type header, may be null
+     * @return true if the responses of this type are compressed
+     */
+    public boolean compressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        String type = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ENGLISH);
+        int slash = type.indexOf('/');
+        return types.contains(type) || slash > 0 && typeFamilies.contains(type.substring(0, slash + 1));
+    }
+
+    /**
+     * The encoding to send this response with. When the response could be
+     * compressed, Accept-Encoding is added to its Vary header, whatever the
+     * client accepts.
+     *
+     * @param length
+     *            The length of the content, or -1 if it is not known
+     * @return gzip, deflate, or null to send the response as it is
+     */
+    public String encoding(HttpRequest request, HttpResponse response, long length) {
+        if (!enabled || request.getMethod().equals(HttpMethod.HEAD)) {
+            return null;
+        }
+        int status = response.getStatus().getCode();
+        if (status < 200 || status == 204 || status == 206 || status == 304) {
+            return null;
+        }
+        HttpHeaders headers = response.headers();
+        if (headers.contains(HttpHeaders.Names.CONTENT_ENCODING) || !compressible(headers.get(HttpHeaders.Names.CONTENT_TYPE))) {
+            return null;
+        }
+        if (length >= 0 && length < minSize) {
+            return null;
+        }
+        addVary(response);
+        return accepted(request.headers().get(HttpHeaders.Names.ACCEPT_ENCODING));
+    }
+
+    private static void addVary(HttpResponse response) {
+        String vary = response.headers().get(HttpHeaders.Names.VARY);
+        if (vary == null || vary.trim().isEmpty()) {
+            response.headers().set(HttpHeaders.Names.VARY, HttpHeaders.Names.ACCEPT_ENCODING);
+        } else if (!vary.trim().equals("*") && !vary.toLowerCase(Locale.ENGLISH).contains("accept-encoding")) {
+            response.headers().set(HttpHeaders.Names.VARY, vary + ", " + HttpHeaders.Names.ACCEPT_ENCODING);
+        }
+    }
+
+    /**
+     * The preferred encoding of an Accept-Encoding header, gzip when the
+     * client accepts gzip and deflate as much
+     *
+     * @return gzip, deflate, or null if neither is accepted
+     */
+    static String accepted(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        float gzip = -1;
+        float deflate = -1;
+        float any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ENGLISH);
+            float q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                gzip = Math.max(gzip, q);
+            } else if (coding.equals(DEFLATE)) {
+                deflate = Math.max(deflate, q);
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    /**
+     * Mark the response as sent with this encoding. A strong ETag is given
+     * the encoding as a suffix, since the compressed bytes are not those of
+     * the original representation; {@link #restoreEtags(HttpRequest)} removes
+     * it from the next conditional requests.
+     */
+    public static void encoded(HttpResponse response, String encoding) {
+        response.headers().set(HttpHeaders.Names.CONTENT_ENCODING, encoding);
+        String etag = response.headers().get(HttpHeaders.Names.ETAG);
+        if (etag != null && etag.length() > 1 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            response.headers().set(HttpHeaders.Names.ETAG, etag.substring(0, etag.length() - 1) + "-" + encoding + "\"");
+        }
+    }
+
+    /**
+     * Remove the encoding suffixes added by {@link #encoded(HttpResponse,
+     * String)} from the If-None-Match header, so that the application compares
+     * its own ETags
+     */
+    public static void restoreEtags(HttpRequest request) {
+        String ifNoneMatch = request.headers().get(HttpHeaders.Names.IF_NONE_MATCH);
+        if (ifNoneMatch != null && ifNoneMatch.contains("-")) {
+            request.headers().set(HttpHeaders.Names.IF_NONE_MATCH, ifNoneMatch.replace("-" + GZIP + "\"", "\"").replace("-" + DEFLATE + "\"", "\""));
+        }
+    }
+
+    /**
+     * Compress a whole response with the deflater of the current thread
+     */
+    public byte[] compress(byte[] content, String encoding) {
+        Deflater deflater = (GZIP.equals(encoding) ? gzipDeflaters : deflateDeflaters).get();
+        deflater.setLevel(level);
+        Compressor compressor = new Compressor(encoding, deflater, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        compressor.deflate(out, content, Deflater.NO_FLUSH);
+        compressor.finish(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * A compressor for a streamed response, with its own deflater since the
+     * chunks may be written from different threads. It must be finished or
+     * ended.
+     */
+    public Compressor compressor(String encoding) {
+        return new Compressor(encoding, new Deflater(level, GZIP.equals(encoding)), true);
+    }
+
+    /**
+     * Compresses a response incrementally
+     */
+    public static class Compressor {
+
+        private final boolean gzip;
+        private final Deflater deflater;
+        private final boolean owned;
+        private final CRC32 crc;
+        private boolean started;
+        private boolean ended;
+
+        Compressor(String encoding, Deflater deflater, boolean owned) {
+            this.gzip = GZIP.equals(encoding);
+            this.deflater = deflater;
+            this.owned = owned;
+            this.crc = gzip ? new CRC32() : null;
+        }
+
+        /**
+         * @param flush
+         *            true to send everything compressed so far, like at the end
+         *            of a chunk the client must see now
+         * @return The compressed bytes, may be empty if nothing is flushed
+         */
+        public byte[] compress(byte[] bytes, boolean flush) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 32);
+            deflate(out, bytes, flush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
+            return out.toByteArray();
+        }
+
+        /**
+         * @return The last compressed bytes, with the trailer
+         */
+        public byte[] finish() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+            finish(out);
+            return out.toByteArray();
+        }
+
+        /**
+         * Release the deflater without finishing, like when the client is gone
+         */
+        public void end() {
+            if (!ended) {
+                ended = true;
+                if (owned) {
+                    deflater.end();
+                } else {
+                    deflater.reset();
+                }
+            }
+        }
+
+        private void start(ByteArrayOutputStream out) {
+            if (!started) {
+                started = true;
+                if (gzip) {
+                    out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+                }
+            }
+        }
+
+        void deflate(ByteArrayOutputStream out, byte[] bytes, int flush) {
+            start(out);
+            if (gzip) {
+                crc.update(bytes, 0, bytes.length);
+            }
+            deflater.setInput(bytes);
+            byte[] buffer = buffers.get();
+            int length;
+            do {
+                length = deflater.deflate(buffer, 0, buffer.length, flush);
+                out.write(buffer, 0, length);
+            } while (length == buffer.length || !deflater.needsInput());
+        }
+
+        void finish(ByteArrayOutputStream out) {
+            start(out);
+            deflater.finish();
+            byte[] buffer = buffers.get();
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            if (gzip) {
+                writeInt(out, (int) crc.getValue());
+                writeInt(out, (int) deflater.getBytesRead());
+            }
+            end();
+        }
+
+        private static void writeInt(ByteArrayOutputStream out, int value) {
+            out.write(value & 0xff);
+            out.write((value >> 8) & 0xff);
+            out.write((value >> 16) & 0xff);
+            out.write((value >> 24) & 0xff);
+        }
+    }
+}
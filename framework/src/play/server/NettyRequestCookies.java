@@ -0,0 +1,92 @@
+package play.server;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.netty.handler.codec.http.cookie.Cookie;
+import org.jboss.netty.handler.codec.http.cookie.ServerCookieDecoder;
+
+import play.mvc.Http;
+
+/**
+ * The cookies of a request, decoded from the Cookie header the first time one
+ * of them is read
+ */
+class NettyRequestCookies extends AbstractMap<String, Http.Cookie> implements Serializable {
+
+    private final transient String header;
+    private Map<String, Http.Cookie> cookies;
+
+    /**
+     * @param header
+     *            The Cookie header, may be null
+     */
+    NettyRequestCookies(String header) {
+        this.header = header;
+    }
+
+    private Map<String, Http.Cookie> cookies() {
+        if (cookies == null) {
+            Map<String, Http.Cookie> decoded = new HashMap<>(16);
+            if (header != null) {
+                Set<Cookie> cookieSet = ServerCookieDecoder.STRICT.decode(header);
+                if (cookieSet != null) {
+                    for (Cookie cookie : cookieSet) {
+                        Http.Cookie playCookie = new Http.Cookie();
+                        playCookie.name = cookie.name();
+                        playCookie.path = cookie.path();
+                        playCookie.domain = cookie.domain();
+                        playCookie.secure = cookie.isSecure();
+                        playCookie.value = cookie.value();
+                        playCookie.httpOnly = cookie.isHttpOnly();
+                        decoded.put(playCookie.name, playCookie);
+                    }
+                }
+            }
+            cookies = decoded;
+        }
+        return cookies;
+    }
+
+    @Override
+    public Http.Cookie get(Object name) {
+        return cookies().get(name);
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        return cookies().containsKey(name);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return header == null && cookies == null || cookies().isEmpty();
+    }
+
+    @Override
+    public Http.Cookie put(String name, Http.Cookie cookie) {
+        return cookies().put(name, cookie);
+    }
+
+    @Override
+    public Http.Cookie remove(Object name) {
+        return cookies().remove(name);
+    }
+
+    @Override
+    public void clear() {
+        cookies().clear();
+    }
+
+    @Override
+    public Set<Entry<String, Http.Cookie>> entrySet() {
+        return cookies().entrySet();
+    }
+
+    private Object writeReplace() {
+        return new HashMap<>(cookies());
+    }
+}
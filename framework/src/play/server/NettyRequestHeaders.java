@@ -0,0 +1,120 @@
+package play.server;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+
+import play.mvc.Http;
+
+/**
+ * The headers of a request, read from the Netty request when they are looked
+ * up. Names are case insensitive, and a header is only copied the first time it
+ * is read. The whole map is copied when it is iterated or modified, so that it
+ * still behaves like the map of lower-cased names it replaces. The lookups may
+ * come from several threads (a request suspended with await() resumes on
+ * another one), so the headers read are kept in a concurrent map.
+ */
+class NettyRequestHeaders extends AbstractMap<String, Http.Header> implements Serializable {
+
+    private final transient HttpHeaders headers;
+    /**
+     * Headers already read, by lower-cased name
+     */
+    private final Map<String, Http.Header> read = new ConcurrentHashMap<>(8);
+    /**
+     * All the headers, once copied
+     */
+    private volatile Map<String, Http.Header> all;
+
+    NettyRequestHeaders(HttpHeaders headers) {
+        this.headers = headers;
+    }
+
+    private static String lowerCase(Object name) {
+        return name.toString().toLowerCase(Locale.ENGLISH);
+    }
+
+    @Override
+    public Http.Header get(Object name) {
+        if (name == null) {
+            return null;
+        }
+        String key = lowerCase(name);
+        Map<String, Http.Header> copied = all;
+        if (copied != null) {
+            return copied.get(key);
+        }
+        Http.Header header = read.get(key);
+        if (header == null) {
+            List<String> values = headers.getAll(key);
+            if (values.isEmpty()) {
+                return null;
+            }
+            header = new Http.Header(key, new ArrayList<>(values));
+            Http.Header previous = read.putIfAbsent(key, header);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        return header;
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        if (name == null) {
+            return false;
+        }
+        Map<String, Http.Header> copied = all;
+        return copied != null ? copied.containsKey(lowerCase(name)) : read.containsKey(lowerCase(name)) || headers.contains(name.toString());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        Map<String, Http.Header> copied = all;
+        return copied != null ? copied.isEmpty() : headers.isEmpty();
+    }
+
+    @Override
+    public Http.Header put(String name, Http.Header header) {
+        return copy().put(name, header);
+    }
+
+    @Override
+    public Http.Header remove(Object name) {
+        return copy().remove(name);
+    }
+
+    @Override
+    public void clear() {
+        copy().clear();
+    }
+
+    @Override
+    public Set<Entry<String, Http.Header>> entrySet() {
+        return copy().entrySet();
+    }
+
+    private synchronized Map<String, Http.Header> copy() {
+        if (all == null) {
+            Map<String, Http.Header> copy = new HashMap<>(16);
+            for (String name : headers.names()) {
+                Http.Header header = get(name);
+                copy.put(header.name, header);
+            }
+            all = copy;
+        }
+        return all;
+    }
+
+    private Object writeReplace() {
+        return new HashMap<>(copy());
+    }
+}
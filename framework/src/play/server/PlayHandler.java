@@ -1,6 +1,5 @@
 package play.server;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBufferInputStream;
@@ -10,7 +9,6 @@ import org.jboss.netty.handler.codec.frame.TooLongFrameException;
 import org.jboss.netty.handler.codec.http.*;
 import org.jboss.netty.handler.codec.http.cookie.Cookie;
 import org.jboss.netty.handler.codec.http.cookie.DefaultCookie;
-import org.jboss.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import org.jboss.netty.handler.codec.http.cookie.ServerCookieEncoder;
 import org.jboss.netty.handler.codec.http.websocketx.*;
 import org.jboss.netty.handler.stream.ChunkedInput;
@@ -93,6 +91,7 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
             Logger.trace("messageReceived: begin");
         }
 
+        long received = System.nanoTime();
         Object msg = messageEvent.getMessage();
 
         // Http request
@@ -106,6 +105,10 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                 return;
             }
 
+            if (HttpCompression.get().enabled) {
+                HttpCompression.restoreEtags(nettyRequest);
+            }
+
             // Plain old HttpRequest
             try {
                 // Reset request object and response object for the current
@@ -116,6 +119,10 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                 Http.Response.current.set(response);
 
                 final Request request = parseRequest(ctx, nettyRequest, messageEvent);
+                AccessLog accessLog = AccessLog.get();
+                if (accessLog != null) {
+                    accessLog.start(request, received, nettyRequest.headers().get("X-Request-Id"));
+                }
 
                 // Buffered in memory output
                 response.out = new ByteArrayOutputStream();
@@ -160,7 +167,11 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
         }
     }
 
-    private static final Map<String, RenderStatic> staticPathsCache = new HashMap<>();
+    private static final Map<String, RenderStatic> staticPathsCache = new ConcurrentHashMap<>();
+
+    private static String staticPathKey(Request request) {
+        return request.domain + " " + request.method + " " + request.path;
+    }
 
     public class NettyInvocation extends Invoker.Invocation {
 
@@ -199,12 +210,8 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                 if (Play.mode == Play.Mode.DEV) {
                     Router.detectChanges(Play.ctxPath);
                 }
-                if (Play.mode == Play.Mode.PROD
-                        && staticPathsCache.containsKey(request.domain + " " + request.method + " " + request.path)) {
-                    RenderStatic rs = null;
-                    synchronized (staticPathsCache) {
-                        rs = staticPathsCache.get(request.domain + " " + request.method + " " + request.path);
-                    }
+                RenderStatic rs = Play.mode == Play.Mode.PROD ? staticPathsCache.get(staticPathKey(request)) : null;
+                if (rs != null) {
                     serveStatic(rs, ctx, request, response, nettyRequest, event);
                     if (Logger.isTraceEnabled()) {
                         Logger.trace("init: end false");
@@ -221,9 +228,7 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                 return false;
             } catch (RenderStatic rs) {
                 if (Play.mode == Play.Mode.PROD) {
-                    synchronized (staticPathsCache) {
-                        staticPathsCache.put(request.domain + " " + request.method + " " + request.path, rs);
-                    }
+                    staticPathsCache.put(staticPathKey(request), rs);
                 }
                 serveStatic(rs, ctx, request, response, nettyRequest, this.event);
                 if (Logger.isTraceEnabled()) {
@@ -241,12 +246,20 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
         @Override
         public InvocationContext getInvocationContext() {
             ActionInvoker.resolve(request);
+            AccessLog.Entry entry = AccessLog.entry(request);
+            if (entry != null) {
+                entry.routed();
+            }
             return new InvocationContext(Http.invocationType, request.invokedMethod.getAnnotations(),
                     request.invokedMethod.getDeclaringClass().getAnnotations());
         }
 
         @Override
         public void run() {
+            AccessLog.Entry entry = AccessLog.entry(request);
+            if (entry != null) {
+                entry.dequeued();
+            }
             try {
                 if (Logger.isTraceEnabled()) {
                     Logger.trace("run: begin");
@@ -274,7 +287,15 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
             // Check the exceeded size before re rendering so we can render the
             // error if the size is exceeded
             saveExceededSizeError(nettyRequest, request, response);
-            ActionInvoker.invoke(request, response);
+            AccessLog.Entry entry = AccessLog.entry(request);
+            long start = System.nanoTime();
+            try {
+                ActionInvoker.invoke(request, response);
+            } finally {
+                if (entry != null) {
+                    entry.executed(start);
+                }
+            }
         }
 
         @Override
@@ -376,22 +397,30 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
         }
 
         byte[] content = null;
+        int contentLength = response.out.size();
 
         boolean keepAlive = isKeepAlive(nettyRequest);
         if (nettyRequest.getMethod().equals(HttpMethod.HEAD)) {
             content = new byte[0];
         } else {
             content = response.out.toByteArray();
+            HttpCompression compression = HttpCompression.get();
+            String encoding = compression.encoding(nettyRequest, nettyResponse, content.length);
+            if (encoding != null) {
+                content = compression.compress(content, encoding);
+                contentLength = content.length;
+                HttpCompression.encoded(nettyResponse, encoding);
+            }
         }
 
-        ChannelBuffer buf = ChannelBuffers.copiedBuffer(content);
+        ChannelBuffer buf = ChannelBuffers.wrappedBuffer(content);
         nettyResponse.setContent(buf);
 
         if (!nettyResponse.getStatus().equals(HttpResponseStatus.NOT_MODIFIED)) {
             if (Logger.isTraceEnabled()) {
-                Logger.trace("writeResponse: content length [" + response.out.size() + "]");
+                Logger.trace("writeResponse: content length [" + contentLength + "]");
             }
-            setContentLength(nettyResponse, response.out.size());
+            setContentLength(nettyResponse, contentLength);
         }
 
         ChannelFuture f = null;
@@ -401,6 +430,7 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
             Logger.debug("Try to write on a closed channel[keepAlive:%s]: Remote host may have closed the connection",
                     String.valueOf(keepAlive));
         }
+        logAccess(Request.current(), nettyResponse, content.length, f);
 
         // Decide whether to close the connection or not.
         if (f != null && !keepAlive) {
@@ -463,23 +493,56 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                         // written out.
                         writeFuture.addListener(ChannelFutureListener.CLOSE);
                     }
+                    logAccess(request, nettyResponse, 0, writeFuture);
                 } else {
                     FileService.serve(file, nettyRequest, nettyResponse, ctx, request, response, ctx.getChannel());
+                    logAccess(request, nettyResponse, file.length(), null);
                 }
             } catch (Exception e) {
                 throw e;
             }
         } else if (is != null) {
+            ChunkedInput input = new ChunkedStream(is);
+            // The compressed stream is sent in chunks, which HTTP/1.0 does not
+            // know
+            if (nettyRequest.getProtocolVersion().equals(HttpVersion.HTTP_1_1)) {
+                String length = nettyResponse.headers().get(CONTENT_LENGTH);
+                HttpCompression compression = HttpCompression.get();
+                String encoding = compression.encoding(nettyRequest, nettyResponse, length == null ? -1 : Long.parseLong(length));
+                if (encoding != null) {
+                    HttpCompression.encoded(nettyResponse, encoding);
+                    nettyResponse.headers().remove(CONTENT_LENGTH);
+                    nettyResponse.headers().set(TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+                    input = new CompressedChunkedInput(input, compression.compressor(encoding));
+                } else if (length == null) {
+                    // A stream of unknown length, such as a streamed RenderJson
+                    nettyResponse.headers().set(TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+                    input = new CompressedChunkedInput(input, null);
+                }
+            } else if (nettyResponse.headers().get(CONTENT_LENGTH) == null) {
+                // The end of the body is the end of the connection
+                keepAlive = false;
+            }
             ChannelFuture writeFuture = ctx.getChannel().write(nettyResponse);
             if (!nettyRequest.getMethod().equals(HttpMethod.HEAD) && !nettyResponse.getStatus().equals(HttpResponseStatus.NOT_MODIFIED)) {
-                writeFuture = ctx.getChannel().write(new ChunkedStream(is));
+                writeFuture = ctx.getChannel().write(input);
             } else {
                 is.close();
             }
             if (!keepAlive) {
                 writeFuture.addListener(ChannelFutureListener.CLOSE);
             }
+            String length = nettyResponse.headers().get(CONTENT_LENGTH);
+            logAccess(request, nettyResponse, length == null ? -1 : Long.parseLong(length), writeFuture);
         } else if (stream != null) {
+            if (stream instanceof LazyChunkedInput) {
+                HttpCompression compression = HttpCompression.get();
+                String encoding = compression.encoding(nettyRequest, nettyResponse, -1);
+                if (encoding != null) {
+                    HttpCompression.encoded(nettyResponse, encoding);
+                    ((LazyChunkedInput) stream).compressor = compression.compressor(encoding);
+                }
+            }
             ChannelFuture writeFuture = ctx.getChannel().write(nettyResponse);
             if (!nettyRequest.getMethod().equals(HttpMethod.HEAD) && !nettyResponse.getStatus().equals(HttpResponseStatus.NOT_MODIFIED)) {
                 writeFuture = ctx.getChannel().write(stream);
@@ -489,6 +552,7 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
             if (!keepAlive) {
                 writeFuture.addListener(ChannelFutureListener.CLOSE);
             }
+            logAccess(request, nettyResponse, -1, writeFuture);
         } else {
             writeResponse(ctx, response, nettyResponse, nettyRequest);
         }
@@ -566,10 +630,8 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
             }
 
         } else {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            IOUtils.copy(new ChannelBufferInputStream(b), out);
-            byte[] n = out.toByteArray();
-            body = new ByteArrayInputStream(n);
+            // Read straight from the aggregated content, which is not used afterwards
+            body = new ChannelBufferInputStream(b);
         }
 
         String host = nettyRequest.headers().get(HOST);
@@ -624,41 +686,18 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
         return request;
     }
 
+    /**
+     * The request headers, by lower-cased name. They are read from the Netty request when they are looked up.
+     */
     protected static Map<String, Http.Header> getHeaders(HttpRequest nettyRequest) {
-        Map<String, Http.Header> headers = new HashMap<>(16);
-
-        for (String key : nettyRequest.headers().names()) {
-            Http.Header hd = new Http.Header();
-            hd.name = key.toLowerCase();
-            hd.values = new ArrayList<>();
-            for (String next : nettyRequest.headers().getAll(key)) {
-                hd.values.add(next);
-            }
-            headers.put(hd.name, hd);
-        }
-
-        return headers;
+        return new NettyRequestHeaders(nettyRequest.headers());
     }
 
+    /**
+     * The request cookies, decoded the first time one of them is read
+     */
     protected static Map<String, Http.Cookie> getCookies(HttpRequest nettyRequest) {
-        Map<String, Http.Cookie> cookies = new HashMap<>(16);
-        String value = nettyRequest.headers().get(COOKIE);
-        if (value != null) {
-            Set<Cookie> cookieSet = ServerCookieDecoder.STRICT.decode(value);
-            if (cookieSet != null) {
-                for (Cookie cookie : cookieSet) {
-                    Http.Cookie playCookie = new Http.Cookie();
-                    playCookie.name = cookie.name();
-                    playCookie.path = cookie.path();
-                    playCookie.domain = cookie.domain();
-                    playCookie.secure = cookie.isSecure();
-                    playCookie.value = cookie.value();
-                    playCookie.httpOnly = cookie.isHttpOnly();
-                    cookies.put(playCookie.name, playCookie);
-                }
-            }
-        }
-        return cookies;
+        return new NettyRequestCookies(nettyRequest.headers().get(COOKIE));
     }
 
     @Override
@@ -701,6 +740,7 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
             nettyResponse.setContent(buf);
             ChannelFuture writeFuture = ctx.getChannel().write(nettyResponse);
             writeFuture.addListener(ChannelFutureListener.CLOSE);
+            logAccess(request, nettyResponse, bytes.length, writeFuture);
         } catch (UnsupportedEncodingException fex) {
             Logger.error(fex, "(encoding ?)");
         }
@@ -792,6 +832,7 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                 nettyResponse.setContent(buf);
                 ChannelFuture writeFuture = ctx.getChannel().write(nettyResponse);
                 writeFuture.addListener(ChannelFutureListener.CLOSE);
+                logAccess(request, nettyResponse, bytes.length, writeFuture);
                 Logger.error(e, "Internal Server Error (500) for request %s", request.method + " " + request.url);
             } catch (Throwable ex) {
                 Logger.error(e, "Internal Server Error (500) for request %s", request.method + " " + request.url);
@@ -804,6 +845,7 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                     nettyResponse.setContent(buf);
                     ChannelFuture writeFuture = ctx.getChannel().write(nettyResponse);
                     writeFuture.addListener(ChannelFutureListener.CLOSE);
+                    logAccess(request, nettyResponse, bytes.length, writeFuture);
                 } catch (UnsupportedEncodingException fex) {
                     Logger.error(fex, "(encoding ?)");
                 }
@@ -817,6 +859,7 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                 nettyResponse.setContent(buf);
                 ChannelFuture writeFuture = ctx.getChannel().write(nettyResponse);
                 writeFuture.addListener(ChannelFutureListener.CLOSE);
+                logAccess(request, nettyResponse, bytes.length, writeFuture);
             } catch (Exception fex) {
                 Logger.error(fex, "(encoding ?)");
             }
@@ -868,8 +911,10 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                             // Write the content.
                             writeFuture.addListener(ChannelFutureListener.CLOSE);
                         }
+                        logAccess(request, nettyResponse, 0, writeFuture);
                     } else {
                         FileService.serve(localFile, nettyRequest, nettyResponse, ctx, request, response, e.getChannel());
+                        logAccess(request, nettyResponse, localFile.length(), null);
                     }
                 }
 
@@ -885,6 +930,7 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                 errorResponse.setContent(buf);
                 ChannelFuture future = ctx.getChannel().write(errorResponse);
                 future.addListener(ChannelFutureListener.CLOSE);
+                logAccess(request, errorResponse, bytes.length, future);
             } catch (Exception ex) {
                 Logger.error(ex, "serveStatic for request %s", request.method + " " + request.url);
             }
@@ -964,10 +1010,56 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
         message.headers().set(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(contentLength));
     }
 
+    /**
+     * Complete the access log entry of the request, once its response is
+     * written
+     *
+     * @param bytes
+     *            The length of the body, or -1 if it is not known
+     * @param future
+     *            The write of the response, or null if it is already written
+     */
+    private static void logAccess(Request request, HttpResponse nettyResponse, long bytes, ChannelFuture future) {
+        AccessLog.Entry entry = AccessLog.entry(request);
+        if (entry == null) {
+            return;
+        }
+        int status = nettyResponse.getStatus().getCode();
+        if (future == null) {
+            entry.written(request, status, bytes);
+        } else {
+            future.addListener(written -> entry.written(request, status, bytes));
+        }
+    }
+
+    private static final byte[] CRLF = { (byte) '\r', (byte) '\n' };
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes();
+
+    /**
+     * @return The bytes framed as one HTTP chunk, or nothing if there are no
+     *         bytes, which would end the response
+     */
+    static byte[] chunk(byte[] bytes) throws IOException {
+        if (bytes.length == 0) {
+            return bytes;
+        }
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream(bytes.length + 12);
+        byteStream.write(Integer.toHexString(bytes.length).getBytes());
+        byteStream.write(CRLF);
+        byteStream.write(bytes);
+        byteStream.write(CRLF);
+        return byteStream.toByteArray();
+    }
+
     static class LazyChunkedInput implements org.jboss.netty.handler.stream.ChunkedInput {
 
         private boolean closed = false;
         private ConcurrentLinkedQueue<byte[]> nextChunks = new ConcurrentLinkedQueue<>();
+        /**
+         * Compresses the chunks when the response is compressed, each chunk
+         * being flushed so that the client sees it at once
+         */
+        HttpCompression.Compressor compressor;
 
         @Override
         public boolean hasNextChunk() throws Exception {
@@ -990,7 +1082,10 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
         @Override
         public void close() throws Exception {
             if (!closed) {
-                nextChunks.offer("0\r\n\r\n".getBytes());
+                if (compressor != null) {
+                    nextChunks.offer(chunk(compressor.finish()));
+                }
+                nextChunks.offer(LAST_CHUNK);
             }
             closed = true;
         }
@@ -1007,14 +1102,68 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                 String message = chunk == null ? "" : chunk.toString();
                 bytes = message.getBytes(Response.current().encoding);
             }
+            if (compressor != null) {
+                if (bytes.length == 0) {
+                    return;
+                }
+                bytes = compressor.compress(bytes, true);
+            }
+
+            nextChunks.offer(chunk(bytes));
+        }
+    }
+
+    /**
+     * Compresses a stream incrementally, and sends it in HTTP chunks. Without
+     * a compressor, the stream is only sent in HTTP chunks.
+     */
+    static class CompressedChunkedInput implements ChunkedInput {
+
+        private final ChunkedInput input;
+        private final HttpCompression.Compressor compressor;
+        private boolean finished;
+
+        CompressedChunkedInput(ChunkedInput input, HttpCompression.Compressor compressor) {
+            this.input = input;
+            this.compressor = compressor;
+        }
+
+        @Override
+        public boolean hasNextChunk() throws Exception {
+            return !finished;
+        }
+
+        @Override
+        public Object nextChunk() throws Exception {
+            if (finished) {
+                return null;
+            }
+            if (input.hasNextChunk()) {
+                ChannelBuffer buffer = (ChannelBuffer) input.nextChunk();
+                if (buffer != null) {
+                    byte[] bytes = new byte[buffer.readableBytes()];
+                    buffer.readBytes(bytes);
+                    return wrappedBuffer(chunk(compressor == null ? bytes : compressor.compress(bytes, false)));
+                }
+            }
+            if (input.isEndOfInput()) {
+                finished = true;
+                return compressor == null ? wrappedBuffer(LAST_CHUNK) : wrappedBuffer(chunk(compressor.finish()), LAST_CHUNK);
+            }
+            return null;
+        }
 
-            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-            byteStream.write(Integer.toHexString(bytes.length).getBytes());
-            byte[] crlf = new byte[] { (byte) '\r', (byte) '\n' };
-            byteStream.write(crlf);
-            byteStream.write(bytes);
-            byteStream.write(crlf);
-            nextChunks.offer(byteStream.toByteArray());
+        @Override
+        public boolean isEndOfInput() throws Exception {
+            return finished;
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (compressor != null) {
+                compressor.end();
+            }
+            input.close();
         }
     }
 
@@ -1054,6 +1203,7 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
 
     // ~~~~~~~~~~~ Websocket
     static final Map<ChannelHandlerContext, Http.Inbound> channels = new ConcurrentHashMap<>();
+    static final Map<ChannelHandlerContext, Http.Outbound> outbounds = new ConcurrentHashMap<>();
 
     private void websocketFrameReceived(ChannelHandlerContext ctx, WebSocketFrame webSocketFrame) {
         Http.Inbound inbound = channels.get(ctx);
@@ -1063,7 +1213,15 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
         } else if (webSocketFrame instanceof PingWebSocketFrame) {
             ctx.getChannel().write(new PongWebSocketFrame(webSocketFrame.getBinaryData()));
         } else if (webSocketFrame instanceof BinaryWebSocketFrame) {
-            inbound._received(new Http.WebSocketFrame(webSocketFrame.getBinaryData().array()));
+            ChannelBuffer data = webSocketFrame.getBinaryData();
+            byte[] bytes;
+            if (data.hasArray() && data.arrayOffset() == 0 && data.readerIndex() == 0 && data.readableBytes() == data.array().length) {
+                bytes = data.array();
+            } else {
+                bytes = new byte[data.readableBytes()];
+                data.getBytes(data.readerIndex(), bytes);
+            }
+            inbound._received(new Http.WebSocketFrame(bytes));
         } else if (webSocketFrame instanceof TextWebSocketFrame) {
             inbound._received(new Http.WebSocketFrame(((TextWebSocketFrame) webSocketFrame).getText()));
         }
@@ -1166,6 +1324,33 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                 writeAndClose(ctx.getChannel().write(new BinaryWebSocketFrame(wrappedBuffer(data, offset, length))));
             }
 
+            @Override
+            public Promise<Void> send(Http.EncodedWebSocketFrame frame) {
+                if (!isOpen()) {
+                    throw new IllegalStateException("The outbound channel is closed");
+                }
+                // Share the pre-encoded payload, each write gets its own
+                // reader index
+                WebSocketFrame nettyFrame = frame.isBinary ? new BinaryWebSocketFrame(frame.payload())
+                        : new TextWebSocketFrame(frame.payload());
+                ChannelFuture writeFuture = ctx.getChannel().write(nettyFrame);
+                writeAndClose(writeFuture);
+                final Promise<Void> written = new Promise<>();
+                writeFuture.addListener(new ChannelFutureListener() {
+
+                    @Override
+                    public void operationComplete(ChannelFuture cf) throws Exception {
+                        written.invoke(null);
+                    }
+                });
+                return written;
+            }
+
+            @Override
+            public boolean isWritable() {
+                return isOpen() && ctx.getChannel().isWritable();
+            }
+
             @Override
             public synchronized boolean isOpen() {
                 return ctx.getChannel().isOpen() && closeTask == null;
@@ -1186,11 +1371,21 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
                 futureClose();
             }
         };
+        outbounds.put(ctx, outbound);
         Logger.trace("invoking");
 
         Invoker.invoke(new WebSocketInvocation(route, request, inbound, outbound, ctx, messageEvent));
     }
 
+    @Override
+    public void channelInterestChanged(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        Http.Outbound outbound = outbounds.get(ctx);
+        if (outbound != null) {
+            outbound.writabilityChanged();
+        }
+        super.channelInterestChanged(ctx, e);
+    }
+
     @Override
     public void channelDisconnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
         Http.Inbound inbound = channels.get(ctx);
@@ -1198,6 +1393,10 @@ public class PlayHandler extends SimpleChannelUpstreamHandler {
             inbound.close();
         }
         channels.remove(ctx);
+        Http.Outbound outbound = outbounds.remove(ctx);
+        if (outbound != null) {
+            outbound.writabilityChanged();
+        }
     }
 
     public static class WebSocketInvocation extends Invoker.Invocation {
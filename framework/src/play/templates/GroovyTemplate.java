@@ -39,6 +39,7 @@ import groovy.lang.Script;
 import play.Logger;
 import play.Play;
 import play.Play.Mode;
+import play.Trace;
 import play.classloading.BytecodeCache;
 import play.data.binding.Unbinder;
 import play.exceptions.ActionNotFoundException;
@@ -276,6 +277,7 @@ public class GroovyTemplate extends BaseTemplate {
         ExecutableTemplate t = (ExecutableTemplate) InvokerHelper.createScript(compiledTemplate, binding);
         t.init(this);
         Monitor monitor = null;
+        Trace.Span span = Trace.start("template", name);
         try {
             monitor = MonitorFactory.start(name);
             long start = System.currentTimeMillis();
@@ -309,6 +311,7 @@ public class GroovyTemplate extends BaseTemplate {
             if (monitor != null) {
                 monitor.stop();
             }
+            span.close();
         }
         if (applyLayouts && layout.get() != null) {
             Map<String, Object> layoutArgs = new HashMap<>(args);
@@ -1,18 +1,22 @@
 package play.templates;
 
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import play.Logger;
 import play.Play;
 import play.exceptions.TemplateCompilationException;
 import play.exceptions.TemplateNotFoundException;
+import play.vfs.FileWatcher;
 import play.vfs.VirtualFile;
 
 public class TemplateLoader {
@@ -23,6 +27,19 @@ public class TemplateLoader {
      */
     private static AtomicLong nextUniqueNumber = new AtomicLong(1000);// we start on 1000
     private static Map<String, String> templateFile2UniqueNumber = Collections.synchronizedMap(new HashMap<String, String>());
+    /**
+     * The changes of the templates, or null if they are polled on each load
+     */
+    private static volatile FileWatcher.Changes templateChanges;
+    /**
+     * Key of the loaded templates, by file
+     */
+    private static Map<Path, String> templateKeys = new ConcurrentHashMap<>();
+    /**
+     * Key of the loaded templates outside the watched directories, whose file
+     * is checked on each load
+     */
+    private static Set<String> polledTemplates = ConcurrentHashMap.newKeySet();
 
     /**
      * All loaded templates is cached in the templates-list using a key. This key is included as part of the classname
@@ -85,9 +102,21 @@ public class TemplateLoader {
             } else {
                 templates.put(key, new GroovyTemplateCompiler().compile(file));
             }
+            FileWatcher.Changes changes = templateChanges;
+            if (changes != null) {
+                Path path = path(file);
+                if (changes.covers(path)) {
+                    templateKeys.put(path, key);
+                } else {
+                    polledTemplates.add(key);
+                }
+            }
         } else {
             BaseTemplate template = templates.get(key);
-            if (Play.mode == Play.Mode.DEV && template.timestamp < file.lastModified()) {
+            // When the templates are watched, only look at the file if something changed
+            FileWatcher.Changes changes = templateChanges;
+            if (Play.mode == Play.Mode.DEV && (changes == null || changes.hasChanges() || polledTemplates.contains(key))
+                    && template.timestamp < file.lastModified()) {
                 templates.put(key, new GroovyTemplateCompiler().compile(file));
             }
         }
@@ -159,6 +188,37 @@ public class TemplateLoader {
      */
     public static void cleanCompiledCache() {
         templates.clear();
+        templateKeys.clear();
+        polledTemplates.clear();
+        templateChanges = FileWatcher.changes("templates", Play.templatesPath);
+        if (templateChanges != null) {
+            // Nothing is loaded yet
+            templateChanges.takeModified();
+        }
+    }
+
+    /**
+     * Drop the templates whose file changed since they were loaded, when the
+     * templates are watched. They are compiled again when they are loaded.
+     */
+    public static void detectChanges() {
+        FileWatcher.Changes changes = templateChanges;
+        if (changes == null || !changes.hasChanges()) {
+            return;
+        }
+        Set<Path> modified = changes.takeModified();
+        for (Map.Entry<Path, String> entry : templateKeys.entrySet()) {
+            if (modified == null || modified.contains(entry.getKey())) {
+                BaseTemplate template = templates.get(entry.getValue());
+                if (template != null && template.timestamp < entry.getKey().toFile().lastModified()) {
+                    templates.remove(entry.getValue());
+                }
+            }
+        }
+    }
+
+    private static Path path(VirtualFile file) {
+        return file.getRealFile().toPath().toAbsolutePath().normalize();
     }
 
     /**
@@ -0,0 +1,191 @@
+package play.utils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A daemon thread writing the elements that other threads enqueue in a bounded
+ * {@link RingBuffer}, in batches, so that they never wait for the writes (the
+ * async logger, the access log, the trace exporter...).
+ *
+ * The thread parks while the buffer is empty, and is woken up by the next
+ * element. The writers still running when the JVM stops are stopped by a
+ * single shutdown hook, the last started first, after writing the elements
+ * left.
+ */
+public class BackgroundWriter<E> {
+
+    /**
+     * Writes the elements, on the background thread
+     */
+    public interface Sink<E> {
+
+        void write(E element);
+
+        /**
+         * Called after each batch
+         */
+        default void flush() {
+        }
+
+        /**
+         * Called once the writer is stopped and the elements left are written
+         */
+        default void close() {
+        }
+    }
+
+    private static final int BATCH = 256;
+
+    /**
+     * The started writers, stopped by the shutdown hook
+     */
+    private static final List<BackgroundWriter<?>> running = new CopyOnWriteArrayList<>();
+    private static Thread shutdownHook;
+
+    private final RingBuffer<E> buffer;
+    private final Sink<E> sink;
+    private final long parkNanos;
+    private final AtomicLong written = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean idle;
+    private volatile boolean stopped;
+
+    /**
+     * @param name
+     *            The name of the thread
+     * @param parkMillis
+     *            How long the thread parks when the buffer is empty, at most
+     */
+    public BackgroundWriter(String name, int capacity, long parkMillis, Sink<E> sink) {
+        this.buffer = new RingBuffer<>(capacity);
+        this.sink = sink;
+        this.parkNanos = TimeUnit.MILLISECONDS.toNanos(parkMillis);
+        this.thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        registerShutdownHook();
+        running.add(this);
+        thread.start();
+    }
+
+    private static synchronized void registerShutdownHook() {
+        if (shutdownHook == null) {
+            shutdownHook = new Thread(BackgroundWriter::stopAll, "play-background-writers-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    private static void stopAll() {
+        for (int i = running.size() - 1; i >= 0; i--) {
+            running.get(i).stop();
+        }
+    }
+
+    /**
+     * Enqueue an element, and wake the thread up if it waits for one
+     *
+     * @return false if the buffer is full or the writer is stopped
+     */
+    public boolean offer(E element) {
+        if (stopped || !buffer.offer(element)) {
+            return false;
+        }
+        if (idle) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    /**
+     * Wake the thread up, to make room in a full buffer
+     */
+    public void wakeUp() {
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * @return true when called from the background thread, by a sink
+     */
+    public boolean isWriterThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    private void run() {
+        while (!stopped) {
+            if (drain() == 0) {
+                idle = true;
+                if (buffer.size() == 0 && !stopped) {
+                    LockSupport.parkNanos(parkNanos);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    /**
+     * Write a batch of elements
+     *
+     * @return The number of elements written
+     */
+    private int drain() {
+        int count = 0;
+        E element;
+        while (count < BATCH && (element = buffer.poll()) != null) {
+            sink.write(element);
+            count++;
+        }
+        if (count > 0) {
+            sink.flush();
+            written.addAndGet(count);
+        }
+        return count;
+    }
+
+    /**
+     * Stop the background thread, after writing the elements left
+     */
+    public synchronized void stop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        running.remove(this);
+        if (!thread.isAlive()) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!thread.isAlive()) {
+            while (drain() > 0) {
+                // Write the elements enqueued before the stop
+            }
+            sink.close();
+        }
+    }
+
+    public int size() {
+        return buffer.size();
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    public long written() {
+        return written.get();
+    }
+}
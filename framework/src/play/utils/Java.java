@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.FutureTask;
 
 import javassist.ClassPool;
@@ -38,24 +39,21 @@ import play.mvc.With;
  */
 public class Java {
 
-    protected static JavaWithCaching _javaWithCaching = new JavaWithCaching();
-    protected static ApplicationClassloaderState _lastKnownApplicationClassloaderState = Play.classloader.currentState;
-    private static final Object _javaWithCachingLock = new Object();
+    protected static volatile JavaWithCaching _javaWithCaching = new JavaWithCaching();
+    protected static volatile ApplicationClassloaderState _lastKnownApplicationClassloaderState = Play.classloader.currentState;
 
     protected static JavaWithCaching getJavaWithCaching() {
-        synchronized (_javaWithCachingLock) {
-            // has the state of the ApplicationClassloader changed?
-            ApplicationClassloaderState currentApplicationClassloaderState = Play.classloader.currentState;
-            if (!currentApplicationClassloaderState.equals(_lastKnownApplicationClassloaderState)) {
-                // it has changed.
-                // we must drop our current _javaWithCaching and create a new one...
-                // and start the caching over again.
-                _lastKnownApplicationClassloaderState = currentApplicationClassloaderState;
-                _javaWithCaching = new JavaWithCaching();
-
-            }
-            return _javaWithCaching;
-        }
+        // has the state of the ApplicationClassloader changed?
+        ApplicationClassloaderState currentApplicationClassloaderState = Play.classloader.currentState;
+        if (!currentApplicationClassloaderState.equals(_lastKnownApplicationClassloaderState)) {
+            // it has changed.
+            // we must drop our current _javaWithCaching and create a new one...
+            // and start the caching over again.
+            // The cache is published before the state, so that a thread seeing the new state sees the new cache.
+            _javaWithCaching = new JavaWithCaching();
+            _lastKnownApplicationClassloaderState = currentApplicationClassloaderState;
+        }
+        return _javaWithCaching;
     }
 
     public static String[] extractInfosFromByteCode(byte[] code) {
@@ -492,9 +490,9 @@ class JavaWithCaching {
 
     // cache follows..
 
-    private final Object classAndAnnotationsLock = new Object();
-    private final Map<ClassAndAnnotation, List<Method>> classAndAnnotation2Methods = new HashMap<>();
-    private final Map<Class<?>, List<Method>> class2AllMethodsWithAnnotations = new HashMap<>();
+    // Read on every invocation: no lock, a method list may be computed twice the first time
+    private final Map<ClassAndAnnotation, List<Method>> classAndAnnotation2Methods = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<Method>> class2AllMethodsWithAnnotations = new ConcurrentHashMap<>();
 
     /**
      * Find all annotated method from a class
@@ -511,34 +509,31 @@ class JavaWithCaching {
             return new ArrayList<>(0);
         }
 
-        synchronized (classAndAnnotationsLock) {
-
-            // first look in cache
+        // first look in cache
 
-            ClassAndAnnotation key = new ClassAndAnnotation(clazz, annotationType);
+        ClassAndAnnotation key = new ClassAndAnnotation(clazz, annotationType);
 
-            List<Method> methods = classAndAnnotation2Methods.get(key);
-            if (methods != null) {
-                // cache hit
-                return methods;
-            }
-            // have to resolve it.
-            methods = new ArrayList<>();
+        List<Method> methods = classAndAnnotation2Methods.get(key);
+        if (methods != null) {
+            // cache hit
+            return methods;
+        }
+        // have to resolve it.
+        methods = new ArrayList<>();
 
-            // get list of all annotated methods on this class..
-            for (Method method : findAllAnnotatedMethods(clazz)) {
-                if (method.isAnnotationPresent(annotationType)) {
-                    methods.add(method);
-                }
+        // get list of all annotated methods on this class..
+        for (Method method : findAllAnnotatedMethods(clazz)) {
+            if (method.isAnnotationPresent(annotationType)) {
+                methods.add(method);
             }
+        }
 
-            sortByPriority(methods, annotationType);
+        sortByPriority(methods, annotationType);
 
-            // store it in cache
-            classAndAnnotation2Methods.put(key, methods);
+        // store it in cache
+        classAndAnnotation2Methods.put(key, methods);
 
-            return methods;
-        }
+        return methods;
     }
 
     private void sortByPriority(List<Method> methods, final Class<? extends Annotation> annotationType) {
@@ -570,34 +565,36 @@ class JavaWithCaching {
      * @return A list of method object
      */
     public List<Method> findAllAnnotatedMethods(Class<?> clazz) {
-        synchronized (classAndAnnotationsLock) {
-            // first check the cache..
-            List<Method> methods = class2AllMethodsWithAnnotations.get(clazz);
-            if (methods != null) {
-                // cache hit
-                return methods;
-            }
-            // have to resolve it..
-            methods = new ArrayList<>();
-            // Clazz can be null if we are looking at an interface / annotation
-            while (clazz != null && !clazz.equals(Object.class)) {
-                for (Method method : clazz.getDeclaredMethods()) {
-                    if (method.getAnnotations().length > 0) {
-                        methods.add(method);
-                    }
+        if (clazz == null) {
+            return new ArrayList<>(0);
+        }
+        // first check the cache..
+        List<Method> methods = class2AllMethodsWithAnnotations.get(clazz);
+        if (methods != null) {
+            // cache hit
+            return methods;
+        }
+        // have to resolve it..
+        methods = new ArrayList<>();
+        // Clazz can be null if we are looking at an interface / annotation
+        Class<?> current = clazz;
+        while (current != null && !current.equals(Object.class)) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.getAnnotations().length > 0) {
+                    methods.add(method);
                 }
-                if (clazz.isAnnotationPresent(With.class)) {
-                    for (Class withClass : clazz.getAnnotation(With.class).value()) {
-                        methods.addAll(findAllAnnotatedMethods(withClass));
-                    }
+            }
+            if (current.isAnnotationPresent(With.class)) {
+                for (Class withClass : current.getAnnotation(With.class).value()) {
+                    methods.addAll(findAllAnnotatedMethods(withClass));
                 }
-                clazz = clazz.getSuperclass();
             }
-
-            // store it in the cache.
-            class2AllMethodsWithAnnotations.put(clazz, methods);
-            return methods;
+            current = current.getSuperclass();
         }
+
+        // store it in the cache.
+        class2AllMethodsWithAnnotations.put(clazz, methods);
+        return methods;
     }
 
 }
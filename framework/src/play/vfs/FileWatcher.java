@@ -0,0 +1,392 @@
+package play.vfs;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import play.Logger;
+import play.Play;
+
+/**
+ * Watches the application files in DEV mode with the file system
+ * notifications, so that the change detection does not have to look at every
+ * file on each request.
+ *
+ * Each subsystem reads the changes of its files from its own {@link Changes}
+ * channel. When the notifications are not available (or
+ * <code>play.watcher=poll</code>), {@link #get()} returns null and the
+ * subsystems poll their files as before.
+ */
+public class FileWatcher {
+
+    private static volatile FileWatcher instance;
+    private static volatile boolean polling;
+
+    private final WatchService service;
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    /**
+     * Directories whose new sub directories are watched too
+     */
+    private final Set<Path> recursive = ConcurrentHashMap.newKeySet();
+    private final Map<String, Changes> channels = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * The files changed since a subsystem last looked, among the files under
+     * its roots
+     */
+    public static class Changes {
+
+        final List<Path> roots;
+        private final Set<Path> modified = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean pending = new AtomicBoolean(true);
+        private final AtomicBoolean structure = new AtomicBoolean(true);
+        /**
+         * Set when the changed files are not known: at first, after lost
+         * events, and for good once the watcher is closed
+         */
+        private final AtomicBoolean everything = new AtomicBoolean(true);
+        private volatile boolean closed;
+
+        Changes(List<Path> roots) {
+            this.roots = roots;
+        }
+
+        /**
+         * @return true if the path is under one of the watched roots
+         */
+        public boolean covers(Path path) {
+            for (Path root : roots) {
+                if (path.startsWith(root)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void changed(Path path, boolean created) {
+            modified.add(path);
+            if (created) {
+                structure.set(true);
+            }
+            pending.set(true);
+        }
+
+        void lost() {
+            everything.set(true);
+            structure.set(true);
+            pending.set(true);
+        }
+
+        void close() {
+            closed = true;
+            lost();
+        }
+
+        /**
+         * @return true if something may have changed since the last
+         *         {@link #takeModified()}
+         */
+        public boolean hasChanges() {
+            return closed || pending.get();
+        }
+
+        /**
+         * The files created, modified or deleted since the last call
+         *
+         * @return The files, or null if every file must be checked
+         */
+        public Set<Path> takeModified() {
+            if (!pending.get() && !closed) {
+                return new HashSet<>(0);
+            }
+            pending.set(false);
+            boolean all = everything.getAndSet(false) || closed;
+            Set<Path> files = new HashSet<>(modified);
+            modified.removeAll(files);
+            return all ? null : files;
+        }
+
+        /**
+         * @return true if files were created or deleted since the last call
+         */
+        public boolean takeStructureChanged() {
+            return closed || structure.getAndSet(false);
+        }
+    }
+
+    /**
+     * The watcher of the application, created the first time it is needed
+     *
+     * @return The watcher, or null if the files must be polled
+     */
+    public static FileWatcher get() {
+        if (Play.mode != Play.Mode.DEV) {
+            return null;
+        }
+        FileWatcher watcher = instance;
+        if (watcher != null || polling || !Play.initialized) {
+            return watcher;
+        }
+        return create();
+    }
+
+    private static synchronized FileWatcher create() {
+        if (instance != null || polling) {
+            return instance;
+        }
+        if ("poll".equals(Play.configuration.getProperty("play.watcher", "native"))) {
+            polling = true;
+            return null;
+        }
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            // The JDK falls back to polling every few seconds where there are
+            // no notifications (like OS X), which is slower than polling
+            // ourselves on each request
+            if (service.getClass().getName().contains("Polling")) {
+                service.close();
+                polling = true;
+                return null;
+            }
+            instance = new FileWatcher(service);
+            Logger.trace("Watching the application files with %s", service.getClass().getName());
+        } catch (IOException | UnsupportedOperationException e) {
+            Logger.warn("Cannot watch the application files (%s), they will be polled", e.getMessage());
+            polling = true;
+        }
+        return instance;
+    }
+
+    /**
+     * Close the watcher of the application when it stops. The channels report
+     * every file as changed until the subsystems ask for new ones, and the
+     * next {@link #get()} watches the files again.
+     */
+    public static synchronized void shutdown() {
+        FileWatcher watcher = instance;
+        if (watcher != null) {
+            watcher.close();
+        }
+        instance = null;
+        polling = false;
+    }
+
+    /**
+     * The channel of this subsystem, watching these roots
+     *
+     * @param name
+     *            The name of the subsystem
+     * @param files
+     *            Directories, watched with their sub directories, and
+     *            files, watched with their directory
+     * @return The channel, or null if the files must be polled
+     */
+    public static Changes changes(String name, Collection<VirtualFile> files) {
+        FileWatcher watcher = get();
+        if (watcher == null) {
+            return null;
+        }
+        List<Path> roots = new ArrayList<>(files.size());
+        for (VirtualFile file : files) {
+            if (file != null) {
+                roots.add(file.getRealFile().toPath());
+            }
+        }
+        return watcher.channel(name, roots);
+    }
+
+    public FileWatcher() throws IOException {
+        this(FileSystems.getDefault().newWatchService());
+    }
+
+    FileWatcher(WatchService service) {
+        this.service = service;
+        Thread thread = new Thread(this::run, "play-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Incremented after each batch of changes. As long as it does not move,
+     * none of the watched files changed.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * The channel of this name, watching these roots. It is created, or
+     * replaced if the roots are different: the previous channel then reports
+     * every file as changed, and the next {@link Changes#takeModified()} of
+     * the new one returns null.
+     *
+     * @param name
+     *            The name of the subsystem
+     * @param roots
+     *            Directories, watched with their sub directories, and files,
+     *            watched with their directory
+     * @return The channel
+     */
+    public Changes channel(String name, List<Path> roots) {
+        List<Path> normalized = new ArrayList<>(roots.size());
+        for (Path root : roots) {
+            normalized.add(root.toAbsolutePath().normalize());
+        }
+        Changes previous = channels.get(name);
+        if (previous != null && previous.roots.equals(normalized)) {
+            return previous;
+        }
+        Changes changes = new Changes(normalized);
+        try {
+            for (Path root : normalized) {
+                if (Files.isDirectory(root)) {
+                    registerAll(root, null);
+                } else if (root.getParent() != null && Files.isDirectory(root.getParent())) {
+                    register(root.getParent());
+                }
+            }
+        } catch (IOException e) {
+            // Like the limit of watches of the system
+            Logger.warn("Cannot watch the application files (%s), they will be polled", e.getMessage());
+            close();
+            changes.close();
+            return changes;
+        }
+        if (closed) {
+            changes.close();
+        }
+        previous = channels.put(name, changes);
+        if (previous != null) {
+            previous.close();
+        }
+        return changes;
+    }
+
+    private void register(Path directory) throws IOException {
+        directories.put(directory.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), directory);
+    }
+
+    /**
+     * Watch this directory and its sub directories
+     *
+     * @param created
+     *            If not null, the files found are published as created
+     */
+    private void registerAll(Path root, List<Path> created) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root) && dir.getFileName().toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                register(dir);
+                recursive.add(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (created != null) {
+                    created.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void run() {
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW || directory == null) {
+                    for (Changes changes : channels.values()) {
+                        changes.lost();
+                    }
+                    continue;
+                }
+                Path path = directory.resolve((Path) event.context());
+                boolean created = event.kind() != ENTRY_MODIFY;
+                List<Path> paths = new ArrayList<>(1);
+                paths.add(path);
+                if (event.kind() == ENTRY_CREATE && recursive.contains(directory) && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    // Its files may have been created before it is watched
+                    try {
+                        registerAll(path, paths);
+                    } catch (IOException e) {
+                        Logger.warn("Cannot watch %s (%s)", path, e.getMessage());
+                    }
+                }
+                for (Path changed : paths) {
+                    for (Changes changes : channels.values()) {
+                        if (changes.covers(changed)) {
+                            changes.changed(changed, created);
+                        }
+                    }
+                }
+            }
+            if (!key.reset()) {
+                directories.remove(key);
+                recursive.remove(directory);
+            }
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stop watching: the channels report every file as changed from now on
+     */
+    public void close() {
+        closed = true;
+        for (Changes changes : channels.values()) {
+            changes.close();
+        }
+        version.incrementAndGet();
+        try {
+            service.close();
+        } catch (IOException e) {
+            Logger.warn(e, "Cannot close the file watcher");
+        }
+        synchronized (FileWatcher.class) {
+            if (instance == this) {
+                instance = null;
+                polling = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package play;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.Formattable;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncLoggerTest {
+
+    private org.apache.log4j.Logger log4j;
+    private Level level;
+    private boolean recordCaller;
+    private CapturingAppender appender;
+
+    static class CapturingAppender extends AppenderSkeleton {
+
+        final List<LoggingEvent> events = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch entered;
+        volatile CountDownLatch release;
+
+        @Override
+        protected void append(LoggingEvent event) {
+            if (entered != null) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+
+        void await(int count) throws InterruptedException {
+            long timeout = System.currentTimeMillis() + 10000;
+            while (events.size() < count && System.currentTimeMillis() < timeout) {
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() {
+        log4j = Logger.log4j;
+        recordCaller = Logger.recordCaller;
+        Logger.log4j = org.apache.log4j.Logger.getLogger("play");
+        level = Logger.log4j.getLevel();
+        Logger.log4j.setLevel(Level.DEBUG);
+        appender = new CapturingAppender();
+        Logger.log4j.addAppender(appender);
+    }
+
+    @After
+    public void tearDown() {
+        AsyncLogger.configure(new Properties());
+        Logger.log4j.removeAppender(appender);
+        Logger.log4j.setLevel(level);
+        Logger.log4j = log4j;
+        Logger.recordCaller = recordCaller;
+    }
+
+    private static Properties async(String... settings) {
+        Properties configuration = new Properties();
+        configuration.setProperty("application.log.async", "true");
+        for (int i = 0; i < settings.length; i += 2) {
+            configuration.setProperty(settings[i], settings[i + 1]);
+        }
+        return configuration;
+    }
+
+    @Test
+    public void messagesAreFormattedAndWrittenInTheBackground() throws Exception {
+        AsyncLogger.configure(async());
+        StringBuilder changing = new StringBuilder("before");
+
+        Logger.info("Order %d for %s", 42, changing);
+        changing.append(" and after");
+        Logger.debug("Not formatted %s");
+        Logger.trace("Below the level");
+        appender.await(2);
+
+        assertEquals(2, appender.events.size());
+        LoggingEvent order = appender.events.get(0);
+        assertEquals("Order 42 for before", order.getRenderedMessage());
+        assertEquals(Level.INFO, order.getLevel());
+        assertEquals(Thread.currentThread().getName(), order.getThreadName());
+        assertEquals("play", order.getLoggerName());
+        assertEquals("Not formatted %s", appender.events.get(1).getRenderedMessage());
+        assertEquals(2, AsyncLogger.get().written());
+    }
+
+    @Test
+    public void mutableArgumentsAreFormattedAsTheyWere() throws Exception {
+        AsyncLogger.configure(async());
+        Calendar day = new GregorianCalendar(2024, Calendar.MARCH, 1);
+        AtomicLong count = new AtomicLong(3);
+        Formattable upperCase = (formatter, flags, width, precision) -> formatter.format("FORMATTED");
+
+        Logger.info("%tF, %s items, %s", day, count, upperCase);
+        day.add(Calendar.DAY_OF_MONTH, 1);
+        count.incrementAndGet();
+        appender.await(1);
+
+        assertEquals("2024-03-01, 3 items, FORMATTED", appender.events.get(0).getRenderedMessage());
+    }
+
+    @Test
+    public void exceptionsAreWrittenWithTheirMessage() throws Exception {
+        AsyncLogger.configure(async());
+
+        Logger.error(new IllegalStateException("Broken"), "Cannot save %s", "order");
+        appender.await(1);
+
+        LoggingEvent event = appender.events.get(0);
+        assertEquals("Cannot save order", event.getRenderedMessage());
+        assertEquals("Broken", event.getThrowableInformation().getThrowable().getMessage());
+    }
+
+    @Test
+    public void theStackTraceIsCleanedBeforeTheExceptionIsEnqueued() throws Exception {
+        AsyncLogger.configure(async());
+        appender.entered = new CountDownLatch(1);
+        appender.release = new CountDownLatch(1);
+        Logger.info("Taken by the background thread");
+        assertTrue(appender.entered.await(10, TimeUnit.SECONDS));
+        IllegalStateException exception = new IllegalStateException("Broken");
+        exception.setStackTrace(new StackTraceElement[] { new StackTraceElement("controllers.Orders", "save", "Orders.java", 12),
+                new StackTraceElement("sun.reflect.NativeMethodAccessorImpl", "invoke", null, -1) });
+
+        Logger.error(exception, "Cannot save %s", "order");
+
+        // Not written yet: only the logging thread touched the exception
+        assertEquals(1, AsyncLogger.get().size());
+        assertEquals(1, exception.getStackTrace().length);
+        appender.release.countDown();
+        appender.await(2);
+        assertEquals("Cannot save order", appender.events.get(1).getRenderedMessage());
+    }
+
+    @Test
+    public void theCallerIsRecordedOnTheLoggingThread() throws Exception {
+        Logger.recordCaller = true;
+        AsyncLogger.configure(async());
+
+        Logger.warn("From the test");
+        appender.await(1);
+
+        LoggingEvent event = appender.events.get(0);
+        assertEquals(AsyncLoggerTest.class.getName(), event.getLoggerName());
+        assertEquals("theCallerIsRecordedOnTheLoggingThread", event.getLocationInformation().getMethodName());
+        assertEquals("AsyncLoggerTest.java", event.getLocationInformation().getFileName());
+    }
+
+    @Test
+    public void messagesAreDroppedWhenTheBufferIsFull() throws Exception {
+        AsyncLogger.configure(async("application.log.async.bufferSize", "2", "application.log.async.overflow", "drop"));
+        AsyncLogger logger = AsyncLogger.get();
+        assertEquals(2, logger.capacity());
+        appender.entered = new CountDownLatch(1);
+        appender.release = new CountDownLatch(1);
+
+        Logger.info("Taken by the background thread");
+        assertTrue(appender.entered.await(10, TimeUnit.SECONDS));
+        Logger.info("Queued 1");
+        Logger.info("Queued 2");
+        Logger.info("Dropped");
+        assertEquals(2, logger.size());
+        assertEquals(1, logger.dropped());
+
+        appender.release.countDown();
+        appender.await(3);
+        assertEquals(3, appender.events.size());
+        assertEquals("Queued 2", appender.events.get(2).getRenderedMessage());
+    }
+
+    @Test
+    public void theLoggerIsReplacedWhenItsSettingsChange() {
+        AsyncLogger.configure(async());
+        AsyncLogger logger = AsyncLogger.get();
+        AsyncLogger.configure(async());
+        assertEquals(logger, AsyncLogger.get());
+        assertEquals(8192, logger.capacity());
+
+        AsyncLogger.configure(async("application.log.async.bufferSize", "1000"));
+        assertNotEquals(logger, AsyncLogger.get());
+        assertEquals(1024, AsyncLogger.get().capacity());
+
+        AsyncLogger.configure(new Properties());
+        assertNull(AsyncLogger.get());
+    }
+}
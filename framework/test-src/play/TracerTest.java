@@ -0,0 +1,167 @@
+package play;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class TracerTest {
+
+    @After
+    public void tearDown() {
+        Tracer.configure(new Properties());
+        Invoker.InvocationContext.current.remove();
+    }
+
+    private static Tracer tracer(String... settings) {
+        Properties configuration = new Properties();
+        configuration.setProperty("play.trace", "true");
+        configuration.setProperty("play.trace.threshold", "0");
+        for (int i = 0; i < settings.length; i += 2) {
+            configuration.setProperty(settings[i], settings[i + 1]);
+        }
+        Tracer.configure(configuration);
+        return Tracer.get();
+    }
+
+    private static Invoker.InvocationContext invocation() {
+        Invoker.InvocationContext context = new Invoker.InvocationContext("Job");
+        Invoker.InvocationContext.current.set(context);
+        Tracer.begin(context, "jobs.Import");
+        return context;
+    }
+
+    private static Trace invoke() {
+        Invoker.InvocationContext context = invocation();
+        Trace trace = context.getTrace();
+        try (Trace.Span action = Trace.start("action", "Application.index")) {
+            try (Trace.Span query = Trace.start("jpa.query", "select * from Product")) {
+                assertTrue(query.isRecording());
+            }
+            try (Trace.Span template = Trace.start("template", "Application/index.html")) {
+                Trace.start("cache.get", "products").close();
+            }
+        }
+        Tracer.end(context);
+        return trace;
+    }
+
+    @Test
+    public void nothingIsRecordedWhenTracingIsDisabled() {
+        Invoker.InvocationContext context = invocation();
+
+        assertNull(context.getTrace());
+        assertNull(Trace.current());
+        Trace.Span span = Trace.start("action", "Application.index");
+        assertFalse(span.isRecording());
+        span.close();
+    }
+
+    @Test
+    public void spansAreNestedAsTheyAreOpened() {
+        Tracer tracer = tracer();
+        Trace trace = invoke();
+
+        assertEquals("Job", trace.root().name());
+        assertEquals("jobs.Import", trace.root().detail());
+        List<Trace.Span> actions = trace.root().children();
+        assertEquals(1, actions.size());
+        List<Trace.Span> children = actions.get(0).children();
+        assertEquals(2, children.size());
+        assertEquals("jpa.query", children.get(0).name());
+        assertEquals("select * from Product", children.get(0).detail());
+        assertEquals("cache.get", children.get(1).children().get(0).name());
+        assertTrue(trace.duration() >= actions.get(0).duration());
+        assertEquals(1, tracer.traces().size());
+        assertEquals(1, tracer.slow());
+        // Not recorded after the end of the invocation
+        assertNull(Trace.current());
+    }
+
+    @Test
+    public void onlyTheSlowInvocationsAreKept() {
+        Tracer tracer = tracer("play.trace.threshold", "60000", "play.trace.size", "2");
+        invoke();
+        assertEquals(0, tracer.traces().size());
+
+        Tracer.configure(new Properties());
+        tracer = tracer("play.trace.size", "2");
+        Trace first = invoke();
+        Trace second = invoke();
+        Trace third = invoke();
+        assertEquals(3, tracer.slow());
+        List<Trace> traces = tracer.traces();
+        assertEquals(2, traces.size());
+        assertEquals(third, traces.get(0));
+        assertEquals(second, traces.get(1));
+        assertFalse(traces.contains(first));
+    }
+
+    @Test
+    public void theSpansOfAnInvocationAreLimited() {
+        tracer("play.trace.maxSpans", "2");
+        Invoker.InvocationContext context = invocation();
+        Trace trace = context.getTrace();
+        for (int i = 0; i < 5; i++) {
+            Trace.start("cache.get", "key" + i).close();
+        }
+        Tracer.end(context);
+
+        assertEquals(2, trace.root().children().size());
+        assertEquals(3, trace.dropped());
+    }
+
+    @Test
+    public void theTracesAreShownAsATree() {
+        Tracer tracer = tracer();
+        Trace trace = invoke();
+
+        String text = tracer.toText(tracer.traces());
+        assertTrue(text, text.contains("Trace " + trace.id()));
+        assertTrue(text, text.matches("(?s).*\n\\s+[0-9.]+ ms  Job jobs\\.Import\n\\s+[0-9.]+ ms  action Application\\.index\n.*"));
+        assertTrue(text, text.contains(" ms  cache.get products\n"));
+    }
+
+    @Test
+    public void theTracesAreExportedInTheZipkinFormat() throws Exception {
+        File file = File.createTempFile("traces", ".json");
+        try {
+            Tracer tracer = tracer("play.trace.file", file.getAbsolutePath(), "application.name", "shop");
+            Trace trace = invoke();
+            invoke();
+            // Written by the background thread
+            tracer.stop();
+
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            assertEquals(2, lines.size());
+            JsonArray spans = new JsonParser().parse(lines.get(0)).getAsJsonArray();
+            assertEquals(5, spans.size());
+            JsonObject root = spans.get(0).getAsJsonObject();
+            assertEquals(trace.id(), root.get("traceId").getAsString());
+            assertFalse(root.has("parentId"));
+            assertEquals("shop", root.getAsJsonObject("localEndpoint").get("serviceName").getAsString());
+            JsonObject action = spans.get(1).getAsJsonObject();
+            assertEquals(root.get("id").getAsString(), action.get("parentId").getAsString());
+            assertEquals("Application.index", action.getAsJsonObject("tags").get("detail").getAsString());
+            assertTrue(action.get("timestamp").getAsLong() >= root.get("timestamp").getAsLong());
+            assertEquals(action.get("id").getAsString(), spans.get(2).getAsJsonObject().get("parentId").getAsString());
+            assertEquals(10, tracer.toZipkin(tracer.traces()).size());
+            assertEquals(0, tracer.dropped());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package play.classloading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+
+public class ApplicationClassloaderCacheTest {
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+    }
+
+    @Test
+    public void valuesAreKeptUntilTheClassesAreReloaded() {
+        ApplicationClassloaderCache<String, Integer> cache = new ApplicationClassloaderCache<>();
+        cache.put("one", 1);
+        assertEquals(Integer.valueOf(1), cache.get("one"));
+
+        Play.classloader.currentState = new ApplicationClassloaderState();
+
+        assertNull(cache.get("one"));
+        assertEquals(0, cache.size());
+        cache.put("two", 2);
+        assertEquals(Integer.valueOf(2), cache.get("two"));
+
+        cache.clear();
+        assertNull(cache.get("two"));
+    }
+
+    @Test
+    public void valuesAreKeptWithoutClassloader() {
+        ApplicationClassloaderCache<String, Integer> cache = new ApplicationClassloaderCache<>();
+        Play.classloader = null;
+        cache.put("one", 1);
+
+        assertEquals(Integer.valueOf(1), cache.get("one"));
+    }
+}
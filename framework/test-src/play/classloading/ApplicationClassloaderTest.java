@@ -0,0 +1,307 @@
+package play.classloading;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.Entity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+import play.PlayPlugin;
+import play.classloading.ApplicationClasses.ApplicationClass;
+import play.classloading.enhancers.Enhancer;
+import play.exceptions.CompilationException;
+import play.exceptions.RestartNeededException;
+import play.libs.IO;
+import play.plugins.EnhancerPlugin;
+import play.plugins.PluginCollection;
+import play.mvc.Controller;
+import play.vfs.VirtualFile;
+
+public class ApplicationClassloaderTest {
+
+    private static final String[] CLASSES = { "models.Base", "models.Item", "controllers.Items" };
+
+    private File app;
+    private PluginCollection pluginCollection;
+
+    @Before
+    public void setUp() throws IOException {
+        new PlayBuilder().build();
+        app = Files.createTempDirectory("app").toFile();
+        write("models/Base.java", "package models;\npublic class Base {\n    public Long id;\n}\n");
+        write("models/Item.java", "package models;\n@javax.persistence.Entity\npublic class Item extends Base implements Comparable<Item> {\n    public String name;\n    public int quantity;\n"
+                + "    public String label() {\n        return name + \" x\" + quantity;\n    }\n"
+                + "    public int compareTo(Item other) {\n        return name.compareTo(other.name);\n    }\n}\n");
+        write("controllers/Items.java", "package controllers;\nimport models.Item;\npublic class Items extends play.mvc.Controller {\n"
+                + "    public static void show(Long id) {\n        Item item = new Item();\n        item.name = \"pen\";\n"
+                + "        renderText(item.label());\n    }\n}\n");
+        Play.javaPath.add(VirtualFile.open(app));
+        pluginCollection = Play.pluginCollection;
+        Play.pluginCollection = new PluginCollection() {
+            {
+                addPlugin(new EnhancerPlugin());
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        Play.pluginCollection = pluginCollection;
+        for (String name : CLASSES) {
+            new File(app, name.replace('.', '/') + ".java").delete();
+        }
+        new File(app, "models").delete();
+        new File(app, "controllers").delete();
+        app.delete();
+    }
+
+    private void write(String path, String source) throws IOException {
+        File file = new File(app, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void edit(String path, String from, String to) throws IOException {
+        File file = new File(app, path);
+        long lastModified = file.lastModified();
+        write(path, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).replace(from, to));
+        file.setLastModified(lastModified + 10000);
+    }
+
+    private static byte[] bytecode(String name) {
+        return Play.classes.getApplicationClass(name).javaByteCode;
+    }
+
+    private Map<String, byte[]> enhance(String threads) {
+        Play.configuration.setProperty("play.enhancer.threads", threads);
+        Play.classes = new ApplicationClasses();
+        Play.classloader = new ApplicationClassloader();
+        Play.classes.compiler.compile(CLASSES);
+        Play.classloader.enhanceAll(Play.classes.all());
+
+        Map<String, byte[]> enhanced = new HashMap<>();
+        for (String name : CLASSES) {
+            ApplicationClass applicationClass = Play.classes.getApplicationClass(name);
+            assertNotNull(name, applicationClass.enhancedByteCode);
+            enhanced.put(name, applicationClass.enhancedByteCode);
+        }
+        return enhanced;
+    }
+
+    /**
+     * Enhance the classes as they are loaded, dependencies first, as they were
+     * before enhanceAll
+     */
+    private Map<String, byte[]> loadOneByOne(boolean lookupEnhancedClasses) {
+        Play.classes = new ApplicationClasses();
+        Play.classloader = new ApplicationClassloader();
+        Play.classes.compiler.compile(CLASSES);
+
+        Map<String, byte[]> enhanced = new HashMap<>();
+        for (String name : CLASSES) {
+            assertNotNull(name, Play.classloader.loadApplicationClass(name));
+            ApplicationClass applicationClass = Play.classes.getApplicationClass(name);
+            enhanced.put(name, applicationClass.enhancedByteCode);
+            if (lookupEnhancedClasses) {
+                // The enhancers of the next classes then read the enhanced bytecode of this one
+                applicationClass.javaByteCode = null;
+            }
+        }
+        return enhanced;
+    }
+
+    @Test
+    public void parallelEnhancementIsIdenticalToSequential() {
+        Map<String, byte[]> sequential = enhance("1");
+        Map<String, byte[]> parallel = enhance("4");
+        Map<String, byte[]> loaded = loadOneByOne(false);
+        for (String name : CLASSES) {
+            assertArrayEquals(name, sequential.get(name), parallel.get(name));
+            assertArrayEquals(name, loaded.get(name), parallel.get(name));
+        }
+    }
+
+    @Test
+    public void enhancersSeeTheSameClassesCompiledOrEnhanced() {
+        // Items reads the fields and methods of Item, and Item those of Base
+        Map<String, byte[]> compiled = loadOneByOne(false);
+        Map<String, byte[]> enhanced = loadOneByOne(true);
+        for (String name : CLASSES) {
+            assertArrayEquals(name, enhanced.get(name), compiled.get(name));
+        }
+    }
+
+    @Test
+    public void onlyParallelEnhancersReadTheOtherClassesAsCompiled() throws Exception {
+        enhance("1");
+        ApplicationClass item = Play.classes.getApplicationClass("models.Item");
+        Enhancer.ApplicationClassesClasspath classpath = new Enhancer.ApplicationClassesClasspath();
+        assertFalse(Arrays.equals(item.javaByteCode, item.enhancedByteCode));
+
+        assertArrayEquals(item.enhancedByteCode, IO.readContent(classpath.openClassfile("models.Item")));
+        Enhancer.readCompiledClasses(true);
+        try {
+            assertArrayEquals(item.javaByteCode, IO.readContent(classpath.openClassfile("models.Item")));
+        } finally {
+            Enhancer.readCompiledClasses(false);
+        }
+    }
+
+    @Test
+    public void otherPluginsEnhanceOnOneThreadUnlessAsked() {
+        final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+        assertTrue(Play.pluginCollection.hasOnlyThreadSafeEnhancers());
+        Play.pluginCollection = new PluginCollection() {
+            {
+                addPlugin(new EnhancerPlugin());
+                addPlugin(new PlayPlugin() {
+                    @Override
+                    public void enhance(ApplicationClass applicationClass) {
+                        threads.add(Thread.currentThread());
+                    }
+                });
+            }
+        };
+        assertFalse(Play.pluginCollection.hasOnlyThreadSafeEnhancers());
+
+        Play.configuration.remove("play.enhancer.threads");
+        Play.classes = new ApplicationClasses();
+        Play.classloader = new ApplicationClassloader();
+        Play.classes.compiler.compile(CLASSES);
+        Play.classloader.enhanceAll(Play.classes.all());
+
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void enhancedClassesAreDefinedWithoutEnhancingAgain() throws Exception {
+        enhance("4");
+        byte[] enhanced = Play.classes.getApplicationClass("models.Item").enhancedByteCode;
+
+        Class<?> item = Play.classloader.loadClass("models.Item");
+
+        assertEquals("models.Item", item.getName());
+        assertNotNull(item.getMethod("getName"));
+        assertArrayEquals(enhanced, Play.classes.getApplicationClass("models.Item").enhancedByteCode);
+    }
+
+    @Test
+    public void onlyMatchingClassesAreLoadedByIndexedLookups() {
+        enhance("1");
+
+        List<ApplicationClass> controllers = Play.classes.getAssignableClasses(Controller.class);
+        assertEquals(1, controllers.size());
+        assertEquals("controllers.Items", controllers.get(0).name);
+        assertNull(Play.classes.getApplicationClass("models.Item").javaClass);
+        assertNull(Play.classes.getApplicationClass("models.Base").javaClass);
+
+        assertEquals(1, Play.classes.getAssignableClasses(Comparable.class).size());
+        List<ApplicationClass> bases = Play.classes.getAssignableClasses(Play.classloader.loadApplicationClass("models.Base"));
+        assertEquals(1, bases.size());
+        assertEquals("models.Item", bases.get(0).name);
+
+        List<ApplicationClass> entities = Play.classes.getAnnotatedClasses(Entity.class);
+        assertEquals(1, entities.size());
+        assertEquals("models.Item", entities.get(0).name);
+        assertEquals(0, Play.classes.getAnnotatedClasses(Deprecated.class).size());
+    }
+
+    @Test
+    public void changedSourcesAreIndexedAgain() throws IOException {
+        enhance("1");
+        assertEquals(1, Play.classes.getAnnotatedClasses(Entity.class).size());
+
+        ApplicationClass item = Play.classes.getApplicationClass("models.Item");
+        item.javaSource = item.javaSource.replace("@javax.persistence.Entity", "");
+        item.sourceHash = ClassIndex.hash(item.javaSource);
+        item.javaByteCode = null;
+        item.enhanced = false;
+        Play.classes.compiler.compile(new String[] { "models.Item" });
+        item.enhance();
+
+        assertEquals(0, Play.classes.getAnnotatedClasses(Entity.class).size());
+    }
+
+    @Test
+    public void onlyChangedSourcesAreRecompiled() throws Exception {
+        enhance("1");
+        byte[] item = bytecode("models.Item");
+        byte[] items = bytecode("controllers.Items");
+        byte[] base = bytecode("models.Base");
+
+        edit("models/Item.java", "\" x\"", "\" * \"");
+        Play.classloader.detectChanges();
+
+        assertNotSame(item, bytecode("models.Item"));
+        assertSame(items, bytecode("controllers.Items"));
+        assertSame(base, bytecode("models.Base"));
+        assertTrue(Play.classes.getApplicationClass("models.Item").enhanced);
+    }
+
+    @Test
+    public void classesReferringToAChangedSignatureAreRecompiled() throws Exception {
+        enhance("1");
+        byte[] items = bytecode("controllers.Items");
+        byte[] base = bytecode("models.Base");
+
+        edit("models/Item.java", "public int quantity;", "public long quantity;");
+        try {
+            Play.classloader.detectChanges();
+            fail("A signature change needs a restart");
+        } catch (RestartNeededException e) {
+            assertEquals("Signature change !", e.getMessage());
+        }
+
+        assertNotSame(items, bytecode("controllers.Items"));
+        assertSame(base, bytecode("models.Base"));
+    }
+
+    @Test
+    public void classesReferringToADeletedClassAreRecompiled() throws Exception {
+        enhance("1");
+        File base = new File(app, "models/Base.java");
+        String source = new String(Files.readAllBytes(base.toPath()), StandardCharsets.UTF_8);
+        base.delete();
+
+        try {
+            Play.classloader.detectChanges();
+            fail("models.Item extends the deleted class");
+        } catch (CompilationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Base"));
+        }
+        assertNull(Play.classes.classes.get("models.Base"));
+
+        write("models/Base.java", source);
+        try {
+            Play.classloader.detectChanges();
+            fail("Classes were recompiled while the application could not be reloaded");
+        } catch (RestartNeededException e) {
+            assertNotNull(bytecode("models.Item"));
+            assertNotNull(bytecode("models.Base"));
+        }
+    }
+}
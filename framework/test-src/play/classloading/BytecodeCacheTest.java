@@ -0,0 +1,213 @@
+package play.classloading;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+
+public class BytecodeCacheTest {
+
+    private File tmp;
+
+    @Before
+    public void setUp() throws IOException {
+        new PlayBuilder().build();
+        tmp = Files.createTempDirectory("tmp").toFile();
+        Play.tmpDir = tmp;
+        Play.readOnlyTmp = false;
+        Play.initialized = true;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        BytecodeCache.close();
+        Play.initialized = false;
+        Play.tmpDir = null;
+        FileUtils.deleteDirectory(tmp);
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private File store() {
+        return new File(tmp, "bytecode/" + Play.mode.name() + "/.store");
+    }
+
+    @Test
+    public void bytecodeIsKeptInASingleStore() {
+        BytecodeCache.cacheBytecode(bytes("item"), "models.Item", "class Item {}");
+        BytecodeCache.cacheBytecode(bytes("view"), "/app/views/index.html", "<p>index</p>");
+
+        assertArrayEquals(bytes("item"), BytecodeCache.getBytecode("models.Item", "class Item {}"));
+        assertNull(BytecodeCache.getBytecode("models.Item", "class Item { int a; }"));
+
+        BytecodeCache.close();
+        assertArrayEquals(bytes("item"), BytecodeCache.getBytecode("models.Item", "class Item {}"));
+        assertArrayEquals(bytes("view"), BytecodeCache.getBytecode("/app/views/index.html", "<p>index</p>"));
+        assertEquals(Arrays.asList(".store"), Arrays.asList(store().getParentFile().list()));
+        assertFalse(new File(tmp, "classes").exists());
+    }
+
+    @Test
+    public void deletedBytecodeStaysDeleted() {
+        BytecodeCache.cacheBytecode(bytes("item"), "models.Item", "class Item {}");
+        BytecodeCache.deleteBytecode("models.Item");
+        assertNull(BytecodeCache.getBytecode("models.Item", "class Item {}"));
+
+        BytecodeCache.close();
+        assertNull(BytecodeCache.getBytecode("models.Item", "class Item {}"));
+    }
+
+    @Test
+    public void batchedBytecodeIsWrittenAtTheEnd() {
+        BytecodeCache.startBatch();
+        BytecodeCache.cacheBytecode(bytes("item"), "models.Item", "class Item {}");
+        assertArrayEquals(bytes("item"), BytecodeCache.getBytecode("models.Item", "class Item {}"));
+        long before = store().length();
+
+        BytecodeCache.endBatch();
+
+        assertTrue(store().length() > before);
+        BytecodeCache.close();
+        assertArrayEquals(bytes("item"), BytecodeCache.getBytecode("models.Item", "class Item {}"));
+    }
+
+    @Test
+    public void deadRecordsAreCompactedWhileWriting() throws IOException {
+        File file = store();
+        file.getParentFile().mkdirs();
+        byte[] bytecode = new byte[100 * 1024];
+        BytecodeStore store = BytecodeStore.open(file, false);
+        for (int i = 0; i < 30; i++) {
+            bytecode[0] = (byte) i;
+            store.put("models.Item", i, bytecode, false);
+        }
+        store.put("models.Other", 1, bytes("other"), false);
+
+        assertTrue(file.length() < 2 * BytecodeStore.COMPACT_THRESHOLD);
+        assertEquals(29, store.get("models.Item", 29)[0]);
+        assertNull(store.get("models.Item", 28));
+        assertArrayEquals(bytes("other"), store.get("models.Other", 1));
+        store.close();
+        store = BytecodeStore.open(file, true);
+        assertEquals(29, store.get("models.Item", 29)[0]);
+        store.close();
+    }
+
+    @Test
+    public void deadRecordsAreCompactedOnOpen() throws IOException {
+        File file = store();
+        file.getParentFile().mkdirs();
+        byte[] bytecode = new byte[100 * 1024];
+        // Written by a process that could not compact the file
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(0x504c4243);
+            out.writeInt(1);
+            for (int i = 0; i < 30; i++) {
+                bytecode[0] = (byte) i;
+                writeRecord(out, "models.Item", i, bytecode);
+            }
+            writeRecord(out, "models.Other", 1, bytes("other"));
+        }
+        assertTrue(file.length() > 30 * bytecode.length);
+
+        BytecodeStore store = BytecodeStore.open(file, false);
+
+        assertTrue(file.length() < 2 * bytecode.length);
+        assertEquals(29, store.get("models.Item", 29)[0]);
+        assertNull(store.get("models.Item", 28));
+        assertArrayEquals(bytes("other"), store.get("models.Other", 1));
+        store.put("models.Last", 1, bytes("last"), false);
+        store.close();
+        store = BytecodeStore.open(file, true);
+        assertArrayEquals(bytes("last"), store.get("models.Last", 1));
+        store.close();
+    }
+
+    private static void writeRecord(DataOutputStream out, String name, long hash, byte[] bytecode) throws IOException {
+        byte[] key = bytes(name);
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeLong(hash);
+        out.writeInt(bytecode.length);
+        out.write(bytecode);
+    }
+
+    @Test
+    public void aStoreLockedByAnotherOwnerIsOnlyRead() throws IOException {
+        File file = store();
+        file.getParentFile().mkdirs();
+        BytecodeStore owner = BytecodeStore.open(file, false);
+        owner.put("models.Item", 1, bytes("item"), false);
+        try {
+            BytecodeStore other = BytecodeStore.open(file, false);
+            assertArrayEquals(bytes("item"), other.get("models.Item", 1));
+            other.put("models.Other", 1, bytes("other"), false);
+            other.remove("models.Item");
+            other.close();
+
+            owner.put("models.Last", 1, bytes("last"), false);
+            assertArrayEquals(bytes("item"), owner.get("models.Item", 1));
+            assertNull(owner.get("models.Other", 1));
+        } finally {
+            owner.close();
+        }
+        BytecodeStore reopened = BytecodeStore.open(file, false);
+        assertEquals(2, reopened.count());
+        reopened.close();
+    }
+
+    @Test
+    public void truncatedRecordsAreDropped() throws IOException {
+        File file = store();
+        file.getParentFile().mkdirs();
+        BytecodeStore store = BytecodeStore.open(file, false);
+        store.put("models.Item", 1, bytes("item"), false);
+        store.put("models.Other", 1, bytes("other"), false);
+        store.close();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 2);
+        }
+
+        store = BytecodeStore.open(file, false);
+
+        assertArrayEquals(bytes("item"), store.get("models.Item", 1));
+        assertNull(store.get("models.Other", 1));
+        assertEquals(1, store.count());
+        store.close();
+    }
+
+    @Test
+    public void oneFilePerClassCanStillBeUsed() {
+        Play.configuration.setProperty("play.bytecodeCache.store", "files");
+        try {
+            BytecodeCache.cacheBytecode(bytes("item"), "models.Item", "class Item {}");
+
+            assertArrayEquals(bytes("item"), BytecodeCache.getBytecode("models.Item", "class Item {}"));
+            assertTrue(new File(store().getParentFile(), "models.Item").exists());
+            assertTrue(new File(tmp, "classes/models/Item.class").exists());
+            assertFalse(store().exists());
+        } finally {
+            Play.configuration.remove("play.bytecodeCache.store");
+        }
+    }
+}
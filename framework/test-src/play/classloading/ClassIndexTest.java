@@ -0,0 +1,112 @@
+package play.classloading;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+
+public class ClassIndexTest {
+
+    @Deprecated
+    static class Indexed extends Thread implements Serializable, Comparable<Indexed> {
+        @Override
+        public int compareTo(Indexed o) {
+            return 0;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+    }
+
+    private static byte[] bytecode(Class<?> clazz) throws IOException {
+        try (InputStream in = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class")) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    @Test
+    public void supertypesAndAnnotationsAreReadFromBytecode() throws IOException {
+        ClassIndex.Entry entry = ClassIndex.read(42L, bytecode(Indexed.class));
+
+        assertEquals("java.lang.Thread", entry.superName);
+        assertArrayEquals(new String[] { "java.io.Serializable", "java.lang.Comparable" }, entry.interfaces);
+        assertTrue(entry.hasAnnotation("java.lang.Deprecated"));
+        assertFalse(entry.isInterface());
+        assertTrue(ClassIndex.read(0L, bytecode(Serializable.class)).isInterface());
+    }
+
+    @Test
+    public void entriesAreOnlyValidForTheirSource() throws IOException {
+        ClassIndex index = new ClassIndex();
+        String name = Indexed.class.getName();
+        index.index(name, ClassIndex.hash("class A {}"), bytecode(Indexed.class));
+
+        assertNotNull(index.get(name, ClassIndex.hash("class A {}")));
+        assertNull(index.get(name, ClassIndex.hash("class A { int a; }")));
+        assertNotEquals(ClassIndex.hash("a"), ClassIndex.hash("b"));
+        assertEquals(0L, ClassIndex.hash(null));
+    }
+
+    @Test
+    public void precompiledEntriesAreFoundWhateverTheSource() throws IOException {
+        ClassIndex index = new ClassIndex();
+        String name = Indexed.class.getName();
+        Play.usePrecompiled = true;
+        try {
+            index.index(name, 0L, bytecode(Indexed.class));
+
+            assertNotNull(index.get(name, ClassIndex.hash("class A {}")));
+            assertNotNull(index.get(name, 0L));
+        } finally {
+            Play.usePrecompiled = false;
+        }
+    }
+
+    @Test
+    public void indexIsSavedAndLoaded() throws IOException {
+        File file = File.createTempFile("classes", ".index");
+        String version = Play.version;
+        try {
+            ClassIndex index = new ClassIndex();
+            index.index("a.Indexed", 1L, bytecode(Indexed.class));
+            index.index("a.Removed", 2L, bytecode(Indexed.class));
+            index.save(file, Collections.singleton("a.Indexed"));
+
+            ClassIndex loaded = new ClassIndex();
+            loaded.load(file);
+            assertEquals(1, loaded.size());
+            ClassIndex.Entry entry = loaded.get("a.Indexed", 1L);
+            assertEquals("java.lang.Thread", entry.superName);
+            assertEquals(Arrays.asList("java.io.Serializable", "java.lang.Comparable"), Arrays.asList(entry.interfaces));
+            assertTrue(entry.hasAnnotation("java.lang.Deprecated"));
+
+            // Saved with other plugins, or another version of Play
+            Play.version = "other";
+            ClassIndex outdated = new ClassIndex();
+            outdated.load(file);
+            assertEquals(0, outdated.size());
+        } finally {
+            Play.version = version;
+            file.delete();
+        }
+    }
+}
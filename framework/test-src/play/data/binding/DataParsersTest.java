@@ -3,6 +3,7 @@ package play.data.binding;
 import org.junit.Test;
 import play.data.parsing.ApacheMultipartParser;
 import play.data.parsing.DataParsers;
+import play.data.parsing.JsonParser;
 import play.data.parsing.TextParser;
 import play.data.parsing.UrlEncodedParser;
 
@@ -16,7 +17,7 @@ public class DataParsersTest {
         assertEquals(ApacheMultipartParser.class, DataParsers.forContentType("multipart/form-data").getClass());
         assertEquals(ApacheMultipartParser.class, DataParsers.forContentType("multipart/mixed").getClass());
         assertEquals(TextParser.class, DataParsers.forContentType("application/xml").getClass());
-        assertEquals(TextParser.class, DataParsers.forContentType("application/json").getClass());
+        assertEquals(JsonParser.class, DataParsers.forContentType("application/json").getClass());
     }
 
     @Test
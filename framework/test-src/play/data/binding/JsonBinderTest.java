@@ -0,0 +1,157 @@
+package play.data.binding;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+import play.data.validation.Validation;
+import play.mvc.results.Status;
+
+public class JsonBinderTest {
+
+    public enum Size {
+        S, M, L
+    }
+
+    public static class Item {
+        public String name;
+        public int quantity;
+        public Long price;
+        public boolean available;
+        public double weight;
+        public Size size;
+        public List<String> tags;
+        public Set<Integer> codes;
+        public String[] colors;
+        public Map<String, Integer> stock;
+        public Item parent;
+        @As("dd/MM/yyyy")
+        public Date created;
+        @NoBinding
+        public String secret;
+    }
+
+    public static void create(Item item, int page, String body) {
+    }
+
+    public static void createAll(List<Item> items) {
+    }
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+        new PlayBuilder().initMvcObject();
+        Validation.current.set(new Validation() {
+        });
+    }
+
+    private static Object[] bind(String json, String action) {
+        for (Method method : JsonBinderTest.class.getMethods()) {
+            if (method.getName().equals(action)) {
+                String[] names = action.equals("create") ? new String[] { "item", "page", "body" } : new String[] { "items" };
+                Class<?>[] types = method.getParameterTypes();
+                Type[] genericTypes = method.getGenericParameterTypes();
+                Annotation[][] annotations = method.getParameterAnnotations();
+                return JsonBinder.bind(json, names, types, genericTypes, annotations);
+            }
+        }
+        throw new IllegalArgumentException(action);
+    }
+
+    @Test
+    public void fieldsAreBoundAsTheyAreRead() {
+        Object[] args = bind("{\"item\": {\"name\": \"pen\", \"quantity\": 3, \"price\": 12, \"available\": true, \"weight\": 0.5,"
+                + " \"size\": \"M\", \"tags\": [\"a\", \"b\"], \"codes\": [1, 2, 2], \"colors\": [\"red\"], \"stock\": {\"paris\": 4},"
+                + " \"parent\": {\"name\": \"pens\"}, \"created\": \"02/01/2017\", \"secret\": \"x\", \"unknown\": {\"a\": [1]}}, \"page\": 2}",
+                "create");
+
+        Item item = (Item) args[0];
+        assertEquals("pen", item.name);
+        assertEquals(3, item.quantity);
+        assertEquals(Long.valueOf(12), item.price);
+        assertTrue(item.available);
+        assertEquals(0.5, item.weight, 0);
+        assertSame(Size.M, item.size);
+        assertEquals(2, item.tags.size());
+        assertEquals("b", item.tags.get(1));
+        assertEquals(2, item.codes.size());
+        assertArrayEquals(new String[] { "red" }, item.colors);
+        assertEquals(Integer.valueOf(4), item.stock.get("paris"));
+        assertEquals("pens", item.parent.name);
+        Calendar created = Calendar.getInstance();
+        created.setTime(item.created);
+        assertEquals(Calendar.JANUARY, created.get(Calendar.MONTH));
+        assertNull(item.secret);
+        assertEquals(2, args[1]);
+        assertSame(Binder.MISSING, args[2]);
+    }
+
+    @Test
+    public void nullsAndInvalidValuesAreLeftOut() {
+        Object[] args = bind("{\"item\": {\"name\": null, \"quantity\": \"many\", \"tags\": [\"a\", null]}}", "create");
+
+        Item item = (Item) args[0];
+        assertNull(item.name);
+        assertEquals(0, item.quantity);
+        assertEquals(1, item.tags.size());
+        assertTrue(Validation.hasError("item.quantity"));
+    }
+
+    @Test
+    public void aRootArrayIsBoundToTheCollectionParameter() {
+        @SuppressWarnings("unchecked")
+        List<Item> items = (List<Item>) bind("[{\"name\": \"pen\"}, {\"name\": \"ink\"}]", "createAll")[0];
+
+        assertEquals(2, items.size());
+        assertEquals("ink", items.get(1).name);
+    }
+
+    @Test
+    public void valuesOfAnotherShapeAreBoundLikeFormFields() {
+        Item item = (Item) bind("{\"item\": {\"tags\": \"single\"}}", "create")[0];
+
+        assertEquals(1, item.tags.size());
+        assertEquals("single", item.tags.get(0));
+    }
+
+    @Test
+    public void invalidJsonBindsNothing() {
+        Object[] args = bind("{\"page\": 2, \"item\": ", "create");
+
+        for (Object arg : args) {
+            assertSame(Binder.MISSING, arg);
+        }
+        assertFalse(Validation.hasErrors());
+    }
+
+    @Test
+    public void moreValuesThanTheLimitAreRejected() {
+        Play.configuration.setProperty("play.json.maxParams", "2");
+        try {
+            bind("{\"item\": {\"name\": \"pen\", \"tags\": [\"a\", \"b\"]}}", "create");
+            fail();
+        } catch (Status e) {
+            assertEquals(413, e.getCode());
+        } finally {
+            Play.configuration.remove("play.json.maxParams");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package play.data.binding;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ParamNodeTest {
+
+    @Test
+    public void splitKeyBehavesLikeTheRegex() {
+        for (String key : new String[] { "", "name", "user.name", "user[name]", "users[0].name", "a[b][c]", "[0]", "a..b", "a." }) {
+            assertArrayEquals(key, key.split("[\\.\\[\\]]+"), ParamNode.splitKey(key));
+        }
+    }
+
+    @Test
+    public void convertBuildsTheTree() {
+        Map<String, String[]> params = new LinkedHashMap<>();
+        params.put("user.name", new String[] { "bob" });
+        params.put("user[address][city]", new String[] { "Paris" });
+        params.put("page", new String[] { "2" });
+
+        RootParamNode root = ParamNode.convert(params);
+
+        assertEquals("bob", root.getChild("user.name").getFirstValue(String.class));
+        assertEquals("Paris", root.getChild("user").getChild("address.city").getFirstValue(String.class));
+        assertEquals("user[address][city]", root.getChild("user.address.city").getOriginalKey());
+        assertEquals("2", root.getChild("page").getFirstValue(String.class));
+        assertNull(root.getChild("missing"));
+    }
+}
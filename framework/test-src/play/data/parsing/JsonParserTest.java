@@ -0,0 +1,31 @@
+package play.data.parsing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import play.PlayBuilder;
+
+public class JsonParserTest {
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+        new PlayBuilder().initMvcObject();
+    }
+
+    @Test
+    public void theRawBodyIsKept() {
+        String json = "{\"name\": \"stylo à bille\", \"tags\": [\"a\"]}";
+        Map<String, String[]> params = new JsonParser().parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, params.size());
+        assertArrayEquals(new String[] { json }, params.get("body"));
+    }
+}
@@ -0,0 +1,74 @@
+package play.data.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+import play.classloading.ApplicationClassloaderState;
+import play.data.binding.As;
+import play.data.validation.ValidationPlugin.ActionValidationPlan;
+
+public class ValidationPluginTest {
+
+    public static class Actions {
+
+        public static void constrained(@Required String name, int age) {
+        }
+
+        public static void bindingOnly(@As("dd/MM/yyyy") String date) {
+        }
+
+        public static void plain(String name) {
+        }
+
+        public static void notBound(@As(",") String[] tags, @As("dd/MM/yyyy") String date) {
+        }
+    }
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+    }
+
+    private static Method action(String name) {
+        for (Method method : Actions.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    @Test
+    public void planKnowsWhichActionsNeedValidation() throws Exception {
+        ActionValidationPlan plan = ValidationPlugin.getPlan(action("constrained"));
+        assertTrue(plan.hasConstraints);
+        assertEquals(2, plan.paramNames.length);
+
+        assertFalse(ValidationPlugin.getPlan(action("bindingOnly")).hasConstraints);
+        assertFalse(ValidationPlugin.getPlan(action("plain")).hasConstraints);
+        assertFalse(ValidationPlugin.getPlan(action("notBound")).hasConstraints);
+    }
+
+    @Test
+    public void plansAndValidatorAreSharedUntilClassesAreReloaded() throws Exception {
+        ActionValidationPlan plan = ValidationPlugin.getPlan(action("constrained"));
+        assertSame(plan, ValidationPlugin.getPlan(action("constrained")));
+        assertSame(plan.validator, ValidationPlugin.getPlan(action("plain")).validator);
+
+        Play.classloader.currentState = new ApplicationClassloaderState();
+
+        ActionValidationPlan reloaded = ValidationPlugin.getPlan(action("constrained"));
+        assertNotSame(plan, reloaded);
+        assertNotSame(plan.validator, reloaded.validator);
+    }
+}
@@ -23,6 +23,15 @@ public class ConfigurationTest {
         assertEquals("default", dbNames.iterator().next());
     }
     
+    @Test
+    public void dbNameResolver_replicasAreNotADatabase() {
+        Play.configuration.put("db", "mysql:user:pwd@database_name");
+        Play.configuration.put("db.replicas", "jdbc:mysql://replica1/database_name,jdbc:mysql://replica2/database_name");
+        Set<String> dbNames = Configuration.getDbNames();
+        assertEquals(1, dbNames.size());
+        assertEquals("default", dbNames.iterator().next());
+    }
+
     @Test
     public void dbNameResolver_multipleDatabases() {
         Play.configuration.put("db", "mysql:user:pwd@database_name");
@@ -0,0 +1,59 @@
+package play.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.PlayBuilder;
+import play.db.helper.JdbcIterator;
+import play.db.helper.JdbcResultFactories;
+
+public class DBTest {
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:dbtest;DB_CLOSE_DELAY=-1");
+        DB.datasources.put(DB.DEFAULT, new DB.ExtendedDatasource(ds, ""));
+        DB.execute("create table item (id bigint, name varchar(20))");
+        DB.execute("insert into item values (1, 'a'), (2, 'b'), (3, 'c')");
+    }
+
+    @After
+    public void tearDown() {
+        DB.execute("drop table item");
+        DB.close();
+        DB.datasources.remove(DB.DEFAULT);
+    }
+
+    @Test
+    public void streamMapsEveryRow() {
+        List<Long> ids = new ArrayList<>();
+        try (JdbcIterator<Long> rows = DB.stream("select id from item where id > ? order by id", JdbcResultFactories.build(Long.class), 1L)) {
+            for (Long id : rows) {
+                ids.add(id);
+            }
+        }
+        assertEquals(2, ids.size());
+        assertEquals(Long.valueOf(2), ids.get(0));
+        assertEquals(Long.valueOf(3), ids.get(1));
+    }
+
+    @Test
+    public void closedIteratorHasNoMoreRows() {
+        JdbcIterator<String> rows = DB.stream("select name from item order by id", JdbcResultFactories.buildPrimitive(String.class));
+        assertTrue(rows.hasNext());
+        assertEquals("a", rows.next());
+        rows.close();
+        assertFalse(rows.hasNext());
+    }
+}
@@ -0,0 +1,113 @@
+package play.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.PlayBuilder;
+import play.db.ReplicaRoutingDataSource.Balance;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static DataSource h2(String name) {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return ds;
+    }
+
+    private static String url(Connection connection) throws SQLException {
+        try {
+            String url = connection.getMetaData().getURL();
+            return url.substring("jdbc:h2:mem:".length());
+        } finally {
+            connection.close();
+        }
+    }
+
+    private ReplicaRoutingDataSource routing(Balance balance) {
+        return new ReplicaRoutingDataSource(h2("primary"), Arrays.asList(h2("replica1"), h2("replica2")), balance);
+    }
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+        ReplicaRoutingDataSource.clearRoute();
+    }
+
+    @After
+    public void tearDown() {
+        ReplicaRoutingDataSource.clearRoute();
+        DB.close();
+        DB.datasources.remove(DB.DEFAULT);
+    }
+
+    @Test
+    public void writesGoToThePrimary() throws SQLException {
+        ReplicaRoutingDataSource ds = routing(Balance.ROUND_ROBIN);
+        assertEquals("primary", url(ds.getConnection()));
+        assertEquals(0, ds.getReplicaConnections());
+    }
+
+    @Test
+    public void readOnlyInvocationsAreBalancedOverReplicas() throws SQLException {
+        ReplicaRoutingDataSource ds = routing(Balance.ROUND_ROBIN);
+        ReplicaRoutingDataSource.readOnly(true);
+        assertEquals("replica1", url(ds.getConnection()));
+        assertEquals("replica2", url(ds.getConnection()));
+        assertEquals("replica1", url(ds.getConnection()));
+        assertEquals(3, ds.getReplicaConnections());
+    }
+
+    @Test
+    public void leastConnectionsPicksTheIdlestReplica() throws SQLException {
+        ReplicaRoutingDataSource ds = routing(Balance.LEAST_CONNECTIONS);
+        ReplicaRoutingDataSource.readOnly(true);
+        Connection held = ds.getConnection();
+        try {
+            assertEquals("replica2", url(ds.getConnection()));
+            assertEquals("replica2", url(ds.getConnection()));
+        } finally {
+            held.close();
+        }
+        assertEquals("replica1", url(ds.getConnection()));
+    }
+
+    @Test
+    public void invocationIsPinnedToThePrimaryAfterAWrite() throws SQLException {
+        ReplicaRoutingDataSource ds = routing(Balance.ROUND_ROBIN);
+        DB.datasources.put(DB.DEFAULT, new DB.ExtendedDatasource(ds.getPrimary(), "", ds));
+        ReplicaRoutingDataSource.readOnly(true);
+
+        assertTrue(DB.getConnection().getMetaData().getURL().endsWith("replica1"));
+        DB.execute("create table if not exists pinned (id int)");
+        assertTrue(DB.getConnection().getMetaData().getURL().endsWith("primary"));
+        assertFalse(ReplicaRoutingDataSource.pinToPrimary());
+    }
+
+    @Test
+    public void replicaConnectionsAreReadOnly() throws SQLException {
+        DataSource replica = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(replica.getConnection()).thenReturn(connection);
+        ReplicaRoutingDataSource ds = new ReplicaRoutingDataSource(h2("primary"), Arrays.asList(replica), Balance.ROUND_ROBIN);
+        ReplicaRoutingDataSource.readOnly(true);
+
+        assertSame(connection, ds.getConnection());
+        verify(connection).setReadOnly(true);
+    }
+}
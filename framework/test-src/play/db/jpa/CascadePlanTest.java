@@ -0,0 +1,109 @@
+package play.db.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.CascadeType;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import play.PlayBuilder;
+
+public class CascadePlanTest {
+
+    @MappedSuperclass
+    public static class Audited extends JPABase {
+        @OneToOne(cascade = CascadeType.PERSIST)
+        public Node audit;
+    }
+
+    public static class Node extends Audited {
+        public String name;
+
+        @OneToMany(cascade = CascadeType.ALL)
+        public List<Node> children = new ArrayList<>();
+
+        @ManyToOne
+        public Node parent;
+
+        @ManyToMany(cascade = CascadeType.MERGE)
+        public List<Node> related = new ArrayList<>();
+
+        @OneToOne(cascade = CascadeType.ALL)
+        public transient Node draft;
+
+        Node(String name) {
+            this.name = name;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+    }
+
+    private static Set<String> names(CascadePlan plan) {
+        Set<String> names = new HashSet<>();
+        for (Field field : plan.fields) {
+            names.add(field.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void onlyTheCascadingAssociationsArePlanned() {
+        CascadePlan plan = CascadePlan.of(Node.class);
+
+        Set<String> expected = new HashSet<>();
+        expected.add("children");
+        expected.add("audit");
+        assertEquals(expected, names(plan));
+        assertSame(plan, CascadePlan.of(Node.class));
+        assertEquals(0, CascadePlan.of(JPABase.class).fields.length);
+    }
+
+    @Test
+    public void theSaveCascadesToThePlannedAssociations() {
+        Node root = new Node("root");
+        Node child = new Node("child");
+        Node grandChild = new Node("grand child");
+        Node audit = new Node("audit");
+        Node other = new Node("other");
+        root.children.add(child);
+        child.children.add(grandChild);
+        // A loop
+        grandChild.children.add(root);
+        root.audit = audit;
+        root.related.add(other);
+        child.parent = other;
+        root.draft = other;
+
+        root.cascade(true);
+
+        assertTrue(root.willBeSaved);
+        assertTrue(child.willBeSaved);
+        assertTrue(grandChild.willBeSaved);
+        assertTrue(audit.willBeSaved);
+        assertFalse(other.willBeSaved);
+
+        root.cascade(false);
+
+        assertFalse(root.willBeSaved);
+        assertFalse(grandChild.willBeSaved);
+        assertFalse(audit.willBeSaved);
+    }
+}
@@ -0,0 +1,173 @@
+package play.db.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Entity;
+import javax.persistence.EntityManager;
+import javax.persistence.Table;
+
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+import play.libs.F;
+
+public class JPABatchTest {
+
+    @Entity(name = "BatchItem")
+    @Table(name = "batch_item")
+    public static class Item extends Model {
+        public String name;
+
+        public Item() {
+        }
+
+        Item(String name) {
+            this.name = name;
+        }
+    }
+
+    private TestDatabase database;
+    private EntityManager em;
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+        database = new TestDatabase("batch", Item.class);
+        em = database.em;
+        statistics = database.statistics();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    private static List<Item> items(int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new Item("item " + i));
+        }
+        return items;
+    }
+
+    @Test
+    public void eachSaveIsFlushed() {
+        statistics.clear();
+        for (Item item : items(10)) {
+            item.save();
+        }
+
+        assertEquals(10, statistics.getEntityInsertCount());
+        assertEquals(10, statistics.getFlushCount());
+    }
+
+    @Test
+    public void saveAllFlushesTheEntitiesInBatches() {
+        Play.configuration.setProperty("db.batchSize", "4");
+        statistics.clear();
+        List<Item> items = items(10);
+
+        GenericModel.saveAll(items);
+
+        assertEquals(10, statistics.getEntityInsertCount());
+        assertEquals(3, statistics.getFlushCount());
+        for (Item item : items) {
+            assertFalse(item.willBeSaved);
+            assertFalse(em.contains(item));
+            assertTrue(item.id != null);
+        }
+        assertEquals(10L, em.createQuery("select count(i) from BatchItem i").getSingleResult());
+        assertNull(JPA.Batch.current());
+        assertNull(em.unwrap(Session.class).getJdbcBatchSize());
+    }
+
+    @Test
+    public void theSavesOfABatchAreFlushedAtItsEnd() throws Throwable {
+        statistics.clear();
+        final List<Item> items = items(3);
+
+        String result = JPA.batch(100, new F.Function0<String>() {
+
+            @Override
+            public String apply() {
+                for (Item item : items) {
+                    item.save();
+                    assertTrue(item.willBeSaved);
+                    assertEquals(Integer.valueOf(100), em.unwrap(Session.class).getJdbcBatchSize());
+                }
+                assertEquals(0, statistics.getFlushCount());
+                return "imported";
+            }
+        });
+
+        assertEquals("imported", result);
+        assertEquals(1, statistics.getFlushCount());
+        assertEquals(3, statistics.getEntityInsertCount());
+        assertFalse(items.get(0).willBeSaved);
+    }
+
+    @Test
+    public void updatesAreBatchedToo() throws Throwable {
+        List<Item> items = items(5);
+        GenericModel.saveAll(items);
+        final List<Item> loaded = em.createQuery("select i from BatchItem i order by i.id", Item.class).getResultList();
+        statistics.clear();
+
+        JPA.batch(5, new F.Function0<Void>() {
+
+            @Override
+            public Void apply() {
+                for (Item item : loaded) {
+                    item.name = item.name.toUpperCase();
+                    item.save();
+                }
+                return null;
+            }
+        });
+
+        assertEquals(5, statistics.getEntityUpdateCount());
+        assertEquals(1, statistics.getFlushCount());
+        assertEquals("ITEM 0", em.createQuery("select i from BatchItem i order by i.id", Item.class).getResultList().get(0).name);
+    }
+
+    @Test
+    public void onlyTheSavedEntitiesAreDetached() throws Throwable {
+        Item loaded = new Item("loaded");
+        em.persist(loaded);
+        em.flush();
+        final List<Item> items = items(4);
+
+        JPA.batch(2, new F.Function0<Void>() {
+
+            @Override
+            public Void apply() {
+                for (Item item : items) {
+                    item.save();
+                }
+                return null;
+            }
+        });
+
+        assertTrue(em.contains(loaded));
+        for (Item item : items) {
+            assertFalse(em.contains(item));
+        }
+        // Still managed: the save of a detached entity would fail to persist it
+        loaded.name = "changed";
+        loaded.save();
+        em.clear();
+        assertEquals("changed", em.find(Item.class, loaded.id).name);
+    }
+}
@@ -0,0 +1,133 @@
+package play.db.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.PlayBuilder;
+import play.db.jpa.GenericModel.JPAQuery;
+
+public class JPAKeysetTest {
+
+    @Entity(name = "KeysetPost")
+    @Table(name = "keyset_post")
+    public static class Post extends Model {
+        public String title;
+        public int rank;
+
+        public Post() {
+        }
+
+        Post(String title, int rank) {
+            this.title = title;
+            this.rank = rank;
+        }
+    }
+
+    private TestDatabase database;
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+        database = new TestDatabase("keyset", Post.class);
+        // Three posts per rank, so that pages end in the middle of ties
+        for (int i = 0; i < 10; i++) {
+            database.em.persist(new Post("post " + i, i / 3));
+        }
+        database.em.persist(new Post("draft", 0));
+        database.em.flush();
+        database.em.clear();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    private List<Post> all(String orderBy) {
+        return database.em.createQuery("from KeysetPost where title like 'post%' order by " + orderBy, Post.class).getResultList();
+    }
+
+    private static List<Long> ids(List<Post> posts) {
+        List<Long> ids = new ArrayList<>();
+        for (Post post : posts) {
+            ids.add(post.id);
+        }
+        return ids;
+    }
+
+    private static JPAQuery posts() {
+        return new JPQL().find(JPA.DEFAULT, "KeysetPost", "title like ?1", new Object[] { "post%" });
+    }
+
+    private List<Post> pageThrough(String orderBy) {
+        List<Post> seen = new ArrayList<>();
+        List<Post> page = posts().after(orderBy).fetch(4);
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= 4);
+            seen.addAll(page);
+            Post last = page.get(page.size() - 1);
+            page = posts().after(orderBy, last.rank, last.id).fetch(4);
+        }
+        return seen;
+    }
+
+    @Test
+    public void pagesContinueThroughTiesOnTheSortKey() {
+        List<Post> seen = pageThrough("rank, id");
+
+        assertEquals(ids(all("rank, id")), ids(seen));
+        assertEquals(10, seen.size());
+    }
+
+    @Test
+    public void pagesFollowADescendingOrder() {
+        List<Post> seen = pageThrough("rank desc, id desc");
+
+        assertEquals(ids(all("rank desc, id desc")), ids(seen));
+        assertEquals(3, seen.get(0).rank);
+        assertEquals(0, seen.get(9).rank);
+    }
+
+    @Test
+    public void noCursorFetchesTheFirstPage() {
+        List<Long> first = ids(all("rank desc, id desc")).subList(0, 4);
+
+        assertEquals(first, ids(posts().after("rank desc, id desc").<Post> fetch(4)));
+        assertEquals(first, ids(posts().after("rank desc, id desc", (Object[]) null).<Post> fetch(4)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullSortValuesAreRejected() {
+        posts().after("rank, id", 1, null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void theFactoryPagesOnTheOrderByPropertyThenTheKey() {
+        JPAModelLoader loader = new JPAModelLoader(Post.class);
+        List<String> noSearch = Collections.emptyList();
+        String where = "title like 'post%'";
+
+        List<Post> seen = new ArrayList<>();
+        List<Post> page = (List) loader.fetchAfter(null, 4, "rank", "DESC", noSearch, null, where);
+        while (!page.isEmpty()) {
+            seen.addAll(page);
+            Object[] after = loader.keysetOf(page.get(page.size() - 1), "rank");
+            assertEquals(2, after.length);
+            page = (List) loader.fetchAfter(after, 4, "rank", "DESC", noSearch, null, where);
+        }
+
+        assertEquals(ids(all("rank desc, id desc")), ids(seen));
+    }
+}
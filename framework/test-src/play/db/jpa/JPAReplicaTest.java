@@ -0,0 +1,83 @@
+package play.db.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.PlayBuilder;
+import play.db.DB;
+import play.db.ReplicaRoutingDataSource;
+import play.db.ReplicaRoutingDataSource.Balance;
+
+public class JPAReplicaTest {
+
+    @Entity(name = "ReplicaNote")
+    @Table(name = "replica_note")
+    public static class Note extends Model {
+        public String text;
+    }
+
+    private ReplicaRoutingDataSource routing;
+    private TestDatabase database;
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+        ReplicaRoutingDataSource.clearRoute();
+        routing = new ReplicaRoutingDataSource(TestDatabase.h2("replica-primary"), Arrays.asList(TestDatabase.h2("replica-replica")),
+                Balance.ROUND_ROBIN);
+        database = new TestDatabase(routing, Note.class);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        ReplicaRoutingDataSource.clearRoute();
+    }
+
+    private static String url(Connection connection) throws SQLException {
+        return connection.getMetaData().getURL().substring("jdbc:h2:mem:".length());
+    }
+
+    private String nextReadOnlyConnection() throws SQLException {
+        boolean wasReadOnly = ReplicaRoutingDataSource.readOnly(true);
+        try (Connection connection = routing.getConnection()) {
+            return url(connection);
+        } finally {
+            ReplicaRoutingDataSource.readOnly(wasReadOnly);
+        }
+    }
+
+    @Test
+    public void theInvocationIsPinnedToThePrimaryOnItsFirstWrite() throws SQLException {
+        database.em.createQuery("select n from ReplicaNote n").getResultList();
+        assertEquals("replica-replica", nextReadOnlyConnection());
+
+        Note note = new Note();
+        note.text = "written";
+        note.save();
+        assertEquals("replica-primary", nextReadOnlyConnection());
+    }
+
+    @Test
+    public void dbExecuteMovesAReadOnlyEntityManagerToThePrimary() throws SQLException {
+        database.em.getTransaction().rollback();
+        JPA.bindLazilyForCurrentThread(JPA.DEFAULT, true);
+        ReplicaRoutingDataSource.readOnly(true);
+        assertEquals("replica-replica", url(DB.getConnection()));
+
+        DB.execute("create table if not exists replica_pinned (id int)");
+        assertEquals("replica-primary", url(DB.getConnection()));
+        assertTrue(JPA.get(JPA.DEFAULT).isOpen());
+    }
+}
@@ -0,0 +1,153 @@
+package play.db.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.Entity;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+import play.db.jpa.GenericModel.JPAQuery;
+
+public class JPAScrollTest {
+
+    @Entity(name = "ScrollProduct")
+    @Table(name = "scroll_product")
+    public static class Product extends Model {
+        public String name;
+    }
+
+    @Entity(name = "ScrollLine")
+    @Table(name = "scroll_line")
+    public static class Line extends Model {
+        public int quantity;
+
+        // Eager, without cascade: not evicted with the line by Session.evict
+        @ManyToOne
+        public Product product;
+    }
+
+    private TestDatabase database;
+    private final List<Long> products = new ArrayList<>();
+    private final List<Long> lines = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+        database = new TestDatabase("scroll", Product.class, Line.class);
+        for (int i = 0; i < 10; i++) {
+            Product product = new Product();
+            product.name = "product " + i;
+            database.em.persist(product);
+            products.add(product.id);
+        }
+        for (int i = 0; i < 60; i++) {
+            Line line = new Line();
+            line.quantity = i;
+            line.product = database.em.find(Product.class, products.get(i % 10));
+            database.em.persist(line);
+            lines.add(line.id);
+        }
+        database.em.flush();
+        database.em.clear();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    private static JPAQuery lines() {
+        return new JPQL().find(JPA.DEFAULT, "ScrollLine", "order by id", new Object[0]);
+    }
+
+    private int managedEntities() {
+        return database.em.unwrap(SessionImplementor.class).getPersistenceContext().getNumberOfManagedEntities();
+    }
+
+    @Test
+    public void theScrolledEntitiesAreEvictedWithTheirEagerAssociations() {
+        Product owned = database.em.find(Product.class, products.get(0));
+        Line ownedLine = database.em.find(Line.class, lines.get(2));
+        Line first = null;
+        int rows = 0;
+
+        try (JPAScroll<Line> scroll = lines().scroll(10)) {
+            for (Line line : scroll) {
+                if (first == null) {
+                    first = line;
+                }
+                rows++;
+                // One window of lines, their products, and the entities
+                // loaded before the scroll
+                assertTrue("Managed entities: " + managedEntities(), managedEntities() <= 10 + 10 + 2);
+            }
+        }
+
+        assertEquals(60, rows);
+        assertFalse(database.em.contains(first));
+        assertEquals(products.get(0), first.product.id);
+        assertTrue(database.em.contains(owned));
+        assertTrue(database.em.contains(ownedLine));
+    }
+
+    @Test
+    public void theProductsOfEvictedLinesAreDetached() {
+        Line second = null;
+        try (JPAScroll<Line> scroll = lines().scroll(5)) {
+            for (Line line : scroll) {
+                if (second == null && line.quantity == 1) {
+                    second = line;
+                }
+            }
+        }
+
+        assertFalse(database.em.contains(second));
+        assertFalse(database.em.contains(second.product));
+    }
+
+    @Test
+    public void theCursorIsClosedOnceRead() {
+        JPAScroll<Line> scroll = lines().scroll(7);
+        int rows = 0;
+        while (scroll.hasNext()) {
+            scroll.next();
+            rows++;
+        }
+
+        assertEquals(60, rows);
+        assertFalse(scroll.hasNext());
+    }
+
+    @Test
+    public void theCursorIsClosedWithAnUnfinishedStream() {
+        JPAScroll<Line> scroll = lines().scroll(5);
+        try (Stream<Line> stream = scroll.stream()) {
+            assertEquals(3, stream.limit(3).count());
+            assertTrue(scroll.hasNext());
+        }
+
+        assertFalse(scroll.hasNext());
+    }
+
+    @Test
+    public void theStreamReadsEveryRow() {
+        Play.configuration.setProperty("jpa.stream.fetchSize", "7");
+        try (Stream<Line> stream = lines().stream()) {
+            assertEquals(60, stream.mapToInt(line -> 1).sum());
+        }
+        assertTrue(managedEntities() <= 7 + 7);
+    }
+}
@@ -0,0 +1,143 @@
+package play.db.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+import play.db.ReplicaRoutingDataSource;
+import play.exceptions.JPAException;
+import play.libs.F;
+import play.plugins.PluginCollection;
+
+public class JPATest {
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private EntityTransaction tx;
+    private PluginCollection plugins;
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+        plugins = Play.pluginCollection;
+        Play.pluginCollection = new PluginCollection() {
+            {
+                addPlugin(new JPAPlugin());
+            }
+        };
+
+        emf = mock(EntityManagerFactory.class);
+        em = mock(EntityManager.class);
+        tx = mock(EntityTransaction.class);
+        when(emf.createEntityManager()).thenReturn(em);
+        when(em.getTransaction()).thenReturn(tx);
+        when(em.isOpen()).thenReturn(true);
+        JPA.emfs.put(JPA.DEFAULT, emf);
+        ReplicaRoutingDataSource.clearRoute();
+    }
+
+    @After
+    public void tearDown() {
+        JPA.emfs.clear();
+        JPA.get().clear();
+        Play.pluginCollection = plugins;
+        ReplicaRoutingDataSource.clearRoute();
+    }
+
+    @Test
+    public void aWriteTransactionDoesNotPinThePrimaryUntilItWritesAndTheReadOnlyFlagIsRestored() throws Throwable {
+        JPA.withTransaction(JPA.DEFAULT, true, new F.Function0<Void>() {
+
+            @Override
+            public Void apply() throws Throwable {
+                JPA.withTransaction(JPA.DEFAULT, false, new F.Function0<Void>() {
+
+                    @Override
+                    public Void apply() {
+                        return null;
+                    }
+                });
+                // Back to the read-only flag of the outer transaction, still
+                // on the replicas since nothing was written
+                assertTrue(ReplicaRoutingDataSource.readOnly(true));
+                assertTrue(ReplicaRoutingDataSource.pinToPrimary());
+                return null;
+            }
+        });
+
+        assertFalse(ReplicaRoutingDataSource.readOnly(false));
+    }
+
+    @Test(expected = JPAException.class)
+    public void aReadOnlyTransactionCannotMoveToThePrimary() {
+        when(tx.isActive()).thenReturn(true);
+        JPA.bindForCurrentThread(JPA.DEFAULT, em, true);
+        JPA.releaseConnection(JPA.DEFAULT);
+    }
+
+    @Test
+    public void entityManagerIsNotCreatedWhenUnused() throws Throwable {
+        String result = JPA.withTransaction(JPA.DEFAULT, false, new F.Function0<String>() {
+
+            @Override
+            public String apply() {
+                assertTrue(JPA.isInsideTransaction());
+                return "done";
+            }
+        });
+
+        assertEquals("done", result);
+        verify(emf, never()).createEntityManager();
+        assertTrue(JPA.get().isEmpty());
+    }
+
+    @Test
+    public void transactionBeginsOnFirstUseAndIsCommitted() throws Throwable {
+        when(tx.isActive()).thenReturn(true);
+        JPA.withTransaction(JPA.DEFAULT, false, new F.Function0<Void>() {
+
+            @Override
+            public Void apply() {
+                assertSame(em, JPA.em());
+                assertSame(em, JPA.em());
+                return null;
+            }
+        });
+
+        verify(emf).createEntityManager();
+        verify(tx).begin();
+        verify(tx).commit();
+        verify(em).close();
+        assertFalse(JPA.isInitialized());
+    }
+
+    @Test
+    public void rollbackOnlyIsKeptUntilFirstUse() throws Throwable {
+        JPA.withTransaction(JPA.DEFAULT, false, new F.Function0<Void>() {
+
+            @Override
+            public Void apply() {
+                JPA.setRollbackOnly();
+                JPA.em();
+                return null;
+            }
+        });
+
+        verify(tx).setRollbackOnly();
+    }
+}
@@ -0,0 +1,59 @@
+package play.db.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import play.PlayBuilder;
+
+public class JPQLTest {
+
+    private JPQL jpql;
+
+    @Before
+    public void setUp() {
+        Properties config = new Properties();
+        config.setProperty("db", "mem");
+        new PlayBuilder().withConfiguration(config).build();
+        jpql = new JPQL();
+    }
+
+    @Test
+    public void findByShortcutIsTranslated() {
+        assertEquals("from User where name = ?1 AND age > ?2",
+                jpql.createFindByQuery("default", "User", "User", "byNameAndAgeGreaterThan", "bob", 18));
+        assertEquals("select count(*) from User where LCASE(email) like ?1",
+                jpql.createCountQuery("default", "User", "User", "byEmailLike", "%@example.com"));
+        assertEquals("delete from User where email = ?1", jpql.createDeleteQuery("User", "User", "email", "bob@example.com"));
+    }
+
+    @Test
+    public void generatedQueriesAreCached() {
+        String first = jpql.createFindByQuery("default", "User", "User", "byEmail", "bob@example.com");
+        String second = jpql.createFindByQuery("default", "User", "User", "byEmail", "alice@example.com");
+
+        assertSame(first, second);
+        assertEquals(1, jpql.queryCacheMisses());
+        assertEquals(1, jpql.queryCacheHits());
+        assertEquals(1, jpql.queryCacheSize());
+    }
+
+    @Test
+    public void paramsShapeIsPartOfTheKey() {
+        assertEquals("from User where email = ?1", jpql.createFindByQuery("default", "User", "User", "email", "bob@example.com"));
+        assertEquals("from User where email = null", jpql.createFindByQuery("default", "User", "User", "email", (Object[]) null));
+        assertEquals("from User where email", jpql.createFindByQuery("default", "User", "User", "email", "a", "b"));
+        assertEquals(3, jpql.queryCacheMisses());
+    }
+
+    @Test
+    public void keysetPredicateSeeksPastTheLastRow() {
+        assertEquals("((id > :k1))", JPQL.keysetPredicate("id", "k"));
+        assertEquals("((postedAt < :k1) or (postedAt = :k1 and id < :k2))", JPQL.keysetPredicate("postedAt desc, id desc", "k"));
+        assertEquals("((name > :k1) or (name = :k1 and id < :k2))", JPQL.keysetPredicate("name ASC, id DESC", "k"));
+    }
+}
@@ -0,0 +1,88 @@
+package play.db.jpa;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.internal.PersistenceUnitInfoDescriptor;
+import org.hibernate.stat.Statistics;
+
+import play.Play;
+import play.plugins.PluginCollection;
+
+/**
+ * An in-memory H2 database for the JPA tests, with the given entities, bound
+ * to the current thread as the default persistence unit inside a transaction
+ * that is rolled back by {@link #close()}. Build the application with
+ * PlayBuilder first.
+ */
+class TestDatabase {
+
+    final EntityManagerFactory emf;
+    final EntityManager em;
+    private final PluginCollection plugins;
+
+    TestDatabase(String name, Class<?>... entities) {
+        this(h2(name), entities);
+    }
+
+    TestDatabase(DataSource dataSource, Class<?>... entities) {
+        plugins = Play.pluginCollection;
+        Play.pluginCollection = new PluginCollection() {
+            {
+                addPlugin(new JPAPlugin());
+            }
+        };
+
+        Properties properties = new Properties();
+        properties.put("hibernate.connection.datasource", dataSource);
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.hbm2ddl.auto", "create-drop");
+        properties.put("hibernate.generate_statistics", "true");
+        properties.put("javax.persistence.validation.mode", "none");
+        List<Class> classes = Arrays.<Class> asList(entities);
+        properties.put(org.hibernate.jpa.AvailableSettings.LOADED_CLASSES, classes);
+        Map<String, Object> configuration = new HashMap<>();
+        configuration.put(AvailableSettings.INTERCEPTOR, new HibernateInterceptor());
+        emf = new EntityManagerFactoryBuilderImpl(
+                new PersistenceUnitInfoDescriptor(new PersistenceUnitInfoImpl(JPA.DEFAULT, classes, Collections.<String> emptyList(), properties)),
+                configuration).build();
+        JPA.emfs.put(JPA.DEFAULT, emf);
+
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        JPA.bindForCurrentThread(JPA.DEFAULT, em, false);
+    }
+
+    static DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    void close() {
+        if (em.getTransaction().isActive()) {
+            em.getTransaction().rollback();
+        }
+        em.close();
+        emf.close();
+        JPA.emfs.clear();
+        JPA.get().clear();
+        Play.pluginCollection = plugins;
+    }
+}
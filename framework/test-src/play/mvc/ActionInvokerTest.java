@@ -12,8 +12,11 @@ import play.exceptions.UnexpectedException;
 import play.mvc.results.Forbidden;
 import play.mvc.results.Result;
 
+import java.io.ByteArrayInputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
@@ -156,6 +159,22 @@ public class ActionInvokerTest {
         }
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void aJsonArrayBodyBindsToTheListParameter() throws Exception {
+        Http.Request request = Http.Request.current();
+        request.contentType = "application/json";
+        request.encoding = "UTF-8";
+        request.body = new ByteArrayInputStream("[{\"name\": \"pen\"}, {\"name\": \"ink\"}]".getBytes(StandardCharsets.UTF_8));
+        Scope.Params.current.set(new Scope.Params());
+
+        Object[] args = ActionInvoker.getActionMethodArgs(JsonController.class.getMethod("save", List.class), null);
+
+        List<JsonController.Item> items = (List<JsonController.Item>) args[0];
+        assertEquals(2, items.size());
+        assertEquals("ink", items.get(1).name);
+    }
+
     @Test
     public void testFindActionMethod() throws Exception {
         assertNull(ActionInvoker.findActionMethod("notExistingMethod", ActionClass.class));
@@ -181,6 +200,15 @@ public class ActionInvokerTest {
         assertNull(ActionInvoker.findActionMethod(ActionClass.class.getDeclaredMethod(name).getName(), ActionClass.class));
     }
 
+    public static class JsonController extends Controller {
+        public static class Item {
+            public String name;
+        }
+
+        public static void save(List<Item> items) {
+        }
+    }
+
     public static class TestController extends Controller {
         public static String staticJavaMethod() {
             return "static";
@@ -0,0 +1,160 @@
+package play.mvc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.PlayBuilder;
+import play.libs.F.Promise;
+import play.mvc.Http.EncodedWebSocketFrame;
+import play.mvc.WebSocketHub.SlowConsumerPolicy;
+
+public class WebSocketHubTest {
+
+    static class RecordingOutbound extends Http.Outbound {
+
+        final List<EncodedWebSocketFrame> frames = new ArrayList<>();
+        boolean writable = true;
+        boolean open = true;
+
+        @Override
+        public void send(String data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void send(byte opcode, byte[] data, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Promise<Void> send(EncodedWebSocketFrame frame) {
+            frames.add(frame);
+            Promise<Void> written = new Promise<>();
+            written.invoke(null);
+            return written;
+        }
+
+        @Override
+        public boolean isWritable() {
+            return open && writable;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+    }
+
+    @After
+    public void tearDown() {
+        WebSocketHub.remove("test");
+    }
+
+    @Test
+    public void broadcastSharesTheEncodedFrame() {
+        RecordingOutbound first = new RecordingOutbound();
+        RecordingOutbound second = new RecordingOutbound();
+        WebSocketHub.Channel channel = WebSocketHub.channel("test");
+        channel.subscribe(first);
+        channel.subscribe(second);
+
+        channel.broadcast("héllo");
+
+        assertEquals(1, first.frames.size());
+        assertSame(first.frames.get(0), second.frames.get(0));
+        assertEquals("héllo", first.frames.get(0).text());
+        assertFalse(first.frames.get(0).isBinary);
+    }
+
+    @Test
+    public void payloadViewsHaveIndependentIndexes() {
+        EncodedWebSocketFrame frame = EncodedWebSocketFrame.binary(new byte[] { 1, 2, 3 });
+        frame.payload().skipBytes(3);
+        assertEquals(3, frame.payload().readableBytes());
+        assertEquals(3, frame.length());
+    }
+
+    @Test
+    public void slowConsumerDropsOldestFrames() {
+        RecordingOutbound slow = new RecordingOutbound();
+        slow.writable = false;
+        WebSocketHub.Channel channel = WebSocketHub.channel("test", 2, SlowConsumerPolicy.DROP_OLDEST);
+        channel.subscribe(slow);
+
+        channel.broadcast("1");
+        channel.broadcast("2");
+        channel.broadcast("3");
+        assertEquals(0, slow.frames.size());
+        assertEquals(1, channel.dropped());
+
+        slow.writable = true;
+        channel.broadcast("4");
+        assertEquals(2, slow.frames.size());
+        assertEquals("3", slow.frames.get(0).text());
+        assertEquals("4", slow.frames.get(1).text());
+    }
+
+    @Test
+    public void queuedFramesAreWrittenOnceTheChannelIsWritable() {
+        RecordingOutbound busy = new RecordingOutbound();
+        // Filled by writes that do not come from the hub
+        busy.writable = false;
+        WebSocketHub.Channel channel = WebSocketHub.channel("test");
+        channel.subscribe(busy);
+
+        channel.broadcast("1");
+        channel.broadcast("2");
+        assertEquals(0, busy.frames.size());
+
+        busy.writable = true;
+        busy.writabilityChanged();
+        assertEquals(2, busy.frames.size());
+        assertEquals("2", busy.frames.get(1).text());
+    }
+
+    @Test
+    public void slowConsumerIsClosed() {
+        RecordingOutbound slow = new RecordingOutbound();
+        slow.writable = false;
+        WebSocketHub.Channel channel = WebSocketHub.channel("test", 1, SlowConsumerPolicy.CLOSE);
+        channel.subscribe(slow);
+
+        channel.broadcast("1");
+        channel.broadcast("2");
+
+        assertFalse(slow.isOpen());
+        assertEquals(0, channel.size());
+    }
+
+    @Test
+    public void closedOutboundsAreUnsubscribed() {
+        RecordingOutbound outbound = new RecordingOutbound();
+        WebSocketHub.Channel channel = WebSocketHub.channel("test");
+        channel.subscribe(outbound);
+        outbound.close();
+
+        channel.broadcast("bye");
+
+        assertTrue(outbound.frames.isEmpty());
+        assertEquals(0, channel.size());
+    }
+}
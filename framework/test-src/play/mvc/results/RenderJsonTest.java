@@ -0,0 +1,171 @@
+package play.mvc.results;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+
+import play.PlayBuilder;
+import play.libs.F;
+import play.mvc.Http;
+
+public class RenderJsonTest {
+
+    public static class Item {
+        public String name;
+
+        public Item(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class UpperCaseSerializer implements JsonSerializer<Item> {
+        @Override
+        public JsonElement serialize(Item item, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(item.name.toUpperCase());
+        }
+    }
+
+    public static class PrefixSerializer implements JsonSerializer<Item> {
+        private final String prefix;
+
+        public PrefixSerializer(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public JsonElement serialize(Item item, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(prefix + item.name);
+        }
+    }
+
+    private Http.Response response;
+
+    @Before
+    public void setUp() {
+        new PlayBuilder().build();
+        new PlayBuilder().initMvcObject();
+        response = new Http.Response();
+        response.out = new ByteArrayOutputStream();
+        Http.Response.current.set(response);
+    }
+
+    private String render(RenderJson result) throws Exception {
+        result.apply(Http.Request.current(), response);
+        return ((ByteArrayOutputStream) response.out).toString("utf-8");
+    }
+
+    @Test
+    public void objectIsWrittenToTheResponse() throws Exception {
+        assertEquals("{\"name\":\"pen\"}", render(new RenderJson(new Item("pen"))));
+        assertTrue(response.contentType.startsWith("application/json"));
+    }
+
+    @Test
+    public void getJsonIsKeptForCachedResults() throws Exception {
+        RenderJson result = new RenderJson(Arrays.asList(new Item("a")).iterator());
+        assertEquals("[{\"name\":\"a\"}]", result.getJson());
+        assertEquals("[{\"name\":\"a\"}]", render(result));
+    }
+
+    @Test
+    public void statelessSerializersShareTheirGson() throws Exception {
+        assertSame(RenderJson.gsonFor(new UpperCaseSerializer()), RenderJson.gsonFor(new UpperCaseSerializer()));
+        assertNotSame(RenderJson.gsonFor(new PrefixSerializer("a")), RenderJson.gsonFor(new PrefixSerializer("a")));
+        assertEquals("\"b:pen\"", render(new RenderJson(new Item("pen"), new PrefixSerializer("b:"))));
+    }
+
+    @Test
+    public void streamIsWrittenAsAnArrayAndClosed() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Item> items = Stream.of(new Item("a"), null, new Item("b")).onClose(() -> closed.set(true));
+        assertEquals("[{\"name\":\"a\"},null,{\"name\":\"b\"}]", render(new RenderJson(items)));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void objectsAreSerializedWhenTheResultIsCreated() throws Exception {
+        Item item = new Item("pen");
+        RenderJson result = new RenderJson(item);
+        item.name = "changed";
+        assertEquals("{\"name\":\"pen\"}", render(result));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void serializerErrorsAreThrownByTheAction() {
+        new RenderJson(new Item("pen"), new JsonSerializer<Item>() {
+            @Override
+            public JsonElement serialize(Item item, Type type, JsonSerializationContext context) {
+                throw new IllegalStateException();
+            }
+        });
+    }
+
+    @Test
+    public void largeArraysAreReadByTheServerAsItNeedsThem() throws Exception {
+        response.onWriteChunk(new F.Action<Object>() {
+            @Override
+            public void invoke(Object chunk) {
+            }
+        });
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            items.add(new Item("item" + i));
+        }
+        AtomicInteger serialized = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Item> stream = items.stream().peek(item -> serialized.incrementAndGet()).onClose(() -> closed.set(true));
+
+        assertEquals("", render(new RenderJson(stream)));
+        assertEquals(0, serialized.get());
+
+        InputStream body = (InputStream) response.direct;
+        byte[] first = new byte[100];
+        assertEquals(100, body.read(first));
+        assertTrue(serialized.get() < items.size());
+        assertFalse(closed.get());
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        json.write(first);
+        IOUtils.copy(body, json);
+        body.close();
+        assertEquals(new RenderJson(items).getJson(), json.toString("utf-8"));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void theSourceIsClosedWhenTheResponseIsAborted() throws Exception {
+        response.onWriteChunk(new F.Action<Object>() {
+            @Override
+            public void invoke(Object chunk) {
+            }
+        });
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Item> items = Stream.of(new Item("a"), new Item("b")).onClose(() -> closed.set(true));
+        render(new RenderJson(items));
+
+        ((InputStream) response.direct).close();
+        assertTrue(closed.get());
+    }
+}
@@ -6,7 +6,10 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -22,6 +25,7 @@ import play.db.Evolutions;
 import play.db.jpa.JPAPlugin;
 import play.i18n.MessagesPlugin;
 import play.jobs.JobsPlugin;
+import play.libs.F;
 import play.libs.WS;
 import play.test.TestEngine;
 
@@ -174,6 +178,111 @@ public class PluginCollectionTest {
         assertThat(TestEngine.allUnitTests()).contains(PluginUnit.class, PluginUnit2.class);
         assertThat(TestEngine.allFunctionalTests()).contains(PluginFunc.class, PluginFunc2.class);
     }
+
+    @Test
+    public void onlyPluginsOverridingAHookAreCalled() {
+        PluginCollection pc = new PluginCollection();
+        InvocationPlugin invocationPlugin = new InvocationPlugin();
+        LegacyBinderPlugin binderPlugin = new LegacyBinderPlugin();
+        pc.addPlugin(invocationPlugin);
+        pc.addPlugin(binderPlugin);
+        pc.addPlugin(new TestPlugin());
+
+        assertThat(pc.hooks.beforeInvocation).containsOnly(invocationPlugin);
+        assertThat(pc.hooks.invocationFinally).containsOnly(invocationPlugin);
+        assertThat(pc.hooks.afterInvocation).isEmpty();
+        // The deprecated bind methods are still called
+        assertThat(pc.hooks.bind).containsOnly(binderPlugin);
+        assertThat(pc.hooks.bindBean).isEmpty();
+
+        pc.beforeInvocation();
+        pc.invocationFinally();
+        assertThat(invocationPlugin.calls).isEqualTo(2);
+
+        pc.disablePlugin(invocationPlugin);
+        pc.beforeInvocation();
+        assertThat(pc.hooks.beforeInvocation).isEmpty();
+        assertThat(invocationPlugin.calls).isEqualTo(2);
+
+        pc.enablePlugin(invocationPlugin);
+        pc.beforeInvocation();
+        assertThat(invocationPlugin.calls).isEqualTo(3);
+    }
+
+    @Test
+    public void filtersAreComposedOnceUntilPluginsChange() {
+        PluginCollection pc = new PluginCollection();
+        assertThat(pc.composeFilters().isDefined()).isFalse();
+
+        FilterPlugin filterPlugin = new FilterPlugin();
+        pc.addPlugin(filterPlugin);
+        F.Option<PlayPlugin.Filter<Object>> filters = pc.composeFilters();
+
+        assertThat(filters.isDefined()).isTrue();
+        assertThat(pc.<Object> composeFilters().get()).isSameAs(filters.get());
+
+        pc.disablePlugin(filterPlugin);
+        assertThat(pc.composeFilters().isDefined()).isFalse();
+    }
+
+    @Test
+    public void pluginsDetectingTheirOwnChangesAreFound() {
+        PluginCollection pc = new PluginCollection();
+        pc.addPlugin(new ConfigurationChangeWatcherPlugin());
+        pc.addPlugin(new MessagesPlugin());
+        assertThat(pc.hasUnwatchedChangeDetectors()).isFalse();
+
+        ChangeDetectingPlugin detector = new ChangeDetectingPlugin();
+        pc.addPlugin(detector);
+        assertThat(pc.hasUnwatchedChangeDetectors()).isTrue();
+
+        pc.disablePlugin(detector);
+        assertThat(pc.hasUnwatchedChangeDetectors()).isFalse();
+    }
+}
+
+class ChangeDetectingPlugin extends PlayPlugin {
+
+    @Override
+    public void detectChange() {
+    }
+}
+
+class InvocationPlugin extends PlayPlugin {
+
+    int calls;
+
+    @Override
+    public void beforeInvocation() {
+        calls++;
+    }
+
+    @Override
+    public void invocationFinally() {
+        calls++;
+    }
+}
+
+class LegacyBinderPlugin extends PlayPlugin {
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public Object bind(String name, Class clazz, Type type, Annotation[] annotations, Map<String, String[]> params) {
+        return null;
+    }
+}
+
+class FilterPlugin extends PlayPlugin {
+
+    @Override
+    public Filter getFilter() {
+        return new Filter<Object>("filter") {
+            @Override
+            public Object withinFilter(F.Function0<Object> fct) throws Throwable {
+                return fct.apply();
+            }
+        };
+    }
 }
 
 class LegacyPlugin extends PlayPlugin {
@@ -0,0 +1,189 @@
+package play.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import play.PlayBuilder;
+import play.mvc.ActionInvoker;
+import play.mvc.Http;
+import play.mvc.Router;
+import play.mvc.results.RenderTemplate;
+import play.templates.Template;
+import play.templates.TemplateLoader;
+
+public class AccessLogTest {
+
+    private Path directory;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("logs");
+        file = directory.resolve("access.log").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    private AccessLog accessLog(String... settings) {
+        Properties configuration = new Properties();
+        configuration.setProperty("http.accessLog", "true");
+        configuration.setProperty("http.accessLog.path", file.getAbsolutePath());
+        for (int i = 0; i < settings.length; i += 2) {
+            configuration.setProperty(settings[i], settings[i + 1]);
+        }
+        AccessLog accessLog = new AccessLog(configuration);
+        accessLog.start();
+        return accessLog;
+    }
+
+    private static Http.Request request(String url) {
+        Http.Request request = new Http.Request();
+        request.method = "GET";
+        request.url = url;
+        request.remoteAddress = "10.0.0.1";
+        return request;
+    }
+
+    private List<String> lines(File log) throws IOException {
+        return Files.readAllLines(log.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void eachRequestIsLoggedAsJsonWithItsTimings() throws Exception {
+        AccessLog accessLog = accessLog();
+        Http.Request request = request("/products/42?\"quoted\"");
+        AccessLog.Entry entry = accessLog.start(request, System.nanoTime(), null);
+        assertEquals(entry, AccessLog.entry(request));
+
+        entry.dequeued();
+        Router.Route route = new Router.Route();
+        route.method = "GET";
+        route.path = "/products/{id}";
+        request.args.put(ActionInvoker.ROUTE, route);
+        request.action = "Shop.show";
+        entry.routed();
+        long start = System.nanoTime();
+        request.args.put(RenderTemplate.RENDER_TIME, 2000000L);
+        Thread.sleep(5);
+        entry.executed(start);
+        entry.written(request, 200, 1234);
+        // Only once
+        entry.written(request, 500, 0);
+        accessLog.stop();
+
+        List<String> lines = lines(file);
+        assertEquals(1, lines.size());
+        JsonObject line = new JsonParser().parse(lines.get(0)).getAsJsonObject();
+        assertEquals(entry.requestId(), line.get("id").getAsString());
+        assertEquals("10.0.0.1", line.get("remote").getAsString());
+        assertEquals("GET", line.get("method").getAsString());
+        assertEquals("/products/42?\"quoted\"", line.get("uri").getAsString());
+        assertEquals("GET /products/{id}", line.get("route").getAsString());
+        assertEquals("Shop.show", line.get("action").getAsString());
+        assertEquals(200, line.get("status").getAsInt());
+        assertEquals(1234, line.get("bytes").getAsLong());
+        assertEquals(2000, line.get("render_us").getAsLong());
+        assertTrue(line.get("action_us").getAsLong() >= 5000);
+        assertTrue(line.get("total_us").getAsLong() >= line.get("action_us").getAsLong());
+        for (String timing : new String[] { "queue_us", "route_us", "write_us" }) {
+            assertTrue(timing, line.has(timing));
+        }
+    }
+
+    @Test
+    public void theRequestIdIsTakenFromTheRequest() throws Exception {
+        AccessLog accessLog = accessLog();
+        AccessLog.Entry forwarded = accessLog.start(request("/"), System.nanoTime(), "abc-123");
+        AccessLog.Entry generated = accessLog.start(request("/"), System.nanoTime(), null);
+        AccessLog.Entry other = accessLog.start(request("/"), System.nanoTime(), null);
+        accessLog.stop();
+
+        assertEquals("abc-123", forwarded.requestId());
+        assertFalse(generated.requestId().equals(other.requestId()));
+    }
+
+    @Test
+    public void errorsAreLoggedWhateverTheSampling() throws Exception {
+        AccessLog accessLog = accessLog("http.accessLog.sampleRate", "0");
+        for (int i = 0; i < 10; i++) {
+            Http.Request request = request("/" + i);
+            accessLog.start(request, System.nanoTime(), null).written(request, i == 5 ? 500 : 200, 10);
+        }
+        accessLog.stop();
+
+        List<String> lines = lines(file);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0), lines.get(0).contains("\"uri\":\"/5\""));
+    }
+
+    @Test
+    public void theFileIsRotatedWhenFull() throws Exception {
+        AccessLog accessLog = accessLog("http.accessLog.maxSize", "1000", "http.accessLog.maxFiles", "2");
+        for (int i = 0; i < 40; i++) {
+            Http.Request request = request("/" + i);
+            accessLog.start(request, System.nanoTime(), null).written(request, 200, 10);
+        }
+        accessLog.stop();
+
+        assertTrue(file.length() <= 1000);
+        assertTrue(new File(file.getPath() + ".1").length() <= 1000);
+        assertTrue(new File(file.getPath() + ".2").exists());
+        assertFalse(new File(file.getPath() + ".3").exists());
+        assertTrue(lines(file).get(lines(file).size() - 1).contains("\"uri\":\"/39\""));
+    }
+
+    @Test
+    public void theFileIsTruncatedWhenFullWithoutRotatedFiles() throws Exception {
+        AccessLog accessLog = accessLog("http.accessLog.maxSize", "1000", "http.accessLog.maxFiles", "0");
+        for (int i = 0; i < 40; i++) {
+            Http.Request request = request("/" + i);
+            accessLog.start(request, System.nanoTime(), null).written(request, 200, 10);
+        }
+        accessLog.stop();
+
+        assertTrue(file.length() <= 1000);
+        assertFalse(new File(file.getPath() + ".1").exists());
+        assertTrue(lines(file).get(lines(file).size() - 1).contains("\"uri\":\"/39\""));
+    }
+
+    @Test
+    public void theRenderTimeIsOnlyKeptForLoggedRequests() {
+        new PlayBuilder().build();
+        Template template = TemplateLoader.loadString("Hello");
+        Http.Request request = request("/");
+        Http.Request.current.set(request);
+        try {
+            new RenderTemplate(template, new HashMap<String, Object>());
+            assertFalse(request.args.containsKey(RenderTemplate.RENDER_TIME));
+
+            AccessLog accessLog = accessLog();
+            accessLog.start(request, System.nanoTime(), null);
+            new RenderTemplate(template, new HashMap<String, Object>());
+            assertTrue(request.args.containsKey(RenderTemplate.RENDER_TIME));
+            accessLog.stop();
+        } finally {
+            Http.Request.current.remove();
+        }
+    }
+}
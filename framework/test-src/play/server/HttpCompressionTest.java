@@ -0,0 +1,216 @@
+package play.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.DefaultHttpResponse;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.jboss.netty.handler.stream.ChunkedInput;
+import org.jboss.netty.handler.stream.ChunkedStream;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpCompressionTest {
+
+    private HttpCompression compression;
+    private HttpRequest request;
+    private HttpResponse response;
+    private byte[] page;
+
+    @Before
+    public void setUp() {
+        Properties configuration = new Properties();
+        configuration.setProperty("play.netty.compression", "true");
+        configuration.setProperty("play.netty.compression.types", "text/*, application/json");
+        compression = new HttpCompression(configuration);
+
+        request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        request.headers().set("Accept-Encoding", "gzip, deflate");
+        response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set("Content-Type", "text/html; charset=utf-8");
+
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            html.append("<tr><td class=\"name\">Product ").append(i).append("</td><td class=\"price\">").append(i * 3).append(" EUR</td></tr>\n");
+        }
+        page = html.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Read the body of a response sent in HTTP chunks
+     */
+    private static byte[] dechunk(ChunkedInput input) throws Exception {
+        ByteArrayOutputStream framed = new ByteArrayOutputStream();
+        while (!input.isEndOfInput()) {
+            ChannelBuffer buffer = (ChannelBuffer) input.nextChunk();
+            if (buffer != null) {
+                buffer.readBytes(framed, buffer.readableBytes());
+            }
+        }
+        byte[] bytes = framed.toByteArray();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int i = 0;
+        while (true) {
+            int eol = i;
+            while (bytes[eol] != '\r') {
+                eol++;
+            }
+            int size = Integer.parseInt(new String(bytes, i, eol - i, StandardCharsets.US_ASCII), 16);
+            assertTrue("Empty chunk before the end", size > 0 || eol + 4 == bytes.length);
+            if (size == 0) {
+                return body.toByteArray();
+            }
+            body.write(bytes, eol + 2, size);
+            i = eol + 2 + size + 2;
+        }
+    }
+
+    @Test
+    public void theEncodingIsNegotiated() {
+        assertEquals("gzip", HttpCompression.accepted("gzip, deflate, br"));
+        assertEquals("deflate", HttpCompression.accepted("deflate"));
+        assertEquals("deflate", HttpCompression.accepted("gzip;q=0.5, deflate"));
+        assertEquals("gzip", HttpCompression.accepted("x-gzip"));
+        assertEquals("gzip", HttpCompression.accepted("*"));
+        assertEquals("deflate", HttpCompression.accepted("gzip;q=0, *;q=0.1"));
+        assertNull(HttpCompression.accepted("identity"));
+        assertNull(HttpCompression.accepted("gzip;q=0"));
+        assertNull(HttpCompression.accepted(null));
+    }
+
+    @Test
+    public void onlyTheAllowedTypesAreCompressed() {
+        assertTrue(compression.compressible("text/html"));
+        assertTrue(compression.compressible("Application/JSON; charset=utf-8"));
+        assertTrue(compression.compressible("text/plain"));
+        assertFalse(compression.compressible("application/xml"));
+        assertFalse(compression.compressible("application/gzip"));
+        assertFalse(compression.compressible(null));
+        assertTrue(new HttpCompression(new Properties()).compressible("image/svg+xml"));
+    }
+
+    @Test
+    public void responsesAreCompressedWhenAllowedAndLargeEnough() {
+        assertEquals("gzip", compression.encoding(request, response, page.length));
+        assertEquals("Accept-Encoding", response.headers().get("Vary"));
+
+        response.headers().set("Vary", "Cookie");
+        request.headers().set("Accept-Encoding", "identity");
+        assertNull(compression.encoding(request, response, -1));
+        // The response still depends on Accept-Encoding
+        assertEquals("Cookie, Accept-Encoding", response.headers().get("Vary"));
+
+        request.headers().set("Accept-Encoding", "gzip");
+        assertNull(compression.encoding(request, response, 100));
+        assertNull(new HttpCompression(new Properties()).encoding(request, response, page.length));
+        assertNull(compression.encoding(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.HEAD, "/"), response, page.length));
+
+        response.setStatus(HttpResponseStatus.NOT_MODIFIED);
+        assertNull(compression.encoding(request, response, page.length));
+
+        response.setStatus(HttpResponseStatus.OK);
+        response.headers().set("Content-Encoding", "gzip");
+        assertNull(compression.encoding(request, response, page.length));
+    }
+
+    @Test
+    public void responsesAreCompressedAtOnce() throws IOException {
+        byte[] gzipped = compression.compress(page, HttpCompression.GZIP);
+        assertTrue(gzipped.length < page.length / 4);
+        assertArrayEquals(page, gunzip(gzipped));
+        // The deflater of the thread is reused
+        assertArrayEquals(page, gunzip(compression.compress(page, HttpCompression.GZIP)));
+        assertArrayEquals(new byte[0], gunzip(compression.compress(new byte[0], HttpCompression.GZIP)));
+
+        byte[] deflated = compression.compress(page, HttpCompression.DEFLATE);
+        assertArrayEquals(page, IOUtils.toByteArray(new InflaterInputStream(new ByteArrayInputStream(deflated))));
+    }
+
+    @Test
+    public void flushedChunksCanBeReadAtOnce() throws Exception {
+        HttpCompression.Compressor compressor = compression.compressor(HttpCompression.DEFLATE);
+        byte[] first = compressor.compress("Hello ".getBytes(StandardCharsets.UTF_8), true);
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(first);
+        byte[] inflated = new byte[100];
+        assertEquals("Hello ", new String(inflated, 0, inflater.inflate(inflated), StandardCharsets.UTF_8));
+
+        byte[] second = compressor.compress("World".getBytes(StandardCharsets.UTF_8), true);
+        byte[] last = compressor.finish();
+        inflater.setInput(second);
+        assertEquals("World", new String(inflated, 0, inflater.inflate(inflated), StandardCharsets.UTF_8));
+        inflater.setInput(last);
+        inflater.inflate(inflated);
+        assertTrue(inflater.finished());
+        inflater.end();
+    }
+
+    @Test
+    public void chunkedResponsesAreCompressedIncrementally() throws Exception {
+        PlayHandler.LazyChunkedInput lazy = new PlayHandler.LazyChunkedInput();
+        lazy.compressor = compression.compressor(HttpCompression.GZIP);
+        lazy.writeChunk(page);
+        lazy.writeChunk(new byte[0]);
+        lazy.writeChunk(page);
+        lazy.close();
+
+        ByteArrayOutputStream twice = new ByteArrayOutputStream();
+        twice.write(page);
+        twice.write(page);
+        assertArrayEquals(twice.toByteArray(), gunzip(dechunk(lazy)));
+
+        InputStream is = new ByteArrayInputStream(twice.toByteArray());
+        ChunkedInput stream = new PlayHandler.CompressedChunkedInput(new ChunkedStream(is, 1000), compression.compressor(HttpCompression.GZIP));
+        assertArrayEquals(twice.toByteArray(), gunzip(dechunk(stream)));
+        stream.close();
+    }
+
+    @Test
+    public void streamsOfUnknownLengthAreChunkedWithoutCompressor() throws Exception {
+        ChunkedInput stream = new PlayHandler.CompressedChunkedInput(new ChunkedStream(new ByteArrayInputStream(page), 1000), null);
+        assertArrayEquals(page, dechunk(stream));
+        stream.close();
+    }
+
+    @Test
+    public void strongEtagsAreSuffixedWithTheEncoding() {
+        response.headers().set("ETag", "\"1234\"");
+        HttpCompression.encoded(response, HttpCompression.GZIP);
+        assertEquals("gzip", response.headers().get("Content-Encoding"));
+        assertEquals("\"1234-gzip\"", response.headers().get("ETag"));
+
+        request.headers().set("If-None-Match", response.headers().get("ETag"));
+        HttpCompression.restoreEtags(request);
+        assertEquals("\"1234\"", request.headers().get("If-None-Match"));
+
+        HttpResponse weak = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        weak.headers().set("ETag", "W/\"1234\"");
+        HttpCompression.encoded(weak, HttpCompression.DEFLATE);
+        assertEquals("W/\"1234\"", weak.headers().get("ETag"));
+    }
+}
@@ -0,0 +1,144 @@
+package play.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.mvc.Http;
+
+public class NettyRequestHeadersTest {
+
+    private HttpRequest nettyRequest;
+
+    @Before
+    public void setUp() {
+        nettyRequest = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        nettyRequest.headers().add("Accept", "text/html");
+        nettyRequest.headers().add("X-Forwarded-For", "10.0.0.1");
+        nettyRequest.headers().add("x-forwarded-for", "10.0.0.2");
+        nettyRequest.headers().add("Cookie", "PLAY_SESSION=abc; lang=fr");
+    }
+
+    @Test
+    public void headersAreLookedUpWithoutCase() {
+        Map<String, Http.Header> headers = PlayHandler.getHeaders(nettyRequest);
+
+        assertEquals("text/html", headers.get("accept").value());
+        assertSame(headers.get("accept"), headers.get("Accept"));
+        assertEquals("accept", headers.get("Accept").name);
+        assertEquals(Arrays.asList("10.0.0.1", "10.0.0.2"), headers.get("x-forwarded-for").values);
+        assertTrue(headers.containsKey("x-forwarded-for"));
+        assertFalse(headers.containsKey("authorization"));
+        assertNull(headers.get("authorization"));
+    }
+
+    @Test
+    public void headersCanBeIteratedAndModifiedLikeAMap() {
+        Map<String, Http.Header> headers = PlayHandler.getHeaders(nettyRequest);
+        Http.Header accept = headers.get("accept");
+
+        assertEquals(3, headers.size());
+        assertTrue(headers.keySet().containsAll(Arrays.asList("accept", "x-forwarded-for", "cookie")));
+        // The headers already read are kept
+        assertSame(accept, headers.get("accept"));
+
+        headers.put("x-requested-with", new Http.Header("x-requested-with", "XMLHttpRequest"));
+        headers.remove("accept");
+
+        assertEquals("XMLHttpRequest", headers.get("x-requested-with").value());
+        assertNull(headers.get("accept"));
+        assertEquals(3, headers.size());
+        // The Netty request is left as is
+        assertEquals("text/html", nettyRequest.headers().get("Accept"));
+    }
+
+    @Test
+    public void headersReadFromSeveralThreadsAreTheSame() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            nettyRequest.headers().add("X-Header-" + i, "value " + i);
+        }
+        Map<String, Http.Header> headers = PlayHandler.getHeaders(nettyRequest);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Http.Header>>> lookups = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                lookups.add(executor.submit(() -> {
+                    List<Http.Header> read = new ArrayList<>();
+                    for (int i = 0; i < 20; i++) {
+                        read.add(headers.get("x-header-" + i));
+                    }
+                    return read;
+                }));
+            }
+            List<Http.Header> first = lookups.get(0).get();
+            for (Future<List<Http.Header>> lookup : lookups) {
+                List<Http.Header> read = lookup.get();
+                for (int i = 0; i < 20; i++) {
+                    assertEquals("value " + i, read.get(i).value());
+                    assertSame(first.get(i), read.get(i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(23, headers.size());
+    }
+
+    @Test
+    public void cookiesAreDecodedWhenRead() {
+        Map<String, Http.Cookie> cookies = PlayHandler.getCookies(nettyRequest);
+
+        assertEquals("abc", cookies.get("PLAY_SESSION").value);
+        assertEquals("fr", cookies.get("lang").value);
+        assertEquals(2, cookies.size());
+
+        Http.Cookie errors = new Http.Cookie();
+        errors.name = "PLAY_ERRORS";
+        cookies.put(errors.name, errors);
+        assertSame(errors, cookies.get("PLAY_ERRORS"));
+
+        nettyRequest.headers().remove("Cookie");
+        assertTrue(PlayHandler.getCookies(nettyRequest).isEmpty());
+    }
+
+    @Test
+    public void viewsAreSerializedAsMaps() throws Exception {
+        Map<String, Http.Header> headers = PlayHandler.getHeaders(nettyRequest);
+        Map<String, Http.Cookie> cookies = PlayHandler.getCookies(nettyRequest);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(headers);
+            oos.writeObject(cookies);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            Map<?, ?> readHeaders = (Map<?, ?>) ois.readObject();
+            Map<?, ?> readCookies = (Map<?, ?>) ois.readObject();
+            assertEquals(HashMap.class, readHeaders.getClass());
+            assertEquals(headers.keySet(), readHeaders.keySet());
+            assertEquals(cookies.keySet(), readCookies.keySet());
+        }
+    }
+}
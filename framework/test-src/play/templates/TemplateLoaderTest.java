@@ -0,0 +1,73 @@
+package play.templates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+import play.plugins.PluginCollection;
+import play.vfs.FileWatcher;
+import play.vfs.VirtualFile;
+
+public class TemplateLoaderTest {
+
+    private Path root;
+    private Play.Mode mode;
+
+    @Before
+    public void setUp() throws IOException {
+        new PlayBuilder().build();
+        root = Files.createTempDirectory("templates").toRealPath();
+        Files.createDirectories(root.resolve("app/views"));
+        Files.createDirectories(root.resolve("module/app/views"));
+        Play.pluginCollection = new PluginCollection();
+        Play.templatesPath = Collections.singletonList(VirtualFile.open(root.resolve("app/views").toFile()));
+        mode = Play.mode;
+        Play.mode = Play.Mode.DEV;
+        Play.initialized = true;
+        TemplateLoader.cleanCompiledCache();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileWatcher.shutdown();
+        TemplateLoader.cleanCompiledCache();
+        Play.initialized = false;
+        Play.mode = mode;
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    private static VirtualFile write(Path file, String content, long lastModified) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        File realFile = file.toFile();
+        realFile.setLastModified(lastModified);
+        return VirtualFile.open(realFile);
+    }
+
+    @Test
+    public void templatesOutsideTheWatchedDirectoriesAreCheckedOnEachLoad() throws IOException {
+        long now = System.currentTimeMillis();
+        Path path = root.resolve("module/app/views/tag.html");
+        VirtualFile file = write(path, "first", now - 10000);
+        Template first = TemplateLoader.load(file);
+        assertEquals("first", first.render());
+        assertSame(first, TemplateLoader.load(file));
+
+        write(path, "second", now + 10000);
+        TemplateLoader.detectChanges();
+
+        assertEquals("second", TemplateLoader.load(file).render());
+    }
+}
@@ -0,0 +1,161 @@
+package play.vfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import play.Play;
+import play.PlayBuilder;
+
+public class FileWatcherTest {
+
+    private Path root;
+    private FileWatcher watcher;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("watched").toRealPath();
+        Files.createDirectories(root.resolve("app/models"));
+        Files.createDirectories(root.resolve("conf"));
+        write(root.resolve("app/models/Item.java"), "class Item {}");
+        write(root.resolve("conf/routes"), "GET / Application.index");
+        write(root.resolve("conf/application.conf"), "application.name=test");
+        watcher = new FileWatcher();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        watcher.close();
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Wait for the watcher to see something
+     */
+    private void await(FileWatcher.Changes changes) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 10000;
+        while (!changes.hasChanges() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        // Let the other events of the same change arrive
+        Thread.sleep(200);
+    }
+
+    @Test
+    public void everythingIsCheckedAtFirst() {
+        FileWatcher.Changes changes = watcher.channel("java", Collections.singletonList(root.resolve("app")));
+
+        assertTrue(changes.hasChanges());
+        assertNull(changes.takeModified());
+        assertTrue(changes.takeStructureChanged());
+        assertFalse(changes.hasChanges());
+        assertTrue(changes.takeModified().isEmpty());
+        assertFalse(changes.takeStructureChanged());
+    }
+
+    @Test
+    public void modifiedFilesArePublishedToTheChannelsWatchingThem() throws Exception {
+        FileWatcher.Changes java = watcher.channel("java", Collections.singletonList(root.resolve("app")));
+        FileWatcher.Changes routes = watcher.channel("routes", Collections.singletonList(root.resolve("conf/routes")));
+        java.takeModified();
+        java.takeStructureChanged();
+        routes.takeModified();
+        long version = watcher.version();
+
+        write(root.resolve("app/models/Item.java"), "class Item { int a; }");
+        await(java);
+
+        assertTrue(watcher.version() > version);
+        assertEquals(Collections.singleton(root.resolve("app/models/Item.java")), java.takeModified());
+        assertFalse(java.takeStructureChanged());
+        assertFalse(routes.hasChanges());
+
+        write(root.resolve("conf/application.conf"), "application.name=other");
+        write(root.resolve("conf/routes"), "GET / Application.other");
+        await(routes);
+
+        assertEquals(Collections.singleton(root.resolve("conf/routes")), routes.takeModified());
+        assertFalse(java.hasChanges());
+    }
+
+    @Test
+    public void newDirectoriesAreWatched() throws Exception {
+        FileWatcher.Changes java = watcher.channel("java", Collections.singletonList(root.resolve("app")));
+        java.takeModified();
+        java.takeStructureChanged();
+
+        Path controllers = Files.createDirectories(root.resolve("app/controllers"));
+        write(controllers.resolve("Items.java"), "class Items {}");
+        await(java);
+
+        assertTrue(java.takeStructureChanged());
+        Set<Path> modified = java.takeModified();
+        assertTrue(modified.toString(), modified.containsAll(Arrays.asList(controllers, controllers.resolve("Items.java"))));
+
+        write(controllers.resolve("Items.java"), "class Items { int a; }");
+        await(java);
+
+        assertEquals(Collections.singleton(controllers.resolve("Items.java")), java.takeModified());
+    }
+
+    @Test
+    public void everythingIsCheckedOnceClosed() {
+        FileWatcher.Changes java = watcher.channel("java", Collections.singletonList(root.resolve("app")));
+        java.takeModified();
+        java.takeStructureChanged();
+
+        watcher.close();
+
+        assertTrue(watcher.isClosed());
+        assertTrue(java.hasChanges());
+        assertNull(java.takeModified());
+        assertNull(java.takeModified());
+        assertTrue(java.takeStructureChanged());
+    }
+
+    @Test
+    public void theApplicationWatcherIsReplacedOnceShutDown() {
+        new PlayBuilder().build();
+        Play.Mode mode = Play.mode;
+        Play.mode = Play.Mode.DEV;
+        Play.initialized = true;
+        try {
+            FileWatcher first = FileWatcher.get();
+            assertNotNull(first);
+            FileWatcher.Changes changes = FileWatcher.changes("java", Collections.<VirtualFile> emptyList());
+            changes.takeModified();
+
+            FileWatcher.shutdown();
+
+            assertTrue(first.isClosed());
+            assertTrue(changes.hasChanges());
+            FileWatcher second = FileWatcher.get();
+            assertNotNull(second);
+            assertNotSame(first, second);
+        } finally {
+            FileWatcher.shutdown();
+            Play.initialized = false;
+            Play.mode = mode;
+        }
+    }
+}
@@ -48,13 +48,31 @@ public abstract class CRUD extends Controller {
         if (page < 1) {
             page = 1;
         }
-        List<Model> objects = type.findPage(page, search, searchFields, orderBy, order, (String) request.args.get("where"));
-        Long count = type.count(search, searchFields, (String) request.args.get("where"));
-        Long totalCount = type.count(null, null, (String) request.args.get("where"));
+        String where = (String) request.args.get("where");
+        List<Model> objects;
+        Long count;
+        Long totalCount;
+        boolean hasNext;
+        if (isApproximateCount()) {
+            // Fetch one more row to know if there is a next page, instead of
+            // counting the whole table twice
+            objects = type.findPage(page, getPageSize() + 1, search, searchFields, orderBy, order, where);
+            hasNext = objects.size() > getPageSize();
+            if (hasNext) {
+                objects = objects.subList(0, getPageSize());
+            }
+            count = (long) (page - 1) * getPageSize() + objects.size();
+            totalCount = null;
+        } else {
+            objects = type.findPage(page, search, searchFields, orderBy, order, where);
+            count = type.count(search, searchFields, where);
+            totalCount = type.count(null, null, where);
+            hasNext = page * getPageSize() < count;
+        }
         try {
-            render(type, objects, count, totalCount, page, orderBy, order);
+            render(type, objects, count, totalCount, hasNext, page, orderBy, order);
         } catch (TemplateNotFoundException e) {
-            render("CRUD/list.html", type, objects, count, totalCount, page, orderBy, order);
+            render("CRUD/list.html", type, objects, count, totalCount, hasNext, page, orderBy, order);
         }
     }
 
@@ -198,6 +216,10 @@ public abstract class CRUD extends Controller {
         return Integer.parseInt(Play.configuration.getProperty("crud.pageSize", "30"));
     }
 
+    static boolean isApproximateCount() {
+        return Boolean.parseBoolean(Play.configuration.getProperty("crud.approximateCount", "false"));
+    }
+
     public static class ObjectType implements Comparable<ObjectType> {
 
         public Class<? extends Controller> controllerClass;
@@ -277,11 +299,15 @@ public abstract class CRUD extends Controller {
             return factory.count(searchFields == null ? new ArrayList<String>() : Arrays.asList(searchFields.split("[ ]")), search, where);
         }
 
-        @SuppressWarnings("unchecked")
         public List<Model> findPage(int page, String search, String searchFields, String orderBy, String order, String where) {
+            return findPage(page, getPageSize(), search, searchFields, orderBy, order, where);
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<Model> findPage(int page, int length, String search, String searchFields, String orderBy, String order, String where) {
             int offset = (page - 1) * getPageSize();
             List<String> properties = searchFields == null ? new ArrayList<String>(0) : Arrays.asList(searchFields.split("[ ]"));
-            return Model.Manager.factoryFor(entityClass).fetch(offset, getPageSize(), orderBy, order, properties, search, where);
+            return Model.Manager.factoryFor(entityClass).fetch(offset, length, orderBy, order, properties, search, where);
         }
 
         public Model findById(String id) throws Exception {